@@ -20,7 +20,7 @@ import interface_adapter.table.TableViewModel;
 import interface_adapter.cleaner.DataCleaningController;
 import interface_adapter.cleaner.DataCleaningPresenter;
 import interface_adapter.cleaner.DataCleaningViewModel;
-import use_case.dataset.CurrentTableGateway;
+import use_case.ingestion.IngestionOptions;
 import use_case.load_api.LoadApiDataGateway;
 import use_case.load_api.LoadApiInputBoundary;
 import use_case.load_api.LoadApiInteractor;
@@ -31,7 +31,6 @@ import use_case.load_csv.LoadOutputBoundary;
 import use_case.search.SearchInputBoundary;
 import use_case.search.SearchInteractor;
 import use_case.search.SearchOutputBoundary;
-import use_case.save_dataset.SaveDataSetDataAccessInterface;
 import use_case.save_dataset.SaveDataSetInputBoundary;
 import use_case.save_dataset.SaveDataSetInteractor;
 import use_case.save_dataset.SaveDataSetOutputBoundary;
@@ -45,6 +44,8 @@ import view.DataSetTableView;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 import interface_adapter.visualization.VisualizationController;
 import interface_adapter.visualization.VisualizationMetadataUpdater;
@@ -80,8 +81,13 @@ public class DataAnalysisAppBuilder {
     private VisualizationViewModel visualizationViewModel;
     private DataCleaningViewModel dataCleaningViewModel;
 
-    private final CurrentTableGateway tableGateway = new InMemoryTableGateway();
-    private final LoadApiDataGateway loadAPIDataGateway = new ApiDataAccessObject();
+    // tables whose cells would take more than a quarter of the heap are kept in memory-mapped column files
+    private final TieredTableGateway tableGateway = new TieredTableGateway(
+            new MappedTableGateway("table_workspace"), Runtime.getRuntime().maxMemory() / 4);
+    // saves datasets and collects their edits, so it is shared by loading, saving and cleaning
+    private final FileSaveDataSetDataAccessObject datasetFiles = new FileSaveDataSetDataAccessObject("saved_datasets");
+    private final LoadApiDataGateway loadAPIDataGateway =
+            new CachingApiDataAccessObject(new ApiDataAccessObject(), "api_cache");
 
     private final DataSubsetGateway dataSubsetGateway;
     private final SummaryReportGateway summaryReportGateway;
@@ -90,11 +96,13 @@ public class DataAnalysisAppBuilder {
 
     public DataAnalysisAppBuilder() {
         cardPanel.setLayout(cardLayout);
-                // Single current dataset in memory
+                // Single current dataset, on the heap or memory-mapped
 
                 // Visualization gateways, based on the single current dataset
-                this.dataSubsetGateway = new InMemoryDataSubsetGateway(tableGateway);
-                this.summaryReportGateway = new InMemorySummaryReportGateway();
+                // Repeat analyses of unchanged columns are served from the cache
+                this.dataSubsetGateway = new CachingDataSubsetGateway(
+                        new InMemoryDataSubsetGateway(tableGateway), tableGateway);
+                this.summaryReportGateway = new FileSummaryReportGateway("summary_reports");
     }
 
     public DataAnalysisAppBuilder addDataSetTableView() {
@@ -123,7 +131,7 @@ public class DataAnalysisAppBuilder {
     public DataAnalysisAppBuilder addSearchUseCase() {
         final SearchOutputBoundary searchOutputBoundary = new SearchPresenter(
                 viewManagerModel, searchViewModel);
-        final SearchInputBoundary searchInteractor = new SearchInteractor(searchOutputBoundary);
+        final SearchInputBoundary searchInteractor = new SearchInteractor(searchOutputBoundary, tableGateway);
 
         final SearchController searchController = new SearchController(searchInteractor);
         dataSetTableView.setSearchController(searchController);
@@ -142,11 +150,14 @@ public class DataAnalysisAppBuilder {
 
     public DataAnalysisAppBuilder addLoadUseCase() {
         final LoadOutputBoundary loadOutputBoundary = new LoadPresenter(loadViewModel);
-        final LoadInputBoundary loadInteractor = new LoadInteractor(loadOutputBoundary, tableGateway);
+        final IngestionOptions ingestionOptions = new IngestionOptions(Runtime.getRuntime().availableProcessors());
+        final LoadInputBoundary loadInteractor = new LoadInteractor(loadOutputBoundary, tableGateway, ingestionOptions,
+                datasetFiles);
         LoadController loadController = new LoadController(loadInteractor);
         dataSetTableView.setLoadController(loadController);
         final LoadApiOutputBoundary loadAPIOutputBoundary = new LoadApiPresenter(loadAPIViewModel);
-        final LoadApiInputBoundary loadAPIInteractor = new LoadApiInteractor(loadAPIOutputBoundary, loadAPIDataGateway, tableGateway);
+        final LoadApiInputBoundary loadAPIInteractor = new LoadApiInteractor(loadAPIOutputBoundary, loadAPIDataGateway, tableGateway,
+                ingestionOptions);
         LoadApiController loadAPIController = new LoadApiController(loadAPIInteractor);
         dataSetTableView.setLoadAPIController(loadAPIController);
         return this;
@@ -154,8 +165,7 @@ public class DataAnalysisAppBuilder {
 
     public DataAnalysisAppBuilder addSaveUseCase() {
         final SaveDataSetOutputBoundary saveOutputBoundary = new SaveDataSetPresenter(saveDataSetViewModel);
-        final SaveDataSetDataAccessInterface saveDataAccess = new FileSaveDataSetDataAccessObject("saved_datasets");
-        final SaveDataSetInputBoundary saveInteractor = new SaveDataSetInteractor(saveDataAccess, saveOutputBoundary, tableGateway);
+        final SaveDataSetInputBoundary saveInteractor = new SaveDataSetInteractor(datasetFiles, saveOutputBoundary, tableGateway);
         final SaveDataSetController saveController = new SaveDataSetController(saveInteractor);
 
         dataSetTableView.setSaveController(saveController);
@@ -216,7 +226,8 @@ public class DataAnalysisAppBuilder {
                 new SummaryStatisticsInteractor(
                         dataSubsetGateway,
                         summaryReportGateway,
-                        statisticsPresenter
+                        statisticsPresenter,
+                        tableGateway
                 );
 
         SummaryStatisticsController statisticsController =
@@ -237,9 +248,9 @@ public class DataAnalysisAppBuilder {
         DataCleaningOutputBoundary dataCleaningPresenter =
                 new DataCleaningPresenter(dataCleaningViewModel);
 
-        // Create interactor with tableGateway and presenter
+        // Create interactor with tableGateway, presenter and the journal of the saved file
         DataCleaningInputBoundary dataCleaningInteractor =
-                new DataCleanerInteractor(tableGateway, dataCleaningPresenter);
+                new DataCleanerInteractor(tableGateway, dataCleaningPresenter, datasetFiles);
 
         // Create controller
         DataCleaningController dataCleaningController =
@@ -263,6 +274,14 @@ public class DataAnalysisAppBuilder {
     public JFrame build() {
         final JFrame application = new JFrame("Data Analysis Platform");
         application.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        application.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // closing without saving drops the edits, which a crash would have kept for the next open
+                datasetFiles.discardUnsavedEdits();
+                tableGateway.close();
+            }
+        });
         application.add(cardPanel);
 
         viewManagerModel.setActiveViewName(dataSetTableView.getViewName());
@@ -1,99 +1,337 @@
 package data_access;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import use_case.load_api.LoadApiDataGateway;
 
+/**
+ * Loads CSV resources from a CKAN instance over one shared asynchronous HTTP client.
+ * The client reuses connections, prefers HTTP/2 and asks for gzip-encoded responses.
+ * The top search result is loaded from its first CSV resource. Only when the resource names mark
+ * that resource as one numbered part of a table ("Permits part 1", "permits-pt2.csv") are the other
+ * parts downloaded as well, in parallel, and streamed as one CSV in part order; other CSV resources,
+ * such as the same table in another projection, are never appended.
+ */
 public class ApiDataAccessObject implements LoadApiDataGateway {
-    private static final String SEARCH_API =
-            "https://ckan0.cf.opendata.inter.prod-toronto.ca/api/3/action/package_search?q=";
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
 
-    private static final String PACKAGE_API =
-            "https://ckan0.cf.opendata.inter.prod-toronto.ca/api/3/action/package_show?id=";
+    private static final String DEFAULT_BASE_URL =
+            "https://ckan0.cf.opendata.inter.prod-toronto.ca/api/3/action/";
+    private static final int HTTP_OK = 200;
+    // a table name, then "part" or "pt" and the part number, optionally followed by "of" and the count
+    private static final Pattern PART_NAME = Pattern.compile(
+            "(.*?)[\\s._-]*\\b(?:part|pt)[\\s._-]*(\\d+)(?:\\s*of\\s*\\d+)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSV_EXTENSION = Pattern.compile("\\.csv$", Pattern.CASE_INSENSITIVE);
+
+    private final String searchApi;
+    private final String packageApi;
+    private final Duration requestTimeout;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    public ApiDataAccessObject() {
+        this(DEFAULT_BASE_URL);
+    }
+
+    /**
+     * Creates a gateway for a CKAN instance.
+     * @param baseUrl the action API root, ending in "/api/3/action/"
+     */
+    public ApiDataAccessObject(String baseUrl) {
+        this(baseUrl, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Creates a gateway for a CKAN instance.
+     * @param baseUrl the action API root, ending in "/api/3/action/"
+     * @param connectTimeout maximum time to establish a connection
+     * @param requestTimeout maximum time to wait for the response headers of a request
+     */
+    public ApiDataAccessObject(String baseUrl, Duration connectTimeout, Duration requestTimeout) {
+        this.searchApi = baseUrl + "package_search?rows=1&q=";
+        this.packageApi = baseUrl + "package_show?id=";
+        this.requestTimeout = requestTimeout;
+        this.executor = Executors.newCachedThreadPool(task -> {
+            final Thread thread = new Thread(task, "api-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
 
     @Override
     public String getCsv(String datasetName) {
         String rtrn;
+        try (InputStream csv = openCsv(datasetName)) {
+            rtrn = new String(csv.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        catch (IOException ex) {
+            rtrn = ex.getMessage();
+        }
+        return rtrn;
+    }
+
+    @Override
+    public InputStream openCsv(String datasetName) throws IOException {
+        final CsvPackage csvPackage;
         try {
-            final String datasetId = searchDataset(datasetName);
-            if (datasetId == null) {
-                rtrn = "Dataset not found.";
-            }
-            else {
-                final String csvUrl = findCsvResource(datasetId);
-                if (csvUrl == null) {
-                    rtrn = "Dataset found, but no CSV resource available.";
-                }
-                else {
-                    rtrn = fetchUrl(csvUrl);
+            csvPackage = findCsvPackage(datasetName);
+            if (csvPackage != null && !csvPackage.getResources().isEmpty()) {
+                final List<CompletableFuture<InputStream>> parts = new ArrayList<>();
+                for (CsvResource resource : csvPackage.getResources()) {
+                    parts.add(sendAsync(resource.getUrl(), Map.of()).thenApply(ApiDataAccessObject::body));
                 }
+                return new CsvPartsInputStream(parts);
             }
         }
         catch (IOException ex) {
-            rtrn = "Error: " + ex.getMessage();
+            throw new IOException(ERROR_PREFIX + ex.getMessage(), ex);
         }
-        return rtrn;
+
+        if (csvPackage == null) {
+            throw new IOException(DATASET_NOT_FOUND);
+        }
+        throw new IOException(NO_CSV_RESOURCE);
     }
 
-    // Search dataset using CKAN full-text search
-    private static String searchDataset(String name) throws IOException {
-        final String json = fetchUrl(SEARCH_API + name.replace(" ", "+"));
+    /**
+     * Returns the executor the HTTP client runs its handlers on, for other blocking work on responses.
+     * @return the client's executor
+     */
+    Executor executor() {
+        return executor;
+    }
 
-        final JSONObject root = new JSONObject(json);
+    /**
+     * Searches for a dataset and looks up the package of the top result.
+     * @param name the search text
+     * @return the top package with the CSV resources of its table, or null if the search found nothing
+     * @throws IOException if a request fails
+     */
+    CsvPackage findCsvPackage(String name) throws IOException {
+        final JSONObject root = new JSONObject(fetchJson(searchApi + URLEncoder.encode(name, StandardCharsets.UTF_8)));
         final JSONArray results = root.getJSONObject("result").getJSONArray("results");
-
-        final String rtrn;
         if (results.isEmpty()) {
-            rtrn = null;
-        }
-        else {
-            rtrn = results.getJSONObject(0).getString("id");
+            return null;
         }
-        return rtrn;
+        return findPackage(results.getJSONObject(0).getString("id"));
     }
 
-    // Retrieve dataset info and find the first CSV resource
-    private static String findCsvResource(String datasetId) throws IOException {
-        final String json = fetchUrl(PACKAGE_API + datasetId);
+    /**
+     * Retrieves a package and picks the CSV resources of its table, see {@link #tableParts(List)}.
+     * @param datasetId the package id
+     * @return the package; its resources are empty if it has no CSV resource
+     * @throws IOException if the request fails
+     */
+    CsvPackage findPackage(String datasetId) throws IOException {
+        return Futures.await(sendAsync(packageApi + URLEncoder.encode(datasetId, StandardCharsets.UTF_8), Map.of())
+                .thenApply(response -> {
+                    final JSONObject result = new JSONObject(readString(body(response))).getJSONObject("result");
+                    final JSONArray resources = result.getJSONArray("resources");
 
-        final JSONObject root = new JSONObject(json);
-        final JSONArray resources = root.getJSONObject("result").getJSONArray("resources");
+                    final List<CsvResource> rtrn = new ArrayList<>();
+                    for (int i = 0; i < resources.length(); i++) {
+                        final JSONObject res = resources.getJSONObject(i);
+                        final String format = res.optString("format").toLowerCase();
 
-        String rtrn = null;
-        for (int i = 0; i < resources.length(); i++) {
-            final JSONObject res = resources.getJSONObject(i);
-            final String format = res.optString("format").toLowerCase();
+                        if ("csv".equals(format)) {
+                            rtrn.add(new CsvResource(res.optString("name", ""), res.getString("url"),
+                                    res.optString("last_modified", null)));
+                        }
+                    }
+                    return new CsvPackage(datasetId, result.optString("metadata_modified", null),
+                            tableParts(rtrn));
+                }));
+    }
 
-            if ("csv".equals(format)) {
-                rtrn = res.getString("url");
-                break;
+    /**
+     * Picks the resources that hold one table: the first CSV resource and, if its name ends in a part
+     * number, the resources named as other parts of the same table, ordered by part number.
+     * A part number that occurs twice keeps its first resource.
+     * @param resources the CSV resources of a package in order
+     * @return the resources to load
+     */
+    static List<CsvResource> tableParts(List<CsvResource> resources) {
+        if (resources.isEmpty()) {
+            return resources;
+        }
+        final Matcher first = PART_NAME.matcher(tableName(resources.get(0)));
+        if (!first.matches()) {
+            return List.of(resources.get(0));
+        }
+        final String table = first.group(1).toLowerCase(Locale.ROOT);
+        final List<CsvResource> parts = new ArrayList<>();
+        final List<Long> numbers = new ArrayList<>();
+        for (CsvResource resource : resources) {
+            final Matcher part = PART_NAME.matcher(tableName(resource));
+            if (part.matches() && part.group(1).toLowerCase(Locale.ROOT).equals(table)) {
+                final long number = Long.parseLong(part.group(2));
+                if (!numbers.contains(number)) {
+                    parts.add(resource);
+                    numbers.add(number);
+                }
             }
         }
+        final List<Integer> order = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(numbers::get));
+        final List<CsvResource> rtrn = new ArrayList<>(parts.size());
+        for (int i : order) {
+            rtrn.add(parts.get(i));
+        }
         return rtrn;
     }
 
-    // HTTP GET helper
-    private static String fetchUrl(String urlString) throws IOException {
-        final URL url = new URL(urlString);
-        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
+    // the resource name without a .csv extension, or the file name of its url if it has no name
+    private static String tableName(CsvResource resource) {
+        String name = resource.getName();
+        if (name == null || name.isBlank()) {
+            name = resource.getUrl().substring(resource.getUrl().lastIndexOf('/') + 1);
+        }
+        return CSV_EXTENSION.matcher(name.trim()).replaceFirst("");
+    }
 
-        final StringBuilder sb = new StringBuilder();
-        try (BufferedReader reader =
-                     new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
+    private String fetchJson(String url) throws IOException {
+        return Futures.await(sendAsync(url, Map.of()).thenApply(response -> readString(body(response))));
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
+    /**
+     * Starts an asynchronous GET whose body is streamed as it arrives.
+     * @param url the url to request
+     * @param headers extra request headers
+     * @return the pending response
+     */
+    CompletableFuture<HttpResponse<InputStream>> sendAsync(String url, Map<String, String> headers) {
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        headers.forEach(request::header);
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Returns the decoded body of a successful response.
+     * @param response the response
+     * @return the body, decompressed if the server used gzip
+     * @throws UncheckedIOException if the status is not 200 or the body cannot be decoded
+     */
+    static InputStream body(HttpResponse<InputStream> response) {
+        try {
+            if (response.statusCode() != HTTP_OK) {
+                response.body().close();
+                throw new IOException("Server returned HTTP " + response.statusCode() + " for " + response.uri());
+            }
+            final boolean gzip = response.headers().firstValue("Content-Encoding")
+                    .map("gzip"::equalsIgnoreCase).orElse(false);
+            if (gzip) {
+                return new GZIPInputStream(response.body());
             }
+            return response.body();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String readString(InputStream body) {
+        try (body) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * A package chosen from the search results, with the CSV resources of its table.
+     */
+    static final class CsvPackage {
+        private final String id;
+        private final String modified;
+        private final List<CsvResource> resources;
+
+        CsvPackage(String id, String modified, List<CsvResource> resources) {
+            this.id = id;
+            this.modified = modified;
+            this.resources = resources;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the package's metadata_modified timestamp, or null if CKAN does not report one.
+         */
+        String getModified() {
+            return modified;
+        }
+
+        List<CsvResource> getResources() {
+            return resources;
+        }
+    }
+
+    /**
+     * A CSV resource listed by package_show.
+     */
+    static final class CsvResource {
+        private final String name;
+        private final String url;
+        private final String lastModified;
+
+        CsvResource(String name, String url, String lastModified) {
+            this.name = name;
+            this.url = url;
+            this.lastModified = lastModified;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the resource's last_modified timestamp, or null if CKAN does not report one.
+         */
+        String getLastModified() {
+            return lastModified;
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,527 @@
+package data_access;
+
+import entity.BooleanColumnVector;
+import entity.CategoricalColumnVector;
+import entity.Column;
+import entity.ColumnVector;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataType;
+import entity.DateColumnVector;
+import entity.NumericColumnVector;
+import entity.RowShape;
+import use_case.dataset.DataSetDataAccessInterface;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Stores DataSets in a binary columnar file that is loaded without any text parsing.
+ * Rows are split into row groups of fixed size, and every column chunk of a group carries its
+ * min/max and missing-cell count in the footer, so readers that filter rows can skip whole groups.
+ * <p>
+ * Layout, little-endian:
+ * <pre>
+ * int magic "DSB1", int version, int columnCount, int rowCount
+ * one chunk per row group and column:
+ *   missing bitmap and null bitmap, each an int word count followed by the long words
+ *   int verbatim cell count, then per cell int row within the group and string text
+ *   NUMERIC double[], then byte 1 followed by a byte of decimal places per cell or byte 0 if all cells
+ *   use the shortest formatting | DATE int[] epoch days | BOOLEAN bitmap of the true cells |
+ *   CATEGORICAL int[] codes
+ * footer:
+ *   per column a string header, a byte data type and the categorical dictionary (int size, strings)
+ *   int irregular row count, then per row int row, int width, int extra cell count and the extra cells
+ *   int row group size, int row group count, then per group int rows and per column
+ *   long chunk offset, int chunk length, int missing count and the min and max
+ *   (two doubles, or two strings for categorical columns)
+ * long footer offset, int magic
+ * strings are an int UTF-8 byte length, -1 for null, followed by the bytes
+ * </pre>
+ * On load the chunks are memory-mapped and their typed values are bulk-copied into column vectors;
+ * columns are decoded in parallel.
+ */
+public final class BinaryDataSetDataAccessObject implements DataSetDataAccessInterface {
+    public static final String EXTENSION = ".dsb";
+    public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Root directory where datasets are stored.
+     */
+    private final Path rootDir;
+    private final int rowGroupSize;
+
+    public BinaryDataSetDataAccessObject(final String rootDirPath) {
+        this(rootDirPath, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Creates a store.
+     * @param rootDirPath directory holding the dataset files
+     * @param rowGroupSize number of rows per row group in files written by this store
+     */
+    public BinaryDataSetDataAccessObject(final String rootDirPath, final int rowGroupSize) {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("Row group size must be positive");
+        }
+        this.rootDir = Path.of(rootDirPath);
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    private Path fileFor(final String id) {
+        Path target = Path.of(id);
+
+        if (!target.isAbsolute()) {
+            target = rootDir.resolve(id);
+        }
+
+        if (!target.getFileName().toString().toLowerCase().endsWith(EXTENSION)) {
+            target = target.resolveSibling(target.getFileName() + EXTENSION);
+        }
+        return target;
+    }
+
+    @Override
+    public void saveDataSet(final String id, final DataSet dataSet) {
+        final Path file = fileFor(id);
+        final Path part = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(channel, dataSet);
+                // the rename must not reach the disk before the contents
+                channel.force(true);
+            }
+            // readers never see a half-written file
+            FileSaveDataSetDataAccessObject.moveIntoPlace(part, file);
+            FileSaveDataSetDataAccessObject.syncDirectory(file.toAbsolutePath().getParent());
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Could not save dataset " + id + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public DataSet loadDataSet(final String id) {
+        try (BinaryDataSetFile file = open(id)) {
+            final int[] groups = IntStream.range(0, file.getRowGroupCount()).toArray();
+            final ColumnVector[] vectors = readColumns(file, IntStream.range(0, file.getColumnCount()).toArray(), groups);
+            final List<Column> columns = new ArrayList<>(vectors.length);
+            for (int i = 0; i < vectors.length; i++) {
+                columns.add(new Column(vectors[i], file.getHeaders().get(i)));
+            }
+            return DataSet.columnar(columns, file.getRowCount(), file.getIrregularRows());
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Could not load dataset " + id + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public boolean exists(final String id) {
+        return Files.isRegularFile(fileFor(id));
+    }
+
+    /**
+     * Opens a stored dataset for reading selected columns and row groups.
+     * @param id identifier of the dataset
+     * @return the open file; the caller closes it
+     * @throws IOException if the file is missing, unreadable or not a binary dataset file
+     */
+    BinaryDataSetFile open(final String id) throws IOException {
+        return BinaryDataSetFile.open(fileFor(id));
+    }
+
+    /**
+     * Decodes several columns of the given row groups in parallel.
+     * @param file the open file
+     * @param columns column indexes
+     * @param groups row group indexes
+     * @return one vector per requested column, in the same order
+     * @throws IOException if a chunk cannot be read
+     */
+    static ColumnVector[] readColumns(BinaryDataSetFile file, int[] columns, int[] groups) throws IOException {
+        final ColumnVector[] vectors = new ColumnVector[columns.length];
+        try {
+            IntStream.range(0, columns.length).parallel().forEach(i -> {
+                try {
+                    vectors[i] = file.readColumn(columns[i], groups);
+                }
+                catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+        catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return vectors;
+    }
+
+    private void write(FileChannel channel, DataSet dataSet) throws IOException {
+        final List<Column> columns = dataSet.getColumns();
+        final int rowCount = dataSet.getRows().size();
+        final List<ColumnVector> vectors = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            ColumnVector vector = column.getVector();
+            if (vector == null) {
+                vector = ColumnVector.of(column.getDataType(), column.getCells());
+            }
+            if (vector.size() != rowCount) {
+                throw new IOException("Column " + column.getHeader() + " has " + vector.size()
+                        + " cells but the dataset has " + rowCount + " rows");
+            }
+            vectors.add(vector);
+        }
+
+        final BlockWriter out = new BlockWriter(channel);
+        out.putInt(BinaryDataSetFile.MAGIC);
+        out.putInt(BinaryDataSetFile.VERSION);
+        out.putInt(columns.size());
+        out.putInt(rowCount);
+
+        final int groupCount = (int) ((rowCount + (long) rowGroupSize - 1) / rowGroupSize);
+        final ChunkWriter[] writers = new ChunkWriter[vectors.size()];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new ChunkWriter(vectors.get(i), rowGroupSize);
+        }
+        final BinaryDataSetFile.ChunkInfo[][] chunks = new BinaryDataSetFile.ChunkInfo[groupCount][writers.length];
+        for (int g = 0; g < groupCount; g++) {
+            final int start = g * rowGroupSize;
+            final int end = Math.min(rowCount, start + rowGroupSize);
+            for (int c = 0; c < writers.length; c++) {
+                chunks[g][c] = writers[c].write(out, g, start, end);
+            }
+        }
+
+        final long footerOffset = out.position();
+        for (int i = 0; i < columns.size(); i++) {
+            out.putString(columns.get(i).getHeader());
+            out.putByte(vectors.get(i).getDataType().ordinal());
+            List<String> dictionary = List.of();
+            if (vectors.get(i) instanceof CategoricalColumnVector) {
+                dictionary = ((CategoricalColumnVector) vectors.get(i)).getDictionary();
+            }
+            out.putInt(dictionary.size());
+            for (String value : dictionary) {
+                out.putString(value);
+            }
+        }
+        final Map<Integer, RowShape> irregularRows = irregularRows(dataSet);
+        out.putInt(irregularRows.size());
+        for (Map.Entry<Integer, RowShape> entry : irregularRows.entrySet()) {
+            out.putInt(entry.getKey());
+            out.putInt(entry.getValue().getWidth());
+            out.putInt(entry.getValue().getExtraCells().length);
+            for (String cell : entry.getValue().getExtraCells()) {
+                out.putString(cell);
+            }
+        }
+        out.putInt(rowGroupSize);
+        out.putInt(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            out.putInt(Math.min(rowCount - g * rowGroupSize, rowGroupSize));
+            for (int c = 0; c < writers.length; c++) {
+                final BinaryDataSetFile.ChunkInfo chunk = chunks[g][c];
+                out.putLong(chunk.getOffset());
+                out.putInt(chunk.getLength());
+                out.putInt(chunk.getMissingCount());
+                if (vectors.get(c).getDataType() == DataType.CATEGORICAL) {
+                    out.putString(chunk.getMinText());
+                    out.putString(chunk.getMaxText());
+                }
+                else {
+                    out.putDouble(chunk.getMin());
+                    out.putDouble(chunk.getMax());
+                }
+            }
+        }
+        out.putLong(footerOffset);
+        out.putInt(BinaryDataSetFile.MAGIC);
+        out.flush();
+    }
+
+    static Map<Integer, RowShape> irregularRows(DataSet dataSet) {
+        if (dataSet.isColumnar()) {
+            return dataSet.getIrregularRows();
+        }
+        final int columnCount = dataSet.getColumns().size();
+        final Map<Integer, RowShape> rtrn = new HashMap<>();
+        final List<DataRow> rows = dataSet.getRows();
+        for (int row = 0; row < rows.size(); row++) {
+            final List<String> cells = rows.get(row).getCells();
+            if (cells.size() != columnCount) {
+                String[] extraCells = new String[0];
+                if (cells.size() > columnCount) {
+                    extraCells = cells.subList(columnCount, cells.size()).toArray(new String[0]);
+                }
+                rtrn.put(row, new RowShape(cells.size(), extraCells));
+            }
+        }
+        return rtrn;
+    }
+
+    /**
+     * Writes the chunks of one column group by group and computes their statistics.
+     */
+    private static final class ChunkWriter {
+        private final ColumnVector vector;
+        private final BitSet missing;
+        private final BitSet nulls;
+        private final byte[] decimalPlaces;
+        private final List<List<Map.Entry<Integer, String>>> verbatimByGroup = new ArrayList<>();
+        // rank of each categorical dictionary code in sorted order, and the code of each rank
+        private int[] rankOfCode;
+        private int[] codeOfRank;
+
+        ChunkWriter(ColumnVector vector, int rowGroupSize) {
+            this.vector = vector;
+            this.missing = vector.getMissingMask();
+            this.nulls = vector.getNullMask();
+            this.decimalPlaces = vector instanceof NumericColumnVector
+                    ? ((NumericColumnVector) vector).getDecimalPlaces() : null;
+            for (Map.Entry<Integer, String> entry : vector.getVerbatimCells().entrySet()) {
+                final int group = entry.getKey() / rowGroupSize;
+                while (verbatimByGroup.size() <= group) {
+                    verbatimByGroup.add(new ArrayList<>());
+                }
+                verbatimByGroup.get(group).add(entry);
+            }
+            if (vector instanceof CategoricalColumnVector) {
+                final List<String> dictionary = ((CategoricalColumnVector) vector).getDictionary();
+                final Integer[] order = new Integer[dictionary.size()];
+                for (int code = 0; code < order.length; code++) {
+                    order[code] = code;
+                }
+                Arrays.sort(order, Comparator.comparing(dictionary::get));
+                codeOfRank = new int[order.length];
+                rankOfCode = new int[order.length];
+                for (int rank = 0; rank < order.length; rank++) {
+                    codeOfRank[rank] = order[rank];
+                    rankOfCode[order[rank]] = rank;
+                }
+            }
+        }
+
+        private void putDecimalPlaces(BlockWriter out, int start, int end) throws IOException {
+            boolean fixed = false;
+            for (int i = start; decimalPlaces != null && i < end && !fixed; i++) {
+                fixed = decimalPlaces[i] != 0;
+            }
+            out.putByte(fixed ? 1 : 0);
+            if (fixed) {
+                out.putBytes(decimalPlaces, start, end);
+            }
+        }
+
+        BinaryDataSetFile.ChunkInfo write(BlockWriter out, int group, int start, int end) throws IOException {
+            final long offset = out.position();
+            final int rows = end - start;
+            final BitSet groupMissing = missing.get(start, end);
+            out.putBits(groupMissing);
+            out.putBits(nulls.get(start, end));
+            final List<Map.Entry<Integer, String>> verbatim =
+                    group < verbatimByGroup.size() ? verbatimByGroup.get(group) : List.of();
+            out.putInt(verbatim.size());
+            for (Map.Entry<Integer, String> entry : verbatim) {
+                out.putInt(entry.getKey() - start);
+                out.putString(entry.getValue());
+            }
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            String minText = null;
+            String maxText = null;
+            switch (vector.getDataType()) {
+                case NUMERIC -> {
+                    final NumericColumnVector numeric = (NumericColumnVector) vector;
+                    out.putDoubles(rows, i -> numeric.getDouble(start + i));
+                    putDecimalPlaces(out, start, end);
+                    for (int i = start; i < end; i++) {
+                        final double value = numeric.getDouble(i);
+                        // NaN never satisfies a comparison, so it does not widen the bounds
+                        if (!missing.get(i) && !Double.isNaN(value)) {
+                            min = Math.min(min, value);
+                            max = Math.max(max, value);
+                        }
+                    }
+                }
+                case DATE -> {
+                    final DateColumnVector dates = (DateColumnVector) vector;
+                    out.putInts(rows, i -> dates.getEpochDay(start + i));
+                    for (int i = start; i < end; i++) {
+                        if (!missing.get(i)) {
+                            min = Math.min(min, dates.getEpochDay(i));
+                            max = Math.max(max, dates.getEpochDay(i));
+                        }
+                    }
+                }
+                case BOOLEAN -> {
+                    final BooleanColumnVector booleans = (BooleanColumnVector) vector;
+                    final BitSet bits = new BitSet(rows);
+                    for (int i = start; i < end; i++) {
+                        if (booleans.getBoolean(i)) {
+                            bits.set(i - start);
+                        }
+                        if (!missing.get(i)) {
+                            final double value = booleans.getBoolean(i) ? 1 : 0;
+                            min = Math.min(min, value);
+                            max = Math.max(max, value);
+                        }
+                    }
+                    out.putBits(bits);
+                }
+                case CATEGORICAL -> {
+                    final CategoricalColumnVector categorical = (CategoricalColumnVector) vector;
+                    out.putInts(rows, i -> categorical.getCode(start + i));
+                    int minRank = Integer.MAX_VALUE;
+                    int maxRank = -1;
+                    for (int i = start; i < end; i++) {
+                        final int code = categorical.getCode(i);
+                        if (code != CategoricalColumnVector.NULL_CODE) {
+                            minRank = Math.min(minRank, rankOfCode[code]);
+                            maxRank = Math.max(maxRank, rankOfCode[code]);
+                        }
+                    }
+                    if (maxRank >= 0) {
+                        final List<String> dictionary = categorical.getDictionary();
+                        minText = dictionary.get(codeOfRank[minRank]);
+                        maxText = dictionary.get(codeOfRank[maxRank]);
+                    }
+                }
+            }
+            return new BinaryDataSetFile.ChunkInfo(offset, (int) (out.position() - offset),
+                    groupMissing.cardinality(), min, max, minText, maxText);
+        }
+    }
+
+    /**
+     * Sequential little-endian writer over a file channel with one reusable direct buffer.
+     */
+    private static final class BlockWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        BlockWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                final ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                while (wrapped.hasRemaining()) {
+                    flushed += channel.write(wrapped);
+                }
+                return;
+            }
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putBits(BitSet bits) throws IOException {
+            final long[] words = bits.toLongArray();
+            putInt(words.length);
+            for (long word : words) {
+                putLong(word);
+            }
+        }
+
+        void putDoubles(int count, IntToDoubleFunction values) throws IOException {
+            int i = 0;
+            while (i < count) {
+                ensure(Double.BYTES);
+                final int end = Math.min(count, i + buffer.remaining() / Double.BYTES);
+                for (; i < end; i++) {
+                    buffer.putDouble(values.applyAsDouble(i));
+                }
+            }
+        }
+
+        void putInts(int count, IntUnaryOperator values) throws IOException {
+            int i = 0;
+            while (i < count) {
+                ensure(Integer.BYTES);
+                final int end = Math.min(count, i + buffer.remaining() / Integer.BYTES);
+                for (; i < end; i++) {
+                    buffer.putInt(values.applyAsInt(i));
+                }
+            }
+        }
+
+        void putBytes(byte[] values, int from, int to) throws IOException {
+            int i = from;
+            while (i < to) {
+                ensure(1);
+                final int count = Math.min(to - i, buffer.remaining());
+                buffer.put(values, i, count);
+                i += count;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
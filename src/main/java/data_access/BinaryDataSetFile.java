@@ -0,0 +1,443 @@
+package data_access;
+
+import entity.BooleanColumnVector;
+import entity.CategoricalColumnVector;
+import entity.ColumnFilter;
+import entity.ColumnVector;
+import entity.DataType;
+import entity.DateColumnVector;
+import entity.NumericColumnVector;
+import entity.RowShape;
+import entity.StringPool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An open binary dataset file, see {@link BinaryDataSetDataAccessObject} for the layout.
+ * Opening reads only the footer with the schema and the row-group statistics; column chunks are
+ * memory-mapped when they are decoded, so row groups that are skipped are never read from disk.
+ */
+final class BinaryDataSetFile implements Closeable {
+    // "DSB1" read as a little-endian int
+    static final int MAGIC = 0x31425344;
+    static final int VERSION = 3;
+    static final int PREFIX_BYTES = 16;
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private static final DataType[] TYPES = DataType.values();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private int rowCount;
+    private int rowGroupSize;
+    private final List<String> headers = new ArrayList<>();
+    private final List<DataType> types = new ArrayList<>();
+    private final List<List<String>> dictionaries = new ArrayList<>();
+    private final Map<Integer, RowShape> irregularRows = new HashMap<>();
+    private int[] groupRows;
+    // [group][column]
+    private ChunkInfo[][] chunks;
+
+    private BinaryDataSetFile(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a file and reads its footer.
+     * @param file the file
+     * @return the open file; the caller closes it
+     * @throws IOException if the file cannot be read or is not a valid binary dataset file
+     */
+    static BinaryDataSetFile open(Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        final BinaryDataSetFile rtrn = new BinaryDataSetFile(file, channel);
+        try {
+            rtrn.readFooter();
+        }
+        catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        return rtrn;
+    }
+
+    private void readFooter() throws IOException {
+        final long size = channel.size();
+        if (size < PREFIX_BYTES + TRAILER_BYTES) {
+            throw new IOException(file + " is not a binary dataset file");
+        }
+        final ByteBuffer prefix = readFully(0, PREFIX_BYTES);
+        if (prefix.getInt() != MAGIC) {
+            throw new IOException(file + " is not a binary dataset file");
+        }
+        final int version = prefix.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary dataset version " + version);
+        }
+        final int columnCount = prefix.getInt();
+        rowCount = prefix.getInt();
+        final ByteBuffer trailer = readFully(size - TRAILER_BYTES, TRAILER_BYTES);
+        final long footerOffset = trailer.getLong();
+        if (trailer.getInt() != MAGIC || columnCount < 0 || rowCount < 0) {
+            throw new IOException(file + " is truncated or corrupt");
+        }
+
+        final ByteBuffer footer = map(footerOffset, size - TRAILER_BYTES - footerOffset);
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                headers.add(getString(footer));
+                types.add(typeOf(footer.get()));
+                final int dictionarySize = footer.getInt();
+                final List<String> dictionary = new ArrayList<>(dictionarySize);
+                for (int j = 0; j < dictionarySize; j++) {
+                    dictionary.add(getString(footer));
+                }
+                dictionaries.add(dictionary);
+            }
+            final int irregularCount = footer.getInt();
+            for (int i = 0; i < irregularCount; i++) {
+                final int row = footer.getInt();
+                final int width = footer.getInt();
+                final String[] extraCells = new String[footer.getInt()];
+                for (int j = 0; j < extraCells.length; j++) {
+                    extraCells[j] = getString(footer);
+                }
+                irregularRows.put(row, new RowShape(width, extraCells));
+            }
+
+            rowGroupSize = footer.getInt();
+            final int groupCount = footer.getInt();
+            groupRows = new int[groupCount];
+            chunks = new ChunkInfo[groupCount][columnCount];
+            long rows = 0;
+            for (int g = 0; g < groupCount; g++) {
+                groupRows[g] = footer.getInt();
+                rows += groupRows[g];
+                for (int c = 0; c < columnCount; c++) {
+                    chunks[g][c] = ChunkInfo.read(footer, types.get(c));
+                }
+            }
+            if (rows != rowCount || rowGroupSize <= 0) {
+                throw new IOException(file + " is corrupt");
+            }
+        }
+        catch (BufferUnderflowException ex) {
+            throw new IOException(file + " is truncated", ex);
+        }
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    int getColumnCount() {
+        return headers.size();
+    }
+
+    List<String> getHeaders() {
+        return Collections.unmodifiableList(headers);
+    }
+
+    DataType getType(int column) {
+        return types.get(column);
+    }
+
+    Map<Integer, RowShape> getIrregularRows() {
+        return irregularRows;
+    }
+
+    int getRowGroupSize() {
+        return rowGroupSize;
+    }
+
+    int getRowGroupCount() {
+        return groupRows.length;
+    }
+
+    int getGroupRows(int group) {
+        return groupRows[group];
+    }
+
+    /**
+     * Returns the number of bytes read from the file so far, footer included.
+     * @return bytes read
+     */
+    long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Finds a column by header.
+     * @param header the header
+     * @return the column index, or -1 if there is no such column
+     */
+    int findColumn(String header) {
+        return headers.indexOf(header);
+    }
+
+    /**
+     * Decides from the statistics of a row group whether any of its cells in a column can satisfy a filter.
+     * @param group row group index
+     * @param column column index
+     * @param filter the filter
+     * @return false only if no cell of the group can match
+     */
+    boolean mightMatch(int group, int column, ColumnFilter filter) {
+        final ChunkInfo chunk = chunks[group][column];
+        final DataType type = types.get(column);
+        switch (filter.getOperator()) {
+            case IS_NULL:
+            case IS_NOT_NULL:
+                return true;
+            case EQUAL:
+                return type != DataType.CATEGORICAL || chunk.minText != null && withinText(chunk, filter.getText());
+            case IN:
+                if (type != DataType.CATEGORICAL) {
+                    return true;
+                }
+                if (chunk.minText == null) {
+                    return false;
+                }
+                for (String value : filter.getValues()) {
+                    if (withinText(chunk, value)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                break;
+        }
+        if (type != DataType.NUMERIC) {
+            return true;
+        }
+        if (chunk.min > chunk.max) {
+            // the chunk has no numbers
+            return false;
+        }
+        if (filter.getOperator() == ColumnFilter.Operator.BETWEEN) {
+            return chunk.max >= filter.getNumber() && chunk.min <= filter.getUpper();
+        }
+        // all ordering comparisons are monotonic, so one of the bounds decides
+        return filter.compare(chunk.min) || filter.compare(chunk.max);
+    }
+
+    private static boolean withinText(ChunkInfo chunk, String text) {
+        return text.compareTo(chunk.minText) >= 0 && text.compareTo(chunk.maxText) <= 0;
+    }
+
+    /**
+     * Decodes one column of the given row groups into a single vector, in group order.
+     * @param column column index
+     * @param groups row group indexes
+     * @return the vector holding the rows of all groups
+     * @throws IOException if a chunk cannot be read
+     */
+    ColumnVector readColumn(int column, int[] groups) throws IOException {
+        int total = 0;
+        for (int group : groups) {
+            total += groupRows[group];
+        }
+        final DataType type = types.get(column);
+        double[] doubles = null;
+        byte[] decimalPlaces = null;
+        int[] ints = null;
+        BitSet booleans = null;
+        switch (type) {
+            case NUMERIC -> doubles = new double[total];
+            case DATE, CATEGORICAL -> ints = new int[total];
+            case BOOLEAN -> booleans = new BitSet(total);
+        }
+
+        final BitSet missing = new BitSet(total);
+        final BitSet nulls = new BitSet();
+        final Map<Integer, String> verbatim = new HashMap<>();
+        int offset = 0;
+        try {
+            for (int group : groups) {
+                final ChunkInfo info = chunks[group][column];
+                final int rows = groupRows[group];
+                final ByteBuffer chunk = map(info.offset, info.length);
+                orShifted(missing, getBits(chunk), offset);
+                orShifted(nulls, getBits(chunk), offset);
+                final int verbatimCount = chunk.getInt();
+                for (int i = 0; i < verbatimCount; i++) {
+                    final int row = chunk.getInt();
+                    verbatim.put(offset + row, getString(chunk));
+                }
+                switch (type) {
+                    case NUMERIC -> {
+                        chunk.asDoubleBuffer().get(doubles, offset, rows);
+                        chunk.position(chunk.position() + rows * Double.BYTES);
+                        if (chunk.get() != 0) {
+                            if (decimalPlaces == null) {
+                                decimalPlaces = new byte[total];
+                            }
+                            chunk.get(decimalPlaces, offset, rows);
+                        }
+                    }
+                    case DATE, CATEGORICAL -> chunk.asIntBuffer().get(ints, offset, rows);
+                    case BOOLEAN -> orShifted(booleans, getBits(chunk), offset);
+                }
+                offset += rows;
+            }
+        }
+        catch (BufferUnderflowException ex) {
+            throw new IOException(file + " is truncated", ex);
+        }
+
+        final ColumnVector vector = switch (type) {
+            case NUMERIC -> new NumericColumnVector(doubles, decimalPlaces);
+            case DATE -> new DateColumnVector(ints);
+            case BOOLEAN -> new BooleanColumnVector(booleans, total);
+            case CATEGORICAL -> new CategoricalColumnVector(ints, dictionaries.get(column), new StringPool());
+        };
+        vector.restore(total, missing, nulls, verbatim);
+        return vector;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void orShifted(BitSet target, BitSet bits, int offset) {
+        if (offset == 0) {
+            target.or(bits);
+            return;
+        }
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            target.set(offset + i);
+        }
+    }
+
+    private static DataType typeOf(byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= TYPES.length) {
+            throw new IOException("Unknown data type " + ordinal);
+        }
+        return TYPES[ordinal];
+    }
+
+    private static BitSet getBits(ByteBuffer buffer) {
+        final long[] words = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(words);
+        buffer.position(buffer.position() + words.length * Long.BYTES);
+        return BitSet.valueOf(words);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer map(long start, long length) throws IOException {
+        if (start < 0 || length < 0 || start + length > channel.size()) {
+            throw new IOException(file + " is truncated or corrupt");
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Block of " + length + " bytes is too large to map");
+        }
+        bytesRead.addAndGet(length);
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        bytesRead.addAndGet(length);
+        return buffer.flip();
+    }
+
+    /**
+     * Location and statistics of one column chunk of a row group.
+     * Numeric, date and boolean chunks keep their bounds as numbers, categorical chunks as text.
+     */
+    static final class ChunkInfo {
+        private final long offset;
+        private final int length;
+        private final int missingCount;
+        private final double min;
+        private final double max;
+        private final String minText;
+        private final String maxText;
+
+        ChunkInfo(long offset, int length, int missingCount, double min, double max,
+                  String minText, String maxText) {
+            this.offset = offset;
+            this.length = length;
+            this.missingCount = missingCount;
+            this.min = min;
+            this.max = max;
+            this.minText = minText;
+            this.maxText = maxText;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        int getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the number of cells without a typed value, nulls included.
+         */
+        int getMissingCount() {
+            return missingCount;
+        }
+
+        double getMin() {
+            return min;
+        }
+
+        double getMax() {
+            return max;
+        }
+
+        String getMinText() {
+            return minText;
+        }
+
+        String getMaxText() {
+            return maxText;
+        }
+
+        private static ChunkInfo read(ByteBuffer footer, DataType type) {
+            final long offset = footer.getLong();
+            final int length = footer.getInt();
+            final int missingCount = footer.getInt();
+            if (type == DataType.CATEGORICAL) {
+                final String minText = getString(footer);
+                return new ChunkInfo(offset, length, missingCount, Double.NaN, Double.NaN, minText, getString(footer));
+            }
+            final double min = footer.getDouble();
+            return new ChunkInfo(offset, length, missingCount, min, footer.getDouble(), null, null);
+        }
+    }
+}
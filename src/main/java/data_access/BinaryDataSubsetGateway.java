@@ -0,0 +1,235 @@
+package data_access;
+
+import entity.CategoricalColumnVector;
+import entity.ColumnFilter;
+import entity.ColumnVector;
+import entity.DataSubsetSpec;
+import entity.DataType;
+import entity.NumericColumnVector;
+import entity.RowPredicate;
+import entity.RowSelection;
+import use_case.visualization.data.CategoricalCodes;
+import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.data.NumericValues;
+import use_case.visualization.gateway.DataSubsetGateway;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DataSubsetGateway that reads subsets straight from datasets saved in the binary format.
+ * The subset id names the saved dataset. Only the requested and filtered columns are decoded,
+ * and only for row groups that contain requested rows and whose statistics show that the
+ * filters and predicate can match; the remaining groups are never read from disk.
+ */
+public class BinaryDataSubsetGateway implements DataSubsetGateway {
+
+    private final BinaryDataSetDataAccessObject store;
+    private long lastBytesRead;
+
+    public BinaryDataSubsetGateway(BinaryDataSetDataAccessObject store) {
+        this.store = store;
+    }
+
+    @Override
+    public DataSubsetData loadSubset(DataSubsetSpec spec) {
+        if (!store.exists(spec.getSubsetId())) {
+            throw new IllegalStateException("No saved dataset named " + spec.getSubsetId());
+        }
+        try (BinaryDataSetFile file = store.open(spec.getSubsetId())) {
+            final DataSubsetData rtrn = loadSubset(file, spec);
+            lastBytesRead = file.getBytesRead();
+            return rtrn;
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Returns how many bytes of the dataset file the last subset load read.
+     * @return bytes read, footer included
+     */
+    public long getLastBytesRead() {
+        return lastBytesRead;
+    }
+
+    private static DataSubsetData loadSubset(BinaryDataSetFile file, DataSubsetSpec spec) throws IOException {
+        final RowPredicate condition = spec.getCondition();
+        final List<String> filterNames = condition == null ? List.of() : condition.getColumnNames();
+        final int[] filterColumns = new int[filterNames.size()];
+        for (int i = 0; i < filterColumns.length; i++) {
+            filterColumns[i] = file.findColumn(filterNames.get(i));
+            if (filterColumns[i] < 0) {
+                throw new IllegalArgumentException("Filter column not found: " + filterNames.get(i));
+            }
+        }
+        // columns that do not exist are skipped, like the in-memory gateway does
+        final List<String> names = new ArrayList<>();
+        final Set<Integer> neededColumns = new LinkedHashSet<>();
+        for (String name : spec.getColumnNames()) {
+            final int column = file.findColumn(name);
+            if (column >= 0) {
+                names.add(name);
+                neededColumns.add(column);
+            }
+        }
+        for (int column : filterColumns) {
+            neededColumns.add(column);
+        }
+
+        // requested rows in order, or null for every row of the file
+        final RowSelection selection = spec.getRowSelection();
+        final int[] rows;
+        if (selection != null && selection.isAll() && selection.cardinality() == file.getRowCount()) {
+            rows = null;
+        }
+        else if (selection != null) {
+            rows = selection.toArray();
+        }
+        else {
+            rows = spec.getRowIndices() == null ? null
+                    : spec.getRowIndices().stream().mapToInt(Integer::intValue).toArray();
+        }
+        final int groupSize = file.getRowGroupSize();
+        final boolean[] selected = new boolean[file.getRowGroupCount()];
+        if (rows == null) {
+            Arrays.fill(selected, true);
+        }
+        else {
+            for (int row : rows) {
+                if (row < 0 || row >= file.getRowCount()) {
+                    throw new IndexOutOfBoundsException("Index " + row + " out of bounds for length "
+                            + file.getRowCount());
+                }
+                selected[row / groupSize] = true;
+            }
+        }
+        // first row of each selected group within the decoded vectors, or -1 for skipped groups
+        final int[] localStart = new int[selected.length];
+        final List<Integer> groups = new ArrayList<>();
+        int decodedRows = 0;
+        for (int g = 0; g < selected.length; g++) {
+            localStart[g] = -1;
+            if (selected[g] && (condition == null || mightMatch(file, g, condition))) {
+                groups.add(g);
+                localStart[g] = decodedRows;
+                decodedRows += file.getGroupRows(g);
+            }
+        }
+
+        final int[] columnIndexes = neededColumns.stream().mapToInt(Integer::intValue).toArray();
+        final ColumnVector[] decoded = BinaryDataSetDataAccessObject.readColumns(file, columnIndexes,
+                groups.stream().mapToInt(Integer::intValue).toArray());
+        final Map<Integer, ColumnVector> vectors = new LinkedHashMap<>();
+        for (int i = 0; i < columnIndexes.length; i++) {
+            vectors.put(columnIndexes[i], decoded[i]);
+        }
+
+        // the condition over the decoded rows; when most of them are wanted, evaluated a column at a time
+        final PredicateScan scan = condition == null ? null
+                : PredicateScan.compile(condition, name -> PredicateScan.Source.of(vectors.get(file.findColumn(name))));
+        final int rowCount = rows == null ? file.getRowCount() : rows.length;
+        final BitSet decodedMatches = scan != null && rowCount * 16L >= decodedRows
+                ? BitSet.valueOf(scan.scan(decodedRows)) : null;
+
+        // rows that survive the group pruning and match the condition, as global and decoded indexes
+        final int[] matching = new int[rowCount];
+        final int[] localRows = new int[rowCount];
+        int matched = 0;
+        for (int i = 0; i < rowCount; i++) {
+            final int row = rows == null ? i : rows[i];
+            final int group = row / groupSize;
+            if (localStart[group] < 0) {
+                continue;
+            }
+            final int local = localStart[group] + row - group * groupSize;
+            final boolean matches = scan == null || (decodedMatches != null ? decodedMatches.get(local)
+                    : scan.test(local));
+            if (matches) {
+                matching[matched] = row;
+                localRows[matched++] = local;
+            }
+        }
+        // a selection stays in ascending order, so its matching rows are kept as a selection too
+        final List<Integer> matchingRows;
+        if (selection != null) {
+            matchingRows = RowSelection.of(Arrays.copyOf(matching, matched)).asList();
+        }
+        else {
+            matchingRows = new ArrayList<>(matched);
+            for (int i = 0; i < matched; i++) {
+                matchingRows.add(matching[i]);
+            }
+        }
+
+        final int[] local = Arrays.copyOf(localRows, matched);
+        final Map<String, NumericValues> numericValues = new LinkedHashMap<>();
+        final Map<String, List<String>> categoricalColumns = new LinkedHashMap<>();
+        final Map<String, CategoricalCodes> categoricalCodes = new LinkedHashMap<>();
+        for (String name : names) {
+            final ColumnVector vector = vectors.get(file.findColumn(name));
+            if (vector.getDataType() == DataType.NUMERIC) {
+                // the decoded vector belongs to this subset alone, so the values are a view over it
+                numericValues.put(name, NumericValues.of((NumericColumnVector) vector, local));
+            }
+            else if (vector instanceof CategoricalColumnVector) {
+                final CategoricalColumnVector categorical = (CategoricalColumnVector) vector;
+                final List<String> dictionary = categorical.getDictionary();
+                final int[] codes = new int[local.length];
+                final List<String> values = new ArrayList<>(codes.length);
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = categorical.getCode(local[i]);
+                    values.add(codes[i] == CategoricalColumnVector.NULL_CODE ? null : dictionary.get(codes[i]));
+                }
+                categoricalColumns.put(name, values);
+                categoricalCodes.put(name, new CategoricalCodes(codes, dictionary));
+            }
+            else {
+                final List<String> values = new ArrayList<>(local.length);
+                for (int row : local) {
+                    values.add(vector.getString(row));
+                }
+                categoricalColumns.put(name, values);
+            }
+        }
+        return DataSubsetData.ofNumericValues(numericValues, categoricalColumns, categoricalCodes, matchingRows);
+    }
+
+    /**
+     * Decides from the group statistics whether any row of a group can satisfy a condition.
+     * A negation can only be ruled out by statistics the file does not keep, so it always might match.
+     */
+    private static boolean mightMatch(BinaryDataSetFile file, int group, RowPredicate condition) {
+        switch (condition.getKind()) {
+            case COLUMN: {
+                final ColumnFilter filter = (ColumnFilter) condition;
+                return file.mightMatch(group, file.findColumn(filter.getColumnName()), filter);
+            }
+            case AND:
+                for (RowPredicate operand : condition.getOperands()) {
+                    if (!mightMatch(file, group, operand)) {
+                        return false;
+                    }
+                }
+                return true;
+            case OR:
+                for (RowPredicate operand : condition.getOperands()) {
+                    if (mightMatch(file, group, operand)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                return true;
+        }
+    }
+}
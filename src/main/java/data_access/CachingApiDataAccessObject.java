@@ -0,0 +1,359 @@
+package data_access;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import use_case.load_api.LoadApiDataGateway;
+
+/**
+ * Loads CKAN CSV resources through a size-bounded on-disk cache.
+ * Each part of a multi-part dataset is cached and revalidated on its own, in parallel.
+ * Resource bodies are stored by URL together with the ETag and Last-Modified response headers
+ * and the resource's last_modified from package_show. A cached body is served without any
+ * request for the CSV when last_modified is unchanged; otherwise it is revalidated with a
+ * conditional GET. A part that is skipped because its header differs from the first part's is
+ * still read to its end in the background, so it is cached like the others.
+ * Dataset ids found by package_search are remembered together with the package's
+ * metadata_modified; once package_show reports a different value, the search is repeated.
+ * Least recently used bodies are evicted once the cache exceeds its size limit.
+ */
+public class CachingApiDataAccessObject implements LoadApiDataGateway {
+    public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    private static final String BODY_SUFFIX = ".csv";
+    private static final String META_SUFFIX = ".properties";
+    private static final String DATASET_IDS = "datasets.properties";
+    private static final String DATASET_ID_PREFIX = "id.";
+    private static final String DATASET_MODIFIED_PREFIX = "modified.";
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+
+    private static final String URL = "url";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String RESOURCE_LAST_MODIFIED = "resourceLastModified";
+
+    private final ApiDataAccessObject api;
+    private final Path cacheDir;
+    private final long maxBytes;
+
+    public CachingApiDataAccessObject(ApiDataAccessObject api, String cacheDirPath) {
+        this(api, Path.of(cacheDirPath), DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates the cache.
+     * @param api the gateway used for requests that miss the cache
+     * @param cacheDir directory holding the cached responses
+     * @param maxBytes upper bound on the total size of cached resource bodies
+     */
+    public CachingApiDataAccessObject(ApiDataAccessObject api, Path cacheDir, long maxBytes) {
+        this.api = api;
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public String getCsv(String datasetName) {
+        String rtrn;
+        try (InputStream csv = openCsv(datasetName)) {
+            rtrn = new String(csv.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        catch (IOException ex) {
+            rtrn = ex.getMessage();
+        }
+        return rtrn;
+    }
+
+    @Override
+    public InputStream openCsv(String datasetName) throws IOException {
+        ApiDataAccessObject.CsvPackage csvPackage = null;
+        try {
+            Files.createDirectories(cacheDir);
+            final Properties remembered = loadDatasetIds();
+            final String datasetId = remembered.getProperty(DATASET_ID_PREFIX + datasetName);
+            if (datasetId != null) {
+                try {
+                    csvPackage = api.findPackage(datasetId);
+                }
+                catch (IOException ex) {
+                    // the remembered id may be stale, search again
+                    csvPackage = null;
+                }
+                // a changed package may no longer be what the search finds
+                if (csvPackage != null && !Objects.equals(csvPackage.getModified(),
+                        remembered.getProperty(DATASET_MODIFIED_PREFIX + datasetName))) {
+                    csvPackage = null;
+                }
+            }
+            if (csvPackage == null) {
+                csvPackage = api.findCsvPackage(datasetName);
+                if (csvPackage != null) {
+                    storeDatasetId(datasetName, csvPackage);
+                }
+            }
+            if (csvPackage != null && !csvPackage.getResources().isEmpty()) {
+                final List<CompletableFuture<InputStream>> parts = new ArrayList<>();
+                for (ApiDataAccessObject.CsvResource resource : csvPackage.getResources()) {
+                    parts.add(openResource(resource));
+                }
+                return new CsvPartsInputStream(parts, api.executor());
+            }
+        }
+        catch (IOException ex) {
+            throw new IOException(ERROR_PREFIX + ex.getMessage(), ex);
+        }
+
+        if (csvPackage == null) {
+            throw new IOException(DATASET_NOT_FOUND);
+        }
+        throw new IOException(NO_CSV_RESOURCE);
+    }
+
+    private CompletableFuture<InputStream> openResource(ApiDataAccessObject.CsvResource resource)
+            throws IOException {
+        final String key = keyFor(resource.getUrl());
+        final Path body = cacheDir.resolve(key + BODY_SUFFIX);
+        final Path metaFile = cacheDir.resolve(key + META_SUFFIX);
+        final Properties meta = readProperties(metaFile);
+
+        final boolean cached = meta != null && Files.exists(body);
+        if (cached && resource.getLastModified() != null
+                && resource.getLastModified().equals(meta.getProperty(RESOURCE_LAST_MODIFIED))) {
+            return CompletableFuture.completedFuture(openCached(body));
+        }
+
+        final Map<String, String> headers = new HashMap<>();
+        if (cached) {
+            if (meta.getProperty(ETAG) != null) {
+                headers.put("If-None-Match", meta.getProperty(ETAG));
+            }
+            if (meta.getProperty(LAST_MODIFIED) != null) {
+                headers.put("If-Modified-Since", meta.getProperty(LAST_MODIFIED));
+            }
+        }
+        return api.sendAsync(resource.getUrl(), headers).thenApply(response -> {
+            try {
+                if (cached && response.statusCode() == HTTP_NOT_MODIFIED) {
+                    response.body().close();
+                    setIfPresent(meta, RESOURCE_LAST_MODIFIED, resource.getLastModified());
+                    writeProperties(metaFile, meta);
+                    return openCached(body);
+                }
+                final InputStream download = ApiDataAccessObject.body(response);
+                final Properties newMeta = new Properties();
+                newMeta.setProperty(URL, resource.getUrl());
+                setIfPresent(newMeta, ETAG, response.headers().firstValue("ETag").orElse(null));
+                setIfPresent(newMeta, LAST_MODIFIED, response.headers().firstValue("Last-Modified").orElse(null));
+                setIfPresent(newMeta, RESOURCE_LAST_MODIFIED, resource.getLastModified());
+                return new CachingInputStream(download, key, newMeta);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private InputStream openCached(Path body) throws IOException {
+        // the modification time of a body doubles as its last access time for LRU eviction
+        Files.setLastModifiedTime(body, FileTime.from(Instant.now()));
+        return Files.newInputStream(body);
+    }
+
+    /**
+     * Moves a completely downloaded body into the cache and evicts old entries.
+     */
+    private synchronized void commit(Path part, String key, Properties meta) throws IOException {
+        final Path body = cacheDir.resolve(key + BODY_SUFFIX);
+        Files.move(part, body, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeProperties(cacheDir.resolve(key + META_SUFFIX), meta);
+        evict();
+    }
+
+    private void evict() throws IOException {
+        final List<Path> bodies = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDir, "*" + BODY_SUFFIX)) {
+            for (Path entry : entries) {
+                bodies.add(entry);
+                total += Files.size(entry);
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        final List<FileTime> accessTimes = new ArrayList<>(bodies.size());
+        for (Path entry : bodies) {
+            accessTimes.add(Files.getLastModifiedTime(entry));
+        }
+        final List<Integer> order = new ArrayList<>(bodies.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(accessTimes::get));
+
+        for (int i = 0; i < order.size() && total > maxBytes; i++) {
+            final Path entry = bodies.get(order.get(i));
+            total -= Files.size(entry);
+            final String name = entry.getFileName().toString();
+            final String key = name.substring(0, name.length() - BODY_SUFFIX.length());
+            Files.deleteIfExists(entry);
+            Files.deleteIfExists(cacheDir.resolve(key + META_SUFFIX));
+        }
+    }
+
+    private synchronized Properties loadDatasetIds() throws IOException {
+        final Properties ids = readProperties(cacheDir.resolve(DATASET_IDS));
+        return ids == null ? new Properties() : ids;
+    }
+
+    private synchronized void storeDatasetId(String datasetName, ApiDataAccessObject.CsvPackage csvPackage)
+            throws IOException {
+        final Properties ids = loadDatasetIds();
+        ids.setProperty(DATASET_ID_PREFIX + datasetName, csvPackage.getId());
+        if (csvPackage.getModified() == null) {
+            ids.remove(DATASET_MODIFIED_PREFIX + datasetName);
+        }
+        else {
+            ids.setProperty(DATASET_MODIFIED_PREFIX + datasetName, csvPackage.getModified());
+        }
+        writeProperties(cacheDir.resolve(DATASET_IDS), ids);
+    }
+
+    private static Properties readProperties(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static void writeProperties(Path file, Properties properties) throws IOException {
+        final Path part = file.resolveSibling(file.getFileName() + ".part");
+        try (Writer writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void setIfPresent(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+
+    private static String keyFor(String url) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        }
+        catch (NoSuchAlgorithmException ex) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Copies a downloading body into the cache as the caller reads it. The copy is kept only
+     * if the caller reads to the end of the stream before closing it.
+     */
+    private final class CachingInputStream extends FilterInputStream {
+        private final String key;
+        private final Properties meta;
+        private final Path part;
+        private final OutputStream copy;
+        private boolean complete;
+
+        CachingInputStream(InputStream download, String key, Properties meta) throws IOException {
+            super(download);
+            this.key = key;
+            this.meta = meta;
+            this.part = Files.createTempFile(cacheDir, key, ".part");
+            this.copy = new BufferedOutputStream(Files.newOutputStream(part), COPY_BUFFER_BYTES);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b < 0) {
+                complete = true;
+            }
+            else {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            final int count = super.read(bytes, offset, length);
+            if (count < 0) {
+                complete = true;
+            }
+            else {
+                copy.write(bytes, offset, count);
+            }
+            return count;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes must still reach the copy
+            final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            final int count = read(buffer, 0, buffer.length);
+            return Math.max(count, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            }
+            finally {
+                copy.close();
+                if (complete) {
+                    commit(part, key, meta);
+                }
+                else {
+                    Files.deleteIfExists(part);
+                }
+            }
+        }
+    }
+}
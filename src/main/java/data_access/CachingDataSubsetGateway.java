@@ -0,0 +1,150 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnFilter;
+import entity.DataSet;
+import entity.DataSubsetSpec;
+import entity.RowSelection;
+import use_case.dataset.CurrentTableGateway;
+import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.gateway.DataSubsetGateway;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the most recently loaded subsets of the current dataset in front of another gateway.
+ * A subset is stored under its spec together with the columns it was read from, including filter
+ * and predicate columns, and their versions. It is served again until a cell or header of one of those columns is
+ * set, a header edit makes one of its names refer to another column, or another dataset becomes current.
+ */
+public class CachingDataSubsetGateway implements DataSubsetGateway {
+    public static final int DEFAULT_MAX_SUBSETS = 32;
+
+    private final DataSubsetGateway delegate;
+    private final CurrentTableGateway currentTableGateway;
+    private final int maxSubsets;
+    private final Map<DataSubsetSpec, CachedSubset> subsets = new LinkedHashMap<>(16, 0.75f, true);
+
+    public CachingDataSubsetGateway(DataSubsetGateway delegate, CurrentTableGateway currentTableGateway) {
+        this(delegate, currentTableGateway, DEFAULT_MAX_SUBSETS);
+    }
+
+    /**
+     * Creates the cache.
+     * @param delegate the gateway that loads subsets missing from the cache, reading the current dataset
+     * @param currentTableGateway holder of the current dataset
+     * @param maxSubsets number of subsets kept before the least recently used are dropped
+     */
+    public CachingDataSubsetGateway(DataSubsetGateway delegate, CurrentTableGateway currentTableGateway,
+                                    int maxSubsets) {
+        this.delegate = delegate;
+        this.currentTableGateway = currentTableGateway;
+        this.maxSubsets = maxSubsets;
+    }
+
+    @Override
+    public synchronized DataSubsetData loadSubset(DataSubsetSpec spec) {
+        final DataSet dataSet = currentTableGateway.load();
+        if (dataSet == null) {
+            return delegate.loadSubset(spec);
+        }
+        final DataSubsetSpec key = key(spec);
+        final CachedSubset cached = subsets.get(key);
+        if (cached != null && cached.isCurrent(dataSet)) {
+            return cached.data;
+        }
+        final DataSubsetData data = delegate.loadSubset(spec);
+        final List<String> names = new ArrayList<>(spec.getColumnNames());
+        if (spec.getCondition() != null) {
+            names.addAll(spec.getCondition().getColumnNames());
+        }
+        subsets.put(key, new CachedSubset(dataSet, names, data));
+        final Iterator<CachedSubset> eldest = subsets.values().iterator();
+        while (subsets.size() > maxSubsets) {
+            eldest.next();
+            eldest.remove();
+        }
+        return data;
+    }
+
+    /**
+     * Copies the lists of a spec that callers could still change; selections and predicates are immutable.
+     * Rows listed in ascending order become a selection, which hashes once and compares by its runs, so a
+     * lookup does not hash and compare the whole list; rows in another order are copied as they are.
+     */
+    private static DataSubsetSpec key(DataSubsetSpec spec) {
+        final List<ColumnFilter> filters = spec.getFilters() == null ? null : List.copyOf(spec.getFilters());
+        RowSelection selection = spec.getRowSelection();
+        if (selection == null && spec.getRowIndices() != null) {
+            selection = RowSelection.ofAscending(spec.getRowIndices());
+        }
+        if (selection != null) {
+            return DataSubsetSpec.of(spec.getSubsetId(), List.copyOf(spec.getColumnNames()), selection,
+                    filters).where(spec.getPredicate());
+        }
+        final List<Integer> rows = spec.getRowIndices() == null ? null : List.copyOf(spec.getRowIndices());
+        return new DataSubsetSpec(spec.getSubsetId(), List.copyOf(spec.getColumnNames()), rows, filters)
+                .where(spec.getPredicate());
+    }
+
+    /**
+     * Resolves headers to columns; the first column with a header wins, like the gateways do.
+     */
+    private static Column[] resolve(DataSet dataSet, List<String> names) {
+        final Map<String, Column> columnsByHeader = new HashMap<>();
+        for (Column column : dataSet.getColumns()) {
+            columnsByHeader.putIfAbsent(column.getHeader(), column);
+        }
+        final Column[] columns = new Column[names.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columnsByHeader.get(names.get(i));
+        }
+        return columns;
+    }
+
+    private static final class CachedSubset {
+        private final DataSet dataSet;
+        private final List<String> names;
+        private final Column[] columns;
+        private final long[] versions;
+        private final DataSubsetData data;
+        // version of the whole dataset when the columns were last found unchanged
+        private long dataVersion;
+
+        CachedSubset(DataSet dataSet, List<String> names, DataSubsetData data) {
+            this.dataSet = dataSet;
+            this.names = names;
+            this.columns = resolve(dataSet, names);
+            this.versions = new long[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                versions[i] = columns[i] == null ? 0 : columns[i].getVersion();
+            }
+            this.data = data;
+            this.dataVersion = dataSet.getVersion();
+        }
+
+        boolean isCurrent(DataSet current) {
+            if (current != dataSet) {
+                return false;
+            }
+            final long version = current.getVersion();
+            if (version == dataVersion) {
+                return true;
+            }
+            // something was edited: the subset only depends on its own columns
+            final Column[] now = resolve(current, names);
+            for (int i = 0; i < now.length; i++) {
+                if (now[i] != columns[i] || now[i] != null && now[i].getVersion() != versions[i]) {
+                    return false;
+                }
+            }
+            dataVersion = version;
+            return true;
+        }
+    }
+}
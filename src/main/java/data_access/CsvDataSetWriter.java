@@ -0,0 +1,495 @@
+package data_access;
+
+import entity.CategoricalColumnVector;
+import entity.Column;
+import entity.ColumnVector;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DateColumnVector;
+import entity.NumericColumnVector;
+import entity.RowShape;
+import use_case.save_dataset.SaveDataSetProgressListener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a DataSet as UTF-8 CSV straight into a channel.
+ * Cells are encoded into one reusable byte buffer that is handed to the channel whenever it fills up.
+ * Columns backed by typed vectors are encoded from their primitive values: integers and dates are
+ * formatted digit by digit and categorical dictionaries are encoded once per column, so most cells
+ * never become a String.
+ * Cells that contain the delimiter, a double quote or a line break are quoted as in RFC 4180;
+ * records end with "\n" and null cells are written as empty fields.
+ */
+public final class CsvDataSetWriter {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final byte QUOTE = '"';
+    private static final byte NEWLINE = '\n';
+    // largest UTF-8 length of one char, and the worst case of a doubled quote
+    private static final int MAX_BYTES_PER_CHAR = 3;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000};
+
+    private final char delimiter;
+    // numbers and dates are written without the quoting check when the delimiter cannot occur in them
+    private final boolean digitsNeedQuoting;
+    private final boolean decimalsNeedQuoting;
+    private byte[] buffer;
+    private int position;
+    private WritableByteChannel channel;
+    private SaveDataSetProgressListener listener;
+    private long bytesWritten;
+    private long rowsWritten;
+
+    public CsvDataSetWriter() {
+        this(',');
+    }
+
+    public CsvDataSetWriter(char delimiter) {
+        this(delimiter, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer.
+     * @param delimiter field separator; an ASCII character other than a double quote or a line break
+     * @param bufferSize size of the reusable output buffer in bytes
+     */
+    public CsvDataSetWriter(char delimiter, int bufferSize) {
+        if (delimiter > 0x7F || delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Unsupported CSV delimiter: " + delimiter);
+        }
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Buffer size must be at least 64 bytes: " + bufferSize);
+        }
+        this.delimiter = delimiter;
+        this.digitsNeedQuoting = Character.isDigit(delimiter) || delimiter == '-';
+        this.decimalsNeedQuoting = digitsNeedQuoting || delimiter == '.';
+        this.buffer = new byte[bufferSize];
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Writes the header and every row. The channel is not closed.
+     * @param dataSet the data to write
+     * @param out the destination
+     * @return number of bytes written
+     * @throws IOException if the channel cannot be written
+     */
+    public long write(DataSet dataSet, WritableByteChannel out) throws IOException {
+        return write(dataSet, out, null);
+    }
+
+    /**
+     * Writes the header and every row, reporting progress each time the buffer is handed to the channel.
+     * The channel is not closed.
+     * @param dataSet the data to write
+     * @param out the destination
+     * @param progress receives bytes and rows written and may cancel the write; may be null
+     * @return number of bytes written
+     * @throws InterruptedIOException if the listener cancelled the write
+     * @throws IOException if the channel cannot be written
+     */
+    public long write(DataSet dataSet, WritableByteChannel out, SaveDataSetProgressListener progress)
+            throws IOException {
+        return write(dataSet, null, 0, dataSet.getRows().size(), out, progress);
+    }
+
+    /**
+     * Writes the header and a part of the rows, in order. The channel is not closed.
+     * @param dataSet the data to write
+     * @param rows indices of the rows to choose from, or null for the rows of the dataset in order
+     * @param from first position in {@code rows} to write
+     * @param to position in {@code rows} after the last one to write
+     * @param out the destination
+     * @param progress receives bytes and rows written and may cancel the write; may be null
+     * @return number of bytes written
+     * @throws InterruptedIOException if the listener cancelled the write
+     * @throws IOException if the channel cannot be written
+     */
+    synchronized long write(DataSet dataSet, int[] rows, int from, int to, WritableByteChannel out,
+                            SaveDataSetProgressListener progress) throws IOException {
+        channel = out;
+        listener = progress;
+        position = 0;
+        bytesWritten = 0;
+        rowsWritten = 0;
+        try {
+            final List<Column> columns = dataSet.getColumns();
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) {
+                    putByte((byte) delimiter);
+                }
+                putText(columns.get(c).getHeader());
+            }
+            putByte(NEWLINE);
+
+            if (dataSet.isColumnar()) {
+                writeColumnar(dataSet, rows, from, to);
+            }
+            else {
+                final List<DataRow> dataRows = dataSet.getRows();
+                for (int i = from; i < to; i++) {
+                    writeCells(dataRows.get(rows == null ? i : rows[i]).getCells());
+                    rowsWritten++;
+                }
+            }
+            flush();
+            return bytesWritten;
+        }
+        finally {
+            channel = null;
+            listener = null;
+        }
+    }
+
+    /**
+     * Writes records as they are produced, e.g. while rewriting an existing CSV file. The channel is not closed.
+     * @param records the records, header first
+     * @param out the destination
+     * @return number of bytes written
+     * @throws IOException if the records cannot be read or the channel cannot be written
+     */
+    synchronized long write(RecordSource records, WritableByteChannel out) throws IOException {
+        channel = out;
+        position = 0;
+        bytesWritten = 0;
+        rowsWritten = 0;
+        try {
+            for (String[] cells = records.next(); cells != null; cells = records.next()) {
+                writeCells(Arrays.asList(cells));
+            }
+            flush();
+            return bytesWritten;
+        }
+        finally {
+            channel = null;
+        }
+    }
+
+    private void writeColumnar(DataSet dataSet, int[] rowIndices, int from, int to) throws IOException {
+        final List<Column> columns = dataSet.getColumns();
+        final CellEncoder[] encoders = new CellEncoder[columns.size()];
+        for (int c = 0; c < encoders.length; c++) {
+            encoders[c] = encoderFor(columns.get(c));
+        }
+        final Map<Integer, RowShape> irregularRows = dataSet.getIrregularRows();
+        final List<DataRow> rows = dataSet.getRows();
+        for (int i = from; i < to; i++) {
+            final int row = rowIndices == null ? i : rowIndices[i];
+            if (!irregularRows.isEmpty() && irregularRows.containsKey(row)) {
+                writeCells(rows.get(row).getCells());
+            }
+            else {
+                for (int c = 0; c < encoders.length; c++) {
+                    if (c > 0) {
+                        putByte((byte) delimiter);
+                    }
+                    encoders[c].write(row);
+                }
+                putByte(NEWLINE);
+            }
+            rowsWritten++;
+        }
+    }
+
+    private void writeCells(List<String> cells) throws IOException {
+        for (int c = 0; c < cells.size(); c++) {
+            if (c > 0) {
+                putByte((byte) delimiter);
+            }
+            putText(cells.get(c));
+        }
+        putByte(NEWLINE);
+    }
+
+    private CellEncoder encoderFor(Column column) {
+        final ColumnVector vector = column.getVector();
+        if (vector == null) {
+            final List<String> cells = column.getCells();
+            return row -> putText(cells.get(row));
+        }
+        final Map<Integer, String> verbatim = vector.getVerbatimCells();
+        // bitmap in front of the map, so that ordinary cells are not boxed and hashed
+        final BitSet hasVerbatim = new BitSet();
+        verbatim.keySet().forEach(hasVerbatim::set);
+        if (vector instanceof NumericColumnVector) {
+            final NumericColumnVector numeric = (NumericColumnVector) vector;
+            final byte[] decimalPlaces = numeric.getDecimalPlaces();
+            return row -> {
+                if (hasVerbatim.get(row)) {
+                    putText(verbatim.get(row));
+                }
+                else if (numeric.isMissing(row)) {
+                    return;
+                }
+                else if (decimalPlaces != null && decimalPlaces[row] != 0) {
+                    // fixed decimal places, e.g. "12.50"
+                    putText(numeric.getString(row));
+                }
+                else {
+                    putNumber(numeric.getDouble(row));
+                }
+            };
+        }
+        if (vector instanceof DateColumnVector) {
+            final DateColumnVector dates = (DateColumnVector) vector;
+            return row -> {
+                if (hasVerbatim.get(row)) {
+                    putText(verbatim.get(row));
+                }
+                else if (!dates.isMissing(row)) {
+                    putDate(dates, row);
+                }
+            };
+        }
+        if (vector instanceof CategoricalColumnVector) {
+            final CategoricalColumnVector categorical = (CategoricalColumnVector) vector;
+            final List<String> dictionary = categorical.getDictionary();
+            final byte[][] encoded = new byte[dictionary.size()][];
+            return row -> {
+                if (hasVerbatim.get(row)) {
+                    putText(verbatim.get(row));
+                    return;
+                }
+                final int code = categorical.getCode(row);
+                if (code == CategoricalColumnVector.NULL_CODE) {
+                    return;
+                }
+                if (encoded[code] == null) {
+                    encoded[code] = encode(dictionary.get(code));
+                }
+                putBytes(encoded[code]);
+            };
+        }
+        return row -> putText(vector.getString(row));
+    }
+
+    private byte[] encode(String text) {
+        final String field = needsQuoting(text) ? '"' + text.replace("\"", "\"\"") + '"' : text;
+        return field.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private boolean needsQuoting(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char ch = text.charAt(i);
+            if (ch == delimiter || ch == '"' || ch == '\n' || ch == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putNumber(double value) throws IOException {
+        // same text as NumericColumnVector formats, without building it as a String
+        if (value != Math.rint(value) || Math.abs(value) >= 1e15) {
+            if (decimalsNeedQuoting || !putShortDecimal(value)) {
+                putText(Double.toString(value));
+            }
+        }
+        else if (digitsNeedQuoting) {
+            putText(Long.toString((long) value));
+        }
+        else {
+            putLong((long) value);
+        }
+    }
+
+    /**
+     * Writes a value with at most three fraction digits, such as an amount of money, as Double.toString
+     * would: the shortest decimal that converts back to the value. Double.toString uses plain notation
+     * for magnitudes from 10^-3 to 10^7, and the fewest fraction digits that round-trip give the shortest
+     * text because the integer part is fixed.
+     * @param value a finite value that is not an integer
+     * @return false, having written nothing, when the value needs more digits or another notation
+     */
+    private boolean putShortDecimal(double value) throws IOException {
+        final double magnitude = Math.abs(value);
+        if (!(magnitude >= 1e-3 && magnitude < 1e7)) {
+            return false;
+        }
+        for (int digits = 1; digits < POWERS_OF_TEN.length; digits++) {
+            final long power = POWERS_OF_TEN[digits];
+            final long scaled = Math.round(magnitude * power);
+            // both operands are exact, so the quotient is the double nearest to the decimal
+            if ((double) scaled / power == magnitude) {
+                ensure(24);
+                if (value < 0) {
+                    buffer[position++] = '-';
+                }
+                putLong(scaled / power);
+                buffer[position++] = '.';
+                putDigits((int) (scaled % power), digits);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putLong(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        position = end;
+        do {
+            buffer[--end] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private void putDate(DateColumnVector dates, int row) throws IOException {
+        // civil date from epoch day, see Howard Hinnant's "days_from_civil" algorithms
+        final long z = dates.getEpochDay(row) + 719468L;
+        final long era = Math.floorDiv(z, 146097);
+        final long dayOfEra = z - era * 146097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long mp = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (digitsNeedQuoting || year < 0 || year > 9999) {
+            putText(dates.getString(row));
+            return;
+        }
+        ensure(10);
+        putDigits((int) year, 4);
+        buffer[position++] = '-';
+        putDigits(month, 2);
+        buffer[position++] = '-';
+        putDigits(day, 2);
+    }
+
+    private void putDigits(int value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            buffer[position + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void putText(String text) throws IOException {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        ensure(text.length() * MAX_BYTES_PER_CHAR + 2);
+        if (!needsQuoting(text)) {
+            putChars(text, false);
+            return;
+        }
+        buffer[position++] = QUOTE;
+        putChars(text, true);
+        buffer[position++] = QUOTE;
+    }
+
+    private void putChars(String text, boolean escapeQuotes) {
+        final byte[] out = buffer;
+        int pos = position;
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char ch = text.charAt(i);
+            if (ch < 0x80) {
+                if (escapeQuotes && ch == '"') {
+                    out[pos++] = QUOTE;
+                }
+                out[pos++] = (byte) ch;
+            }
+            else if (ch < 0x800) {
+                out[pos++] = (byte) (0xC0 | ch >> 6);
+                out[pos++] = (byte) (0x80 | ch & 0x3F);
+            }
+            else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(ch, text.charAt(++i));
+                out[pos++] = (byte) (0xF0 | codePoint >> 18);
+                out[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                out[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                out[pos++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+            else if (Character.isSurrogate(ch)) {
+                // unpaired surrogate, replaced like String.getBytes does
+                out[pos++] = '?';
+            }
+            else {
+                out[pos++] = (byte) (0xE0 | ch >> 12);
+                out[pos++] = (byte) (0x80 | ch >> 6 & 0x3F);
+                out[pos++] = (byte) (0x80 | ch & 0x3F);
+            }
+        }
+        position = pos;
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void putByte(byte value) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = value;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - position >= bytes) {
+            return;
+        }
+        flush();
+        if (buffer.length < bytes) {
+            // a single huge cell; the buffer keeps the larger size for the rest of the write
+            buffer = new byte[bytes];
+        }
+    }
+
+    private void flush() throws IOException {
+        final ByteBuffer pending = ByteBuffer.wrap(buffer, 0, position);
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        bytesWritten += position;
+        position = 0;
+        if (listener != null) {
+            listener.progress(bytesWritten, rowsWritten);
+            if (listener.isCancelled()) {
+                throw new InterruptedIOException("Save cancelled");
+            }
+        }
+    }
+
+    /**
+     * Writes the cell of one column at a given row.
+     */
+    private interface CellEncoder {
+        void write(int row) throws IOException;
+    }
+
+    /**
+     * Produces the records for {@link #write(RecordSource, WritableByteChannel)}.
+     */
+    interface RecordSource {
+        /**
+         * Returns the next record.
+         * @return its cells, or null after the last record
+         * @throws IOException if the record cannot be read
+         */
+        String[] next() throws IOException;
+    }
+}
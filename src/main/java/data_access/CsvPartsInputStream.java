@@ -0,0 +1,179 @@
+package data_access;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Streams the CSV resources of a multi-part dataset as one CSV.
+ * The parts download concurrently and are read in order. The first part is copied whole;
+ * each later part is appended without its header line if that header matches the first
+ * part's, and skipped otherwise, since a different header means a different table.
+ * A skipped part is either closed at once or, when its stream keeps a copy of what is read
+ * (see {@link CachingApiDataAccessObject}), read to its end in the background so that the copy
+ * is complete and later loads need not download it again.
+ */
+final class CsvPartsInputStream extends InputStream {
+    private static final int NEWLINE = '\n';
+
+    private final List<CompletableFuture<InputStream>> parts;
+    private final Executor drainExecutor;
+    private final byte[] header;
+    private int nextPart;
+    private InputStream current;
+    private byte[] pending;
+    private int pendingPosition;
+    private int lastByte = NEWLINE;
+
+    CsvPartsInputStream(List<CompletableFuture<InputStream>> parts) throws IOException {
+        this(parts, null);
+    }
+
+    /**
+     * Creates the stream and waits for the first part, so that a failing first download is
+     * reported here rather than on the first read.
+     * @param parts the pending parts in order; at least one
+     * @param drainExecutor runs the reads of parts with a different header to their end before they are
+     *                      closed, or null to close them at once
+     * @throws IOException if the first part fails
+     */
+    CsvPartsInputStream(List<CompletableFuture<InputStream>> parts, Executor drainExecutor) throws IOException {
+        this.parts = parts;
+        this.drainExecutor = drainExecutor;
+        this.current = Futures.await(parts.get(0));
+        this.nextPart = 1;
+        this.header = readLine(current);
+        this.pending = header;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        final int count = read(single, 0, 1);
+        if (count < 0) {
+            return -1;
+        }
+        return single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (true) {
+            if (pending != null) {
+                final int count = Math.min(length, pending.length - pendingPosition);
+                System.arraycopy(pending, pendingPosition, bytes, offset, count);
+                pendingPosition += count;
+                if (pendingPosition == pending.length) {
+                    pending = null;
+                    pendingPosition = 0;
+                }
+                if (count > 0) {
+                    lastByte = bytes[offset + count - 1];
+                    return count;
+                }
+                continue;
+            }
+            if (current == null) {
+                return -1;
+            }
+            final int count = current.read(bytes, offset, length);
+            if (count > 0) {
+                lastByte = bytes[offset + count - 1];
+                return count;
+            }
+            if (count < 0) {
+                current.close();
+                current = null;
+                openNextPart();
+            }
+        }
+    }
+
+    private void openNextPart() throws IOException {
+        while (current == null && nextPart < parts.size()) {
+            final InputStream part = Futures.await(parts.get(nextPart++));
+            if (Arrays.equals(trimLine(readLine(part)), trimLine(header))) {
+                current = part;
+                // the previous part may not end with a newline
+                if (lastByte != NEWLINE) {
+                    pending = new byte[] {NEWLINE};
+                }
+            }
+            else if (drainExecutor != null) {
+                CompletableFuture.runAsync(() -> drainQuietly(part), drainExecutor);
+            }
+            else {
+                part.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        if (current != null) {
+            try {
+                current.close();
+            }
+            catch (IOException ex) {
+                failure = ex;
+            }
+            current = null;
+        }
+        // discard the parts that were never read
+        for (int i = nextPart; i < parts.size(); i++) {
+            parts.get(i).thenAccept(CsvPartsInputStream::closeQuietly);
+        }
+        nextPart = parts.size();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // reads through the first newline, which is kept
+    private static byte[] readLine(InputStream input) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) >= 0) {
+            line.write(b);
+            if (b == NEWLINE) {
+                break;
+            }
+        }
+        return line.toByteArray();
+    }
+
+    private static byte[] trimLine(byte[] line) {
+        int end = line.length;
+        while (end > 0 && (line[end - 1] == '\n' || line[end - 1] == '\r')) {
+            end--;
+        }
+        return Arrays.copyOf(line, end);
+    }
+
+    private static void drainQuietly(InputStream input) {
+        try (input) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        catch (IOException ignored) {
+            // the part is downloaded again next time
+        }
+    }
+
+    private static void closeQuietly(InputStream input) {
+        try {
+            input.close();
+        }
+        catch (IOException ignored) {
+            // nothing left to read from this part
+        }
+    }
+}
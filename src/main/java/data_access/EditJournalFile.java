@@ -0,0 +1,352 @@
+package data_access;
+
+import entity.DataSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of the cell and header edits made to a CSV file, its base.
+ * The file starts with the size and modification time of the base it belongs to, so a journal left
+ * behind by a base that has since been replaced is recognised and ignored; a rebase record names the
+ * base that a compaction is about to put in its place. Every record is its length, a CRC32 and the
+ * payload; a record torn by a crash fails its checksum and ends the journal.
+ * <p>
+ * Edits are saved by a save record and dropped by a discard record, each covering the edits since
+ * the previous one of either; the edits after the last of them were neither saved nor discarded.
+ */
+final class EditJournalFile implements Closeable {
+    private static final int MAGIC = 0x45444A31;
+    private static final int HEADER_BYTES = 20;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final byte CELL = 1;
+    private static final byte HEADER = 2;
+    private static final byte SAVE = 3;
+    private static final byte DISCARD = 4;
+    private static final byte REBASE = 5;
+
+    private final FileChannel channel;
+
+    private EditJournalFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates an empty journal, replacing any file at the path.
+     * @param path the journal file
+     * @param base stamp of the base file the edits apply to
+     * @return the journal, open for appending
+     * @throws IOException if the file cannot be written
+     */
+    static EditJournalFile create(Path path, Stamp base) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putLong(base.size).putLong(base.modified).flip();
+            writeFully(channel, header);
+            channel.force(true);
+            return new EditJournalFile(channel);
+        }
+        catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens a journal to append to it, cutting off whatever follows its intact records.
+     * @param path     the journal file
+     * @param contents the journal as read from the file
+     * @return the journal, open for appending
+     * @throws IOException if the file cannot be written
+     */
+    static EditJournalFile append(Path path, Contents contents) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(contents.length);
+            channel.position(contents.length);
+            return new EditJournalFile(channel);
+        }
+        catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads every intact record of a journal.
+     * @param path the journal file
+     * @return the contents, or null if there is no journal or it is not one
+     * @throws IOException if the file exists but cannot be read
+     */
+    static Contents read(Path path) throws IOException {
+        final ByteBuffer bytes;
+        try {
+            bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+        catch (NoSuchFileException ex) {
+            return null;
+        }
+        if (bytes.remaining() < HEADER_BYTES || bytes.getInt() != MAGIC) {
+            return null;
+        }
+        final Contents contents = new Contents(new Stamp(bytes.getLong(), bytes.getLong()));
+        contents.length = bytes.position();
+        final CRC32 crc = new CRC32();
+        while (bytes.remaining() >= RECORD_HEADER_BYTES) {
+            final int length = bytes.getInt();
+            final int checksum = bytes.getInt();
+            if (length <= 0 || length > bytes.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(bytes.slice(bytes.position(), length));
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            final ByteBuffer payload = bytes.slice(bytes.position(), length);
+            bytes.position(bytes.position() + length);
+            switch (payload.get()) {
+                case CELL -> contents.unsaved.add(new Edit(payload.getInt(), payload.getInt(), getString(payload)));
+                case HEADER -> contents.unsaved.add(new Edit(-1, payload.getInt(), getString(payload)));
+                case SAVE -> {
+                    contents.saved.addAll(contents.unsaved);
+                    contents.unsaved.clear();
+                }
+                case DISCARD -> contents.unsaved.clear();
+                case REBASE -> contents.rebases.add(new Stamp(payload.getLong(), payload.getLong()));
+                default -> {
+                    // written by a newer version; nothing after it can be trusted
+                    return contents;
+                }
+            }
+            contents.length = bytes.position();
+        }
+        return contents;
+    }
+
+    void appendCell(int row, int column, String value) throws IOException {
+        final byte[] text = encode(value);
+        final ByteBuffer payload = ByteBuffer.allocate(13 + (text == null ? 0 : text.length));
+        payload.put(CELL).putInt(row).putInt(column);
+        putString(payload, text);
+        appendRecord(payload);
+    }
+
+    void appendHeader(int column, String header) throws IOException {
+        final byte[] text = encode(header);
+        final ByteBuffer payload = ByteBuffer.allocate(9 + (text == null ? 0 : text.length));
+        payload.put(HEADER).putInt(column);
+        putString(payload, text);
+        appendRecord(payload);
+    }
+
+    /**
+     * Saves the edits appended since the last save or discard.
+     * @throws IOException if the record cannot be written
+     */
+    void appendSave() throws IOException {
+        appendRecord(ByteBuffer.allocate(1).put(SAVE));
+    }
+
+    /**
+     * Drops the edits appended since the last save or discard.
+     * @throws IOException if the record cannot be written
+     */
+    void appendDiscard() throws IOException {
+        appendRecord(ByteBuffer.allocate(1).put(DISCARD));
+    }
+
+    /**
+     * Records that the base is about to be replaced by a compacted one, which the journal then belongs to.
+     * @param base stamp of the compacted base
+     * @throws IOException if the record cannot be written
+     */
+    void appendRebase(Stamp base) throws IOException {
+        appendRecord(ByteBuffer.allocate(17).put(REBASE).putLong(base.size).putLong(base.modified));
+    }
+
+    /**
+     * Forces the records appended so far to disk.
+     * @throws IOException if the file cannot be synced
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void appendRecord(ByteBuffer payload) throws IOException {
+        payload.flip();
+        final CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.remaining());
+        record.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload).flip();
+        writeFully(channel, record);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer payload, byte[] text) {
+        if (text == null) {
+            payload.putInt(-1);
+        }
+        else {
+            payload.putInt(text.length).put(text);
+        }
+    }
+
+    private static String getString(ByteBuffer payload) {
+        final int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] text = new byte[length];
+        payload.get(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Identifies one version of a base file by its size and modification time.
+     */
+    static final class Stamp {
+        private final long size;
+        private final long modified;
+
+        Stamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        static Stamp of(Path file) throws IOException {
+            return new Stamp(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Stamp && ((Stamp) other).size == size && ((Stamp) other).modified == modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(modified);
+        }
+    }
+
+    /**
+     * One journaled edit; a header edit has a row of -1.
+     */
+    static final class Edit {
+        private final int row;
+        private final int column;
+        private final String value;
+
+        Edit(int row, int column, String value) {
+            this.row = row;
+            this.column = column;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The intact part of a journal.
+     */
+    static final class Contents {
+        private final Stamp base;
+        private final List<Stamp> rebases = new ArrayList<>();
+        private final List<Edit> saved = new ArrayList<>();
+        private final List<Edit> unsaved = new ArrayList<>();
+        // bytes up to the end of the last intact record
+        private long length;
+
+        private Contents(Stamp base) {
+            this.base = base;
+        }
+
+        /**
+         * Tells whether the journal belongs to a base, which is either the one it was started for or
+         * one that a compaction put in its place.
+         * @param stamp stamp of the base file
+         * @return whether the edits apply to that base
+         */
+        boolean appliesTo(Stamp stamp) {
+            return base.equals(stamp) || rebases.contains(stamp);
+        }
+
+        boolean hasSaved() {
+            return !saved.isEmpty();
+        }
+
+        boolean hasUnsaved() {
+            return !unsaved.isEmpty();
+        }
+
+        /**
+         * Applies the saved edits in order to a dataset read from the base; edits outside it are skipped.
+         * @param dataSet the dataset to edit
+         */
+        void applySavedTo(DataSet dataSet) {
+            applyTo(saved, dataSet);
+        }
+
+        /**
+         * Applies the edits that were neither saved nor discarded, which a crash left behind.
+         * @param dataSet the dataset to edit, after the saved edits were applied
+         */
+        void applyUnsavedTo(DataSet dataSet) {
+            applyTo(unsaved, dataSet);
+        }
+
+        private static void applyTo(List<Edit> edits, DataSet dataSet) {
+            final int rows = dataSet.getRows().size();
+            final int columns = dataSet.getColumns().size();
+            for (Edit edit : edits) {
+                if (edit.column >= columns) {
+                    continue;
+                }
+                if (edit.row < 0) {
+                    dataSet.getColumns().get(edit.column).setHeader(edit.value);
+                }
+                else if (edit.row < rows) {
+                    dataSet.setCell(edit.value, edit.row, edit.column);
+                }
+            }
+        }
+
+        /**
+         * Collects the saved edits by CSV record, the header being record 0, with later edits of a cell winning.
+         * @return map from record index to the new values by column
+         */
+        Map<Long, Map<Integer, String>> byRecord() {
+            final Map<Long, Map<Integer, String>> records = new HashMap<>();
+            for (Edit edit : saved) {
+                records.computeIfAbsent(edit.row + 1L, record -> new HashMap<>()).put(edit.column, edit.value);
+            }
+            return records;
+        }
+    }
+}
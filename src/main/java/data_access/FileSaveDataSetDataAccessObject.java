@@ -1,29 +1,103 @@
 package data_access;
 
-import entity.Column;
-import entity.DataRow;
 import entity.DataSet;
+import use_case.dataset.DataSetEditJournal;
+import use_case.ingestion.CsvRecordReader;
 import use_case.save_dataset.SaveDataSetDataAccessInterface;
+import use_case.save_dataset.SaveDataSetProgressListener;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
 
 /**
- * Saves a DataSet as a CSV file.
+ * Saves a DataSet as a CSV file, encoded by {@link CsvDataSetWriter}.
+ * The CSV is written to a temporary file next to the target, forced to disk and then renamed over
+ * the target, so a crash or a cancelled save never leaves a truncated file behind.
+ * Targets ending in ".csv.gz" are gzip-compressed on other threads while the CSV is being encoded.
+ * A save that runs while the dataset is being edited writes a copy taken by {@link #prepareSave}.
+ * <p>
+ * After a dataset is saved or opened, its cell and header edits are appended to a journal next to
+ * the file as they are made. An incremental save appends a save record and forces the journal to disk,
+ * then the saved edits are compacted into the file on a background thread; edits that are closed
+ * without saving get a discard record instead. Opening the file applies the saved edits that were not
+ * compacted yet, and restores the edits that a crash left neither saved nor discarded.
  */
-public final class FileSaveDataSetDataAccessObject implements SaveDataSetDataAccessInterface {
+public final class FileSaveDataSetDataAccessObject implements SaveDataSetDataAccessInterface, DataSetEditJournal {
 
     /**
      * Root directory where datasets are stored.
      */
     private final File rootDir;
+    private final CsvDataSetWriter writer;
+    /**
+     * Whether identifiers without an extension are saved as ".csv.gz" rather than ".csv".
+     */
+    private final boolean compressed;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(task -> {
+        final Thread thread = new Thread(task, "dataset-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    // whether a save asked for a compaction while one was running, so another one has to follow
+    private boolean compactAgain;
+
+    // the file whose edits are journaled, its stamp and the dataset being edited;
+    // the journal itself is created by the first edit
+    private Path journalTarget;
+    private EditJournalFile.Stamp journalBase;
+    private DataSet journaledDataSet;
+    private EditJournalFile journal;
+    // whether the journal holds saved edits that were not moved aside for compaction, and unsaved ones
+    private boolean journalSaved;
+    private boolean journalUnsaved;
+    // edits made while a full save is writing, journaled again once it is in place; null if that is not enough
+    private DataSet savingDataSet;
+    private List<JournalWrite> editsDuringSave = new ArrayList<>();
+    // the copy of savingDataSet that its prepared save writes
+    private DataSet savingCopy;
 
     public FileSaveDataSetDataAccessObject(final String rootDirPath) {
+        this(rootDirPath, new CsvDataSetWriter());
+    }
+
+    public FileSaveDataSetDataAccessObject(final String rootDirPath, final CsvDataSetWriter writer) {
+        this(rootDirPath, writer, false);
+    }
+
+    /**
+     * Creates a data access object that saves into the given directory.
+     * @param rootDirPath directory for identifiers that are not absolute paths
+     * @param writer      encoder for the CSV text
+     * @param compressed  whether identifiers without an extension are saved gzip-compressed
+     */
+    public FileSaveDataSetDataAccessObject(final String rootDirPath, final CsvDataSetWriter writer,
+                                           final boolean compressed) {
         this.rootDir = new File(rootDirPath);
+        this.writer = writer;
+        this.compressed = compressed;
         if (!rootDir.exists()) {
             rootDir.mkdirs();
         }
@@ -36,8 +110,9 @@ public final class FileSaveDataSetDataAccessObject implements SaveDataSetDataAcc
             target = new File(rootDir, id);
         }
 
-        if (!target.getName().toLowerCase().endsWith(".csv")) {
-            target = new File(target.getParentFile(), target.getName() + ".csv");
+        final String name = target.getName().toLowerCase();
+        if (!name.endsWith(".csv") && !name.endsWith(".csv.gz")) {
+            target = new File(target.getParentFile(), target.getName() + (compressed ? ".csv.gz" : ".csv"));
         }
 
         final File parent = target.getParentFile();
@@ -48,22 +123,429 @@ public final class FileSaveDataSetDataAccessObject implements SaveDataSetDataAcc
         return target;
     }
 
+    /**
+     * Copies the dataset for a full save that runs on another thread. An incremental save only writes
+     * records that are already journaled, so it needs no copy unless it will fall back to a full save.
+     */
+    @Override
+    public synchronized void prepareSave(final String id, final DataSet dataSet, final boolean incremental) {
+        if (incremental && canSaveEdits(id, dataSet)) {
+            return;
+        }
+        savingCopy = dataSet.copy();
+        savingDataSet = dataSet;
+        editsDuringSave = new ArrayList<>();
+    }
+
     @Override
     public void save(final String id, final DataSet dataSet) throws IOException {
-        final File file = fileFor(id);
+        save(id, dataSet, null);
+    }
+
+    @Override
+    public void save(final String id, final DataSet dataSet, final SaveDataSetProgressListener listener)
+            throws IOException {
+        final Path target = pathFor(id);
+        final DataSet contents;
+        synchronized (this) {
+            if (dataSet == savingDataSet && savingCopy != null) {
+                // edits since the copy was taken are already being collected
+                contents = savingCopy;
+            }
+            else {
+                contents = dataSet;
+                savingDataSet = dataSet;
+                editsDuringSave = new ArrayList<>();
+            }
+            savingCopy = null;
+        }
+        try {
+            final Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".part");
+            try {
+                writeFile(temp, target, out -> writer.write(contents, out, listener));
+                // a compaction of the old file must not rename its result over this one
+                awaitCompaction();
+                synchronized (this) {
+                    moveIntoPlace(temp, target);
+                    syncDirectory(target.getParent());
+                    startJournal(target, dataSet);
+                }
+            }
+            catch (IOException | RuntimeException ex) {
+                Files.deleteIfExists(temp);
+                throw ex;
+            }
+        }
+        finally {
+            synchronized (this) {
+                savingDataSet = null;
+                editsDuringSave = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Saves the journaled edits by appending a save record and forcing the journal to disk, then
+     * compacts them into the file on the background thread.
+     */
+    @Override
+    public synchronized boolean saveEdits(final String id, final DataSet dataSet) throws IOException {
+        if (!canSaveEdits(id, dataSet)) {
+            return false;
+        }
+        if (journal != null && journalUnsaved) {
+            try {
+                journal.appendSave();
+                journal.force();
+            }
+            catch (IOException ex) {
+                // the save record may or may not have made it, so only a full save is certain again
+                stopJournal();
+                throw ex;
+            }
+            journalSaved = true;
+            journalUnsaved = false;
+        }
+        compact();
+        return true;
+    }
+
+    @Override
+    public synchronized void cellEdited(final DataSet dataSet, final int row, final int column, final String value) {
+        record(dataSet, journal -> journal.appendCell(row, column, value));
+    }
+
+    @Override
+    public synchronized void headerEdited(final DataSet dataSet, final int column, final String header) {
+        record(dataSet, journal -> journal.appendHeader(column, header));
+    }
+
+    @Override
+    public synchronized void dataSetRewritten(final DataSet dataSet) {
+        if (dataSet == savingDataSet) {
+            // the file being written may hold only part of the change
+            editsDuringSave = null;
+        }
+        if (dataSet == journaledDataSet) {
+            discardUnsavedEdits();
+            stopJournal();
+        }
+    }
+
+    @Override
+    public void opened(final Path file, final DataSet dataSet) throws IOException {
+        awaitCompaction();
+        synchronized (this) {
+            // the dataset that was edited before is closed, saved or not
+            discardUnsavedEdits();
+            stopJournal();
+            final Path base = file.toAbsolutePath().normalize();
+            final EditJournalFile.Stamp stamp = EditJournalFile.Stamp.of(base);
+            final EditJournalFile.Contents compacting = EditJournalFile.read(compactingFileFor(base));
+            final EditJournalFile.Contents edits = EditJournalFile.read(journalFileFor(base));
+            if (compacting != null && compacting.appliesTo(stamp)) {
+                // a compaction was interrupted before it replaced the base
+                compacting.applySavedTo(dataSet);
+            }
+            else {
+                Files.deleteIfExists(compactingFileFor(base));
+            }
+            journalTarget = base;
+            journalBase = stamp;
+            journaledDataSet = dataSet;
+            if (edits != null && edits.appliesTo(stamp) && (edits.hasSaved() || edits.hasUnsaved())) {
+                edits.applySavedTo(dataSet);
+                edits.applyUnsavedTo(dataSet);
+                journal = EditJournalFile.append(journalFileFor(base), edits);
+                journalSaved = edits.hasSaved();
+                journalUnsaved = edits.hasUnsaved();
+            }
+            else {
+                Files.deleteIfExists(journalFileFor(base));
+            }
+            compact();
+        }
+    }
+
+    /**
+     * Appends a discard record for the edits of the journaled dataset that were not saved, so that
+     * they are not restored when its file is opened again. Called when the dataset is closed.
+     */
+    public synchronized void discardUnsavedEdits() {
+        if (journal == null || !journalUnsaved) {
+            return;
+        }
+        try {
+            journal.appendDiscard();
+            journal.force();
+            journalUnsaved = false;
+        }
+        catch (IOException ex) {
+            // the edits are restored on the next open, which is what a crash here would have done too
+        }
+    }
+
+    /**
+     * Waits until the compactions that are running in the background, if any, have finished.
+     * A failed compaction leaves its journal in place and is retried by a later incremental save.
+     */
+    void awaitCompaction() {
+        CompletableFuture<Void> running = null;
+        while (true) {
+            synchronized (this) {
+                if (compaction == running) {
+                    return;
+                }
+                running = compaction;
+            }
+            try {
+                running.join();
+            }
+            catch (CompletionException ex) {
+                // the edits are still journaled
+            }
+        }
+    }
+
+    private boolean canSaveEdits(final String id, final DataSet dataSet) {
+        return journalTarget != null && dataSet == journaledDataSet && pathFor(id).equals(journalTarget);
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            final List<String> headers = new ArrayList<>();
-            for (final Column col : dataSet.getColumns()) {
-                headers.add(col.getHeader());
+    private Path pathFor(final String id) {
+        return fileFor(id).toPath().toAbsolutePath().normalize();
+    }
+
+    private void writeFile(final Path temp, final Path target, final ChannelWrite body) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (target.getFileName().toString().toLowerCase().endsWith(".gz")) {
+                final ParallelGzipChannel gzip = new ParallelGzipChannel(channel, Deflater.DEFAULT_COMPRESSION,
+                        ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+                body.write(gzip);
+                gzip.finish();
+            }
+            else {
+                body.write(channel);
+            }
+            channel.force(true);
+        }
+    }
+
+    private void record(final DataSet dataSet, final JournalWrite edit) {
+        if (dataSet == savingDataSet && editsDuringSave != null) {
+            editsDuringSave.add(edit);
+        }
+        if (journalTarget != null && dataSet == journaledDataSet) {
+            append(edit);
+        }
+    }
+
+    /**
+     * Journals the edits of a dataset that was just written in full; journals of the old file are deleted.
+     * Edits made while the file was being written may be missing from it and are journaled again, unsaved.
+     */
+    private void startJournal(final Path target, final DataSet dataSet) throws IOException {
+        discardUnsavedEdits();
+        stopJournal();
+        Files.deleteIfExists(journalFileFor(target));
+        Files.deleteIfExists(compactingFileFor(target));
+        if (dataSet == null || editsDuringSave == null) {
+            return;
+        }
+        journalTarget = target;
+        journalBase = EditJournalFile.Stamp.of(target);
+        journaledDataSet = dataSet;
+        for (final JournalWrite edit : editsDuringSave) {
+            append(edit);
+        }
+    }
+
+    private void stopJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            }
+            catch (IOException ex) {
+                // saved edits were forced, and unsaved ones are restored at most
+            }
+        }
+        journal = null;
+        journalTarget = null;
+        journalBase = null;
+        journaledDataSet = null;
+        journalSaved = false;
+        journalUnsaved = false;
+    }
+
+    /**
+     * Appends to the journal without forcing it; the next save does. If the append fails the journal
+     * no longer has every edit, so it is dropped and the next save falls back to rewriting the whole file.
+     */
+    private void append(final JournalWrite edit) {
+        try {
+            if (journal == null) {
+                journal = EditJournalFile.create(journalFileFor(journalTarget), journalBase);
+            }
+            edit.write(journal);
+            journalUnsaved = true;
+        }
+        catch (IOException ex) {
+            stopJournal();
+        }
+    }
+
+    /**
+     * Starts compacting the saved edits into the file on the background thread, unless a compaction is
+     * already running, in which case another one follows it. An earlier compaction that failed is retried
+     * first. The journal is moved aside for the compaction while new edits start a fresh journal, which is
+     * only possible when it holds no unsaved edits; otherwise the next save starts the compaction.
+     */
+    private void compact() throws IOException {
+        if (journalTarget == null) {
+            return;
+        }
+        if (!compaction.isDone()) {
+            compactAgain = true;
+            return;
+        }
+        compactAgain = false;
+        final Path base = journalTarget;
+        final Path compactingFile = compactingFileFor(base);
+        if (!Files.exists(compactingFile)) {
+            if (!journalSaved || journalUnsaved) {
+                return;
+            }
+            journal.close();
+            journal = null;
+            journalSaved = false;
+            moveIntoPlace(journalFileFor(base), compactingFile);
+        }
+        compaction = CompletableFuture.runAsync(() -> {
+            try {
+                compact(base);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
             }
-            writer.write(String.join(",", headers));
-            writer.newLine();
+        }, compactor);
+    }
+
+    /**
+     * Streams the base through the saved edits of the moved-aside journal into a new base. The fresh
+     * journal learns the new base's stamp before the rename, so it applies whether or not the rename
+     * survives a crash; the moved-aside journal only matches the old base and is skipped once the rename
+     * happened. A full save or an open of the file in the meantime means the result is not needed.
+     */
+    private void compact(final Path base) throws IOException {
+        final Path compactingFile = compactingFileFor(base);
+        final EditJournalFile.Contents edits = EditJournalFile.read(compactingFile);
+        if (edits == null) {
+            return;
+        }
+        final Map<Long, Map<Integer, String>> patches = edits.byRecord();
+        final Path temp = Files.createTempFile(base.getParent(), "." + base.getFileName(), ".part");
+        try {
+            try (InputStream input = openBase(base)) {
+                final CsvRecordReader records = new CsvRecordReader(
+                        new InputStreamReader(input, StandardCharsets.UTF_8), writer.getDelimiter());
+                final long[] record = {0};
+                writeFile(temp, base, out -> writer.write(() -> {
+                    if (!records.next()) {
+                        return null;
+                    }
+                    return patch(records.copyCells(), patches.get(record[0]++));
+                }, out));
+            }
+            final EditJournalFile.Stamp stamp = EditJournalFile.Stamp.of(temp);
+            synchronized (this) {
+                if (!base.equals(journalTarget) || !Files.exists(compactingFile)) {
+                    Files.deleteIfExists(temp);
+                    return;
+                }
+                if (journal != null) {
+                    journal.appendRebase(stamp);
+                    journal.force();
+                }
+                moveIntoPlace(temp, base);
+                syncDirectory(base.getParent());
+                // a journal created from now on belongs to the compacted file
+                journalBase = stamp;
+                Files.deleteIfExists(compactingFile);
+                if (compactAgain || journalSaved) {
+                    compaction = CompletableFuture.completedFuture(null);
+                    compact();
+                }
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+    }
 
-            for (final DataRow row : dataSet.getRows()) {
-                writer.write(String.join(",", row.getCells()));
-                writer.newLine();
+    private static InputStream openBase(final Path base) throws IOException {
+        final InputStream input = Files.newInputStream(base);
+        if (base.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            return new GZIPInputStream(input, 64 * 1024);
+        }
+        return input;
+    }
+
+    private static String[] patch(final String[] cells, final Map<Integer, String> values) {
+        if (values == null) {
+            return cells;
+        }
+        String[] patched = cells;
+        for (final Map.Entry<Integer, String> value : values.entrySet()) {
+            if (value.getKey() >= patched.length) {
+                patched = Arrays.copyOf(patched, value.getKey() + 1);
             }
+            patched[value.getKey()] = value.getValue();
+        }
+        return patched;
+    }
+
+    private static Path journalFileFor(final Path base) {
+        return base.resolveSibling(base.getFileName() + ".journal");
+    }
+
+    private static Path compactingFileFor(final Path base) {
+        return base.resolveSibling(base.getFileName() + ".journal.compacting");
+    }
+
+    static void moveIntoPlace(final Path temp, final Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Makes the rename durable. Directories cannot be opened for syncing on every platform,
+     * in which case the rename is left to the file system's own ordering.
+     */
+    static void syncDirectory(final Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
         }
+        catch (IOException ex) {
+            // not supported here, e.g. on Windows
+        }
+    }
+
+    /**
+     * Writes the contents of a file.
+     */
+    private interface ChannelWrite {
+        void write(WritableByteChannel out) throws IOException;
+    }
+
+    /**
+     * One edit, written to the journal.
+     */
+    private interface JournalWrite {
+        void write(EditJournalFile journal) throws IOException;
     }
 }
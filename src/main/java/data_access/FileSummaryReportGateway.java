@@ -0,0 +1,288 @@
+package data_access;
+
+import entity.SummaryReport;
+import use_case.visualization.gateway.SummaryReportGateway;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SummaryReportGateway that keeps every report in a file of its own, encoded by {@link SummaryReportCodec},
+ * so reports survive a restart. A report saved with a data version is stored under that version, so reports
+ * of different data never replace each other even if their callers reuse a summary id; other reports are
+ * stored under their summary id. Opening the store reads only the fixed-size header of each file to index
+ * the reports by summary id and by data version, with the fingerprint saved with each; files it cannot
+ * read, for example ones written by another version of the codec, are left alone. The least recently
+ * used reports are deleted once the store holds more than a maximum number of reports or bytes; the order
+ * of use is kept in the files' modification times, so it carries over to the next run. The most recently
+ * read reports are also kept decoded.
+ */
+public final class FileSummaryReportGateway implements SummaryReportGateway {
+    public static final int DEFAULT_MAX_REPORTS = 256;
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    private static final String SUFFIX = ".report";
+    private static final String VERSION_PREFIX = "v";
+    private static final int DECODED_REPORTS = 16;
+
+    private final Path directory;
+    private final int maxReports;
+    private final long maxBytes;
+    // by file name, least recently used first
+    private final LinkedHashMap<String, StoredReport> reports = new LinkedHashMap<>(16, 0.75f, true);
+    // the most recently saved or opened report of each summary id and of each data version
+    private final Map<Integer, String> namesById = new HashMap<>();
+    private final Map<Long, String> namesByDataVersion = new HashMap<>();
+    private final Map<String, SummaryReport> decoded = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SummaryReport> eldest) {
+            return size() > DECODED_REPORTS;
+        }
+    };
+    private long totalBytes;
+
+    public FileSummaryReportGateway(final String directoryPath) {
+        this(Paths.get(directoryPath), DEFAULT_MAX_REPORTS, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Opens or creates a report store.
+     * @param directory directory holding one file per report
+     * @param maxReports number of reports kept before the least recently used are deleted
+     * @param maxBytes total size of the report files kept before the least recently used are deleted
+     */
+    public FileSummaryReportGateway(final Path directory, final int maxReports, final long maxBytes) {
+        this.directory = directory;
+        this.maxReports = maxReports;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            index();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        evict();
+    }
+
+    @Override
+    public synchronized SummaryReport getById(final int summaryId) {
+        return read(namesById.get(summaryId));
+    }
+
+    @Override
+    public synchronized SummaryReport getByDataVersion(final long dataVersion) {
+        return read(namesByDataVersion.get(dataVersion));
+    }
+
+    @Override
+    public synchronized Long getFingerprint(final long dataVersion) {
+        final String name = namesByDataVersion.get(dataVersion);
+        return name == null ? null : reports.get(name).fingerprint;
+    }
+
+    @Override
+    public void save(final SummaryReport report) {
+        store(report, null, 0);
+    }
+
+    @Override
+    public void save(final SummaryReport report, final long dataVersion, final long fingerprint) {
+        store(report, dataVersion, fingerprint);
+    }
+
+    private SummaryReport read(final String name) {
+        final StoredReport stored = name == null ? null : reports.get(name);
+        if (stored == null) {
+            return null;
+        }
+        touch(stored);
+        SummaryReport report = decoded.get(name);
+        if (report == null) {
+            try {
+                report = SummaryReportCodec.decode(ByteBuffer.wrap(Files.readAllBytes(stored.file)));
+            }
+            catch (IOException ex) {
+                // deleted or damaged behind our back; the report has to be computed again
+                remove(name);
+                return null;
+            }
+            decoded.put(name, report);
+        }
+        return report;
+    }
+
+    private synchronized void store(final SummaryReport report, final Long dataVersion, final long fingerprint) {
+        final byte[] bytes = SummaryReportCodec.encode(report, dataVersion, fingerprint);
+        final String name = nameFor(report.getSummaryId(), dataVersion);
+        final Path file = directory.resolve(name);
+        try {
+            final Path temp = Files.createTempFile(directory, "." + name, ".part");
+            try {
+                Files.write(temp, bytes);
+                moveIntoPlace(temp, file);
+            }
+            catch (IOException | RuntimeException ex) {
+                Files.deleteIfExists(temp);
+                throw ex;
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        forget(name);
+        add(new StoredReport(name, report.getSummaryId(), dataVersion, fingerprint, file, bytes.length));
+        decoded.put(name, report);
+        evict();
+    }
+
+    /**
+     * Reads the header of every report file, oldest use first, so that later uses win. A report file
+     * whose name does not match its header, as written before reports were stored by data version,
+     * is renamed; files that cannot be read are skipped.
+     */
+    private void index() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        final Map<Path, FileTime> lastUsed = new HashMap<>();
+        for (Path file : files) {
+            lastUsed.put(file, Files.getLastModifiedTime(file));
+        }
+        files.sort(Comparator.comparing(lastUsed::get));
+        final byte[] header = new byte[SummaryReportCodec.HEADER_BYTES];
+        for (Path file : files) {
+            final SummaryReportCodec.Header parsed;
+            try (InputStream input = Files.newInputStream(file)) {
+                final int read = input.readNBytes(header, 0, header.length);
+                parsed = SummaryReportCodec.readHeader(ByteBuffer.wrap(header, 0, read));
+            }
+            catch (IOException ex) {
+                // not a report this version can read, but possibly one another version can
+                continue;
+            }
+            final String name = nameFor(parsed.getSummaryId(), parsed.getDataVersion());
+            Path indexed = file;
+            if (!file.getFileName().toString().equals(name)) {
+                if (reports.containsKey(name) || Files.exists(directory.resolve(name))) {
+                    // a copy of a report that is stored under its own name
+                    continue;
+                }
+                indexed = directory.resolve(name);
+                moveIntoPlace(file, indexed);
+            }
+            add(new StoredReport(name, parsed.getSummaryId(), parsed.getDataVersion(), parsed.getFingerprint(),
+                    indexed, Files.size(indexed)));
+        }
+    }
+
+    private void add(final StoredReport stored) {
+        reports.put(stored.name, stored);
+        totalBytes += stored.bytes;
+        namesById.put(stored.summaryId, stored.name);
+        if (stored.dataVersion != null) {
+            namesByDataVersion.put(stored.dataVersion, stored.name);
+        }
+    }
+
+    private StoredReport forget(final String name) {
+        final StoredReport stored = reports.remove(name);
+        decoded.remove(name);
+        if (stored != null) {
+            totalBytes -= stored.bytes;
+            namesById.remove(stored.summaryId, name);
+            if (stored.dataVersion != null) {
+                namesByDataVersion.remove(stored.dataVersion, name);
+            }
+        }
+        return stored;
+    }
+
+    private void remove(final String name) {
+        final StoredReport stored = forget(name);
+        if (stored != null) {
+            try {
+                Files.deleteIfExists(stored.file);
+            }
+            catch (IOException ex) {
+                // left for the next run to find and replace
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used reports until the store is within its limits; the most recently
+     * used report is always kept.
+     */
+    private void evict() {
+        final Iterator<String> eldest = new ArrayList<>(reports.keySet()).iterator();
+        while (reports.size() > 1 && (reports.size() > maxReports || totalBytes > maxBytes)) {
+            remove(eldest.next());
+        }
+    }
+
+    private static void touch(final StoredReport stored) {
+        try {
+            Files.setLastModifiedTime(stored.file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        catch (IOException ex) {
+            // the order of use is only a hint for the next run
+        }
+    }
+
+    private static String nameFor(final int summaryId, final Long dataVersion) {
+        if (dataVersion == null) {
+            return summaryId + SUFFIX;
+        }
+        return VERSION_PREFIX + Long.toHexString(dataVersion) + SUFFIX;
+    }
+
+    private static void moveIntoPlace(final Path temp, final Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Index entry of a report file.
+     */
+    private static final class StoredReport {
+        private final String name;
+        private final int summaryId;
+        private final Long dataVersion;
+        private final long fingerprint;
+        private final Path file;
+        private final long bytes;
+
+        StoredReport(String name, int summaryId, Long dataVersion, long fingerprint, Path file, long bytes) {
+            this.name = name;
+            this.summaryId = summaryId;
+            this.dataVersion = dataVersion;
+            this.fingerprint = fingerprint;
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+}
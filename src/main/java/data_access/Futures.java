@@ -0,0 +1,38 @@
+package data_access;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for the asynchronous work shared by the data access objects.
+ */
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for an asynchronous result, rethrowing its failure as an IOException.
+     * @param future the pending result
+     * @param <T> the result type
+     * @return the result
+     * @throws IOException if the computation failed
+     */
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        }
+        catch (CompletionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -1,11 +1,16 @@
 // src/main/java/data_access/InMemoryDataSubsetGateway.java
 package data_access;
 
-import entity.DataRow;
+import entity.CategoricalColumnVector;
 import entity.DataSet;
 import entity.DataSubsetSpec;
+import entity.NumericColumnVector;
+import entity.RowPredicate;
+import entity.RowSelection;
 import use_case.dataset.CurrentTableGateway;
+import use_case.visualization.data.CategoricalCodes;
 import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.data.NumericValues;
 import use_case.visualization.gateway.DataSubsetGateway;
 
 import java.util. *;
@@ -16,9 +21,28 @@ import java.util. *;
         public class InMemoryDataSubsetGateway implements DataSubsetGateway {
 
             private final CurrentTableGateway currentTableGateway;
+            private final ParsedColumnCache parsedColumns;
 
             public InMemoryDataSubsetGateway(CurrentTableGateway currentTableGateway) {
+                this(currentTableGateway, ParsedColumnCache.DEFAULT_MAX_VALUES);
+            }
+
+            /**
+             * Creates the gateway.
+             * @param currentTableGateway holder of the current DataSet
+             * @param maxParsedValues number of values parsed from text cells that are kept for reuse
+             */
+            public InMemoryDataSubsetGateway(CurrentTableGateway currentTableGateway, long maxParsedValues) {
                 this.currentTableGateway = currentTableGateway;
+                this.parsedColumns = new ParsedColumnCache(maxParsedValues);
+            }
+
+            /**
+             * Returns how many times a column without a typed vector had to be parsed.
+             * @return the number of parses
+             */
+            long getParseCount() {
+                return parsedColumns.getParseCount();
             }
 
             @Override
@@ -29,45 +53,128 @@ import java.util. *;
                     throw new IllegalStateException("No current DataSet is loaded.");
                 }
 
-                Map<String, List<Double>> numericColumns = new HashMap<>();
+                // Header positions, looked up once; the first column with a header wins
+                Map<String, entity.Column> columnsByHeader = columnsByHeader(dataSet);
+
+                // Rows that match the filters and predicate; null when the spec has none and all requested rows are used
+                List<Integer> matchingRows = null;
+                List<Integer> rowIndices = spec.getRowIndices();
+                RowSelection selection = spec.getRowSelection();
+                RowPredicate condition = spec.getCondition();
+                if (condition != null) {
+                    matchingRows = filterRows(dataSet, columnsByHeader, rowIndices, selection, condition);
+                    rowIndices = matchingRows;
+                    selection = RowSelection.unwrap(matchingRows);
+                }
+
+                int[] rows = selection != null
+                        ? selection.toArray()
+                        : rowIndices.stream().mapToInt(Integer::intValue).toArray();
+                // Every row of the table in order: typed vectors are then used without a row map
+                boolean allRows = selection != null && selection.isAll()
+                        && selection.cardinality() == dataSet.getRows().size();
+
+                Map<String, NumericValues> numericValues = new LinkedHashMap<>();
                 Map<String, List<String>> categoricalColumns = new HashMap<>();
+                Map<String, CategoricalCodes> categoricalCodes = new HashMap<>();
 
                 for (String colName : spec.getColumnNames()) {
-                    // Find column index
-                    int colIndex = -1;
-                    entity.Column column = null;
-                    for (int i = 0; i < dataSet.getColumns().size(); i++) {
-                        if (dataSet.getColumns().get(i).getHeader().equals(colName)) {
-                            colIndex = i;
-                            column = dataSet.getColumns().get(i);
-                            break;
-                        }
-                    }
-                    
-                    if (colIndex == -1) {
+                    entity.Column column = columnsByHeader.get(colName);
+                    if (column == null) {
                         continue; // Skip if column not found
                     }
                     
                     // Determine if numeric or categorical
-                    if (column.getDataType() == entity.DataType.NUMERIC) {
-                        List<Double> colValues = new ArrayList<>();
-                        for (Integer rowIndex : spec.getRowIndices()) {
-                            DataRow row = dataSet.getRows().get(rowIndex);
-                            double value = Double.parseDouble(row.getCells().get(colIndex));
-                            colValues.add(value);
+                    if (column.getVector() instanceof NumericColumnVector) {
+                        // Typed column: a view over the vector, nothing is parsed or copied
+                        numericValues.put(colName,
+                                NumericValues.of((NumericColumnVector) column.getVector(), allRows ? null : rows));
+                    } else if (column.getDataType() == entity.DataType.NUMERIC) {
+                        // Text cells are parsed once per column version and shared by later subsets
+                        NumericValues parsed = parsedColumns.get(column);
+                        numericValues.put(colName, allRows ? parsed : parsed.select(rows));
+                    } else if (column.getVector() instanceof CategoricalColumnVector) {
+                        // Dictionary-encoded column: copy codes and share the column's dictionary
+                        CategoricalColumnVector vector = (CategoricalColumnVector) column.getVector();
+                        List<String> dictionary = vector.getDictionary();
+                        int[] codes = new int[rows.length];
+                        List<String> colValues = new ArrayList<>(codes.length);
+                        for (int i = 0; i < codes.length; i++) {
+                            codes[i] = vector.getCode(rows[i]);
+                            colValues.add(codes[i] == CategoricalColumnVector.NULL_CODE
+                                    ? null : dictionary.get(codes[i]));
                         }
-                        numericColumns.put(colName, colValues);
+                        categoricalColumns.put(colName, colValues);
+                        categoricalCodes.put(colName, new CategoricalCodes(codes, dictionary));
                     } else {
                         // Categorical or other types
-                        List<String> colValues = new ArrayList<>();
-                        for (Integer rowIndex : spec.getRowIndices()) {
-                            DataRow row = dataSet.getRows().get(rowIndex);
-                            colValues.add(row.getCells().get(colIndex));
+                        List<String> cells = column.getCells();
+                        List<String> colValues = new ArrayList<>(rows.length);
+                        for (int row : rows) {
+                            colValues.add(cells.get(row));
                         }
                         categoricalColumns.put(colName, colValues);
                     }
                 }
 
-                return new DataSubsetData(numericColumns, categoricalColumns);
+                return DataSubsetData.ofNumericValues(numericValues, categoricalColumns, categoricalCodes,
+                        matchingRows);
+            }
+
+            private static Map<String, entity.Column> columnsByHeader(DataSet dataSet) {
+                Map<String, entity.Column> columnsByHeader = new HashMap<>();
+                for (entity.Column column : dataSet.getColumns()) {
+                    columnsByHeader.putIfAbsent(column.getHeader(), column);
+                }
+                return columnsByHeader;
+            }
+
+            /**
+             * Evaluates the condition a column at a time. Candidates that cover a good part of the table are
+             * answered from a bitmap of the whole table, scanned in parallel; a few candidates are tested one by one.
+             */
+            private List<Integer> filterRows(DataSet dataSet, Map<String, entity.Column> columnsByHeader,
+                                             List<Integer> rowIndices, RowSelection selection, RowPredicate condition) {
+                PredicateScan scan = PredicateScan.compile(condition, name -> {
+                    entity.Column column = columnsByHeader.get(name);
+                    if (column == null) {
+                        return null;
+                    }
+                    if (column.getVector() != null) {
+                        return PredicateScan.Source.of(column.getVector());
+                    }
+                    return PredicateScan.Source.of(column.getCells(),
+                            column.getDataType() == entity.DataType.NUMERIC ? parsedColumns.get(column) : null);
+                });
+                int rowCount = dataSet.getRows().size();
+                int candidates = selection != null ? selection.cardinality() : rowIndices.size();
+                BitSet table = candidates * 16L >= rowCount ? BitSet.valueOf(scan.scan(rowCount)) : null;
+
+                // A selection keeps its matches as a selection; a list keeps its order
+                if (selection != null && table != null) {
+                    return RowSelection.of(table).and(selection).asList();
+                }
+                PrimitiveIterator.OfInt rows = selection != null
+                        ? selection.iterator()
+                        : rowIndices.stream().mapToInt(Integer::intValue).iterator();
+                int[] matching = new int[candidates];
+                int matched = 0;
+                while (rows.hasNext()) {
+                    int row = rows.nextInt();
+                    if (row < 0 || row >= rowCount) {
+                        throw new IndexOutOfBoundsException("Index " + row + " out of bounds for length " + rowCount);
+                    }
+                    if (table != null ? table.get(row) : scan.test(row)) {
+                        matching[matched++] = row;
+                    }
+                }
+                if (selection != null) {
+                    return RowSelection.of(Arrays.copyOf(matching, matched)).asList();
+                }
+                List<Integer> matchingRows = new ArrayList<>(matched);
+                for (int i = 0; i < matched; i++) {
+                    matchingRows.add(matching[i]);
+                }
+                return matchingRows;
             }
         }
\ No newline at end of file
@@ -12,6 +12,8 @@ import java.util.Map;
 public class InMemorySummaryReportGateway implements SummaryReportGateway {
 
     private final Map<Integer, SummaryReport> reportsById = new HashMap<>();
+    private final Map<Long, SummaryReport> reportsByDataVersion = new HashMap<>();
+    private final Map<Long, Long> fingerprintsByDataVersion = new HashMap<>();
 
     @Override
     public SummaryReport getById(final int summaryId) {
@@ -22,4 +24,21 @@ public class InMemorySummaryReportGateway implements SummaryReportGateway {
     public void save(final SummaryReport report) {
         reportsById.put(report.getSummaryId(), report);
     }
+
+    @Override
+    public void save(final SummaryReport report, final long dataVersion, final long fingerprint) {
+        save(report);
+        reportsByDataVersion.put(dataVersion, report);
+        fingerprintsByDataVersion.put(dataVersion, fingerprint);
+    }
+
+    @Override
+    public SummaryReport getByDataVersion(final long dataVersion) {
+        return reportsByDataVersion.get(dataVersion);
+    }
+
+    @Override
+    public Long getFingerprint(final long dataVersion) {
+        return fingerprintsByDataVersion.get(dataVersion);
+    }
 }
@@ -0,0 +1,36 @@
+package data_access;
+
+import entity.CategoricalColumnVector;
+import entity.StringPool;
+
+/**
+ * CATEGORICAL column vector whose codes live in a memory-mapped file; the dictionary stays on the heap.
+ */
+final class MappedCategoricalColumnVector extends CategoricalColumnVector {
+    private final MappedColumnFile file;
+
+    MappedCategoricalColumnVector(MappedColumnFile file, StringPool stringPool) {
+        super(stringPool);
+        this.file = file;
+    }
+
+    @Override
+    protected int code(int index) {
+        return file.getInt(index);
+    }
+
+    @Override
+    protected void setCode(int index, int code) {
+        file.putInt(index, code);
+    }
+
+    @Override
+    protected int capacity() {
+        return file.capacity();
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        file.resize(newCapacity);
+    }
+}
@@ -0,0 +1,144 @@
+package data_access;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file of fixed-width values that is memory-mapped read-write.
+ * A single mapping is limited to 2 GB, so the file is mapped in segments; values never straddle
+ * two segments because the segment size is a multiple of the value width.
+ * Pages are loaded and written back by the OS page cache, so the file can be far larger than the heap.
+ */
+final class MappedColumnFile implements Closeable {
+    static final int DEFAULT_SEGMENT_SHIFT = 30;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int valueBytes;
+    private final int segmentShift;
+    private final long segmentMask;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private int capacity;
+
+    MappedColumnFile(Path file, int valueBytes, int capacity) throws IOException {
+        this(file, valueBytes, capacity, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    MappedColumnFile(Path file, int valueBytes, int capacity, int segmentShift) throws IOException {
+        if (Integer.bitCount(valueBytes) != 1 || (1L << segmentShift) < valueBytes || segmentShift > 30) {
+            throw new IllegalArgumentException("Value width " + valueBytes + " does not fit segments of 2^"
+                    + segmentShift + " bytes");
+        }
+        this.file = file;
+        this.valueBytes = valueBytes;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            grow(Math.max(capacity, 1));
+        }
+        catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    double getDouble(int index) {
+        final long position = (long) index << 3;
+        return segments[(int) (position >>> segmentShift)].getDouble((int) (position & segmentMask));
+    }
+
+    void putDouble(int index, double value) {
+        final long position = (long) index << 3;
+        segments[(int) (position >>> segmentShift)].putDouble((int) (position & segmentMask), value);
+    }
+
+    int getInt(int index) {
+        final long position = (long) index << 2;
+        return segments[(int) (position >>> segmentShift)].getInt((int) (position & segmentMask));
+    }
+
+    void putInt(int index, int value) {
+        final long position = (long) index << 2;
+        segments[(int) (position >>> segmentShift)].putInt((int) (position & segmentMask), value);
+    }
+
+    /**
+     * Extends the file so that it holds at least the given number of values.
+     * Only the last, partial segment is remapped; existing full segments stay as they are.
+     * Shrinking is ignored, the file keeps its size until it is closed.
+     * @param newCapacity number of values
+     */
+    void resize(int newCapacity) {
+        if (newCapacity <= capacity) {
+            return;
+        }
+        try {
+            grow(newCapacity);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Could not grow " + file + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Writes modified pages back to the file.
+     */
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Closes the file and deletes it. Mappings are released by the garbage collector, so on platforms
+     * that refuse to delete mapped files the file is removed when the JVM exits instead.
+     */
+    void delete() {
+        try {
+            close();
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ex) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void grow(int newCapacity) throws IOException {
+        final long bytes = (long) newCapacity * valueBytes;
+        final long segmentBytes = 1L << segmentShift;
+        final int count = (int) ((bytes + segmentBytes - 1) >>> segmentShift);
+        final int first = Math.max(segments.length - 1, 0);
+        final MappedByteBuffer[] grown = Arrays.copyOf(segments, count);
+        for (int i = first; i < count; i++) {
+            final long start = (long) i << segmentShift;
+            // mapping past the end of the file extends it
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(segmentBytes, bytes - start));
+            grown[i].order(ByteOrder.nativeOrder());
+        }
+        segments = grown;
+        capacity = newCapacity;
+    }
+}
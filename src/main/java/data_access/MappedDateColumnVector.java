@@ -0,0 +1,34 @@
+package data_access;
+
+import entity.DateColumnVector;
+
+/**
+ * DATE column vector whose epoch days live in a memory-mapped file instead of a heap array.
+ */
+final class MappedDateColumnVector extends DateColumnVector {
+    private final MappedColumnFile file;
+
+    MappedDateColumnVector(MappedColumnFile file) {
+        this.file = file;
+    }
+
+    @Override
+    protected int epochDay(int index) {
+        return file.getInt(index);
+    }
+
+    @Override
+    protected void setEpochDay(int index, int epochDay) {
+        file.putInt(index, epochDay);
+    }
+
+    @Override
+    protected int capacity() {
+        return file.capacity();
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        file.resize(newCapacity);
+    }
+}
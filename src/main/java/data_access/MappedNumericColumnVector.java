@@ -0,0 +1,34 @@
+package data_access;
+
+import entity.NumericColumnVector;
+
+/**
+ * NUMERIC column vector whose values live in a memory-mapped file instead of a heap array.
+ */
+final class MappedNumericColumnVector extends NumericColumnVector {
+    private final MappedColumnFile file;
+
+    MappedNumericColumnVector(MappedColumnFile file) {
+        this.file = file;
+    }
+
+    @Override
+    protected double value(int index) {
+        return file.getDouble(index);
+    }
+
+    @Override
+    protected void setValue(int index, double value) {
+        file.putDouble(index, value);
+    }
+
+    @Override
+    protected int capacity() {
+        return file.capacity();
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        file.resize(newCapacity);
+    }
+}
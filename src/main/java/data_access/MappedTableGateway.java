@@ -0,0 +1,208 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnVector;
+import entity.DataSet;
+import entity.DataType;
+import entity.StringPool;
+import use_case.dataset.CurrentTableGateway;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CurrentTableGateway that keeps the typed values of the current table in memory-mapped column files
+ * inside a workspace directory, so that the OS page cache rather than the heap holds the data.
+ * Numeric values, dates and categorical codes are mapped; the per-cell missing/null bitmaps, boolean
+ * columns and categorical dictionaries stay on the heap, which is a small fraction of the data.
+ * Edits through {@link DataSet#setCell} write straight into the mapped pages, so saving the table that
+ * {@link #load()} returned only maps the columns that were put into it since. Saving any other table
+ * copies it into new column files. The application keeps tables too large for the heap here, through
+ * a {@link TieredTableGateway}.
+ */
+public final class MappedTableGateway implements CurrentTableGateway, Closeable {
+    private final Path workspaceDir;
+    private final int segmentShift;
+    private DataSet table;
+    private List<MappedColumnFile> files = new ArrayList<>();
+    private Set<ColumnVector> vectors = newVectorSet();
+
+    public MappedTableGateway(String workspaceDirPath) {
+        this(Path.of(workspaceDirPath), MappedColumnFile.DEFAULT_SEGMENT_SHIFT);
+    }
+
+    MappedTableGateway(Path workspaceDir, int segmentShift) {
+        this.workspaceDir = workspaceDir;
+        this.segmentShift = segmentShift;
+    }
+
+    @Override
+    public void save(DataSet table_data) {
+        if (table_data != null && table_data == table) {
+            mapNewColumns();
+            return;
+        }
+        final List<MappedColumnFile> previous = files;
+        if (table_data == null) {
+            table = null;
+            files = new ArrayList<>();
+            vectors = newVectorSet();
+        }
+        else {
+            final List<MappedColumnFile> created = new ArrayList<>();
+            final Set<ColumnVector> mapped = newVectorSet();
+            table = map(table_data, created, mapped);
+            files = created;
+            vectors = mapped;
+        }
+        // the old table may still be referenced by a caller, but its files are ours to reclaim
+        previous.forEach(MappedColumnFile::delete);
+    }
+
+    @Override
+    public DataSet load() {
+        return table;
+    }
+
+    /**
+     * Makes a dataset saved in the binary format the current table, copying it into column files
+     * one row group at a time so that it never has to fit on the heap. The current table is
+     * released first, so that its files and the new ones never fill the workspace together;
+     * if the dataset cannot be opened there is no current table afterwards.
+     * @param store the binary dataset store
+     * @param id the saved dataset id
+     */
+    void openSaved(BinaryDataSetDataAccessObject store, String id) {
+        close();
+        final List<MappedColumnFile> created = new ArrayList<>();
+        final Set<ColumnVector> mapped = newVectorSet();
+        final DataSet opened;
+        try (BinaryDataSetFile file = store.open(id)) {
+            final StringPool stringPool = new StringPool();
+            final List<Column> columns = new ArrayList<>(file.getColumnCount());
+            for (int c = 0; c < file.getColumnCount(); c++) {
+                final ColumnVector vector = newVector(file.getType(c), file.getRowCount(), stringPool, created);
+                mapped.add(vector);
+                for (int g = 0; g < file.getRowGroupCount(); g++) {
+                    vector.appendAll(file.readColumn(c, new int[] {g}));
+                }
+                columns.add(new Column(vector, file.getHeaders().get(c)));
+            }
+            opened = DataSet.columnar(columns, file.getRowCount(), file.getIrregularRows());
+        }
+        catch (IOException ex) {
+            created.forEach(MappedColumnFile::delete);
+            throw new UncheckedIOException("Could not open dataset " + id + ": " + ex.getMessage(), ex);
+        }
+        table = opened;
+        files = created;
+        vectors = mapped;
+    }
+
+    /**
+     * Releases the column files of the current table. The table must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        files.forEach(MappedColumnFile::delete);
+        files = new ArrayList<>();
+        vectors = newVectorSet();
+        table = null;
+    }
+
+    /**
+     * Maps the columns of the current table that are not backed by this gateway, such as columns
+     * added to or replaced in its column list, in place.
+     */
+    private void mapNewColumns() {
+        final List<Column> columns = table.getColumns();
+        final List<MappedColumnFile> created = new ArrayList<>();
+        final List<ColumnVector> mapped = new ArrayList<>();
+        final StringPool stringPool = new StringPool();
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                final Column column = columns.get(i);
+                if (column.getVector() == null || !vectors.contains(column.getVector())) {
+                    final Column copy = mapColumn(column, stringPool, created);
+                    mapped.add(copy.getVector());
+                    columns.set(i, copy);
+                }
+            }
+        }
+        catch (IOException ex) {
+            created.forEach(MappedColumnFile::delete);
+            throw new UncheckedIOException("Could not map table into " + workspaceDir + ": " + ex.getMessage(), ex);
+        }
+        catch (RuntimeException ex) {
+            created.forEach(MappedColumnFile::delete);
+            throw ex;
+        }
+        files.addAll(created);
+        vectors.addAll(mapped);
+    }
+
+    private DataSet map(DataSet source, List<MappedColumnFile> created, Set<ColumnVector> mapped) {
+        final int rowCount = source.getRows().size();
+        final StringPool stringPool = new StringPool();
+        final List<Column> columns = new ArrayList<>(source.getColumns().size());
+        try {
+            for (Column column : source.getColumns()) {
+                final Column copy = mapColumn(column, stringPool, created);
+                mapped.add(copy.getVector());
+                columns.add(copy);
+            }
+        }
+        catch (IOException ex) {
+            created.forEach(MappedColumnFile::delete);
+            throw new UncheckedIOException("Could not map table into " + workspaceDir + ": " + ex.getMessage(), ex);
+        }
+        catch (RuntimeException ex) {
+            created.forEach(MappedColumnFile::delete);
+            throw ex;
+        }
+        return DataSet.columnar(columns, rowCount, BinaryDataSetDataAccessObject.irregularRows(source));
+    }
+
+    private Column mapColumn(Column column, StringPool stringPool, List<MappedColumnFile> created)
+            throws IOException {
+        ColumnVector vector = column.getVector();
+        if (vector == null) {
+            vector = ColumnVector.of(column.getDataType(), column.getCells());
+        }
+        final ColumnVector mapped = newVector(vector.getDataType(), vector.size(), stringPool, created);
+        mapped.appendAll(vector);
+        return new Column(mapped, column.getHeader());
+    }
+
+    private static Set<ColumnVector> newVectorSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private ColumnVector newVector(DataType type, int capacity, StringPool stringPool,
+                                   List<MappedColumnFile> created) throws IOException {
+        if (type == DataType.BOOLEAN) {
+            // one bit per row, no smaller than its missing bitmap
+            return ColumnVector.create(type, capacity, stringPool);
+        }
+        Files.createDirectories(workspaceDir);
+        final int valueBytes = type == DataType.NUMERIC ? Double.BYTES : Integer.BYTES;
+        final MappedColumnFile file = new MappedColumnFile(Files.createTempFile(workspaceDir, "column-", ".col"),
+                valueBytes, capacity, segmentShift);
+        created.add(file);
+        if (type == DataType.NUMERIC) {
+            return new MappedNumericColumnVector(file);
+        }
+        if (type == DataType.DATE) {
+            return new MappedDateColumnVector(file);
+        }
+        return new MappedCategoricalColumnVector(file, stringPool);
+    }
+}
@@ -0,0 +1,136 @@
+package data_access;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Channel that gzip-compresses everything written to it on other threads.
+ * The input is cut into fixed-size blocks and every block is compressed as a gzip member of its own,
+ * so the blocks compress in parallel while the caller keeps encoding. The members are written to the
+ * target in order; concatenated members form a valid gzip file that any gzip reader decompresses
+ * as one stream. The number of blocks in flight is bounded, so memory use does not grow with the input.
+ */
+final class ParallelGzipChannel implements WritableByteChannel {
+    static final int BLOCK_SIZE = 1 << 20;
+
+    private final WritableByteChannel out;
+    private final int level;
+    private final Executor executor;
+    private final int maxPending;
+    private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private boolean submitted;
+    private boolean open = true;
+
+    /**
+     * Creates a channel that compresses on the given executor.
+     * @param out the target, not closed by this channel
+     * @param level deflate level, 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param executor runs the compression of each block
+     * @param parallelism number of blocks compressed at the same time
+     */
+    ParallelGzipChannel(WritableByteChannel out, int level, Executor executor, int parallelism) {
+        this.out = out;
+        this.level = level;
+        this.executor = executor;
+        this.maxPending = Math.max(parallelism, 1) * 2;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        final int written = src.remaining();
+        while (src.hasRemaining()) {
+            final int take = Math.min(src.remaining(), BLOCK_SIZE - blockLength);
+            src.get(block, blockLength, take);
+            blockLength += take;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Compresses what is left and writes every pending member to the target. The target is not closed.
+     * @throws IOException if compressing or writing fails
+     */
+    void finish() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        // an empty input still needs one member to be a valid gzip file
+        if (blockLength > 0 || !submitted) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Same as {@link #finish()}; the target channel stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = block;
+        final int length = blockLength;
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+        submitted = true;
+        pending.add(CompletableFuture.supplyAsync(() -> compress(data, length), executor));
+        while (pending.size() > maxPending) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        final ByteBuffer member = ByteBuffer.wrap(Futures.await(pending.poll()));
+        while (member.hasRemaining()) {
+            out.write(member);
+        }
+    }
+
+    private byte[] compress(byte[] data, int length) {
+        final ByteArrayOutputStream member = new ByteArrayOutputStream(length / 4 + 64);
+        try (GZIPOutputStream gzip = new LevelGzipOutputStream(member, level)) {
+            gzip.write(data, 0, length);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return member.toByteArray();
+    }
+
+    /**
+     * GZIPOutputStream with a chosen deflate level.
+     */
+    private static final class LevelGzipOutputStream extends GZIPOutputStream {
+        LevelGzipOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(level);
+        }
+    }
+}
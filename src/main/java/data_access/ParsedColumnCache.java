@@ -0,0 +1,100 @@
+package data_access;
+
+import entity.Column;
+import use_case.visualization.data.NumericValues;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least recently used numeric values parsed from the text cells of columns that have no typed vector.
+ * Values are kept with the version of the column they were parsed from and parsed again once a cell or
+ * the header of that column has been set, so repeated subsets of an unchanged column parse it only once.
+ */
+final class ParsedColumnCache {
+    static final long DEFAULT_MAX_VALUES = 8_000_000L;
+
+    private final long maxValues;
+    // columns compare by identity, so a column of another dataset never shares an entry
+    private final Map<Column, Parsed> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedValues;
+    private long parseCount;
+
+    /**
+     * Creates the cache.
+     * @param maxValues number of cached values beyond which the least recently used columns are dropped
+     */
+    ParsedColumnCache(long maxValues) {
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Returns the values of every row of a column; blank and unparseable cells are nulls.
+     * @param column a numeric column
+     * @return the parsed values, shared by all callers until the column changes
+     */
+    synchronized NumericValues get(Column column) {
+        final long version = column.getVersion();
+        final Parsed cached = entries.get(column);
+        if (cached != null && cached.version == version) {
+            return cached.values;
+        }
+        if (cached != null) {
+            entries.remove(column);
+            cachedValues -= cached.values.size();
+        }
+        final NumericValues values = parse(column.getCells());
+        parseCount++;
+        entries.put(column, new Parsed(version, values));
+        cachedValues += values.size();
+        // the newest column is kept even if it alone exceeds the limit
+        final Iterator<Parsed> eldest = entries.values().iterator();
+        while (cachedValues > maxValues && entries.size() > 1) {
+            cachedValues -= eldest.next().values.size();
+            eldest.remove();
+        }
+        return values;
+    }
+
+    /**
+     * Returns how many times a column had to be parsed.
+     * @return the number of cache misses
+     */
+    synchronized long getParseCount() {
+        return parseCount;
+    }
+
+    private static NumericValues parse(List<String> cells) {
+        final double[] values = new double[cells.size()];
+        final BitSet nulls = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            final String cell = cells.get(i);
+            if (cell == null || cell.isBlank()) {
+                values[i] = Double.NaN;
+                nulls.set(i);
+                continue;
+            }
+            try {
+                values[i] = Double.parseDouble(cell);
+            }
+            catch (NumberFormatException ex) {
+                values[i] = Double.NaN;
+                nulls.set(i);
+            }
+        }
+        return NumericValues.of(values, nulls);
+    }
+
+    private static final class Parsed {
+        private final long version;
+        private final NumericValues values;
+
+        Parsed(long version, NumericValues values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package data_access;
+
+import entity.CategoricalColumnVector;
+import entity.Column;
+import entity.ColumnVector;
+import entity.DataSet;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+
+/**
+ * Exports a DataSet as a directory of CSV files, one per partition, for batch jobs that read them in parallel.
+ * Rows are partitioned either into contiguous ranges of about equal size or by the value of one column.
+ * The partitions are encoded and written concurrently, each on a worker of its own with its own
+ * {@link CsvDataSetWriter}, so the export is not bound to a single writer thread.
+ * Every file is written under a temporary name and renamed into place; the manifest listing the files,
+ * their row counts and the schema is written last, so a directory with a manifest is always complete.
+ * <p>
+ * The application does not construct an exporter: the table view only saves to a single file. This is
+ * a library entry point for code that prepares data for batch jobs; an export action in the view would
+ * need a use case of its own to run it off the event thread on a copy of the table.
+ */
+public final class PartitionedCsvExporter {
+    public static final String MANIFEST_FILE = "manifest.json";
+
+    private static final String PART_PREFIX = "part-";
+
+    /**
+     * Root directory for identifiers that are not absolute paths.
+     */
+    private final File rootDir;
+    private final char delimiter;
+    private final boolean compressed;
+    private final ExecutorService workers;
+
+    public PartitionedCsvExporter(final String rootDirPath) {
+        this(rootDirPath, ',', false, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an exporter.
+     * @param rootDirPath directory for identifiers that are not absolute paths
+     * @param delimiter   field separator of the CSV files
+     * @param compressed  whether the partitions are written as ".csv.gz"
+     * @param parallelism number of partitions written at the same time
+     */
+    public PartitionedCsvExporter(final String rootDirPath, final char delimiter, final boolean compressed,
+                                  final int parallelism) {
+        // fails early on a delimiter the writer cannot use
+        new CsvDataSetWriter(delimiter, 64);
+        this.rootDir = new File(rootDirPath);
+        this.delimiter = delimiter;
+        this.compressed = compressed;
+        this.workers = Executors.newFixedThreadPool(Math.max(parallelism, 1), task -> {
+            final Thread thread = new Thread(task, "dataset-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Splits the rows into contiguous ranges of about equal size, in order.
+     * @param id          directory to export into, relative to the root unless absolute
+     * @param dataSet     the data to export
+     * @param partitions  number of files; fewer are written when there are fewer rows
+     * @return the manifest file
+     * @throws IOException if a file cannot be written
+     */
+    public Path exportByRowRanges(final String id, final DataSet dataSet, final int partitions) throws IOException {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be positive: " + partitions);
+        }
+        final int rowCount = dataSet.getRows().size();
+        final int count = Math.max(Math.min(partitions, rowCount), 1);
+        final List<Partition> parts = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            final int from = (int) ((long) rowCount * p / count);
+            final int to = (int) ((long) rowCount * (p + 1) / count);
+            parts.add(new Partition(p, from, to, null));
+        }
+        final JSONObject partitioning = new JSONObject().put("type", "rows");
+        return export(directoryFor(id), dataSet, null, parts, partitioning);
+    }
+
+    /**
+     * Puts the rows with equal values of a column into one file each, keeping their order;
+     * partitions are numbered in the order their values first occur, and empty cells form a partition of their own.
+     * @param id         directory to export into, relative to the root unless absolute
+     * @param dataSet    the data to export
+     * @param columnName header of the column to partition by, such as a categorical column
+     * @return the manifest file
+     * @throws IOException if a file cannot be written
+     */
+    public Path exportByColumn(final String id, final DataSet dataSet, final String columnName) throws IOException {
+        final Column column = findColumn(dataSet, columnName);
+        final int rowCount = dataSet.getRows().size();
+
+        // group number of every row, then a counting sort of the row indices by group
+        final int[] groups = new int[rowCount];
+        final List<String> values = groupRows(column, rowCount, groups);
+        final int[] starts = new int[values.size() + 1];
+        for (int row = 0; row < rowCount; row++) {
+            starts[groups[row] + 1]++;
+        }
+        for (int g = 0; g < values.size(); g++) {
+            starts[g + 1] += starts[g];
+        }
+        final int[] next = starts.clone();
+        final int[] order = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            order[next[groups[row]]++] = row;
+        }
+
+        final List<Partition> parts = new ArrayList<>(values.size());
+        for (int g = 0; g < values.size(); g++) {
+            parts.add(new Partition(g, starts[g], starts[g + 1], values.get(g)));
+        }
+        final JSONObject partitioning = new JSONObject().put("type", "column").put("column", columnName);
+        return export(directoryFor(id), dataSet, order, parts, partitioning);
+    }
+
+    /**
+     * Numbers the distinct values of a column in the order they first occur.
+     * Categorical vectors are grouped by their dictionary codes without reading the cells as strings.
+     */
+    private static List<String> groupRows(final Column column, final int rowCount, final int[] groups) {
+        final List<String> values = new ArrayList<>();
+        final ColumnVector vector = column.getVector();
+        if (vector instanceof CategoricalColumnVector && vector.getVerbatimCells().isEmpty()) {
+            final CategoricalColumnVector categorical = (CategoricalColumnVector) vector;
+            final List<String> dictionary = categorical.getDictionary();
+            // slot 0 holds null and empty cells, slot code + 1 every other value
+            final int[] slotOfCode = new int[dictionary.size()];
+            for (int code = 0; code < slotOfCode.length; code++) {
+                slotOfCode[code] = dictionary.get(code).isEmpty() ? 0 : code + 1;
+            }
+            final int[] groupOfSlot = new int[dictionary.size() + 1];
+            Arrays.fill(groupOfSlot, -1);
+            for (int row = 0; row < rowCount; row++) {
+                final int code = categorical.getCode(row);
+                final int slot = code == CategoricalColumnVector.NULL_CODE ? 0 : slotOfCode[code];
+                if (groupOfSlot[slot] < 0) {
+                    groupOfSlot[slot] = values.size();
+                    values.add(slot == 0 ? null : dictionary.get(code));
+                }
+                groups[row] = groupOfSlot[slot];
+            }
+            return values;
+        }
+        final List<String> cells = column.getCells();
+        final Map<String, Integer> groupOfValue = new HashMap<>();
+        for (int row = 0; row < rowCount; row++) {
+            String value = cells.get(row);
+            if (value != null && value.isEmpty()) {
+                value = null;
+            }
+            Integer group = groupOfValue.get(value);
+            if (group == null) {
+                group = values.size();
+                groupOfValue.put(value, group);
+                values.add(value);
+            }
+            groups[row] = group;
+        }
+        return values;
+    }
+
+    private Path export(final Path directory, final DataSet dataSet, final int[] order,
+                        final List<Partition> parts, final JSONObject partitioning) throws IOException {
+        Files.createDirectories(directory);
+        final List<CompletableFuture<Long>> writes = new ArrayList<>(parts.size());
+        for (final Partition part : parts) {
+            writes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return writePartition(directory.resolve(part.fileName(compressed)), dataSet, order, part);
+                }
+                catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, workers));
+        }
+        // wait for every write, even after one failed, so that no worker is still writing when this returns
+        final long[] bytes = new long[parts.size()];
+        IOException failure = null;
+        for (int p = 0; p < writes.size(); p++) {
+            try {
+                bytes[p] = Futures.await(writes.get(p));
+            }
+            catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+                else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        final JSONObject manifest = manifest(dataSet, parts, bytes, partitioning);
+        final Path manifestFile = directory.resolve(MANIFEST_FILE);
+        writeAtomically(manifestFile, channel -> {
+            final ByteBuffer text = StandardCharsets.UTF_8.encode(manifest.toString(2));
+            while (text.hasRemaining()) {
+                channel.write(text);
+            }
+        });
+        deleteStaleParts(directory, parts);
+        FileSaveDataSetDataAccessObject.syncDirectory(directory);
+        return manifestFile;
+    }
+
+    private long writePartition(final Path file, final DataSet dataSet, final int[] order, final Partition part)
+            throws IOException {
+        // the writers keep their state between buffer flushes, so every worker needs one of its own
+        final CsvDataSetWriter writer = new CsvDataSetWriter(delimiter);
+        writeAtomically(file, channel -> {
+            if (compressed) {
+                // the partitions already keep every worker busy, so each one compresses its own blocks
+                final ParallelGzipChannel gzip = new ParallelGzipChannel(channel, Deflater.DEFAULT_COMPRESSION,
+                        Runnable::run, 1);
+                writer.write(dataSet, order, part.from, part.to, gzip, null);
+                gzip.finish();
+            }
+            else {
+                writer.write(dataSet, order, part.from, part.to, channel, null);
+            }
+        });
+        return Files.size(file);
+    }
+
+    private static void writeAtomically(final Path target, final FileWrite body) throws IOException {
+        final Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".part");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                body.write(channel);
+                channel.force(true);
+            }
+            FileSaveDataSetDataAccessObject.moveIntoPlace(temp, target);
+        }
+        catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+    }
+
+    private JSONObject manifest(final DataSet dataSet, final List<Partition> parts, final long[] bytes,
+                                final JSONObject partitioning) {
+        final JSONArray schema = new JSONArray();
+        for (final Column column : dataSet.getColumns()) {
+            schema.put(new JSONObject()
+                    .put("name", column.getHeader())
+                    .put("type", column.getDataType().name()));
+        }
+        final JSONArray files = new JSONArray();
+        for (int p = 0; p < parts.size(); p++) {
+            final Partition part = parts.get(p);
+            final JSONObject entry = new JSONObject()
+                    .put("file", part.fileName(compressed))
+                    .put("rows", part.to - part.from)
+                    .put("bytes", bytes[p]);
+            if (partitioning.getString("type").equals("column")) {
+                entry.put("value", part.value == null ? JSONObject.NULL : part.value);
+            }
+            else {
+                entry.put("firstRow", part.from);
+            }
+            files.put(entry);
+        }
+        return new JSONObject()
+                .put("format", compressed ? "csv.gz" : "csv")
+                .put("delimiter", String.valueOf(delimiter))
+                .put("header", true)
+                .put("rows", dataSet.getRows().size())
+                .put("partitionedBy", partitioning)
+                .put("schema", schema)
+                .put("partitions", files);
+    }
+
+    /**
+     * Deletes the partitions of an earlier export into the same directory that this export did not replace.
+     */
+    private void deleteStaleParts(final Path directory, final List<Partition> parts) throws IOException {
+        final Set<String> current = new HashSet<>();
+        for (final Partition part : parts) {
+            current.add(part.fileName(compressed));
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PART_PREFIX + "*.csv*")) {
+            for (final Path file : stream) {
+                if (!current.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path directoryFor(final String id) {
+        File directory = new File(id);
+        if (!directory.isAbsolute()) {
+            directory = new File(rootDir, id);
+        }
+        return directory.toPath().toAbsolutePath().normalize();
+    }
+
+    private static Column findColumn(final DataSet dataSet, final String columnName) {
+        for (final Column column : dataSet.getColumns()) {
+            if (column.getHeader().equals(columnName)) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("Column not found: " + columnName);
+    }
+
+    /**
+     * One output file: a range of positions, either in the dataset or in the rows sorted by group.
+     */
+    private static final class Partition {
+        private final int number;
+        private final String value;
+        private final int from;
+        private final int to;
+
+        Partition(int number, int from, int to, String value) {
+            this.number = number;
+            this.from = from;
+            this.to = to;
+            this.value = value;
+        }
+
+        String fileName(boolean compressed) {
+            return String.format("%s%05d%s", PART_PREFIX, number, compressed ? ".csv.gz" : ".csv");
+        }
+    }
+
+    /**
+     * Writes the contents of a file.
+     */
+    private interface FileWrite {
+        void write(FileChannel out) throws IOException;
+    }
+}
@@ -0,0 +1,368 @@
+package data_access;
+
+import entity.CategoricalColumnVector;
+import entity.ColumnFilter;
+import entity.ColumnVector;
+import entity.NumericColumnVector;
+import entity.RowPredicate;
+import use_case.visualization.data.NumericValues;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * A RowPredicate compiled against the columns it reads, evaluated a column at a time into a bitmap.
+ * Each column filter becomes a tight loop over one column's typed storage: numeric comparisons test
+ * primitive doubles against a range without branching, null checks copy the missing-value words, and
+ * text operators on dictionary-encoded columns look codes up in a table built once from the dictionary.
+ * The rows are scanned in blocks that run in parallel; within a block every filter fills a word bitmap
+ * and AND, OR and NOT combine whole words.
+ */
+final class PredicateScan {
+    // a multiple of 64, so that blocks never share a bitmap word
+    private static final int BLOCK_ROWS = 1 << 16;
+
+    private final Node root;
+
+    private PredicateScan(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles a predicate.
+     * @param predicate the condition
+     * @param columns the storage of a column by name, or null if the column does not exist
+     * @return the compiled predicate
+     * @throws IllegalArgumentException if the predicate reads a column that does not exist
+     */
+    static PredicateScan compile(RowPredicate predicate, Function<String, Source> columns) {
+        return new PredicateScan(compileNode(predicate, columns));
+    }
+
+    /**
+     * Tests one row, for callers that only need a few rows of a large column.
+     * @param row row index within the sources
+     * @return whether the row matches
+     */
+    boolean test(int row) {
+        return root.test(row);
+    }
+
+    /**
+     * Evaluates every row.
+     * @param rowCount number of rows of the sources
+     * @return bitmap words with bit {@code row % 64} of word {@code row / 64} set for matching rows
+     */
+    long[] scan(int rowCount) {
+        final long[] words = new long[(rowCount + 63) >>> 6];
+        final int blocks = (rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            final int from = block * BLOCK_ROWS;
+            final int to = Math.min(from + BLOCK_ROWS, rowCount);
+            final long[] bits = root.scan(from, to);
+            System.arraycopy(bits, 0, words, from >>> 6, bits.length);
+        });
+        return words;
+    }
+
+    private static Node compileNode(RowPredicate predicate, Function<String, Source> columns) {
+        if (predicate instanceof ColumnFilter) {
+            final ColumnFilter filter = (ColumnFilter) predicate;
+            final Source source = columns.apply(filter.getColumnName());
+            if (source == null) {
+                throw new IllegalArgumentException("Filter column not found: " + filter.getColumnName());
+            }
+            return new Leaf(filter, source);
+        }
+        final List<RowPredicate> operands = predicate.getOperands();
+        final Node[] nodes = new Node[operands.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = compileNode(operands.get(i), columns);
+        }
+        return new Combination(predicate.getKind(), nodes);
+    }
+
+    /**
+     * The storage of one column: a typed vector, or text cells together with their parsed numbers.
+     */
+    static final class Source {
+        private final ColumnVector vector;
+        private final List<String> cells;
+        private final NumericValues numbers;
+
+        private Source(ColumnVector vector, List<String> cells, NumericValues numbers) {
+            this.vector = vector;
+            this.cells = cells;
+            this.numbers = numbers;
+        }
+
+        static Source of(ColumnVector vector) {
+            return new Source(vector, null, null);
+        }
+
+        /**
+         * Creates the storage of a column that has no typed vector.
+         * @param cells the text cells
+         * @param numbers the parsed cells of a numeric column, or null for other columns
+         * @return the source
+         */
+        static Source of(List<String> cells, NumericValues numbers) {
+            return new Source(null, cells, numbers);
+        }
+    }
+
+    private abstract static class Node {
+        abstract boolean test(int row);
+
+        /**
+         * Evaluates rows from (inclusive) to to (exclusive); bit i of the result is row from + i.
+         */
+        abstract long[] scan(int from, int to);
+    }
+
+    private static final class Leaf extends Node {
+        private final ColumnFilter filter;
+        private final Source source;
+        private final boolean nullCheck;
+        private final boolean nullWanted;
+        private final NumericColumnVector numericVector;
+        // the numeric operators as one closed range, so that NaN never matches
+        private final double low;
+        private final double high;
+        // whether no number satisfies the operator, e.g. less than negative infinity
+        private final boolean empty;
+        // the range as order-preserving keys of the doubles, see key(double)
+        private final long lowKey;
+        private final long span;
+        // for numeric comparisons and null checks on vectors: words of the cells without a typed value
+        private final long[] missing;
+        private final CategoricalColumnVector categorical;
+        // for the text operators on a dictionary column: 1 if code - 1 matches, so null cells read index 0
+        private final long[] matchingCodes;
+
+        Leaf(ColumnFilter filter, Source source) {
+            this.filter = filter;
+            this.source = source;
+            this.nullCheck = filter.getOperator() == ColumnFilter.Operator.IS_NULL
+                    || filter.getOperator() == ColumnFilter.Operator.IS_NOT_NULL;
+            this.nullWanted = filter.getOperator() == ColumnFilter.Operator.IS_NULL;
+            this.numericVector = filter.isNumeric() && source.vector instanceof NumericColumnVector
+                    ? (NumericColumnVector) source.vector : null;
+            this.missing = numericVector != null
+                    || nullCheck && source.vector != null && !(source.vector instanceof CategoricalColumnVector)
+                    ? source.vector.getMissingMask().toLongArray() : null;
+            final double number = filter.getNumber();
+            switch (filter.getOperator()) {
+                case LESS_THAN -> {
+                    low = Double.NEGATIVE_INFINITY;
+                    high = Math.nextDown(number);
+                }
+                case LESS_OR_EQUAL -> {
+                    low = Double.NEGATIVE_INFINITY;
+                    high = number;
+                }
+                case GREATER_THAN -> {
+                    low = Math.nextUp(number);
+                    high = Double.POSITIVE_INFINITY;
+                }
+                case GREATER_OR_EQUAL -> {
+                    low = number;
+                    high = Double.POSITIVE_INFINITY;
+                }
+                case BETWEEN -> {
+                    low = number;
+                    high = filter.getUpper();
+                }
+                default -> {
+                    low = Double.NaN;
+                    high = Double.NaN;
+                }
+            }
+            empty = !filter.compare(low) || !filter.compare(high);
+            // -0.0 and 0.0 compare equal but have different keys, so a bound at zero admits both
+            lowKey = key(low == 0.0 ? -0.0 : low);
+            span = key(high == 0.0 ? 0.0 : high) - lowKey;
+            if (!filter.isNumeric() && source.vector instanceof CategoricalColumnVector) {
+                categorical = (CategoricalColumnVector) source.vector;
+                final List<String> dictionary = categorical.getDictionary();
+                matchingCodes = new long[dictionary.size() + 1];
+                matchingCodes[0] = filter.matches((String) null) ? 1 : 0;
+                for (int code = 0; code < dictionary.size(); code++) {
+                    matchingCodes[code + 1] = filter.matches(dictionary.get(code)) ? 1 : 0;
+                }
+            }
+            else {
+                categorical = null;
+                matchingCodes = null;
+            }
+        }
+
+        @Override
+        boolean test(int row) {
+            if (numericVector != null) {
+                final double value = numericVector.getDouble(row);
+                return !empty && value >= low && value <= high && !numericVector.isMissing(row);
+            }
+            if (categorical != null) {
+                return matchingCodes[categorical.getCode(row) + 1] != 0;
+            }
+            if (source.vector != null) {
+                return filter.matches(source.vector, row);
+            }
+            if (source.numbers != null && nullCheck) {
+                return source.numbers.isNull(row) == nullWanted;
+            }
+            if (source.numbers != null && filter.isNumeric()) {
+                // null cells read as NaN, which no comparison matches
+                final double value = source.numbers.getDouble(row);
+                return !empty && value >= low && value <= high;
+            }
+            return filter.matches(source.cells.get(row));
+        }
+
+        @Override
+        long[] scan(int from, int to) {
+            final long[] bits = new long[(to - from + 63) >>> 6];
+            if (numericVector != null) {
+                if (!empty) {
+                    scanNumeric(bits, from, to);
+                }
+                return bits;
+            }
+            if (missing != null) {
+                // a null check on a vector is its missing words, or their complement
+                final int first = from >>> 6;
+                for (int w = 0; w < bits.length; w++) {
+                    final long word = first + w < missing.length ? missing[first + w] : 0L;
+                    bits[w] = nullWanted ? word : ~word;
+                }
+                final int tail = (to - from) & 63;
+                if (tail != 0) {
+                    bits[bits.length - 1] &= (1L << tail) - 1;
+                }
+                return bits;
+            }
+            if (categorical != null) {
+                for (int w = 0, row = from; row < to; w++) {
+                    final int end = Math.min(row + 64, to);
+                    long word = 0;
+                    for (int bit = 0; row < end; row++, bit++) {
+                        word |= matchingCodes[categorical.getCode(row) + 1] << bit;
+                    }
+                    bits[w] = word;
+                }
+                return bits;
+            }
+            for (int row = from; row < to; row++) {
+                if (test(row)) {
+                    final int bit = row - from;
+                    bits[bit >>> 6] |= 1L << bit;
+                }
+            }
+            return bits;
+        }
+
+        private void scanNumeric(long[] bits, int from, int to) {
+            for (int w = 0, row = from; row < to; w++) {
+                final int end = Math.min(row + 64, to);
+                long word = 0;
+                for (int bit = 0; row < end; row++, bit++) {
+                    word |= inRange(key(numericVector.getDouble(row))) << bit;
+                }
+                // blocks start on a word boundary, so the missing words line up with the result words
+                final int missingWord = (from >>> 6) + w;
+                bits[w] = missingWord < missing.length ? word & ~missing[missingWord] : word;
+            }
+        }
+
+        /**
+         * Tests a key against the range without branching: comparisons of doubles whose outcome is hard to
+         * predict would otherwise compile to jumps that the processor keeps mispredicting.
+         * @return 1 if the key is in the range, else 0
+         */
+        private long inRange(long key) {
+            // key - lowKey <= span as unsigned numbers, i.e. the subtraction span - (key - lowKey) does not borrow
+            final long offset = key - lowKey;
+            final long borrow = (~span & offset | ~(span ^ offset) & (span - offset)) >>> 63;
+            return borrow ^ 1;
+        }
+
+        /**
+         * Maps a double to a long with the same order for all numbers, infinities included.
+         * NaNs map outside the keys of the numbers, so that no range contains them.
+         */
+        private static long key(double value) {
+            final long bits = Double.doubleToRawLongBits(value);
+            return bits ^ (bits >> 63 & Long.MAX_VALUE);
+        }
+    }
+
+    private static final class Combination extends Node {
+        private final RowPredicate.Kind kind;
+        private final Node[] operands;
+
+        Combination(RowPredicate.Kind kind, Node[] operands) {
+            this.kind = kind;
+            this.operands = operands;
+        }
+
+        @Override
+        boolean test(int row) {
+            switch (kind) {
+                case AND:
+                    for (Node operand : operands) {
+                        if (!operand.test(row)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                case OR:
+                    for (Node operand : operands) {
+                        if (operand.test(row)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    return !operands[0].test(row);
+            }
+        }
+
+        @Override
+        long[] scan(int from, int to) {
+            final long[] bits = operands[0].scan(from, to);
+            if (kind == RowPredicate.Kind.NOT) {
+                for (int w = 0; w < bits.length; w++) {
+                    bits[w] = ~bits[w];
+                }
+                // clear the bits past the last row
+                final int tail = (to - from) & 63;
+                if (tail != 0) {
+                    bits[bits.length - 1] &= (1L << tail) - 1;
+                }
+                return bits;
+            }
+            for (int i = 1; i < operands.length; i++) {
+                if (kind == RowPredicate.Kind.AND && isEmpty(bits)) {
+                    // no row left to match, the other columns need not be read
+                    return bits;
+                }
+                final long[] next = operands[i].scan(from, to);
+                for (int w = 0; w < bits.length; w++) {
+                    bits[w] = kind == RowPredicate.Kind.AND ? bits[w] & next[w] : bits[w] | next[w];
+                }
+            }
+            return bits;
+        }
+
+        private static boolean isEmpty(long[] bits) {
+            for (long word : bits) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
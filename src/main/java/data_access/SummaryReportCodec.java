@@ -0,0 +1,647 @@
+package data_access;
+
+import entity.ColumnFilter;
+import entity.CorrelationMatrixMetric;
+import entity.DataSubsetSpec;
+import entity.HeatmapSummaryMetric;
+import entity.MetricType;
+import entity.OutlierPoint;
+import entity.OutlierSummaryMetric;
+import entity.RowPredicate;
+import entity.RowSelection;
+import entity.ScalarSummaryMetrics;
+import entity.SummaryMetric;
+import entity.SummaryReport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+/**
+ * Binary encoding of a SummaryReport.
+ * A report starts with a fixed header (magic, format version, summary id, data version and fingerprint)
+ * so that an index can be built without decoding the metrics. Subset specs are written once in a table and
+ * referenced by every metric that shares them, and row index lists are delta-encoded as varints
+ * while row selections are written as their row count or their runs, so the per-column specs of
+ * a report cost a few bytes each. Filters and predicate trees are written with their specs. Counts and indices are varints;
+ * values are 8-byte doubles.
+ */
+final class SummaryReportCodec {
+    // "SRB1" read as a big-endian int
+    static final int MAGIC = 0x53524231;
+    static final int VERSION = 4;
+    static final int HEADER_BYTES = 4 + 4 + 4 + 1 + 8 + 8;
+
+    private static final byte SCALAR = 1;
+    private static final byte OUTLIERS = 2;
+    private static final byte CORRELATION = 3;
+    private static final byte HEATMAP = 4;
+
+    private static final byte ROW_LIST = 0;
+    private static final byte ALL_ROWS = 1;
+    private static final byte ROW_RUNS = 2;
+
+    private SummaryReportCodec() {
+    }
+
+    /**
+     * Encodes a report.
+     * @param report the report
+     * @param dataVersion version of the data it was computed from, or null if unknown
+     * @param fingerprint hash of the data it was computed from; ignored without a data version
+     * @return the encoded bytes
+     * @throws IllegalArgumentException if a metric is of a kind this codec does not know
+     */
+    static byte[] encode(SummaryReport report, Long dataVersion, long fingerprint) {
+        final Writer out = new Writer();
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(report.getSummaryId());
+        out.put((byte) (dataVersion == null ? 0 : 1));
+        out.putLong(dataVersion == null ? 0 : dataVersion);
+        out.putLong(dataVersion == null ? 0 : fingerprint);
+        out.putString(report.getReportName());
+
+        // distinct specs and row lists, by identity: per-column specs share the report's row list
+        final Map<DataSubsetSpec, Integer> specs = new IdentityHashMap<>();
+        final Map<List<Integer>, Integer> rowLists = new IdentityHashMap<>();
+        final List<DataSubsetSpec> specOrder = new ArrayList<>();
+        final List<List<Integer>> rowOrder = new ArrayList<>();
+        collect(report.getSelectedSubset(), specs, specOrder, rowLists, rowOrder);
+        for (SummaryMetric metric : report.getSummaryMetrics()) {
+            collect(metric.getSelectedSubset(), specs, specOrder, rowLists, rowOrder);
+        }
+        out.putVarint(rowOrder.size());
+        for (List<Integer> rows : rowOrder) {
+            final RowSelection selection = RowSelection.unwrap(rows);
+            if (selection == null) {
+                out.put(ROW_LIST);
+                out.putVarint(rows.size());
+                int previous = 0;
+                for (Integer row : rows) {
+                    out.putVarlong(zigZag((long) row - previous));
+                    previous = row;
+                }
+            }
+            else if (selection.isAll()) {
+                out.put(ALL_ROWS);
+                out.putVarint(selection.cardinality());
+            }
+            else {
+                out.put(ROW_RUNS);
+                putRuns(out, selection);
+            }
+        }
+        out.putVarint(specOrder.size());
+        for (DataSubsetSpec spec : specOrder) {
+            out.putString(spec.getSubsetId());
+            out.putStrings(spec.getColumnNames());
+            out.putVarint(reference(rowLists, spec.getRowIndices()));
+            final List<ColumnFilter> filters = spec.getFilters() == null ? List.of() : spec.getFilters();
+            out.putVarint(filters.size());
+            for (ColumnFilter filter : filters) {
+                putFilter(out, filter);
+            }
+            putPredicate(out, spec.getPredicate());
+        }
+        out.putVarint(reference(specs, report.getSelectedSubset()));
+
+        out.putVarint(report.getSummaryMetrics().size());
+        for (SummaryMetric metric : report.getSummaryMetrics()) {
+            putMetric(out, metric, reference(specs, metric.getSelectedSubset()));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the summary id, data version and fingerprint of an encoded report.
+     * @param bytes at least {@link #HEADER_BYTES} of an encoded report
+     * @return the header
+     * @throws IOException if the bytes are not an encoded report
+     */
+    static Header readHeader(ByteBuffer bytes) throws IOException {
+        if (bytes.remaining() < HEADER_BYTES || bytes.getInt() != MAGIC) {
+            throw new IOException("Not a summary report");
+        }
+        final int version = bytes.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported summary report version " + version);
+        }
+        final int summaryId = bytes.getInt();
+        final boolean versioned = bytes.get() != 0;
+        final long dataVersion = bytes.getLong();
+        final long fingerprint = bytes.getLong();
+        return new Header(summaryId, versioned ? dataVersion : null, fingerprint);
+    }
+
+    /**
+     * Decodes a report.
+     * @param bytes an encoded report
+     * @return the report
+     * @throws IOException if the bytes are not a complete encoded report
+     */
+    static SummaryReport decode(ByteBuffer bytes) throws IOException {
+        try {
+            final Header header = readHeader(bytes);
+            final Reader in = new Reader(bytes);
+            final String reportName = in.getString();
+
+            final List<List<Integer>> rowLists = new ArrayList<>();
+            for (int count = in.getCount(); rowLists.size() < count; ) {
+                final byte kind = in.get();
+                if (kind == ALL_ROWS) {
+                    final int rowCount = in.getVarint();
+                    if (rowCount < 0) {
+                        throw new IOException("Corrupt summary report");
+                    }
+                    rowLists.add(RowSelection.all(rowCount).asList());
+                    continue;
+                }
+                if (kind == ROW_RUNS) {
+                    rowLists.add(getRuns(in).asList());
+                    continue;
+                }
+                if (kind != ROW_LIST) {
+                    throw new IOException("Unknown row set kind " + kind);
+                }
+                final int size = in.getCount();
+                final List<Integer> rows = new ArrayList<>(size);
+                long previous = 0;
+                for (int i = 0; i < size; i++) {
+                    previous += unZigZag(in.getVarlong());
+                    rows.add((int) previous);
+                }
+                rowLists.add(rows);
+            }
+            final List<DataSubsetSpec> specs = new ArrayList<>();
+            for (int count = in.getCount(); specs.size() < count; ) {
+                final String subsetId = in.getString();
+                final List<String> columns = in.getStrings();
+                final List<Integer> rows = resolve(rowLists, in.getVarint());
+                final List<ColumnFilter> filters = new ArrayList<>();
+                for (int filterCount = in.getCount(); filters.size() < filterCount; ) {
+                    filters.add(getFilter(in));
+                }
+                specs.add(new DataSubsetSpec(subsetId, columns, rows, filters).where(getPredicate(in)));
+            }
+            final DataSubsetSpec reportSpec = resolve(specs, in.getVarint());
+
+            final int metricCount = in.getCount();
+            final List<SummaryMetric> metrics = new ArrayList<>(metricCount);
+            for (int i = 0; i < metricCount; i++) {
+                metrics.add(getMetric(in, specs));
+            }
+            return new SummaryReport(header.getSummaryId(), reportName, reportSpec, metrics);
+        }
+        catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IOException("Corrupt summary report", ex);
+        }
+    }
+
+    private static void putMetric(Writer out, SummaryMetric metric, int spec) {
+        if (metric instanceof ScalarSummaryMetrics) {
+            putMetricHeader(out, SCALAR, metric, spec);
+            out.putDouble(((ScalarSummaryMetrics) metric).getMetricValue());
+        }
+        else if (metric instanceof OutlierSummaryMetric) {
+            final OutlierSummaryMetric outliers = (OutlierSummaryMetric) metric;
+            putMetricHeader(out, OUTLIERS, metric, spec);
+            out.putDouble(outliers.getOutlier_z_score_threshold());
+            out.putVarint(outliers.getOutlier_points().size());
+            int previousRow = 0;
+            for (OutlierPoint point : outliers.getOutlier_points()) {
+                out.putVarlong(zigZag((long) point.getRowIndex() - previousRow));
+                out.putVarint(point.getColIndex());
+                out.putDouble(point.getZScore());
+                previousRow = point.getRowIndex();
+            }
+        }
+        else if (metric instanceof CorrelationMatrixMetric) {
+            final CorrelationMatrixMetric correlation = (CorrelationMatrixMetric) metric;
+            putMetricHeader(out, CORRELATION, metric, spec);
+            out.putStrings(correlation.getVariableNames());
+            out.putMatrix(correlation.getCorrelationMatrix());
+        }
+        else if (metric instanceof HeatmapSummaryMetric) {
+            final HeatmapSummaryMetric heatmap = (HeatmapSummaryMetric) metric;
+            putMetricHeader(out, HEATMAP, metric, spec);
+            out.putStrings(heatmap.getRowLabels());
+            out.putStrings(heatmap.getColLabels());
+            out.putMatrix(heatmap.getHeatmapValues());
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported summary metric: " + metric.getClass().getName());
+        }
+    }
+
+    private static void putMetricHeader(Writer out, byte kind, SummaryMetric metric, int spec) {
+        out.put(kind);
+        // by name, so that adding metric types never changes the meaning of stored reports
+        out.putString(metric.getMetricType() == null ? null : metric.getMetricType().name());
+        out.putVarint(spec);
+    }
+
+    private static SummaryMetric getMetric(Reader in, List<DataSubsetSpec> specs) throws IOException {
+        final byte kind = in.get();
+        final String typeName = in.getString();
+        final MetricType type = typeName == null ? null : MetricType.valueOf(typeName);
+        final DataSubsetSpec spec = resolve(specs, in.getVarint());
+        switch (kind) {
+            case SCALAR:
+                return new ScalarSummaryMetrics(type, spec, in.getDouble());
+            case OUTLIERS: {
+                final double threshold = in.getDouble();
+                final int count = in.getCount();
+                final List<OutlierPoint> points = new ArrayList<>(count);
+                long row = 0;
+                for (int i = 0; i < count; i++) {
+                    row += unZigZag(in.getVarlong());
+                    points.add(new OutlierPoint((int) row, in.getVarint(), in.getDouble()));
+                }
+                return new OutlierSummaryMetric(type, spec, threshold, points);
+            }
+            case CORRELATION: {
+                final List<String> names = in.getStrings();
+                return new CorrelationMatrixMetric(type, spec, in.getMatrix(), names);
+            }
+            case HEATMAP: {
+                final List<String> rowLabels = in.getStrings();
+                final List<String> colLabels = in.getStrings();
+                return new HeatmapSummaryMetric(type, spec, in.getMatrix(), rowLabels, colLabels);
+            }
+            default:
+                throw new IOException("Unknown summary metric kind " + kind);
+        }
+    }
+
+    private static void putFilter(Writer out, ColumnFilter filter) {
+        out.putString(filter.getColumnName());
+        out.put((byte) filter.getOperator().ordinal());
+        out.putDouble(filter.getNumber());
+        out.putDouble(filter.getUpper());
+        out.putString(filter.getText());
+        out.putStrings(filter.getValues());
+    }
+
+    private static ColumnFilter getFilter(Reader in) throws IOException {
+        final String column = in.getString();
+        final ColumnFilter.Operator[] operators = ColumnFilter.Operator.values();
+        final ColumnFilter.Operator operator = operators[in.get()];
+        final double number = in.getDouble();
+        final double upper = in.getDouble();
+        final String text = in.getString();
+        final List<String> values = in.getStrings();
+        return switch (operator) {
+            case LESS_THAN -> ColumnFilter.lessThan(column, number);
+            case LESS_OR_EQUAL -> ColumnFilter.lessOrEqual(column, number);
+            case GREATER_THAN -> ColumnFilter.greaterThan(column, number);
+            case GREATER_OR_EQUAL -> ColumnFilter.greaterOrEqual(column, number);
+            case EQUAL -> ColumnFilter.equalTo(column, text);
+            case BETWEEN -> ColumnFilter.between(column, number, upper);
+            case IN -> ColumnFilter.in(column, values);
+            case IS_NULL -> ColumnFilter.isNull(column);
+            case IS_NOT_NULL -> ColumnFilter.isNotNull(column);
+        };
+    }
+
+    /**
+     * Writes a predicate tree in prefix order: each node is its kind, then a filter or its operands.
+     * A spec without a predicate writes a zero byte.
+     */
+    private static void putPredicate(Writer out, RowPredicate predicate) {
+        if (predicate == null) {
+            out.put((byte) 0);
+            return;
+        }
+        out.put((byte) (predicate.getKind().ordinal() + 1));
+        if (predicate instanceof ColumnFilter) {
+            putFilter(out, (ColumnFilter) predicate);
+            return;
+        }
+        out.putVarint(predicate.getOperands().size());
+        for (RowPredicate operand : predicate.getOperands()) {
+            putPredicate(out, operand);
+        }
+    }
+
+    private static RowPredicate getPredicate(Reader in) throws IOException {
+        final byte tag = in.get();
+        if (tag == 0) {
+            return null;
+        }
+        final RowPredicate.Kind kind = RowPredicate.Kind.values()[tag - 1];
+        if (kind == RowPredicate.Kind.COLUMN) {
+            return getFilter(in);
+        }
+        final List<RowPredicate> operands = new ArrayList<>();
+        for (int count = in.getCount(); operands.size() < count; ) {
+            final RowPredicate operand = getPredicate(in);
+            if (operand == null) {
+                throw new IOException("Missing predicate operand");
+            }
+            operands.add(operand);
+        }
+        return switch (kind) {
+            case AND -> RowPredicate.and(operands);
+            case OR -> RowPredicate.or(operands);
+            default -> RowPredicate.not(operands.get(0));
+        };
+    }
+
+    private static void collect(DataSubsetSpec spec, Map<DataSubsetSpec, Integer> specs,
+                                List<DataSubsetSpec> specOrder, Map<List<Integer>, Integer> rowLists,
+                                List<List<Integer>> rowOrder) {
+        if (spec == null || specs.containsKey(spec)) {
+            return;
+        }
+        specOrder.add(spec);
+        specs.put(spec, specOrder.size());
+        final List<Integer> rows = spec.getRowIndices();
+        if (rows != null && !rowLists.containsKey(rows)) {
+            rowOrder.add(rows);
+            rowLists.put(rows, rowOrder.size());
+        }
+    }
+
+    /**
+     * Writes a selection as its number of runs and, for each run, its gap from the previous one and its length.
+     */
+    private static void putRuns(Writer out, RowSelection selection) {
+        int runs = 0;
+        int previous = -2;
+        for (PrimitiveIterator.OfInt rows = selection.iterator(); rows.hasNext(); ) {
+            final int row = rows.nextInt();
+            if (row != previous + 1) {
+                runs++;
+            }
+            previous = row;
+        }
+        out.putVarint(runs);
+        int end = 0;
+        int start = -1;
+        previous = -2;
+        for (PrimitiveIterator.OfInt rows = selection.iterator(); rows.hasNext(); ) {
+            final int row = rows.nextInt();
+            if (row != previous + 1) {
+                if (start >= 0) {
+                    out.putVarint(start - end);
+                    out.putVarint(previous + 1 - start);
+                    end = previous + 1;
+                }
+                start = row;
+            }
+            previous = row;
+        }
+        if (start >= 0) {
+            out.putVarint(start - end);
+            out.putVarint(previous + 1 - start);
+        }
+    }
+
+    private static RowSelection getRuns(Reader in) throws IOException {
+        final int runs = in.getCount();
+        final int[] starts = new int[runs];
+        final int[] ends = new int[runs];
+        long end = 0;
+        for (int r = 0; r < runs; r++) {
+            final long start = end + Integer.toUnsignedLong(in.getVarint());
+            end = start + Integer.toUnsignedLong(in.getVarint());
+            if (end > Integer.MAX_VALUE) {
+                throw new IOException("Row index out of range");
+            }
+            starts[r] = (int) start;
+            ends[r] = (int) end;
+        }
+        try {
+            return RowSelection.ofRuns(starts, ends);
+        }
+        catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage());
+        }
+    }
+
+    // references are 1-based so that 0 can stand for null
+    private static <T> int reference(Map<T, Integer> table, T value) {
+        return value == null ? 0 : table.get(value);
+    }
+
+    private static <T> T resolve(List<T> table, int reference) {
+        return reference == 0 ? null : table.get(reference - 1);
+    }
+
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * The fixed-size start of an encoded report.
+     */
+    static final class Header {
+        private final int summaryId;
+        private final Long dataVersion;
+        private final long fingerprint;
+
+        Header(int summaryId, Long dataVersion, long fingerprint) {
+            this.summaryId = summaryId;
+            this.dataVersion = dataVersion;
+            this.fingerprint = fingerprint;
+        }
+
+        int getSummaryId() {
+            return summaryId;
+        }
+
+        /**
+         * Returns the version of the data the report was computed from.
+         * @return the version, or null if it was saved without one
+         */
+        Long getDataVersion() {
+            return dataVersion;
+        }
+
+        /**
+         * Returns the hash of the data the report was computed from.
+         * @return the fingerprint; meaningless if there is no data version
+         */
+        long getFingerprint() {
+            return fingerprint;
+        }
+    }
+
+    /**
+     * Growable big-endian output with varints.
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+        Writer() {
+            super(256);
+        }
+
+        void put(byte value) {
+            write(value);
+        }
+
+        void putInt(int value) {
+            putLong((long) value << 32, 4);
+        }
+
+        void putLong(long value) {
+            putLong(value, 8);
+        }
+
+        private void putLong(long value, int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                write((int) (value >>> 56 - 8 * i));
+            }
+        }
+
+        void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        void putVarint(int value) {
+            putVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void putVarlong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putVarint(0);
+                return;
+            }
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+
+        void putStrings(List<String> values) {
+            if (values == null) {
+                putVarint(0);
+                return;
+            }
+            putVarint(values.size() + 1);
+            for (String value : values) {
+                putString(value);
+            }
+        }
+
+        void putMatrix(double[][] matrix) {
+            if (matrix == null) {
+                putVarint(0);
+                return;
+            }
+            putVarint(matrix.length + 1);
+            for (double[] row : matrix) {
+                putVarint(row.length);
+                for (double value : row) {
+                    putDouble(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads what {@link Writer} wrote.
+     */
+    private static final class Reader {
+        private final ByteBuffer bytes;
+
+        Reader(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        byte get() {
+            return bytes.get();
+        }
+
+        double getDouble() {
+            return bytes.getDouble();
+        }
+
+        int getVarint() throws IOException {
+            final long value = getVarlong();
+            if (value > 0xFFFFFFFFL) {
+                throw new IOException("Corrupt summary report");
+            }
+            return (int) value;
+        }
+
+        long getVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte next = bytes.get();
+                value |= (long) (next & 0x7F) << shift;
+                if (next >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt summary report");
+        }
+
+        /**
+         * Reads a count of items that take at least a byte each, so a corrupt count fails
+         * before anything is allocated for it.
+         */
+        int getCount() throws IOException {
+            final int count = getVarint();
+            if (count < 0 || count - 1 > bytes.remaining()) {
+                throw new IOException("Corrupt summary report");
+            }
+            return count;
+        }
+
+        String getString() throws IOException {
+            final int length = getCount();
+            if (length == 0) {
+                return null;
+            }
+            final byte[] text = new byte[length - 1];
+            bytes.get(text);
+            return new String(text, StandardCharsets.UTF_8);
+        }
+
+        List<String> getStrings() throws IOException {
+            final int size = getCount();
+            if (size == 0) {
+                return null;
+            }
+            final List<String> values = new ArrayList<>(size - 1);
+            for (int i = 1; i < size; i++) {
+                values.add(getString());
+            }
+            return values;
+        }
+
+        double[][] getMatrix() throws IOException {
+            final int size = getCount();
+            if (size == 0) {
+                return null;
+            }
+            final double[][] matrix = new double[size - 1][];
+            for (int i = 0; i < matrix.length; i++) {
+                matrix[i] = new double[getCount()];
+                for (int j = 0; j < matrix[i].length; j++) {
+                    matrix[i][j] = bytes.getDouble();
+                }
+            }
+            return matrix;
+        }
+    }
+}
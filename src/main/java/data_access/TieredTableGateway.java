@@ -0,0 +1,79 @@
+package data_access;
+
+import entity.DataSet;
+import use_case.dataset.CurrentTableGateway;
+
+import java.io.Closeable;
+
+/**
+ * CurrentTableGateway that keeps small tables on the heap and moves large ones into a
+ * {@link MappedTableGateway}, whose column files leave their pages to the OS page cache.
+ * A table counts as large when its cells would take more than a given number of bytes at
+ * eight bytes each; a mapped table is a copy, so callers edit the table that {@link #load()} returns.
+ */
+public final class TieredTableGateway implements CurrentTableGateway, Closeable {
+    private final InMemoryTableGateway heap = new InMemoryTableGateway();
+    private final MappedTableGateway mapped;
+    private final long mappedBytes;
+    private CurrentTableGateway current = heap;
+
+    /**
+     * Creates a gateway that maps tables above a size.
+     * @param mapped      the gateway for large tables
+     * @param mappedBytes estimated size in bytes above which a table is mapped
+     */
+    public TieredTableGateway(MappedTableGateway mapped, long mappedBytes) {
+        this.mapped = mapped;
+        this.mappedBytes = mappedBytes;
+    }
+
+    @Override
+    public void save(DataSet table) {
+        if (table != null && table == current.load()) {
+            // the gateway that holds the table picks up columns replaced in it
+            current.save(table);
+            return;
+        }
+        final CurrentTableGateway target = isLarge(table) ? mapped : heap;
+        target.save(table);
+        if (target != current) {
+            // the other tier's table is no longer current; only the mapped one holds files
+            if (current == mapped) {
+                mapped.close();
+            }
+            else {
+                heap.save(null);
+            }
+            current = target;
+        }
+    }
+
+    @Override
+    public DataSet load() {
+        return current.load();
+    }
+
+    /**
+     * Tells whether the current table is kept in column files rather than on the heap.
+     * @return whether the current table is mapped
+     */
+    public boolean isMapped() {
+        return current == mapped && mapped.load() != null;
+    }
+
+    /**
+     * Releases the column files of a mapped table.
+     */
+    @Override
+    public void close() {
+        mapped.close();
+    }
+
+    private boolean isLarge(DataSet table) {
+        if (table == null) {
+            return false;
+        }
+        final long cells = (long) table.getRows().size() * table.getColumns().size();
+        return cells > mappedBytes / Double.BYTES;
+    }
+}
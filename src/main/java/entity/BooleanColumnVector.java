@@ -0,0 +1,90 @@
+package entity;
+
+import java.util.BitSet;
+
+/**
+ * Column vector storing BOOLEAN cells as a bitset.
+ */
+public class BooleanColumnVector extends ColumnVector {
+    private final BitSet bits;
+    private int capacity;
+
+    public BooleanColumnVector(int initialCapacity) {
+        this.bits = new BitSet(initialCapacity);
+        this.capacity = initialCapacity;
+    }
+
+    /**
+     * Creates a vector over existing values. Call {@link #restore} to set its size and cell state.
+     * @param bits the set bits are the true cells; used directly, not copied
+     * @param capacity number of cells the vector holds
+     */
+    public BooleanColumnVector(BitSet bits, int capacity) {
+        this.bits = bits;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public DataType getDataType() {
+        return DataType.BOOLEAN;
+    }
+
+    public boolean getBoolean(int index) {
+        checkIndex(index);
+        return bits.get(index);
+    }
+
+    @Override
+    protected int encode(int index, String value) {
+        final int result;
+        if ("true".equals(value)) {
+            bits.set(index);
+            result = CANONICAL;
+        }
+        else if ("false".equals(value)) {
+            bits.clear(index);
+            result = CANONICAL;
+        }
+        else if ("true".equalsIgnoreCase(value)) {
+            bits.set(index);
+            result = NON_CANONICAL;
+        }
+        else if ("false".equalsIgnoreCase(value)) {
+            bits.clear(index);
+            result = NON_CANONICAL;
+        }
+        else {
+            result = INVALID;
+        }
+        return result;
+    }
+
+    @Override
+    protected String decode(int index) {
+        return Boolean.toString(bits.get(index));
+    }
+
+    @Override
+    protected void clear(int index) {
+        bits.clear(index);
+    }
+
+    @Override
+    protected void copyValues(ColumnVector other, int offset) {
+        final BitSet source = ((BooleanColumnVector) other).bits;
+        for (int i = source.nextSetBit(0); i >= 0 && i < other.size(); i = source.nextSetBit(i + 1)) {
+            bits.set(offset + i);
+        }
+    }
+
+    @Override
+    protected int capacity() {
+        return capacity;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        // BitSet grows on demand, only the logical capacity is tracked
+        capacity = newCapacity;
+    }
+}
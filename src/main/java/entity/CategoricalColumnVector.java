@@ -0,0 +1,180 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column vector storing CATEGORICAL cells as dictionary codes.
+ * Every distinct value is stored once in the dictionary; cells hold its int code.
+ * Subclasses may keep the codes elsewhere by overriding {@link #code(int)}, {@link #setCode(int, int)},
+ * {@link #capacity()} and {@link #resize(int)}; the dictionary always stays on the heap.
+ */
+public class CategoricalColumnVector extends ColumnVector {
+    /**
+     * Code used for null cells.
+     */
+    public static final int NULL_CODE = -1;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codesByValue = new HashMap<>();
+    private final StringPool stringPool;
+    private int[] codes;
+
+    public CategoricalColumnVector(int initialCapacity) {
+        this(initialCapacity, new StringPool());
+    }
+
+    /**
+     * Creates a vector whose dictionary entries are taken from a pool shared with other columns.
+     * @param initialCapacity initial number of rows
+     * @param stringPool the shared pool
+     */
+    public CategoricalColumnVector(int initialCapacity, StringPool stringPool) {
+        this.codes = new int[initialCapacity];
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * Creates a vector without heap storage for the codes, for subclasses that override the storage hooks.
+     * @param stringPool pool shared by the categorical dictionaries of one load
+     */
+    protected CategoricalColumnVector(StringPool stringPool) {
+        this.codes = null;
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * Creates a vector over existing codes and their dictionary.
+     * Call {@link #restore} to set its size and cell state.
+     * @param codes dictionary codes, {@link #NULL_CODE} for cells without a value; used directly, not copied
+     * @param dictionary the distinct values, indexed by code
+     * @param stringPool pool shared by the categorical dictionaries of one load
+     */
+    public CategoricalColumnVector(int[] codes, List<String> dictionary, StringPool stringPool) {
+        this.codes = codes;
+        this.stringPool = stringPool;
+        for (String value : dictionary) {
+            final String pooled = stringPool.intern(value);
+            codesByValue.put(pooled, this.dictionary.size());
+            this.dictionary.add(pooled);
+        }
+    }
+
+    @Override
+    public DataType getDataType() {
+        return DataType.CATEGORICAL;
+    }
+
+    /**
+     * Returns the dictionary code of the cell, or {@link #NULL_CODE} for null cells.
+     * @param index row index
+     * @return dictionary code
+     */
+    public int getCode(int index) {
+        checkIndex(index);
+        return code(index);
+    }
+
+    /**
+     * Returns the distinct values of this column, indexed by code.
+     * @return read-only dictionary
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns the code of a value without adding it to the dictionary.
+     * @param value the value to look up
+     * @return its code, or {@link #NULL_CODE} if the value does not occur in this column
+     */
+    public int lookupCode(String value) {
+        final Integer code = codesByValue.get(value);
+        if (code == null) {
+            return NULL_CODE;
+        }
+        return code;
+    }
+
+    @Override
+    protected int encode(int index, String value) {
+        setCode(index, codeFor(value));
+        return CANONICAL;
+    }
+
+    private int codeFor(String value) {
+        Integer code = codesByValue.get(value);
+        if (code == null) {
+            final String pooled = stringPool.intern(value);
+            code = dictionary.size();
+            dictionary.add(pooled);
+            codesByValue.put(pooled, code);
+        }
+        return code;
+    }
+
+    @Override
+    protected String decode(int index) {
+        return dictionary.get(code(index));
+    }
+
+    @Override
+    protected void clear(int index) {
+        setCode(index, NULL_CODE);
+    }
+
+    @Override
+    protected void copyValues(ColumnVector other, int offset) {
+        final CategoricalColumnVector source = (CategoricalColumnVector) other;
+        // translate the source dictionary codes into this dictionary once, then copy ints
+        final int[] remap = new int[source.dictionary.size()];
+        for (int code = 0; code < remap.length; code++) {
+            remap[code] = codeFor(source.dictionary.get(code));
+        }
+        for (int i = 0; i < source.size(); i++) {
+            final int code = source.code(i);
+            if (code == NULL_CODE) {
+                setCode(offset + i, NULL_CODE);
+            }
+            else {
+                setCode(offset + i, remap[code]);
+            }
+        }
+    }
+
+    /**
+     * Reads a stored code without a bounds check against the size.
+     * @param index row index below the capacity
+     * @return the code
+     */
+    protected int code(int index) {
+        return codes[index];
+    }
+
+    /**
+     * Stores a code without a bounds check against the size.
+     * @param index row index below the capacity
+     * @param code the code
+     */
+    protected void setCode(int index, int code) {
+        codes[index] = code;
+    }
+
+    @Override
+    protected int capacity() {
+        return codes.length;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        codes = Arrays.copyOf(codes, newCapacity);
+    }
+}
@@ -5,11 +5,26 @@ import java.util.List;
 public class Column {
     private final List<String> cells;
     private final DataType datatype;
+    private final ColumnVector vector;
     private String header;
+    private long version;
 
     public Column(List<String> cells, DataType datatype, String header) {
         this.cells = cells;
         this.datatype = datatype;
+        this.vector = null;
+        this.header = header;
+    }
+
+    /**
+     * Creates a column backed by a typed vector. {@link #getCells()} is a view over the vector.
+     * @param vector the typed cell storage
+     * @param header the column header
+     */
+    public Column(ColumnVector vector, String header) {
+        this.cells = vector.asStringList();
+        this.datatype = vector.getDataType();
+        this.vector = vector;
         this.header = header;
     }
 
@@ -22,15 +37,33 @@ public class Column {
         return datatype;
     }
 
+    /**
+     * Returns the typed storage of this column.
+     * @return the backing vector, or null when the column is backed by a plain list of strings
+     */
+    public ColumnVector getVector() {
+        return vector;
+    }
+
     public String getHeader() {
         return header;
     }
 
+    /**
+     * Returns a counter that changes whenever a cell or the header of this column is set.
+     * @return the edit count of this column
+     */
+    public long getVersion() {
+        return version;
+    }
+
     protected void setCell(String value, int index) {
         this.cells.set(index, value);
+        version++;
     }
 
     public void setHeader(String newHeader) {
         this.header = newHeader;
+        version++;
     }
 }
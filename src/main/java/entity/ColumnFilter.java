@@ -0,0 +1,274 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Test of one column against constants, e.g. Salary &gt; 100000, Location = "Boston",
+ * Age between 30 and 40, Industry in ("Finance", "Retail") or Bonus is null.
+ * A subset with filters contains only the rows for which every filter matches; filters can also be
+ * combined with AND, OR and NOT through {@link RowPredicate}.
+ * Ordering comparisons and ranges are numeric and never match cells that are not numbers;
+ * equality and IN lists compare the cell text exactly. Null checks treat empty cells, and cells of
+ * typed columns that are not valid values, as null.
+ */
+public final class ColumnFilter extends RowPredicate {
+    /**
+     * The comparison applied to each cell.
+     */
+    public enum Operator {
+        LESS_THAN,
+        LESS_OR_EQUAL,
+        GREATER_THAN,
+        GREATER_OR_EQUAL,
+        EQUAL,
+        BETWEEN,
+        IN,
+        IS_NULL,
+        IS_NOT_NULL
+    }
+
+    private final String columnName;
+    private final Operator operator;
+    private final double number;
+    private final double upper;
+    private final String text;
+    private final Set<String> values;
+
+    private ColumnFilter(String columnName, Operator operator, double number, double upper, String text,
+                         Set<String> values) {
+        if (columnName == null) {
+            throw new IllegalArgumentException("Filter column name is required");
+        }
+        this.columnName = columnName;
+        this.operator = operator;
+        this.number = number;
+        this.upper = upper;
+        this.text = text;
+        this.values = values;
+    }
+
+    public static ColumnFilter lessThan(String columnName, double value) {
+        return new ColumnFilter(columnName, Operator.LESS_THAN, value, Double.NaN, null, Set.of());
+    }
+
+    public static ColumnFilter lessOrEqual(String columnName, double value) {
+        return new ColumnFilter(columnName, Operator.LESS_OR_EQUAL, value, Double.NaN, null, Set.of());
+    }
+
+    public static ColumnFilter greaterThan(String columnName, double value) {
+        return new ColumnFilter(columnName, Operator.GREATER_THAN, value, Double.NaN, null, Set.of());
+    }
+
+    public static ColumnFilter greaterOrEqual(String columnName, double value) {
+        return new ColumnFilter(columnName, Operator.GREATER_OR_EQUAL, value, Double.NaN, null, Set.of());
+    }
+
+    public static ColumnFilter equalTo(String columnName, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Filter value is required");
+        }
+        return new ColumnFilter(columnName, Operator.EQUAL, Double.NaN, Double.NaN, value, Set.of());
+    }
+
+    /**
+     * Matches numbers in a range, bounds included.
+     * @param columnName the column
+     * @param low lowest matching value
+     * @param high highest matching value
+     * @return the filter
+     */
+    public static ColumnFilter between(String columnName, double low, double high) {
+        if (!(low <= high)) {
+            throw new IllegalArgumentException("Invalid filter range: " + low + " to " + high);
+        }
+        return new ColumnFilter(columnName, Operator.BETWEEN, low, high, null, Set.of());
+    }
+
+    /**
+     * Matches cells whose text is one of the given values.
+     * @param columnName the column
+     * @param values the matching cell texts
+     * @return the filter
+     */
+    public static ColumnFilter in(String columnName, Collection<String> values) {
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("Filter values are required");
+        }
+        for (String value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("Filter values are required");
+            }
+        }
+        return new ColumnFilter(columnName, Operator.IN, Double.NaN, Double.NaN, null,
+                Collections.unmodifiableSet(new LinkedHashSet<>(values)));
+    }
+
+    public static ColumnFilter isNull(String columnName) {
+        return new ColumnFilter(columnName, Operator.IS_NULL, Double.NaN, Double.NaN, null, Set.of());
+    }
+
+    public static ColumnFilter isNotNull(String columnName) {
+        return new ColumnFilter(columnName, Operator.IS_NOT_NULL, Double.NaN, Double.NaN, null, Set.of());
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.COLUMN;
+    }
+
+    @Override
+    public List<RowPredicate> getOperands() {
+        return List.of();
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Returns the constant of an ordering comparison, or the lower bound of a range.
+     * @return the number, NaN for other operators
+     */
+    public double getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the upper bound of a range.
+     * @return the number, NaN for other operators
+     */
+    public double getUpper() {
+        return upper;
+    }
+
+    /**
+     * Returns the constant of an equality comparison.
+     * @return the text, null for other operators
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the values of an IN list.
+     * @return the values in the order given, empty for other operators
+     */
+    public List<String> getValues() {
+        return new ArrayList<>(values);
+    }
+
+    /**
+     * Returns whether this filter compares cells as numbers: ordering comparisons and ranges.
+     * @return true if {@link #compare(double)} decides which cells match
+     */
+    public boolean isNumeric() {
+        return operator != Operator.EQUAL && operator != Operator.IN && operator != Operator.IS_NULL
+                && operator != Operator.IS_NOT_NULL;
+    }
+
+    /**
+     * Tests a cell given as text.
+     * @param cell the cell, may be null
+     * @return whether the cell satisfies this filter
+     */
+    public boolean matches(String cell) {
+        if (operator == Operator.IS_NULL || operator == Operator.IS_NOT_NULL) {
+            return (cell == null || cell.isBlank()) == (operator == Operator.IS_NULL);
+        }
+        if (cell == null) {
+            return false;
+        }
+        if (operator == Operator.EQUAL) {
+            return text.equals(cell);
+        }
+        if (operator == Operator.IN) {
+            return values.contains(cell);
+        }
+        final double value;
+        try {
+            value = Double.parseDouble(cell);
+        }
+        catch (NumberFormatException ex) {
+            return false;
+        }
+        return compare(value);
+    }
+
+    /**
+     * Tests a cell of a typed vector, comparing numeric cells without formatting or parsing them.
+     * @param vector the column storage
+     * @param index row index
+     * @return whether the cell satisfies this filter
+     */
+    public boolean matches(ColumnVector vector, int index) {
+        if (operator == Operator.IS_NULL || operator == Operator.IS_NOT_NULL) {
+            // dictionary columns store empty text as a value of its own
+            final boolean isNull = vector.isMissing(index) || vector.getString(index).isBlank();
+            return isNull == (operator == Operator.IS_NULL);
+        }
+        if (isNumeric() && vector instanceof NumericColumnVector) {
+            return !vector.isMissing(index) && compare(((NumericColumnVector) vector).getDouble(index));
+        }
+        return matches(vector.getString(index));
+    }
+
+    /**
+     * Applies an ordering comparison or range to a number.
+     * @param value the cell value
+     * @return whether the value satisfies this filter; always false for NaN and for operators that are not numeric
+     */
+    public boolean compare(double value) {
+        return switch (operator) {
+            case LESS_THAN -> value < number;
+            case LESS_OR_EQUAL -> value <= number;
+            case GREATER_THAN -> value > number;
+            case GREATER_OR_EQUAL -> value >= number;
+            case BETWEEN -> value >= number && value <= upper;
+            case EQUAL, IN, IS_NULL, IS_NOT_NULL -> false;
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ColumnFilter)) {
+            return false;
+        }
+        final ColumnFilter filter = (ColumnFilter) other;
+        return columnName.equals(filter.columnName) && operator == filter.operator
+                && Double.compare(number, filter.number) == 0 && Double.compare(upper, filter.upper) == 0
+                && Objects.equals(text, filter.text) && values.equals(filter.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(columnName, operator, number, upper, text, values);
+    }
+
+    @Override
+    public String toString() {
+        return switch (operator) {
+            case LESS_THAN -> columnName + " < " + number;
+            case LESS_OR_EQUAL -> columnName + " <= " + number;
+            case GREATER_THAN -> columnName + " > " + number;
+            case GREATER_OR_EQUAL -> columnName + " >= " + number;
+            case EQUAL -> columnName + " = \"" + text + "\"";
+            case BETWEEN -> columnName + " BETWEEN " + number + " AND " + upper;
+            case IN -> columnName + " IN " + values;
+            case IS_NULL -> columnName + " IS NULL";
+            case IS_NOT_NULL -> columnName + " IS NOT NULL";
+        };
+    }
+}
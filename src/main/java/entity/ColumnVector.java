@@ -0,0 +1,323 @@
+package entity;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type-specialized storage for the cells of one column.
+ * Each subclass keeps its values in a primitive array; cells without a typed value
+ * are tracked in a separate validity bitmap.
+ * Text that does not round-trip through the typed value (e.g. "1.5e3" in a numeric
+ * column, or "abc" in a date column) is kept verbatim so that {@link #getString(int)}
+ * always returns exactly what was stored.
+ */
+public abstract class ColumnVector {
+    /**
+     * Result of {@link #encode(int, String)}: the text has no typed representation.
+     */
+    protected static final int INVALID = 0;
+    /**
+     * Result of {@link #encode(int, String)}: the typed value formats back to the same text.
+     */
+    protected static final int CANONICAL = 1;
+    /**
+     * Result of {@link #encode(int, String)}: the typed value is usable but formats differently.
+     */
+    protected static final int NON_CANONICAL = 2;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // set for every cell that has no typed value (null, blank or unparseable)
+    private final BitSet missing = new BitSet();
+    // set for cells whose text is null rather than ""
+    private final BitSet nulls = new BitSet();
+    // exact text of cells that does not match the canonical formatting
+    private Map<Integer, String> verbatim;
+    private int size;
+
+    public static ColumnVector create(DataType type) {
+        return create(type, DEFAULT_CAPACITY);
+    }
+
+    public static ColumnVector create(DataType type, int initialCapacity) {
+        return create(type, initialCapacity, new StringPool());
+    }
+
+    /**
+     * Creates an empty vector for the given type.
+     * @param type the column data type; null is stored as categorical
+     * @param initialCapacity initial number of rows
+     * @param stringPool pool shared by the categorical dictionaries of one load
+     * @return the new vector
+     */
+    public static ColumnVector create(DataType type, int initialCapacity, StringPool stringPool) {
+        final int capacity = Math.max(initialCapacity, 1);
+        if (type == null) {
+            return new CategoricalColumnVector(capacity, stringPool);
+        }
+        return switch (type) {
+            case NUMERIC -> new NumericColumnVector(capacity);
+            case DATE -> new DateColumnVector(capacity);
+            case BOOLEAN -> new BooleanColumnVector(capacity);
+            case CATEGORICAL -> new CategoricalColumnVector(capacity, stringPool);
+        };
+    }
+
+    /**
+     * Encodes a list of cell values into a new vector of the given type.
+     * @param type the column data type
+     * @param cells the cell values, may contain nulls
+     * @return the encoded vector
+     */
+    public static ColumnVector of(DataType type, List<String> cells) {
+        final ColumnVector vector = create(type, cells.size());
+        for (String cell : cells) {
+            vector.append(cell);
+        }
+        return vector;
+    }
+
+    public abstract DataType getDataType();
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true when the cell has no typed value (null, blank or not parseable as this type).
+     * @param index row index
+     * @return whether the typed value is missing
+     */
+    public boolean isMissing(int index) {
+        checkIndex(index);
+        return missing.get(index);
+    }
+
+    public int countMissing() {
+        return missing.cardinality();
+    }
+
+    /**
+     * Returns the cells without a typed value.
+     * @return a copy of the missing-value bitmap
+     */
+    public BitSet getMissingMask() {
+        return (BitSet) missing.clone();
+    }
+
+    /**
+     * Returns the cells whose text is null rather than "".
+     * @return a copy of the null bitmap
+     */
+    public BitSet getNullMask() {
+        return (BitSet) nulls.clone();
+    }
+
+    /**
+     * Returns the exact text of the cells that does not match the canonical formatting of their value.
+     * @return read-only map from row index to text
+     */
+    public Map<Integer, String> getVerbatimCells() {
+        if (verbatim == null) {
+            return Map.of();
+        }
+        return Collections.unmodifiableMap(verbatim);
+    }
+
+    /**
+     * Sets the size and cell state of a vector whose typed values were supplied directly,
+     * e.g. when it is read back from a binary file.
+     * @param cellCount number of cells, at most the capacity of the typed storage
+     * @param missingMask cells without a typed value
+     * @param nullMask cells whose text is null
+     * @param verbatimCells exact text of the cells that does not use the canonical formatting
+     */
+    public void restore(int cellCount, BitSet missingMask, BitSet nullMask, Map<Integer, String> verbatimCells) {
+        if (cellCount < 0 || cellCount > capacity()) {
+            throw new IllegalArgumentException("Cannot restore " + cellCount + " cells into capacity " + capacity());
+        }
+        size = cellCount;
+        missing.clear();
+        missing.or(missingMask);
+        nulls.clear();
+        nulls.or(nullMask);
+        verbatim = null;
+        if (!verbatimCells.isEmpty()) {
+            verbatim = new HashMap<>(verbatimCells);
+        }
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+        if (verbatim != null) {
+            final String text = verbatim.get(index);
+            if (text != null) {
+                return text;
+            }
+        }
+        final String result;
+        if (nulls.get(index)) {
+            result = null;
+        }
+        else if (missing.get(index)) {
+            result = "";
+        }
+        else {
+            result = decode(index);
+        }
+        return result;
+    }
+
+    public void setString(int index, String value) {
+        checkIndex(index);
+        store(index, value);
+    }
+
+    public void append(String value) {
+        ensureCapacity(size + 1);
+        size++;
+        store(size - 1, value);
+    }
+
+    /**
+     * Appends every cell of another vector of the same type, copying typed values directly.
+     * @param other the vector to append
+     */
+    public void appendAll(ColumnVector other) {
+        if (other.getDataType() != getDataType()) {
+            throw new IllegalArgumentException("Cannot append " + other.getDataType()
+                    + " column to " + getDataType() + " column");
+        }
+        final int offset = size;
+        ensureCapacity(size + other.size);
+        size += other.size;
+        copyValues(other, offset);
+        for (int i = other.missing.nextSetBit(0); i >= 0; i = other.missing.nextSetBit(i + 1)) {
+            missing.set(offset + i);
+        }
+        for (int i = other.nulls.nextSetBit(0); i >= 0; i = other.nulls.nextSetBit(i + 1)) {
+            nulls.set(offset + i);
+        }
+        if (other.verbatim != null) {
+            for (Map.Entry<Integer, String> entry : other.verbatim.entrySet()) {
+                putVerbatim(offset + entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Shrinks the backing arrays to the current size.
+     */
+    public void trimToSize() {
+        resize(Math.max(size, 1));
+    }
+
+    /**
+     * Returns a mutable list view of the cells as text.
+     * @return list view backed by this vector
+     */
+    public List<String> asStringList() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getString(index);
+            }
+
+            @Override
+            public String set(int index, String element) {
+                final String previous = getString(index);
+                setString(index, element);
+                return previous;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void store(int index, String value) {
+        if (verbatim != null) {
+            verbatim.remove(index);
+        }
+        if (value == null) {
+            clear(index);
+            missing.set(index);
+            nulls.set(index);
+            return;
+        }
+        nulls.clear(index);
+
+        final int result = encode(index, value);
+        if (result == INVALID) {
+            clear(index);
+            missing.set(index);
+            if (!value.isEmpty()) {
+                putVerbatim(index, value);
+            }
+        }
+        else {
+            missing.clear(index);
+            if (result == NON_CANONICAL) {
+                putVerbatim(index, value);
+            }
+        }
+    }
+
+    private void putVerbatim(int index, String value) {
+        if (verbatim == null) {
+            verbatim = new HashMap<>();
+        }
+        verbatim.put(index, value);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        final int capacity = capacity();
+        if (minCapacity > capacity) {
+            resize(Math.max(minCapacity, capacity + (capacity >> 1) + 1));
+        }
+    }
+
+    protected void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Parses the value and stores it at the given index.
+     * @param index row index
+     * @param value non-null cell text
+     * @return {@link #INVALID}, {@link #CANONICAL} or {@link #NON_CANONICAL}
+     */
+    protected abstract int encode(int index, String value);
+
+    /**
+     * Formats the typed value stored at the given index.
+     * @param index row index of a non-missing cell
+     * @return canonical text of the value
+     */
+    protected abstract String decode(int index);
+
+    /**
+     * Resets the typed value at the given index.
+     * @param index row index
+     */
+    protected abstract void clear(int index);
+
+    /**
+     * Copies the typed values of another vector of the same type into this one.
+     * @param other source vector
+     * @param offset index in this vector of the first copied value
+     */
+    protected abstract void copyValues(ColumnVector other, int offset);
+
+    protected abstract int capacity();
+
+    protected abstract void resize(int newCapacity);
+}
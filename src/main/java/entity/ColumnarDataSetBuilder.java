@@ -0,0 +1,116 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a columnar DataSet row by row, appending each cell straight into its typed column vector.
+ * Rows shorter than the header are padded with "" in the columns; cells beyond the header
+ * are kept only for the row that had them.
+ */
+public class ColumnarDataSetBuilder {
+    private final List<String> headers;
+    private final ColumnVector[] vectors;
+    private final Map<Integer, RowShape> irregularRows = new HashMap<>();
+    // shared by all categorical dictionaries so a value repeated across columns is stored once
+    private final StringPool stringPool = new StringPool();
+    private int rowCount;
+
+    public ColumnarDataSetBuilder(List<String> headers, List<DataType> types) {
+        this(headers, types, 16);
+    }
+
+    public ColumnarDataSetBuilder(List<String> headers, List<DataType> types, int expectedRows) {
+        if (headers.size() != types.size()) {
+            throw new IllegalArgumentException("Expected one data type per header");
+        }
+        this.headers = new ArrayList<>(headers.size());
+        for (String header : headers) {
+            this.headers.add(stringPool.intern(header));
+        }
+        this.vectors = new ColumnVector[headers.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = ColumnVector.create(types.get(i), expectedRows, stringPool);
+        }
+    }
+
+    public void addRow(List<String> cells) {
+        addRow(cells.toArray(new String[0]), cells.size());
+    }
+
+    /**
+     * Appends one row.
+     * @param cells the row cells; only the first {@code count} entries are used
+     * @param count number of cells in the row
+     */
+    public void addRow(String[] cells, int count) {
+        final int columnCount = vectors.length;
+        for (int i = 0; i < columnCount; i++) {
+            if (i < count) {
+                vectors[i].append(cells[i]);
+            }
+            else {
+                vectors[i].append("");
+            }
+        }
+        if (count != columnCount) {
+            String[] extraCells = new String[0];
+            if (count > columnCount) {
+                extraCells = Arrays.copyOfRange(cells, columnCount, count);
+            }
+            irregularRows.put(rowCount, new RowShape(count, extraCells));
+        }
+        rowCount++;
+    }
+
+    /**
+     * Appends all rows of another builder with the same columns and data types.
+     * @param other the builder whose rows are appended after the rows of this one
+     */
+    public void appendAll(ColumnarDataSetBuilder other) {
+        if (other.vectors.length != vectors.length) {
+            throw new IllegalArgumentException("Expected " + vectors.length + " columns but got "
+                    + other.vectors.length);
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].appendAll(other.vectors[i]);
+        }
+        for (Map.Entry<Integer, RowShape> entry : other.irregularRows.entrySet()) {
+            irregularRows.put(rowCount + entry.getKey(), entry.getValue());
+        }
+        rowCount += other.rowCount;
+    }
+
+    /**
+     * Re-encodes an already populated column as a different data type.
+     * @param column column index
+     * @param type the new data type
+     */
+    public void retype(int column, DataType type) {
+        final ColumnVector previous = vectors[column];
+        if (previous.getDataType() == type) {
+            return;
+        }
+        final ColumnVector vector = ColumnVector.create(type, Math.max(previous.size(), 16), stringPool);
+        for (int row = 0; row < previous.size(); row++) {
+            vector.append(previous.getString(row));
+        }
+        vectors[column] = vector;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public DataSet build() {
+        final List<Column> columns = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].trimToSize();
+            columns.add(new Column(vectors[i], headers.get(i)));
+        }
+        return DataSet.columnar(columns, rowCount, irregularRows);
+    }
+}
@@ -0,0 +1,81 @@
+package entity;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row list of a columnar DataSet. Rows are created on demand as views over the column vectors,
+ * so no per-row storage is kept except for rows whose width differs from the column count.
+ */
+class ColumnarRows extends AbstractList<DataRow> {
+    private final List<Column> columns;
+    private final int rowCount;
+    // row index -> exact cells beyond the column count, or the width of a short row
+    private final Map<Integer, RowShape> irregularRows;
+
+    ColumnarRows(List<Column> columns, int rowCount, Map<Integer, RowShape> irregularRows) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.irregularRows = irregularRows;
+    }
+
+    @Override
+    public DataRow get(int index) {
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + rowCount);
+        }
+        return new DataRow(new RowCells(index));
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    private final class RowCells extends AbstractList<String> {
+        private final int row;
+        private final RowShape shape;
+
+        RowCells(int row) {
+            this.row = row;
+            this.shape = irregularRows.get(row);
+        }
+
+        @Override
+        public String get(int index) {
+            checkIndex(index);
+            if (index >= columns.size()) {
+                return shape.getExtraCells()[index - columns.size()];
+            }
+            return columns.get(index).getVector().getString(row);
+        }
+
+        @Override
+        public String set(int index, String element) {
+            checkIndex(index);
+            final String previous = get(index);
+            if (index >= columns.size()) {
+                shape.getExtraCells()[index - columns.size()] = element;
+            }
+            else {
+                columns.get(index).getVector().setString(row, element);
+            }
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            if (shape == null) {
+                return columns.size();
+            }
+            return shape.getWidth();
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+            }
+        }
+    }
+}
@@ -1,14 +1,36 @@
 package entity;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DataSet {
     private final List<DataRow> rows;
     private final List<Column> columns;
+    private final Map<Integer, RowShape> irregularRows;
 
     public DataSet(List<DataRow> rows,  List<Column> columns) {
+        this(rows, columns, null);
+    }
+
+    private DataSet(List<DataRow> rows, List<Column> columns, Map<Integer, RowShape> irregularRows) {
         this.rows = rows;
         this.columns = columns;
+        this.irregularRows = irregularRows;
+    }
+
+    /**
+     * Creates a DataSet whose cells live only in the typed column vectors.
+     * Rows are lightweight views over the columns.
+     * @param columns vector-backed columns, all of size {@code rowCount}
+     * @param rowCount number of rows
+     * @param irregularRows rows whose width differs from the column count
+     * @return the columnar DataSet
+     */
+    public static DataSet columnar(List<Column> columns, int rowCount, Map<Integer, RowShape> irregularRows) {
+        return new DataSet(new ColumnarRows(columns, rowCount, irregularRows), columns, irregularRows);
     }
 
     public List<DataRow> getRows() {
@@ -19,7 +41,74 @@ public class DataSet {
         return columns;
     }
 
+    /**
+     * Returns true when the cells are stored once, in typed column vectors.
+     * @return whether this DataSet is columnar
+     */
+    public boolean isColumnar() {
+        return irregularRows != null;
+    }
+
+    /**
+     * Returns the rows of a columnar DataSet whose width differs from the column count.
+     * @return read-only map from row index to row shape; empty for row-backed DataSets
+     */
+    public Map<Integer, RowShape> getIrregularRows() {
+        if (irregularRows == null) {
+            return Map.of();
+        }
+        return Collections.unmodifiableMap(irregularRows);
+    }
+
+    /**
+     * Returns a counter that changes whenever a cell or a header of this DataSet is set.
+     * @return the sum of the column versions
+     */
+    public long getVersion() {
+        long version = 0;
+        for (Column column : columns) {
+            version += column.getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Returns a copy of this DataSet that later edits of it do not reach, so that it can be read
+     * on another thread while this one is edited. The copy is columnar when this DataSet is.
+     * @return the copy
+     */
+    public DataSet copy() {
+        final List<Column> copiedColumns = new ArrayList<>(columns.size());
+        if (isColumnar()) {
+            final StringPool stringPool = new StringPool();
+            for (Column column : columns) {
+                final ColumnVector vector = column.getVector();
+                final ColumnVector copied = ColumnVector.create(vector.getDataType(), vector.size(), stringPool);
+                copied.appendAll(vector);
+                copiedColumns.add(new Column(copied, column.getHeader()));
+            }
+            final Map<Integer, RowShape> copiedShapes = new HashMap<>();
+            for (Map.Entry<Integer, RowShape> shape : irregularRows.entrySet()) {
+                copiedShapes.put(shape.getKey(), new RowShape(shape.getValue().getWidth(),
+                        shape.getValue().getExtraCells().clone()));
+            }
+            return columnar(copiedColumns, rows.size(), copiedShapes);
+        }
+        for (Column column : columns) {
+            copiedColumns.add(new Column(new ArrayList<>(column.getCells()), column.getDataType(), column.getHeader()));
+        }
+        final List<DataRow> copiedRows = new ArrayList<>(rows.size());
+        for (DataRow row : rows) {
+            copiedRows.add(new DataRow(new ArrayList<>(row.getCells())));
+        }
+        return new DataSet(copiedRows, copiedColumns);
+    }
+
     public void setCell(String value, int row, int column) {
+        if (isColumnar()) {
+            this.columns.get(column).setCell(value, row);
+            return;
+        }
         this.rows.get(row).setCell(value, column);
         this.columns.get(column).setCell(value, row);
     }
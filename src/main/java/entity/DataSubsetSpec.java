@@ -1,16 +1,67 @@
 package entity;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * The columns and rows of a dataset to analyze: candidate rows, given as a list or a {@link RowSelection},
+ * narrowed to those that match the filters and the predicate. Two specs are equal when they name the
+ * same dataset, columns, rows in the same order, filters and predicate. The hash is computed once, so the
+ * lists given to a spec must not change once it is used as a key.
+ */
 public class DataSubsetSpec {
     private final String subsetId;
     private final List<String> columnNames;
     private final List<Integer> rowIndices;
+    private final RowSelection rowSelection;
+    private final List<ColumnFilter> filters;
+    private final RowPredicate predicate;
+    private int hash;
+    private boolean hashed;
 
     public DataSubsetSpec(String subsetId, List<String> columnNames, List<Integer> rowIndices) {
+        this(subsetId, columnNames, rowIndices, List.of());
+    }
+
+    /**
+     * Creates a subset restricted to the listed rows that match every filter.
+     * @param subsetId dataset identifier
+     * @param columnNames columns to load
+     * @param rowIndices candidate rows
+     * @param filters conditions a row must satisfy to be included
+     */
+    public DataSubsetSpec(String subsetId, List<String> columnNames, List<Integer> rowIndices,
+                          List<ColumnFilter> filters) {
+        this(subsetId, columnNames, rowIndices, rowIndices == null ? null : RowSelection.unwrap(rowIndices),
+                filters, null);
+    }
+
+    private DataSubsetSpec(String subsetId, List<String> columnNames, List<Integer> rowIndices,
+                           RowSelection rowSelection, List<ColumnFilter> filters, RowPredicate predicate) {
         this.subsetId = subsetId;
         this.columnNames = columnNames;
         this.rowIndices = rowIndices;
+        this.rowSelection = rowSelection;
+        this.filters = filters;
+        this.predicate = predicate;
+    }
+
+    public static DataSubsetSpec of(String subsetId, List<String> columnNames, RowSelection rowSelection) {
+        return of(subsetId, columnNames, rowSelection, List.of());
+    }
+
+    /**
+     * Creates a subset restricted to the selected rows, in ascending order, that match every filter.
+     * @param subsetId dataset identifier
+     * @param columnNames columns to load
+     * @param rowSelection candidate rows
+     * @param filters conditions a row must satisfy to be included
+     * @return the subset specification
+     */
+    public static DataSubsetSpec of(String subsetId, List<String> columnNames, RowSelection rowSelection,
+                                    List<ColumnFilter> filters) {
+        return new DataSubsetSpec(subsetId, columnNames, rowSelection.asList(), rowSelection, filters, null);
     }
 
     public String getSubsetId() {
@@ -21,7 +72,92 @@ public class DataSubsetSpec {
         return columnNames;
     }
 
+    /**
+     * Returns the candidate rows in order; for a {@link RowSelection} this is a view of the selection.
+     * @return the row indices
+     */
     public List<Integer> getRowIndices() {
         return rowIndices;
     }
+
+    /**
+     * Returns the candidate rows as a selection.
+     * @return the selection, or null when the rows were given as a list, whose order is then kept
+     */
+    public RowSelection getRowSelection() {
+        return rowSelection;
+    }
+
+    public List<ColumnFilter> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Returns a copy of this spec restricted to the rows that also match a predicate.
+     * @param condition the predicate, AND-ed with any predicate this spec already has; null changes nothing
+     * @return the restricted spec
+     */
+    public DataSubsetSpec where(RowPredicate condition) {
+        if (condition == null) {
+            return this;
+        }
+        return new DataSubsetSpec(subsetId, columnNames, rowIndices, rowSelection, filters,
+                predicate == null ? condition : RowPredicate.and(predicate, condition));
+    }
+
+    /**
+     * Returns the predicate given to {@link #where(RowPredicate)}.
+     * @return the predicate, or null if there is none
+     */
+    public RowPredicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Returns the condition a row must satisfy to be included: every filter and the predicate.
+     * @return the combined condition, or null if the rows are not filtered
+     */
+    public RowPredicate getCondition() {
+        final List<RowPredicate> conditions = new ArrayList<>();
+        if (filters != null) {
+            conditions.addAll(filters);
+        }
+        if (predicate != null) {
+            conditions.add(predicate);
+        }
+        return conditions.isEmpty() ? null : RowPredicate.and(conditions);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof DataSubsetSpec)) {
+            return false;
+        }
+        final DataSubsetSpec spec = (DataSubsetSpec) other;
+        if (hashed && spec.hashed && hash != spec.hash) {
+            return false;
+        }
+        // selections compare by their runs rather than row by row
+        final boolean sameRows = rowSelection != null && spec.rowSelection != null
+                ? rowSelection.equals(spec.rowSelection)
+                : Objects.equals(rowIndices, spec.rowIndices);
+        return sameRows && Objects.equals(subsetId, spec.subsetId) && Objects.equals(columnNames, spec.columnNames)
+                && Objects.equals(filters, spec.filters) && Objects.equals(predicate, spec.predicate);
+    }
+
+    /**
+     * Hashes the spec once; the rows of a {@link RowSelection} hash like the list of them would.
+     */
+    @Override
+    public int hashCode() {
+        if (!hashed) {
+            hash = Objects.hash(subsetId, columnNames, rowSelection != null ? rowSelection : rowIndices, filters,
+                    predicate);
+            hashed = true;
+        }
+        return hash;
+    }
 }
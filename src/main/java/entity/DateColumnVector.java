@@ -0,0 +1,122 @@
+package entity;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Column vector storing DATE cells as epoch days.
+ * Subclasses may keep the values elsewhere by overriding {@link #epochDay(int)},
+ * {@link #setEpochDay(int, int)}, {@link #capacity()} and {@link #resize(int)}.
+ */
+public class DateColumnVector extends ColumnVector {
+    private int[] epochDays;
+
+    public DateColumnVector(int initialCapacity) {
+        this.epochDays = new int[initialCapacity];
+    }
+
+    /**
+     * Creates a vector over existing epoch days. Call {@link #restore} to set its size and cell state.
+     * @param epochDays the typed values; used directly, not copied
+     */
+    public DateColumnVector(int[] epochDays) {
+        this.epochDays = epochDays;
+    }
+
+    /**
+     * Creates a vector without heap storage, for subclasses that override the storage hooks.
+     */
+    protected DateColumnVector() {
+        this.epochDays = null;
+    }
+
+    @Override
+    public DataType getDataType() {
+        return DataType.DATE;
+    }
+
+    public int getEpochDay(int index) {
+        checkIndex(index);
+        return epochDay(index);
+    }
+
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(getEpochDay(index));
+    }
+
+    @Override
+    protected int encode(int index, String value) {
+        if (!hasDateShape(value)) {
+            return INVALID;
+        }
+        final LocalDate date;
+        try {
+            date = LocalDate.parse(value);
+        }
+        catch (DateTimeParseException ex) {
+            return INVALID;
+        }
+        setEpochDay(index, (int) date.toEpochDay());
+        if (date.toString().equals(value)) {
+            return CANONICAL;
+        }
+        return NON_CANONICAL;
+    }
+
+    @Override
+    protected String decode(int index) {
+        return LocalDate.ofEpochDay(epochDay(index)).toString();
+    }
+
+    @Override
+    protected void clear(int index) {
+        setEpochDay(index, 0);
+    }
+
+    @Override
+    protected void copyValues(ColumnVector other, int offset) {
+        final DateColumnVector source = (DateColumnVector) other;
+        if (epochDays != null && source.epochDays != null) {
+            System.arraycopy(source.epochDays, 0, epochDays, offset, source.size());
+            return;
+        }
+        for (int i = 0; i < source.size(); i++) {
+            setEpochDay(offset + i, source.epochDay(i));
+        }
+    }
+
+    /**
+     * Reads a stored epoch day without a bounds check against the size.
+     * @param index row index below the capacity
+     * @return the epoch day
+     */
+    protected int epochDay(int index) {
+        return epochDays[index];
+    }
+
+    /**
+     * Stores an epoch day without a bounds check against the size.
+     * @param index row index below the capacity
+     * @param epochDay the epoch day
+     */
+    protected void setEpochDay(int index, int epochDay) {
+        epochDays[index] = epochDay;
+    }
+
+    @Override
+    protected int capacity() {
+        return epochDays.length;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+    }
+
+    // ISO dates end in "-MM-dd"; rejecting other text here avoids a parse exception per cell
+    private static boolean hasDateShape(String value) {
+        final int length = value.length();
+        return length >= 10 && value.charAt(length - 3) == '-' && value.charAt(length - 6) == '-';
+    }
+}
@@ -10,5 +10,7 @@ public enum MetricType {
     STANDARD_DEVIATION,
     OUTLIERS,
     HEATMAP,
-    CORRELATION_MATRIX
+    CORRELATION_MATRIX,
+    P90,
+    P99
 }
\ No newline at end of file
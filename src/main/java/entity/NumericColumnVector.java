@@ -0,0 +1,272 @@
+package entity;
+
+import java.util.Arrays;
+
+/**
+ * Column vector storing NUMERIC cells as primitive doubles.
+ * Decimal text with trailing zeros such as "12.50" or "1.0" keeps its number of decimal places in one
+ * byte per cell, so money and coordinate columns format back exactly without verbatim text.
+ * Subclasses may keep the values elsewhere, e.g. off-heap, by overriding the storage hooks
+ * {@link #value(int)}, {@link #setValue(int, double)}, {@link #capacity()} and {@link #resize(int)}.
+ */
+public class NumericColumnVector extends ColumnVector {
+    // integers up to this many digits format back exactly as longs
+    private static final int MAX_EXACT_DIGITS = 15;
+    // decimal places kept per cell; more would need powers of ten that are not exact doubles
+    private static final int MAX_DECIMAL_PLACES = 15;
+    private static final double[] POWERS_OF_TEN = new double[MAX_DECIMAL_PLACES + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private double[] values;
+    // per cell 0 for the shortest formatting, else the number of fixed decimal places plus one;
+    // null until the first such cell
+    private byte[] decimalPlaces;
+
+    public NumericColumnVector(int initialCapacity) {
+        this.values = new double[initialCapacity];
+    }
+
+    /**
+     * Creates a vector over existing values. Call {@link #restore} to set its size and cell state.
+     * @param values the typed values; used directly, not copied
+     */
+    public NumericColumnVector(double[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates a vector over existing values and their formatting. Call {@link #restore} to set its size
+     * and cell state.
+     * @param values the typed values; used directly, not copied
+     * @param decimalPlaces per cell as returned by {@link #getDecimalPlaces()}, or null if all cells use
+     *                      the shortest formatting; used directly, not copied
+     */
+    public NumericColumnVector(double[] values, byte[] decimalPlaces) {
+        this.values = values;
+        this.decimalPlaces = decimalPlaces;
+    }
+
+    /**
+     * Creates a vector without heap storage, for subclasses that override the storage hooks.
+     */
+    protected NumericColumnVector() {
+        this.values = null;
+    }
+
+    @Override
+    public DataType getDataType() {
+        return DataType.NUMERIC;
+    }
+
+    public double getDouble(int index) {
+        checkIndex(index);
+        return value(index);
+    }
+
+    /**
+     * Returns how the cells format their values.
+     * @return per cell 0 for the shortest formatting, else the number of fixed decimal places plus one;
+     *         null if every cell uses the shortest formatting
+     */
+    public byte[] getDecimalPlaces() {
+        return decimalPlaces == null ? null : Arrays.copyOf(decimalPlaces, Math.max(size(), 1));
+    }
+
+    @Override
+    protected int encode(int index, String value) {
+        setDecimalPlaces(index, 0);
+        if (isPlainInteger(value)) {
+            setValue(index, Long.parseLong(value));
+            return CANONICAL;
+        }
+        if (!hasDigit(value) && !value.contains("NaN") && !value.contains("Infinity")) {
+            return INVALID;
+        }
+        final double parsed;
+        try {
+            parsed = Double.parseDouble(value);
+        }
+        catch (NumberFormatException ex) {
+            return INVALID;
+        }
+        setValue(index, parsed);
+        final int places = plainDecimalPlaces(value);
+        if (places > 0) {
+            if (formatFixed(parsed, places).equals(value)) {
+                setDecimalPlaces(index, places + 1);
+                return CANONICAL;
+            }
+        }
+        else if (format(parsed).equals(value)) {
+            return CANONICAL;
+        }
+        return NON_CANONICAL;
+    }
+
+    @Override
+    protected String decode(int index) {
+        final int places = decimalPlaces == null || index >= decimalPlaces.length ? 0 : decimalPlaces[index];
+        return places == 0 ? format(value(index)) : formatFixed(value(index), places - 1);
+    }
+
+    @Override
+    protected void clear(int index) {
+        setValue(index, 0.0);
+        setDecimalPlaces(index, 0);
+    }
+
+    @Override
+    protected void copyValues(ColumnVector other, int offset) {
+        final NumericColumnVector source = (NumericColumnVector) other;
+        if (source.decimalPlaces != null) {
+            final int count = Math.min(source.size(), source.decimalPlaces.length);
+            ensureDecimalPlaces(offset + count);
+            System.arraycopy(source.decimalPlaces, 0, decimalPlaces, offset, count);
+        }
+        if (values != null && source.values != null) {
+            System.arraycopy(source.values, 0, values, offset, source.size());
+            return;
+        }
+        for (int i = 0; i < source.size(); i++) {
+            setValue(offset + i, source.value(i));
+        }
+    }
+
+    private void setDecimalPlaces(int index, int places) {
+        if (places != 0 || decimalPlaces != null && index < decimalPlaces.length) {
+            ensureDecimalPlaces(index + 1);
+            decimalPlaces[index] = (byte) places;
+        }
+    }
+
+    private void ensureDecimalPlaces(int length) {
+        if (decimalPlaces == null) {
+            decimalPlaces = new byte[Math.max(capacity(), length)];
+        }
+        else if (decimalPlaces.length < length) {
+            decimalPlaces = Arrays.copyOf(decimalPlaces, Math.max(capacity(), length));
+        }
+    }
+
+    /**
+     * Reads a stored value without a bounds check against the size.
+     * @param index row index below the capacity
+     * @return the value
+     */
+    protected double value(int index) {
+        return values[index];
+    }
+
+    /**
+     * Stores a value without a bounds check against the size.
+     * @param index row index below the capacity
+     * @param value the value
+     */
+    protected void setValue(int index, double value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected int capacity() {
+        return values.length;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+
+    static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Formats a value with a fixed number of decimal places, e.g. 12.5 with 2 places as "12.50".
+     */
+    static String formatFixed(double value, int places) {
+        final long unscaled = Math.round(Math.abs(value) * POWERS_OF_TEN[places]);
+        final String digits = Long.toString(unscaled);
+        final StringBuilder text = new StringBuilder(digits.length() + 3);
+        if (Double.doubleToRawLongBits(value) < 0) {
+            text.append('-');
+        }
+        final int integerDigits = digits.length() - places;
+        if (integerDigits <= 0) {
+            text.append("0.");
+            for (int i = integerDigits; i < 0; i++) {
+                text.append('0');
+            }
+            return text.append(digits).toString();
+        }
+        return text.append(digits, 0, integerDigits).append('.').append(digits, integerDigits, digits.length())
+                .toString();
+    }
+
+    /**
+     * Returns the number of decimal places of text like "-12.50": an optional minus sign, digits, a point
+     * and digits, with at most 15 digits in all so that the value is exact enough to format it back.
+     * @return the decimal places, or 0 for any other text
+     */
+    private static int plainDecimalPlaces(String value) {
+        final int length = value.length();
+        final int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        int point = -1;
+        for (int i = start; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == '.' && point < 0) {
+                point = i;
+            }
+            else if (c < '0' || c > '9') {
+                return 0;
+            }
+        }
+        final int places = length - point - 1;
+        if (point <= start || places == 0 || places > MAX_DECIMAL_PLACES || length - start - 1 > MAX_EXACT_DIGITS) {
+            return 0;
+        }
+        return places;
+    }
+
+    // optional minus sign followed by digits, without leading zeros or "-0"
+    private static boolean isPlainInteger(String value) {
+        final int length = value.length();
+        int start = 0;
+        if (length > 0 && value.charAt(0) == '-') {
+            start = 1;
+        }
+        final int digits = length - start;
+        if (digits == 0 || digits > MAX_EXACT_DIGITS) {
+            return false;
+        }
+        if (value.charAt(start) == '0' && (digits > 1 || start == 1)) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // rejects most non-numeric text without the cost of a NumberFormatException
+    private static boolean hasDigit(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
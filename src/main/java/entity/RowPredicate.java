@@ -0,0 +1,169 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Condition on the cells of a row, built from {@link ColumnFilter}s combined with AND, OR and NOT,
+ * e.g. {@code and(greaterThan("Age", 30), equalTo("Industry", "Technology"))}.
+ * Predicates are immutable trees; gateways evaluate them a column at a time.
+ */
+public abstract class RowPredicate {
+    /**
+     * The node type of a predicate.
+     */
+    public enum Kind {
+        COLUMN,
+        AND,
+        OR,
+        NOT
+    }
+
+    RowPredicate() {
+    }
+
+    /**
+     * Returns a predicate matching rows that match every operand.
+     * @param operands at least one predicate
+     * @return the conjunction, or the operand itself if there is only one
+     */
+    public static RowPredicate and(RowPredicate... operands) {
+        return and(Arrays.asList(operands));
+    }
+
+    public static RowPredicate and(List<? extends RowPredicate> operands) {
+        return combine(Kind.AND, operands);
+    }
+
+    /**
+     * Returns a predicate matching rows that match any operand.
+     * @param operands at least one predicate
+     * @return the disjunction, or the operand itself if there is only one
+     */
+    public static RowPredicate or(RowPredicate... operands) {
+        return or(Arrays.asList(operands));
+    }
+
+    public static RowPredicate or(List<? extends RowPredicate> operands) {
+        return combine(Kind.OR, operands);
+    }
+
+    /**
+     * Returns a predicate matching the rows the operand does not match.
+     * @param operand the negated predicate
+     * @return the negation
+     */
+    public static RowPredicate not(RowPredicate operand) {
+        if (operand == null) {
+            throw new IllegalArgumentException("Predicate operand is required");
+        }
+        return new Combination(Kind.NOT, List.of(operand));
+    }
+
+    public abstract Kind getKind();
+
+    /**
+     * Returns the operands of a combination.
+     * @return the operands in order; empty for a {@link ColumnFilter}
+     */
+    public abstract List<RowPredicate> getOperands();
+
+    /**
+     * Returns the columns the predicate reads.
+     * @return distinct column names in the order they first appear
+     */
+    public List<String> getColumnNames() {
+        final Set<String> names = new LinkedHashSet<>();
+        collectColumnNames(this, names);
+        return new ArrayList<>(names);
+    }
+
+    private static void collectColumnNames(RowPredicate predicate, Set<String> names) {
+        if (predicate instanceof ColumnFilter) {
+            names.add(((ColumnFilter) predicate).getColumnName());
+            return;
+        }
+        for (RowPredicate operand : predicate.getOperands()) {
+            collectColumnNames(operand, names);
+        }
+    }
+
+    private static RowPredicate combine(Kind kind, List<? extends RowPredicate> operands) {
+        if (operands == null || operands.isEmpty()) {
+            throw new IllegalArgumentException("Predicate operands are required");
+        }
+        if (operands.size() == 1 && operands.get(0) != null) {
+            return operands.get(0);
+        }
+        // nested combinations of the same kind are flattened, so AND(a, AND(b, c)) is AND(a, b, c)
+        final List<RowPredicate> flat = new ArrayList<>();
+        for (RowPredicate operand : operands) {
+            if (operand == null) {
+                throw new IllegalArgumentException("Predicate operands are required");
+            }
+            if (operand.getKind() == kind) {
+                flat.addAll(operand.getOperands());
+            }
+            else {
+                flat.add(operand);
+            }
+        }
+        return new Combination(kind, Collections.unmodifiableList(flat));
+    }
+
+    /**
+     * AND, OR or NOT of other predicates.
+     */
+    private static final class Combination extends RowPredicate {
+        private final Kind kind;
+        private final List<RowPredicate> operands;
+
+        Combination(Kind kind, List<RowPredicate> operands) {
+            this.kind = kind;
+            this.operands = operands;
+        }
+
+        @Override
+        public Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public List<RowPredicate> getOperands() {
+            return operands;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Combination)) {
+                return false;
+            }
+            return kind == ((Combination) other).kind && operands.equals(((Combination) other).operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, operands);
+        }
+
+        @Override
+        public String toString() {
+            if (kind == Kind.NOT) {
+                return "NOT " + operands.get(0);
+            }
+            final List<String> parts = new ArrayList<>();
+            for (RowPredicate operand : operands) {
+                parts.add(operand.getKind() == Kind.COLUMN ? operand.toString() : "(" + operand + ")");
+            }
+            return String.join(" " + kind + " ", parts);
+        }
+    }
+}
@@ -0,0 +1,992 @@
+package entity;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of row indices, in ascending order, stored in whichever of three forms is smallest.
+ * "All rows" of a table is just its row count; a few contiguous ranges are kept as runs; anything else
+ * is a compressed bitmap in the style of Roaring bitmaps: the rows are split into chunks of 65536 by
+ * their high 16 bits, and each chunk keeps its low bits either as a sorted array while it holds at most
+ * 4096 rows, or as a 65536-bit bitmap once that is smaller. A selection of a few rows therefore costs
+ * a few bytes per row and a dense one an eighth of a byte per row, instead of a boxed Integer each.
+ */
+public final class RowSelection {
+    private static final int ALL = 0;
+    private static final int RUNS = 1;
+    private static final int BITMAP = 2;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int WORDS_PER_CHUNK = (1 << CHUNK_BITS) / 64;
+    // an array of more than this many 2-byte values is larger than a bitmap
+    private static final int ARRAY_LIMIT = 4096;
+
+    private static final RowSelection EMPTY = new RowSelection(RUNS, 0, new int[0], new int[0], new int[0],
+            null, null, null);
+
+    private final int kind;
+    private final int cardinality;
+    // RUNS: rows runStarts[r] (inclusive) to runEnds[r] (exclusive); runRanks[r] rows come before run r
+    private final int[] runStarts;
+    private final int[] runEnds;
+    private final int[] runRanks;
+    // BITMAP: the chunk of every container, the containers, and how many rows come before each
+    private final int[] keys;
+    private final Container[] containers;
+    private final int[] containerRanks;
+    private List<Integer> list;
+    private int hash;
+    private boolean hashed;
+
+    private RowSelection(int kind, int cardinality, int[] runStarts, int[] runEnds, int[] runRanks,
+                         int[] keys, Container[] containers, int[] containerRanks) {
+        this.kind = kind;
+        this.cardinality = cardinality;
+        this.runStarts = runStarts;
+        this.runEnds = runEnds;
+        this.runRanks = runRanks;
+        this.keys = keys;
+        this.containers = containers;
+        this.containerRanks = containerRanks;
+    }
+
+    /**
+     * Selects every row of a table.
+     * @param rowCount number of rows in the table
+     * @return rows 0 to rowCount - 1
+     */
+    public static RowSelection all(int rowCount) {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("Row count must not be negative: " + rowCount);
+        }
+        return new RowSelection(ALL, rowCount, null, null, null, null, null, null);
+    }
+
+    /**
+     * Selects a contiguous range of rows.
+     * @param from first row
+     * @param to row after the last one
+     * @return rows from to to - 1
+     */
+    public static RowSelection range(int from, int to) {
+        if (from < 0 || to < from) {
+            throw new IllegalArgumentException("Invalid row range: " + from + " to " + to);
+        }
+        if (from == to) {
+            return EMPTY;
+        }
+        return fromRuns(new int[] {from}, new int[] {to}, 1);
+    }
+
+    /**
+     * Selects the rows of ascending ranges that neither overlap nor touch.
+     * @param starts first row of each range
+     * @param ends row after the last one of each range
+     * @return the selection
+     */
+    public static RowSelection ofRuns(int[] starts, int[] ends) {
+        for (int r = 0; r < starts.length; r++) {
+            if (starts[r] < (r == 0 ? 0 : ends[r - 1] + 1) || ends[r] <= starts[r]) {
+                throw new IllegalArgumentException("Invalid row range: " + starts[r] + " to " + ends[r]);
+            }
+        }
+        final RowSelection runs = fromRuns(starts, ends, starts.length);
+        // many short runs take less space as a bitmap
+        return runs.kind == RUNS && starts.length * 12L > 2L * runs.cardinality ? runs.toBitmap() : runs;
+    }
+
+    /**
+     * Selects the given rows; their order and duplicates do not matter.
+     * @param rows row indices, not negative
+     * @return the selection
+     */
+    public static RowSelection of(int... rows) {
+        boolean ascending = true;
+        for (int i = 1; ascending && i < rows.length; i++) {
+            ascending = rows[i] > rows[i - 1];
+        }
+        if (ascending) {
+            return fromSorted(rows, rows.length);
+        }
+        final int[] sorted = rows.clone();
+        Arrays.sort(sorted);
+        return fromSorted(sorted, dedupe(sorted, sorted.length));
+    }
+
+    /**
+     * Selects the given rows; their order and duplicates do not matter.
+     * @param rows row indices, not negative
+     * @return the selection
+     */
+    public static RowSelection of(List<Integer> rows) {
+        final RowSelection selection = unwrap(rows);
+        if (selection != null) {
+            return selection;
+        }
+        final int[] sorted = new int[rows.size()];
+        int i = 0;
+        for (Integer row : rows) {
+            sorted[i++] = row;
+        }
+        Arrays.sort(sorted);
+        return fromSorted(sorted, dedupe(sorted, sorted.length));
+    }
+
+    /**
+     * Selects rows given in strictly ascending order, so that the selection lists them in the same order.
+     * @param rows row indices, not negative
+     * @return the selection, or null if the rows are not strictly ascending
+     */
+    public static RowSelection ofAscending(List<Integer> rows) {
+        final RowSelection selection = unwrap(rows);
+        if (selection != null) {
+            return selection;
+        }
+        final int[] sorted = new int[rows.size()];
+        int i = 0;
+        for (Integer row : rows) {
+            if (i > 0 && row <= sorted[i - 1]) {
+                return null;
+            }
+            sorted[i++] = row;
+        }
+        return fromSorted(sorted, sorted.length);
+    }
+
+    /**
+     * Selects the rows whose bits are set, choosing runs or containers from the words of the bitmap.
+     * @param rows the bitmap
+     * @return the selection
+     */
+    public static RowSelection of(BitSet rows) {
+        final long[] words = rows.toLongArray();
+        long runs = 0;
+        long bitmapBytes = 0;
+        long previous = 0;
+        for (int start = 0; start < words.length; start += WORDS_PER_CHUNK) {
+            int count = 0;
+            for (int w = start; w < Math.min(start + WORDS_PER_CHUNK, words.length); w++) {
+                count += Long.bitCount(words[w]);
+                // a run starts at each set bit whose lower neighbour is clear
+                runs += Long.bitCount(words[w] & ~(words[w] << 1 | previous >>> 63));
+                previous = words[w];
+            }
+            if (count > 0) {
+                bitmapBytes += 16 + Math.min(2L * count, WORDS_PER_CHUNK * 8L);
+            }
+        }
+        if (runs == 0) {
+            return EMPTY;
+        }
+        if (runs * 12 <= bitmapBytes) {
+            final int[] starts = new int[(int) runs];
+            final int[] ends = new int[(int) runs];
+            int r = 0;
+            for (int start = rows.nextSetBit(0); start >= 0; start = rows.nextSetBit(ends[r++])) {
+                starts[r] = start;
+                ends[r] = rows.nextClearBit(start);
+            }
+            return fromRuns(starts, ends, r);
+        }
+        final BitmapBuilder builder = new BitmapBuilder(words.length / WORDS_PER_CHUNK + 1);
+        for (int start = 0; start < words.length; start += WORDS_PER_CHUNK) {
+            builder.add(start / WORDS_PER_CHUNK,
+                    Container.of(Arrays.copyOfRange(words, start, start + WORDS_PER_CHUNK), -1));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the selection behind a list made by {@link #asList()}.
+     * @param rows any list of rows
+     * @return the selection, or null if the list is not a selection view
+     */
+    public static RowSelection unwrap(List<Integer> rows) {
+        return rows instanceof SelectionList ? ((SelectionList) rows).selection() : null;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns whether this selection is every row of a table, stored as just the row count.
+     * @return true for {@link #all(int)} selections
+     */
+    public boolean isAll() {
+        return kind == ALL;
+    }
+
+    public boolean contains(int row) {
+        if (row < 0) {
+            return false;
+        }
+        if (kind == ALL) {
+            return row < cardinality;
+        }
+        if (kind == RUNS) {
+            final int r = floorIndex(runStarts, runStarts.length, row);
+            return r >= 0 && row < runEnds[r];
+        }
+        final int c = Arrays.binarySearch(keys, row >>> CHUNK_BITS);
+        return c >= 0 && containers[c].contains(row & CHUNK_MASK);
+    }
+
+    /**
+     * Returns the row at a position of the ascending order.
+     * @param rank position, from 0 to {@link #cardinality()} - 1
+     * @return the row
+     */
+    public int select(int rank) {
+        if (rank < 0 || rank >= cardinality) {
+            throw new IndexOutOfBoundsException("Index " + rank + " out of bounds for length " + cardinality);
+        }
+        if (kind == ALL) {
+            return rank;
+        }
+        if (kind == RUNS) {
+            final int r = floorIndex(runRanks, runRanks.length, rank);
+            return runStarts[r] + rank - runRanks[r];
+        }
+        final int c = floorIndex(containerRanks, containerRanks.length, rank);
+        return keys[c] << CHUNK_BITS | containers[c].select(rank - containerRanks[c]);
+    }
+
+    /**
+     * Returns the highest selected row.
+     * @return the row, or -1 if the selection is empty
+     */
+    public int last() {
+        if (cardinality == 0) {
+            return -1;
+        }
+        if (kind == ALL) {
+            return cardinality - 1;
+        }
+        if (kind == RUNS) {
+            return runEnds[runEnds.length - 1] - 1;
+        }
+        final Container container = containers[containers.length - 1];
+        return keys[keys.length - 1] << CHUNK_BITS | container.select(container.cardinality - 1);
+    }
+
+    public void forEach(IntConsumer action) {
+        if (kind == ALL) {
+            for (int row = 0; row < cardinality; row++) {
+                action.accept(row);
+            }
+        }
+        else if (kind == RUNS) {
+            for (int r = 0; r < runStarts.length; r++) {
+                for (int row = runStarts[r]; row < runEnds[r]; row++) {
+                    action.accept(row);
+                }
+            }
+        }
+        else {
+            for (int c = 0; c < containers.length; c++) {
+                containers[c].forEach(keys[c] << CHUNK_BITS, action);
+            }
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new RowIterator();
+    }
+
+    public int[] toArray() {
+        final int[] rows = new int[cardinality];
+        final int[] next = {0};
+        forEach(row -> rows[next[0]++] = row);
+        return rows;
+    }
+
+    /**
+     * Returns the selection as a read-only list of ascending row indices, without copying it.
+     * @return the list view
+     */
+    public List<Integer> asList() {
+        if (list == null) {
+            list = new SelectionList(this);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the rows in both selections.
+     * @param other the other selection
+     * @return the intersection
+     */
+    public RowSelection and(RowSelection other) {
+        if (kind == ALL && other.last() < cardinality) {
+            return other;
+        }
+        if (other.kind == ALL && last() < other.cardinality) {
+            return this;
+        }
+        if (kind != BITMAP && other.kind != BITMAP) {
+            return andRuns(this.runs(), other.runs());
+        }
+        final RowSelection left = toBitmap();
+        final RowSelection right = other.toBitmap();
+        final BitmapBuilder result = new BitmapBuilder(Math.min(left.keys.length, right.keys.length));
+        int i = 0;
+        int j = 0;
+        while (i < left.keys.length && j < right.keys.length) {
+            if (left.keys[i] < right.keys[j]) {
+                i++;
+            }
+            else if (left.keys[i] > right.keys[j]) {
+                j++;
+            }
+            else {
+                result.add(left.keys[i], left.containers[i++].and(right.containers[j++]));
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Returns the rows in either selection.
+     * @param other the other selection
+     * @return the union
+     */
+    public RowSelection or(RowSelection other) {
+        if (kind == ALL && other.last() < cardinality) {
+            return this;
+        }
+        if (other.kind == ALL && last() < other.cardinality) {
+            return other;
+        }
+        if (kind != BITMAP && other.kind != BITMAP) {
+            return orRuns(this.runs(), other.runs());
+        }
+        final RowSelection left = toBitmap();
+        final RowSelection right = other.toBitmap();
+        final BitmapBuilder result = new BitmapBuilder(left.keys.length + right.keys.length);
+        int i = 0;
+        int j = 0;
+        while (i < left.keys.length || j < right.keys.length) {
+            if (j == right.keys.length || i < left.keys.length && left.keys[i] < right.keys[j]) {
+                result.add(left.keys[i], left.containers[i++]);
+            }
+            else if (i == left.keys.length || left.keys[i] > right.keys[j]) {
+                result.add(right.keys[j], right.containers[j++]);
+            }
+            else {
+                result.add(left.keys[i], left.containers[i++].or(right.containers[j++]));
+            }
+        }
+        return result.build();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RowSelection) || ((RowSelection) other).cardinality != cardinality) {
+            return false;
+        }
+        final RowSelection that = (RowSelection) other;
+        if (kind == ALL && that.kind == ALL) {
+            return true;
+        }
+        if (hashed && that.hashed && hash != that.hash) {
+            return false;
+        }
+        if (kind == RUNS && that.kind == RUNS && Arrays.equals(runStarts, that.runStarts)
+                && Arrays.equals(runEnds, that.runEnds)) {
+            return true;
+        }
+        final PrimitiveIterator.OfInt mine = iterator();
+        final PrimitiveIterator.OfInt theirs = that.iterator();
+        while (mine.hasNext()) {
+            if (mine.nextInt() != theirs.nextInt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the rows like {@link List#hashCode()} does, so the hash is that of {@link #asList()};
+     * it is computed once.
+     */
+    @Override
+    public int hashCode() {
+        if (!hashed) {
+            int rtrn = 1;
+            for (final PrimitiveIterator.OfInt rows = iterator(); rows.hasNext(); ) {
+                rtrn = 31 * rtrn + rows.nextInt();
+            }
+            hash = rtrn;
+            hashed = true;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (kind == ALL) {
+            return "RowSelection[all " + cardinality + "]";
+        }
+        return "RowSelection[" + cardinality + " rows" + (kind == RUNS ? " in " + runStarts.length + " runs]" : "]");
+    }
+
+    /**
+     * Chooses runs or a bitmap for ascending distinct rows, whichever is smaller.
+     */
+    private static RowSelection fromSorted(int[] sorted, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        if (sorted[0] < 0) {
+            throw new IllegalArgumentException("Row index must not be negative: " + sorted[0]);
+        }
+        int runs = 1;
+        long bitmapBytes = 0;
+        int chunkStart = 0;
+        for (int i = 1; i <= length; i++) {
+            if (i < length && sorted[i] != sorted[i - 1] + 1) {
+                runs++;
+            }
+            if (i == length || sorted[i] >>> CHUNK_BITS != sorted[chunkStart] >>> CHUNK_BITS) {
+                bitmapBytes += 16 + Math.min(2L * (i - chunkStart), WORDS_PER_CHUNK * 8L);
+                chunkStart = i;
+            }
+        }
+        if (runs * 12L <= bitmapBytes) {
+            final int[] starts = new int[runs];
+            final int[] ends = new int[runs];
+            int r = 0;
+            starts[0] = sorted[0];
+            for (int i = 1; i < length; i++) {
+                if (sorted[i] != sorted[i - 1] + 1) {
+                    ends[r++] = sorted[i - 1] + 1;
+                    starts[r] = sorted[i];
+                }
+            }
+            ends[r] = sorted[length - 1] + 1;
+            return fromRuns(starts, ends, runs);
+        }
+        final BitmapBuilder builder = new BitmapBuilder(16);
+        int start = 0;
+        while (start < length) {
+            final int key = sorted[start] >>> CHUNK_BITS;
+            int end = start;
+            while (end < length && sorted[end] >>> CHUNK_BITS == key) {
+                end++;
+            }
+            builder.add(key, Container.of(sorted, start, end));
+            start = end;
+        }
+        return builder.build();
+    }
+
+    private static RowSelection fromRuns(int[] starts, int[] ends, int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        if (count == 1 && starts[0] == 0) {
+            return all(ends[0]);
+        }
+        final int[] ranks = new int[count];
+        int rank = 0;
+        for (int r = 0; r < count; r++) {
+            ranks[r] = rank;
+            rank += ends[r] - starts[r];
+        }
+        return new RowSelection(RUNS, rank, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count), ranks,
+                null, null, null);
+    }
+
+    /**
+     * Returns the runs of a selection that is not a bitmap, as {starts, ends}.
+     */
+    private int[][] runs() {
+        if (kind == ALL) {
+            return cardinality == 0 ? new int[][] {{}, {}} : new int[][] {{0}, {cardinality}};
+        }
+        return new int[][] {runStarts, runEnds};
+    }
+
+    private static RowSelection andRuns(int[][] left, int[][] right) {
+        final int capacity = left[0].length + right[0].length;
+        final int[] starts = new int[capacity];
+        final int[] ends = new int[capacity];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left[0].length && j < right[0].length) {
+            final int start = Math.max(left[0][i], right[0][j]);
+            final int end = Math.min(left[1][i], right[1][j]);
+            if (start < end) {
+                starts[count] = start;
+                ends[count++] = end;
+            }
+            if (left[1][i] < right[1][j]) {
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return fromRuns(starts, ends, count);
+    }
+
+    private static RowSelection orRuns(int[][] left, int[][] right) {
+        final int capacity = left[0].length + right[0].length;
+        final int[] starts = new int[capacity];
+        final int[] ends = new int[capacity];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left[0].length || j < right[0].length) {
+            final int start;
+            final int end;
+            if (j == right[0].length || i < left[0].length && left[0][i] <= right[0][j]) {
+                start = left[0][i];
+                end = left[1][i++];
+            }
+            else {
+                start = right[0][j];
+                end = right[1][j++];
+            }
+            // merge with the previous run when they overlap or touch
+            if (count > 0 && start <= ends[count - 1]) {
+                ends[count - 1] = Math.max(ends[count - 1], end);
+            }
+            else {
+                starts[count] = start;
+                ends[count++] = end;
+            }
+        }
+        return fromRuns(starts, ends, count);
+    }
+
+    private RowSelection toBitmap() {
+        if (kind == BITMAP) {
+            return this;
+        }
+        final int[][] runs = runs();
+        final BitmapBuilder builder = new BitmapBuilder(16);
+        int key = -1;
+        long[] words = null;
+        int count = 0;
+        for (int r = 0; r < runs[0].length; r++) {
+            int row = runs[0][r];
+            while (row < runs[1][r]) {
+                if (row >>> CHUNK_BITS != key) {
+                    if (words != null) {
+                        builder.add(key, Container.of(words, count));
+                    }
+                    key = row >>> CHUNK_BITS;
+                    words = new long[WORDS_PER_CHUNK];
+                    count = 0;
+                }
+                // fill up to the end of the run or of the chunk
+                final int end = (int) Math.min(runs[1][r], (long) (key + 1) << CHUNK_BITS);
+                count += end - row;
+                for (; row < end; row++) {
+                    words[(row & CHUNK_MASK) >>> 6] |= 1L << row;
+                }
+            }
+        }
+        if (words != null) {
+            builder.add(key, Container.of(words, count));
+        }
+        return builder.build();
+    }
+
+    private static int dedupe(int[] sorted, int length) {
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinct == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Index of the last element not greater than the value, or -1.
+     */
+    private static int floorIndex(int[] sorted, int length, int value) {
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * The low 16 bits of the rows of one chunk, as a sorted array or as a bitmap.
+     */
+    private static final class Container {
+        private final char[] array;
+        private final long[] bitmap;
+        private final int cardinality;
+
+        private Container(char[] array, long[] bitmap, int cardinality) {
+            this.array = array;
+            this.bitmap = bitmap;
+            this.cardinality = cardinality;
+        }
+
+        static Container of(int[] sorted, int from, int to) {
+            final int count = to - from;
+            if (count <= ARRAY_LIMIT) {
+                final char[] array = new char[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = (char) (sorted[from + i] & CHUNK_MASK);
+                }
+                return new Container(array, null, count);
+            }
+            final long[] words = new long[WORDS_PER_CHUNK];
+            for (int i = from; i < to; i++) {
+                final int low = sorted[i] & CHUNK_MASK;
+                words[low >>> 6] |= 1L << low;
+            }
+            return new Container(null, words, count);
+        }
+
+        /**
+         * Wraps bitmap words, turning them into an array if that is smaller.
+         * @param words the bitmap, used directly
+         * @param cardinality number of set bits, or -1 to count them
+         * @return the container, or null if no bit is set
+         */
+        static Container of(long[] words, int cardinality) {
+            int count = cardinality;
+            if (count < 0) {
+                count = 0;
+                for (long word : words) {
+                    count += Long.bitCount(word);
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            if (count > ARRAY_LIMIT) {
+                return new Container(null, words, count);
+            }
+            final char[] array = new char[count];
+            int next = 0;
+            for (int w = 0; w < words.length; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    array[next++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                }
+            }
+            return new Container(array, null, count);
+        }
+
+        boolean contains(int low) {
+            if (bitmap != null) {
+                return (bitmap[low >>> 6] & 1L << low) != 0;
+            }
+            return Arrays.binarySearch(array, (char) low) >= 0;
+        }
+
+        int select(int rank) {
+            if (bitmap == null) {
+                return array[rank];
+            }
+            int remaining = rank;
+            for (int w = 0; ; w++) {
+                final int bits = Long.bitCount(bitmap[w]);
+                if (remaining < bits) {
+                    long word = bitmap[w];
+                    for (int i = 0; i < remaining; i++) {
+                        word &= word - 1;
+                    }
+                    return w << 6 | Long.numberOfTrailingZeros(word);
+                }
+                remaining -= bits;
+            }
+        }
+
+        void forEach(int base, IntConsumer action) {
+            if (bitmap == null) {
+                for (char low : array) {
+                    action.accept(base | low);
+                }
+                return;
+            }
+            for (int w = 0; w < bitmap.length; w++) {
+                for (long word = bitmap[w]; word != 0; word &= word - 1) {
+                    action.accept(base | w << 6 | Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+
+        Container and(Container other) {
+            if (bitmap == null && other.bitmap == null) {
+                final char[] result = new char[Math.min(cardinality, other.cardinality)];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < array.length && j < other.array.length) {
+                    if (array[i] < other.array[j]) {
+                        i++;
+                    }
+                    else if (array[i] > other.array[j]) {
+                        j++;
+                    }
+                    else {
+                        result[count++] = array[i++];
+                        j++;
+                    }
+                }
+                return count == 0 ? null : new Container(Arrays.copyOf(result, count), null, count);
+            }
+            if (bitmap == null || other.bitmap == null) {
+                // probe the bitmap with every value of the array
+                final Container sparse = bitmap == null ? this : other;
+                final Container dense = bitmap == null ? other : this;
+                final char[] result = new char[sparse.cardinality];
+                int count = 0;
+                for (char low : sparse.array) {
+                    if (dense.contains(low)) {
+                        result[count++] = low;
+                    }
+                }
+                return count == 0 ? null : new Container(Arrays.copyOf(result, count), null, count);
+            }
+            final long[] words = new long[WORDS_PER_CHUNK];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = bitmap[w] & other.bitmap[w];
+            }
+            return of(words, -1);
+        }
+
+        Container or(Container other) {
+            if (bitmap == null && other.bitmap == null && cardinality + other.cardinality <= ARRAY_LIMIT) {
+                final char[] result = new char[cardinality + other.cardinality];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < array.length || j < other.array.length) {
+                    if (j == other.array.length || i < array.length && array[i] < other.array[j]) {
+                        result[count++] = array[i++];
+                    }
+                    else if (i == array.length || array[i] > other.array[j]) {
+                        result[count++] = other.array[j++];
+                    }
+                    else {
+                        result[count++] = array[i++];
+                        j++;
+                    }
+                }
+                return new Container(Arrays.copyOf(result, count), null, count);
+            }
+            final long[] words = toWords();
+            if (other.bitmap != null) {
+                for (int w = 0; w < words.length; w++) {
+                    words[w] |= other.bitmap[w];
+                }
+            }
+            else {
+                for (char low : other.array) {
+                    words[low >>> 6] |= 1L << low;
+                }
+            }
+            return of(words, -1);
+        }
+
+        private long[] toWords() {
+            if (bitmap != null) {
+                return bitmap.clone();
+            }
+            final long[] words = new long[WORDS_PER_CHUNK];
+            for (char low : array) {
+                words[low >>> 6] |= 1L << low;
+            }
+            return words;
+        }
+    }
+
+    /**
+     * Collects containers in ascending chunk order, skipping empty ones.
+     */
+    private static final class BitmapBuilder {
+        private int[] keys;
+        private Container[] containers;
+        private int count;
+
+        BitmapBuilder(int capacity) {
+            keys = new int[Math.max(capacity, 1)];
+            containers = new Container[keys.length];
+        }
+
+        void add(int key, Container container) {
+            if (container == null) {
+                return;
+            }
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                containers = Arrays.copyOf(containers, count * 2);
+            }
+            keys[count] = key;
+            containers[count++] = container;
+        }
+
+        RowSelection build() {
+            if (count == 0) {
+                return EMPTY;
+            }
+            final int[] ranks = new int[count];
+            int rank = 0;
+            for (int c = 0; c < count; c++) {
+                ranks[c] = rank;
+                rank += containers[c].cardinality;
+            }
+            return new RowSelection(BITMAP, rank, null, null, null, Arrays.copyOf(keys, count),
+                    Arrays.copyOf(containers, count), ranks);
+        }
+    }
+
+    /**
+     * Iterates the rows in ascending order without boxing them.
+     */
+    private final class RowIterator implements PrimitiveIterator.OfInt {
+        private int remaining = cardinality;
+        private int run;
+        private int row = kind == RUNS && runStarts.length > 0 ? runStarts[0] : 0;
+        private int container;
+        private int position;
+        private int word;
+        private long bits = kind == BITMAP && containers[0].bitmap != null ? containers[0].bitmap[0] : 0;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            if (kind == ALL) {
+                return row++;
+            }
+            if (kind == RUNS) {
+                if (row == runEnds[run]) {
+                    row = runStarts[++run];
+                }
+                return row++;
+            }
+            Container current = containers[container];
+            if (current.bitmap == null) {
+                if (position == current.array.length) {
+                    current = nextContainer();
+                    if (current.bitmap == null) {
+                        return keys[container] << CHUNK_BITS | current.array[position++];
+                    }
+                }
+                else {
+                    return keys[container] << CHUNK_BITS | current.array[position++];
+                }
+            }
+            while (bits == 0) {
+                if (++word == WORDS_PER_CHUNK) {
+                    current = nextContainer();
+                    if (current.bitmap == null) {
+                        return keys[container] << CHUNK_BITS | current.array[position++];
+                    }
+                }
+                else {
+                    bits = current.bitmap[word];
+                }
+            }
+            final int low = word << 6 | Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            return keys[container] << CHUNK_BITS | low;
+        }
+
+        private Container nextContainer() {
+            final Container next = containers[++container];
+            position = 0;
+            word = 0;
+            bits = next.bitmap != null ? next.bitmap[0] : 0;
+            return next;
+        }
+    }
+
+    /**
+     * Read-only list view of a selection.
+     */
+    private static final class SelectionList extends AbstractList<Integer> {
+        private final RowSelection selection;
+
+        SelectionList(RowSelection selection) {
+            this.selection = selection;
+        }
+
+        RowSelection selection() {
+            return selection;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return selection.select(index);
+        }
+
+        @Override
+        public int size() {
+            return selection.cardinality;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return value instanceof Integer && selection.contains((Integer) value);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return selection.iterator();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof SelectionList) {
+                return selection.equals(((SelectionList) other).selection);
+            }
+            if (!(other instanceof List) || ((List<?>) other).size() != size()) {
+                return false;
+            }
+            final PrimitiveIterator.OfInt rows = selection.iterator();
+            for (Object row : (List<?>) other) {
+                if (!(row instanceof Integer) || (Integer) row != rows.nextInt()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return selection.hashCode();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package entity;
+
+/**
+ * Width and overflow cells of a row in a columnar DataSet that does not have exactly one
+ * cell per column. Short rows have no extra cells; long rows keep the cells beyond the last column.
+ */
+public final class RowShape {
+    private final int width;
+    private final String[] extraCells;
+
+    public RowShape(int width, String[] extraCells) {
+        this.width = width;
+        this.extraCells = extraCells;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the cells beyond the column count. The array is shared with the row and is mutable.
+     * @return the extra cells, empty for short rows
+     */
+    public String[] getExtraCells() {
+        return extraCells;
+    }
+}
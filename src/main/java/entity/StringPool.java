@@ -0,0 +1,32 @@
+package entity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonicalizes equal strings to a single shared instance.
+ * Used while loading so that a value repeated across rows and columns is held on the heap once.
+ */
+public class StringPool {
+    private final Map<String, String> pool = new HashMap<>();
+
+    /**
+     * Returns the pooled instance equal to the given value, adding it if absent.
+     * @param value the value to canonicalize, may be null
+     * @return the shared instance, or null for a null value
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        final String pooled = pool.putIfAbsent(value, value);
+        if (pooled == null) {
+            return value;
+        }
+        return pooled;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+}
@@ -1,10 +1,6 @@
 package interface_adapter.load_csv;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 import use_case.load_csv.LoadInputBoundary;
@@ -19,14 +15,16 @@ public class LoadController {
 
     /**
      * Executes the use case.
-     * @param file the csv file to be read
+     * The file is streamed (or, when large, parsed in parallel) by the use case
+     * rather than read into memory first.
+     * @param file the csv file to be read, optionally gzip-compressed as ".csv.gz" or ".txt.gz"
      */
     public void execute(File file) {
-        final List<String> lines = new ArrayList<>();
-        boolean failed;
-        String errorMessage;
-
-        final String fileName = file.getName();
+        String fileName = file.getName();
+        if (fileName.endsWith(".gz")) {
+            // compressed files are decompressed as they are parsed
+            fileName = fileName.substring(0, fileName.length() - ".gz".length());
+        }
         final int dotIndex = fileName.lastIndexOf('.');
         String extension = "";
         if (dotIndex > 0 && dotIndex < fileName.length() - 1) {
@@ -34,31 +32,10 @@ public class LoadController {
         }
 
         if ("csv".equals(extension) || "txt".equals(extension)) {
-            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    lines.add(line);
-                }
-                if (lines.isEmpty()) {
-                    failed = true;
-                    errorMessage = "File is empty";
-                }
-                else {
-                    failed = false;
-                    errorMessage = "";
-                }
-            }
-            catch (IOException ex) {
-                failed = true;
-                errorMessage = ex.getMessage();
-            }
+            csvLoadUseCaseInteractor.execute(new LoadInputData(file.toPath()));
         }
         else {
-            failed = true;
-            errorMessage = "Incorrect file format";
+            csvLoadUseCaseInteractor.execute(new LoadInputData(List.of(), true, "Incorrect file format"));
         }
-
-        final LoadInputData loadInputData = new LoadInputData(lines, failed, errorMessage);
-        csvLoadUseCaseInteractor.execute(loadInputData);
     }
 }
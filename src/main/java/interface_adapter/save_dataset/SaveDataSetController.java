@@ -29,4 +29,30 @@ public final class SaveDataSetController {
         final SaveDataSetInputData inputData = new SaveDataSetInputData(datasetId);
         interactor.execute(inputData);
     }
+
+    /**
+     * Saves only the edits made since the dataset was last saved to the given identifier or path,
+     * or the whole dataset if that is not possible.
+     * @param datasetId name of the saved dataset or path it was saved to or loaded from
+     */
+    public void saveEdits(final String datasetId) throws java.io.IOException {
+        interactor.execute(new SaveDataSetInputData(datasetId, true));
+    }
+
+    /**
+     * Prepares a save that is about to run on a background thread. Call it on the thread that edits
+     * the dataset, before handing {@link #execute} or {@link #saveEdits} to the background thread.
+     * @param datasetId   name of the saved dataset or path chosen by the user
+     * @param incremental whether {@link #saveEdits} follows rather than {@link #execute}
+     */
+    public void prepare(final String datasetId, final boolean incremental) {
+        interactor.prepare(new SaveDataSetInputData(datasetId, incremental));
+    }
+
+    /**
+     * Asks the save that was prepared or is currently running to stop.
+     */
+    public void cancel() {
+        interactor.cancel();
+    }
 }
@@ -2,6 +2,7 @@ package interface_adapter.save_dataset;
 
 import use_case.save_dataset.SaveDataSetOutputBoundary;
 import use_case.save_dataset.SaveDataSetOutputData;
+import use_case.save_dataset.SaveDataSetProgressData;
 
 /**
  * Presenter that updates the save view model.
@@ -29,4 +30,14 @@ public final class SaveDataSetPresenter implements SaveDataSetOutputBoundary {
         viewModel.setMessage(outputData.getMessage());
         viewModel.setSuccess(outputData.isSuccess());
     }
+
+    /**
+     * Publishes the progress of a running save to the view model.
+     * @param progressData bytes and rows written so far
+     */
+    @Override
+    public void presentProgress(final SaveDataSetProgressData progressData) {
+        viewModel.setProgress(progressData.getBytesWritten(), progressData.getRowsWritten(),
+                progressData.getTotalRows());
+    }
 }
@@ -20,6 +20,12 @@ public final class SaveDataSetViewModel {
      * First save result (success or failure) triggers a change event.
      */
     private Boolean success;
+    /**
+     * Progress of the running save.
+     */
+    private long bytesWritten;
+    private long rowsWritten;
+    private long totalRows;
 
     public void addPropertyChangeListener(final PropertyChangeListener listener) {
         support.addPropertyChangeListener(listener);
@@ -37,6 +43,30 @@ public final class SaveDataSetViewModel {
         support.firePropertyChange("success", old, Boolean.valueOf(newSuccess));
     }
 
+    /**
+     * Records the progress of the running save and notifies observers with the rows written.
+     * Called on the thread that performs the save.
+     */
+    public void setProgress(final long newBytesWritten, final long newRowsWritten, final long newTotalRows) {
+        final long old = this.rowsWritten;
+        this.bytesWritten = newBytesWritten;
+        this.rowsWritten = newRowsWritten;
+        this.totalRows = newTotalRows;
+        support.firePropertyChange("progress", Long.valueOf(old), Long.valueOf(newRowsWritten));
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
     public String getMessage() {
         return message;
     }
@@ -25,4 +25,14 @@ public class SearchController {
                 searchTerm, tableData, startRow, startColumn);
         searchInteractor.execute(searchInputData);
     }
+
+    /**
+     * Executes the Search Use Case over the current dataset.
+     * @param searchTerm the term to search for
+     * @param startRow the row to start searching from
+     * @param startColumn the column to start searching from
+     */
+    public void execute(String searchTerm, int startRow, int startColumn) {
+        execute(searchTerm, null, startRow, startColumn);
+    }
 }
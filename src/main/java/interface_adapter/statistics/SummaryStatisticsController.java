@@ -2,6 +2,8 @@ package interface_adapter.statistics;
 
 import java.util.List;
 
+import entity.RowPredicate;
+import entity.RowSelection;
 import use_case.statistics.SummaryStatisticsInputBoundary;
 import use_case.statistics.SummaryStatisticsInputData;
 
@@ -66,14 +68,39 @@ public class SummaryStatisticsController {
             final String datasetId,
             final List<String> columnNames,
             final int totalRows) {
+        calculateStatisticsAllRows(dataSubsetId, reportName, datasetId, columnNames, totalRows, null);
+    }
 
-        // Create list of all row indices
-        List<Integer> allRowIndices = new java.util.ArrayList<>();
-        for (int i = 0; i < totalRows; i++) {
-            allRowIndices.add(i);
-        }
+    /**
+     * Executes the summary statistics use case with the rows that match a predicate.
+     * @param dataSubsetId unique identifier for this analysis
+     * @param reportName name for the generated report
+     * @param datasetId identifier of the dataset to analyze
+     * @param columnNames list of column names to include in analysis
+     * @param totalRows total number of rows in the dataset
+     * @param where condition a row must satisfy to be included, or null for every row
+     */
+    public void calculateStatisticsAllRows(
+            final int dataSubsetId,
+            final String reportName,
+            final String datasetId,
+            final List<String> columnNames,
+            final int totalRows,
+            final RowPredicate where) {
 
-        calculateStatistics(dataSubsetId, reportName,
-                datasetId, columnNames, allRowIndices);
+        try {
+            // All rows are selected by their count, without listing every index
+            interactor.execute(new SummaryStatisticsInputData(
+                    dataSubsetId,
+                    reportName,
+                    datasetId,
+                    columnNames,
+                    RowSelection.all(totalRows),
+                    where
+            ));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Controller validation error: " + e.getMessage());
+            throw e;
+        }
     }
 }
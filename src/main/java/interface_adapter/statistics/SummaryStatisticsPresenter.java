@@ -104,6 +104,8 @@ public class SummaryStatisticsPresenter implements SummaryStatisticsOutputBounda
                             formatNumber(data.getStandardDeviation()),
                             formatNumber(data.getMin()),
                             formatNumber(data.getMax()),
+                            formatNumber(data.getP90()),
+                            formatNumber(data.getP99()),
                             formatCount(data.getCount())
                     );
 
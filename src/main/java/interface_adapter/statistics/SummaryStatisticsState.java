@@ -75,16 +75,21 @@ public class SummaryStatisticsState {
         private final String standardDeviation;
         private final String min;
         private final String max;
+        private final String p90;
+        private final String p99;
         private final String count;
 
         public ColumnStatistics(String columnName, String mean, String median,
-                                String standardDeviation, String min, String max, String count) {
+                                String standardDeviation, String min, String max, String p90, String p99,
+                                String count) {
             this.columnName = columnName;
             this.mean = mean;
             this.median = median;
             this.standardDeviation = standardDeviation;
             this.min = min;
             this.max = max;
+            this.p90 = p90;
+            this.p99 = p99;
             this.count = count;
         }
 
@@ -106,6 +111,12 @@ public class SummaryStatisticsState {
         public String getMax() {
             return max;
         }
+        public String getP90() {
+            return p90;
+        }
+        public String getP99() {
+            return p99;
+        }
         public String getCount() {
             return count;
         }
@@ -14,7 +14,7 @@ public class TablePresenter implements DisplayTableOutputBoundary {
     public void prepareSuccessView(DisplayTableOutputData outputData) {
         TableState state = new TableState();
         state.setColumnHeaders(outputData.getHeaders());
-        state.setRowData(outputData.getRowData());
+        state.setDataSet(outputData.getDataSet());
         viewModel.setState(state);
     }
 
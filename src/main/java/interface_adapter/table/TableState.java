@@ -1,8 +1,10 @@
 package interface_adapter.table;
 
+import entity.DataSet;
+
 public class TableState {
     private String[] columnHeaders = new String[0];
-    private String[][] rowData = new String[0][0];
+    private DataSet dataSet;
     private String errorMessage;
 
     public String[] getColumnHeaders() {
@@ -13,12 +15,16 @@ public class TableState {
         this.columnHeaders = columnHeaders;
     }
 
-    public String[][] getRowData() {
-        return rowData;
+    /**
+     * Returns the dataset whose cells are displayed, read as the table shows them.
+     * @return the dataset, or null if there is none to display
+     */
+    public DataSet getDataSet() {
+        return dataSet;
     }
 
-    public void setRowData(String[][] rowData) {
-        this.rowData = rowData;
+    public void setDataSet(DataSet dataSet) {
+        this.dataSet = dataSet;
     }
 
     public String getErrorMessage() {
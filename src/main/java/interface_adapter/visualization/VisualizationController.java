@@ -5,6 +5,8 @@ import entity.Column;
 import entity.DataSet;
 import entity.DataSubsetSpec;
 import entity.DataType;
+import entity.RowPredicate;
+import entity.RowSelection;
 import use_case.dataset.CurrentTableGateway;
 import use_case.visualization.io.VisualizationInputBoundary;
 import use_case.visualization.io.VisualizationInputData;
@@ -57,6 +59,28 @@ public class VisualizationController {
                                            List<String> yColumnNames,
                                            String colorByColumnName,
                                            List<Integer> rowIndices) {
+        visualizeWithPrimitiveData(plotKindView, selectedColumnIndices, xAxisColumnName, yColumnNames,
+                colorByColumnName, rowIndices, null);
+    }
+
+    /**
+     * Visualize the rows that match a predicate, e.g. only rows with Age between 30 and 40.
+     *
+     * @param plotKindView The type of plot to create (view-layer enum)
+     * @param selectedColumnIndices Column indices selected by the user (0-based)
+     * @param xAxisColumnName Name of the X-axis column
+     * @param yColumnNames List of Y-axis column names
+     * @param colorByColumnName Optional categorical column name for coloring (can be null)
+     * @param rowIndices Candidate row indices (0-based). If null, all rows are candidates.
+     * @param where Condition a row must satisfy to be plotted, or null to plot every candidate row
+     */
+    public void visualizeWithPrimitiveData(PlotKindView plotKindView,
+                                           List<Integer> selectedColumnIndices,
+                                           String xAxisColumnName,
+                                           List<String> yColumnNames,
+                                           String colorByColumnName,
+                                           List<Integer> rowIndices,
+                                           RowPredicate where) {
         // Map view-layer enum to use case enum
         PlotKind plotKind = mapPlotKindViewToPlotKind(plotKindView);
         if (tableGateway == null) {
@@ -89,11 +113,11 @@ public class VisualizationController {
             columnNames.add(colorByColumnName);
         }
 
-        // Use all rows if rowIndices is null
-        List<Integer> finalRowIndices = rowIndices != null ? rowIndices : getAllRowIndices(dataSet);
-
-        // Create DataSubsetSpec
-        DataSubsetSpec subsetSpec = new DataSubsetSpec("visualization-subset", columnNames, finalRowIndices);
+        // Create DataSubsetSpec, using all rows if rowIndices is null
+        DataSubsetSpec subsetSpec = rowIndices != null
+                ? new DataSubsetSpec("visualization-subset", columnNames, rowIndices)
+                : DataSubsetSpec.of("visualization-subset", columnNames, RowSelection.all(dataSet.getRows().size()));
+        subsetSpec = subsetSpec.where(where);
 
         // Create title (use view enum name for display)
         String title = plotKindView.name() + ": " + xAxisColumnName;
@@ -177,17 +201,5 @@ public class VisualizationController {
             case HEATMAP -> PlotKind.HEATMAP;
         };
     }
-
-    /**
-     * Get all row indices for the current dataset.
-     */
-    private List<Integer> getAllRowIndices(DataSet dataSet) {
-        int rowCount = dataSet.getRows().size();
-        List<Integer> rowIndices = new ArrayList<>(rowCount);
-        for (int i = 0; i < rowCount; i++) {
-            rowIndices.add(i);
-        }
-        return rowIndices;
-    }
 }
 
@@ -18,25 +18,34 @@ import use_case.cleaner.validators.DataTypeValidator;
 import use_case.cleaner.validators.DateValidator;
 import use_case.cleaner.validators.NumericValidator;
 import use_case.dataset.CurrentTableGateway;
+import use_case.dataset.DataSetEditJournal;
 
 /**
  * Use case 3: cleaning and validating a DataSet.
  * - Edit individual cells while enforcing column DataType constraints.
  * - Treat missing or corrupted values as {@code null}.
  * - Provide a log of all cells that were changed to {@code null}.
+ * - Report every edit to an optional journal, so saving it does not encode the whole dataset again.
  */
 public class DataCleanerInteractor implements DataCleaningInputBoundary {
 
     private final CurrentTableGateway tableGateway;
     private final DataCleaningOutputBoundary presenter;
+    private final DataSetEditJournal editJournal;
 
     private final Set<String> uniqueHeaders = new HashSet<>();
     private final Map<DataType, DataTypeValidator> validators =
             new EnumMap<>(DataType.class);
 
     public DataCleanerInteractor(CurrentTableGateway tableGateway, DataCleaningOutputBoundary presenter) {
+        this(tableGateway, presenter, null);
+    }
+
+    public DataCleanerInteractor(CurrentTableGateway tableGateway, DataCleaningOutputBoundary presenter,
+                                 DataSetEditJournal editJournal) {
         this.tableGateway = tableGateway;
         this.presenter = presenter;
+        this.editJournal = editJournal;
         initializeValidators();
     }
 
@@ -64,6 +73,9 @@ public class DataCleanerInteractor implements DataCleaningInputBoundary {
         // 2. update the entity (DataSet)
         dataSet.setCell(cleanedValue, rowIndex, colIndex);
         tableGateway.save(dataSet);
+        if (editJournal != null) {
+            editJournal.cellEdited(dataSet, rowIndex, colIndex, cleanedValue);
+        }
 
         // 3. build output data and send to presenter
         final DataCleaningOutputData.EditedCellOutputData outputData =
@@ -85,6 +97,9 @@ public class DataCleanerInteractor implements DataCleaningInputBoundary {
             // use helper that contains header logic
             editHeaderInternal(dataSet, newHeader, colIndex);
             tableGateway.save(dataSet);
+            if (editJournal != null) {
+                editJournal.headerEdited(dataSet, colIndex, newHeader);
+            }
 
             final DataCleaningOutputData.HeaderEditOutputData outputData =
                     new DataCleaningOutputData.HeaderEditOutputData(colIndex, newHeader);
@@ -104,6 +119,9 @@ public class DataCleanerInteractor implements DataCleaningInputBoundary {
         // use old cleanDataSet logic
         final List<MissingCell> changedToNull = cleanDataSetInternal(dataSet);
         tableGateway.save(dataSet);
+        if (editJournal != null) {
+            editJournal.dataSetRewritten(dataSet);
+        }
 
         final DataCleaningOutputData.CleanEntireDataSetOutputData outputData =
                 new DataCleaningOutputData.CleanEntireDataSetOutputData(changedToNull);
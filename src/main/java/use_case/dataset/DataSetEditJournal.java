@@ -0,0 +1,48 @@
+package use_case.dataset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import entity.DataSet;
+
+/**
+ * Journals the edits made to a dataset as they are made, so that the next save only has to mark them
+ * saved. Edits that were neither saved nor closed without saving when the application crashed are
+ * restored when the dataset is opened again.
+ * Edits are only journaled for the dataset that was last saved or opened through the journal;
+ * edits to any other dataset are ignored and reach disk with its next full save.
+ */
+public interface DataSetEditJournal {
+    /**
+     * Records that a cell was set.
+     * @param dataSet the edited dataset
+     * @param row row index of the cell
+     * @param column column index of the cell
+     * @param value the new value, possibly null
+     */
+    void cellEdited(DataSet dataSet, int row, int column, String value);
+
+    /**
+     * Records that a column was renamed.
+     * @param dataSet the edited dataset
+     * @param column index of the column
+     * @param header the new header
+     */
+    void headerEdited(DataSet dataSet, int column, String header);
+
+    /**
+     * Records that the dataset changed in too many places to journal, so its next save has to rewrite it.
+     * @param dataSet the changed dataset
+     */
+    void dataSetRewritten(DataSet dataSet);
+
+    /**
+     * Journals further edits of a dataset that was just read from a file, closing the dataset journaled
+     * before. Saved edits that are not in the file yet are applied to the dataset, and so are the unsaved
+     * edits that a crash left behind.
+     * @param file the file the dataset was read from
+     * @param dataSet the dataset read from the file
+     * @throws IOException if the journal of the file exists but cannot be read
+     */
+    void opened(Path file, DataSet dataSet) throws IOException;
+}
@@ -0,0 +1,160 @@
+package use_case.ingestion;
+
+import entity.DataType;
+
+/**
+ * Allocation-free classification of cell text into data types.
+ * Each check scans the characters once, ignoring leading and trailing whitespace the way
+ * {@link String#trim()} does, and never throws on malformed input.
+ */
+public final class CellScanner {
+    private static final int DATE_LENGTH = 10;
+    private static final int MAX_DAY_OF_MONTH = 31;
+    private static final int MONTHS = 12;
+
+    private CellScanner() {
+    }
+
+    /**
+     * Classifies a cell.
+     * @param cell the cell text, may be null
+     * @return the data type the cell looks like, or null if the cell is blank
+     */
+    public static DataType classify(String cell) {
+        if (cell == null) {
+            return null;
+        }
+        final int start = start(cell);
+        final int end = end(cell, start);
+        if (start == end) {
+            return null;
+        }
+
+        // The first character rules out most types before any full scan
+        final char first = cell.charAt(start);
+        final DataType result;
+        if (first == '-' || isDigit(first)) {
+            if (isNumeric(cell, start, end)) {
+                result = DataType.NUMERIC;
+            }
+            else if (isDate(cell, start, end)) {
+                result = DataType.DATE;
+            }
+            else {
+                result = DataType.CATEGORICAL;
+            }
+        }
+        else if (isBoolean(cell, start, end)) {
+            result = DataType.BOOLEAN;
+        }
+        else {
+            result = DataType.CATEGORICAL;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true for an optionally negative decimal such as "42", "-7" or "3.25".
+     * @param cell the cell text
+     * @return whether the cell is numeric
+     */
+    public static boolean isNumeric(String cell) {
+        final int start = start(cell);
+        return isNumeric(cell, start, end(cell, start));
+    }
+
+    /**
+     * Returns true for "true" or "false" in any letter case.
+     * @param cell the cell text
+     * @return whether the cell is boolean
+     */
+    public static boolean isBoolean(String cell) {
+        final int start = start(cell);
+        return isBoolean(cell, start, end(cell, start));
+    }
+
+    /**
+     * Returns true for a yyyy-MM-dd date with a valid month and a day of month up to 31.
+     * @param cell the cell text
+     * @return whether the cell is a date
+     */
+    public static boolean isDate(String cell) {
+        final int start = start(cell);
+        return isDate(cell, start, end(cell, start));
+    }
+
+    static boolean isNumeric(String cell, int start, int end) {
+        int i = start;
+        if (i < end && cell.charAt(i) == '-') {
+            i++;
+        }
+        final int integerStart = i;
+        while (i < end && isDigit(cell.charAt(i))) {
+            i++;
+        }
+        if (i == integerStart) {
+            return false;
+        }
+        if (i < end && cell.charAt(i) == '.') {
+            i++;
+            final int fractionStart = i;
+            while (i < end && isDigit(cell.charAt(i))) {
+                i++;
+            }
+            if (i == fractionStart) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    static boolean isBoolean(String cell, int start, int end) {
+        final int length = end - start;
+        return length == 4 && cell.regionMatches(true, start, "true", 0, 4)
+                || length == 5 && cell.regionMatches(true, start, "false", 0, 5);
+    }
+
+    static boolean isDate(String cell, int start, int end) {
+        if (end - start != DATE_LENGTH
+                || cell.charAt(start + 4) != '-' || cell.charAt(start + 7) != '-') {
+            return false;
+        }
+        final int year = digits(cell, start, 4);
+        final int month = digits(cell, start + 5, 2);
+        final int day = digits(cell, start + 8, 2);
+        return year > 0 && month > 0 && month <= MONTHS && day > 0 && day <= MAX_DAY_OF_MONTH;
+    }
+
+    // value of count digits starting at offset, or -1 if any of them is not a digit
+    private static int digits(String cell, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            final char c = cell.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static int start(String cell) {
+        int start = 0;
+        while (start < cell.length() && cell.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    static int end(String cell, int start) {
+        int end = cell.length();
+        while (end > start && cell.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
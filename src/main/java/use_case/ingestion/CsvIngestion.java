@@ -0,0 +1,82 @@
+package use_case.ingestion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import entity.DataSet;
+
+/**
+ * Ingestion engine shared by every load path: one tokenizer, one type-inference stage and one
+ * column builder turn delimited text into a columnar DataSet.
+ * Streams are parsed in a single pass; files large enough for the configured parallelism are
+ * memory-mapped and parsed on several threads.
+ */
+public class CsvIngestion {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final IngestionOptions options;
+
+    public CsvIngestion() {
+        this(new IngestionOptions());
+    }
+
+    public CsvIngestion(IngestionOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Reads a DataSet from UTF-8 encoded CSV whose first record is the header.
+     * @param input the byte stream; not closed by this method
+     * @return the DataSet, or null if the stream is empty
+     * @throws IOException if reading fails
+     */
+    public DataSet read(InputStream input) throws IOException {
+        return read(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a DataSet from CSV text whose first record is the header.
+     * @param reader the character stream; not closed by this method
+     * @return the DataSet, or null if the stream is empty
+     * @throws IOException if reading fails
+     */
+    public DataSet read(Reader reader) throws IOException {
+        return new StreamingCsvLoader(options.getTypeInference(), options.getDelimiter()).load(reader);
+    }
+
+    /**
+     * Reads a DataSet from a UTF-8 CSV file whose first record is the header, in parallel
+     * when the file is at least the configured threshold. Gzip-compressed files are recognised
+     * by their magic number and decompressed while they are parsed.
+     * @param file the file to read
+     * @return the DataSet, or null if the file is empty
+     * @throws IOException if reading fails
+     */
+    public DataSet read(Path file) throws IOException {
+        if (isGzip(file)) {
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(file), GZIP_BUFFER_SIZE)) {
+                return read(input);
+            }
+        }
+        if (options.getParallelism() > 1 && Files.size(file) >= options.getParallelThresholdBytes()) {
+            return new ParallelCsvLoader(options.getParallelism(), options.getTypeInference(),
+                    options.getDelimiter()).load(file);
+        }
+        try (InputStream input = Files.newInputStream(file)) {
+            return read(input);
+        }
+    }
+
+    private static boolean isGzip(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return input.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+                    && input.read() == (GZIPInputStream.GZIP_MAGIC >>> 8);
+        }
+    }
+}
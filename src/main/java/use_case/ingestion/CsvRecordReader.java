@@ -0,0 +1,232 @@
+package use_case.ingestion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * RFC 4180 tokenizer that reads delimited records from a character stream one at a time.
+ * A hand-written state machine scans a reusable char buffer once; the only allocations per
+ * record are the final cell strings.
+ * Supports quoted fields containing delimiters, escaped quotes ("") and embedded newlines,
+ * records ending in "\n" or "\r\n" (or in a "\r" that ends the stream), and any single-character
+ * delimiter.
+ * Malformed input is read leniently: text after a closing quote is kept, and an unterminated
+ * quote runs to the end of the stream.
+ */
+public class CsvRecordReader {
+    public static final char DEFAULT_DELIMITER = ',';
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char QUOTE = '"';
+
+    // parser states
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long charsRead;
+
+    private char[] field = new char[64];
+    private int fieldLength;
+    private String[] cells = new String[16];
+    private int cellCount;
+
+    public CsvRecordReader(Reader reader) {
+        this(reader, DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Creates a tokenizer.
+     * @param reader the character stream; not closed by this class
+     * @param delimiter the field delimiter, e.g. ',', '\t', ';' or '|'
+     */
+    public CsvRecordReader(Reader reader, char delimiter) {
+        if (delimiter == QUOTE || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+        }
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next record.
+     * @return false when the end of the stream has been reached
+     * @throws IOException if reading fails
+     */
+    public boolean next() throws IOException {
+        cellCount = 0;
+        fieldLength = 0;
+        if (position == limit && !fill()) {
+            return false;
+        }
+
+        int state = FIELD_START;
+        while (true) {
+            if (position == limit && !fill()) {
+                // a "\r" at the end of the stream ends the record like "\r\n"
+                if (state == UNQUOTED && field[fieldLength - 1] == '\r') {
+                    fieldLength--;
+                }
+                endCell();
+                return true;
+            }
+            final char c = buffer[position++];
+            switch (state) {
+                case FIELD_START:
+                    if (c == QUOTE) {
+                        state = QUOTED;
+                    }
+                    else if (c == delimiter) {
+                        endCell();
+                    }
+                    else if (c == '\n') {
+                        endCell();
+                        return true;
+                    }
+                    else {
+                        appendChar(c);
+                        appendRun(delimiter, '\n');
+                        state = UNQUOTED;
+                    }
+                    break;
+                case UNQUOTED:
+                    if (c == delimiter) {
+                        endCell();
+                        state = FIELD_START;
+                    }
+                    else if (c == '\n') {
+                        if (field[fieldLength - 1] == '\r') {
+                            fieldLength--;
+                        }
+                        endCell();
+                        return true;
+                    }
+                    else {
+                        appendChar(c);
+                        appendRun(delimiter, '\n');
+                    }
+                    break;
+                case QUOTED:
+                    if (c == QUOTE) {
+                        state = QUOTE_IN_QUOTED;
+                    }
+                    else {
+                        appendChar(c);
+                        appendRun(QUOTE, QUOTE);
+                    }
+                    break;
+                default:
+                    // QUOTE_IN_QUOTED: the quote either escapes another quote or closes the field
+                    if (c == QUOTE) {
+                        appendChar(QUOTE);
+                        state = QUOTED;
+                    }
+                    else if (c == delimiter) {
+                        endCell();
+                        state = FIELD_START;
+                    }
+                    else if (c == '\n') {
+                        endCell();
+                        return true;
+                    }
+                    else if (c != '\r') {
+                        appendChar(c);
+                        state = UNQUOTED;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the cells of the current record. The array is reused by the next call to {@link #next()}.
+     * @return cells; only the first {@link #getCellCount()} entries are valid
+     */
+    public String[] getCells() {
+        return cells;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Returns a copy of the cells of the current record.
+     * @return the cells
+     */
+    public String[] copyCells() {
+        return Arrays.copyOf(cells, cellCount);
+    }
+
+    /**
+     * Returns the number of characters read from the stream so far.
+     * @return characters consumed
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    private boolean fill() throws IOException {
+        final int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (read <= 0) {
+            limit = 0;
+            return false;
+        }
+        limit = read;
+        charsRead += read;
+        return true;
+    }
+
+    private void appendChar(char c) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = c;
+    }
+
+    /**
+     * Copies the characters in the buffer up to the next stop character into the field in one
+     * step, leaving the stop character for the state machine.
+     */
+    private void appendRun(char stop, char otherStop) {
+        final int start = position;
+        int end = start;
+        while (end < limit) {
+            final char c = buffer[end];
+            if (c == stop || c == otherStop) {
+                break;
+            }
+            end++;
+        }
+        final int length = end - start;
+        if (length > 0) {
+            if (fieldLength + length > field.length) {
+                field = Arrays.copyOf(field, Math.max(field.length * 2, fieldLength + length));
+            }
+            System.arraycopy(buffer, start, field, fieldLength, length);
+            fieldLength += length;
+            position = end;
+        }
+    }
+
+    private void endCell() {
+        if (cellCount == cells.length) {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+        }
+        if (fieldLength == 0) {
+            cells[cellCount++] = "";
+        }
+        else {
+            cells[cellCount++] = new String(field, 0, fieldLength);
+        }
+        fieldLength = 0;
+    }
+}
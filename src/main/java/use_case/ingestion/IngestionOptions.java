@@ -0,0 +1,82 @@
+package use_case.ingestion;
+
+/**
+ * Settings for CSV ingestion, shared by the file and API load use cases.
+ */
+public class IngestionOptions {
+    /**
+     * Files smaller than this are always parsed on a single thread.
+     */
+    public static final long DEFAULT_PARALLEL_THRESHOLD_BYTES = 16L * 1024 * 1024;
+
+    private final int parallelism;
+    private final long parallelThresholdBytes;
+    private final char delimiter;
+    private final TypeInference.Factory typeInference;
+
+    public IngestionOptions() {
+        this(1);
+    }
+
+    /**
+     * Creates load settings.
+     * @param parallelism number of threads used to parse large files; 1 parses sequentially
+     */
+    public IngestionOptions(int parallelism) {
+        this(parallelism, DEFAULT_PARALLEL_THRESHOLD_BYTES);
+    }
+
+    /**
+     * Creates load settings.
+     * @param parallelism number of threads used to parse large files; 1 parses sequentially
+     * @param parallelThresholdBytes minimum file size for parallel parsing
+     */
+    public IngestionOptions(int parallelism, long parallelThresholdBytes) {
+        this(parallelism, parallelThresholdBytes, CsvRecordReader.DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Creates load settings.
+     * @param parallelism number of threads used to parse large files; 1 parses sequentially
+     * @param parallelThresholdBytes minimum file size for parallel parsing
+     * @param delimiter the field delimiter, e.g. ',', '\t', ';' or '|'
+     */
+    public IngestionOptions(int parallelism, long parallelThresholdBytes, char delimiter) {
+        this(parallelism, parallelThresholdBytes, delimiter, SampledTypeInference.factory(
+                SampledTypeInference.DEFAULT_HEAD_ROWS, SampledTypeInference.DEFAULT_RESERVOIR_ROWS));
+    }
+
+    /**
+     * Creates load settings.
+     * @param parallelism number of threads used to parse large files; 1 parses sequentially
+     * @param parallelThresholdBytes minimum file size for parallel parsing
+     * @param delimiter the field delimiter, e.g. ',', '\t', ';' or '|'
+     * @param typeInference creates the stage that picks column types
+     */
+    public IngestionOptions(int parallelism, long parallelThresholdBytes, char delimiter,
+                       TypeInference.Factory typeInference) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.parallelThresholdBytes = parallelThresholdBytes;
+        this.delimiter = delimiter;
+        this.typeInference = typeInference;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getParallelThresholdBytes() {
+        return parallelThresholdBytes;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    public TypeInference.Factory getTypeInference() {
+        return typeInference;
+    }
+}
@@ -0,0 +1,319 @@
+package use_case.ingestion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import entity.ColumnarDataSetBuilder;
+import entity.DataSet;
+import entity.DataType;
+
+/**
+ * Parses a CSV file on several threads.
+ * The file is split into byte ranges that start right after a newline outside quotes, each
+ * range is memory-mapped and parsed into its own column builders on a ForkJoinPool, and the
+ * per-range builders are appended into the final DataSet in file order.
+ * All ranges use the column types chosen from a sample of the leading records and of the first
+ * records of every range, so that a column whose values change further into the file is
+ * noticed before it is parsed. Every range confirms its records on its own partition of the
+ * {@link TypeInference} stage, and columns are re-encoded after the merge if the confirmed
+ * types disagree.
+ * Quoted fields may contain newlines, so split points are chosen in two passes: the quotes
+ * of every nominal range are counted in parallel, and the running parity tells each split
+ * point whether it starts inside a quoted field.
+ */
+class ParallelCsvLoader {
+    // keeps each mapping well below the 2 GB limit of a single MappedByteBuffer
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    // records sampled from the start of every range after the first
+    private static final int RANGE_SAMPLE_ROWS = 256;
+    private static final byte NEWLINE = '\n';
+    private static final byte QUOTE = '"';
+
+    private final int parallelism;
+    private final TypeInference.Factory typeInference;
+    private final long minChunkBytes;
+    private final char delimiter;
+
+    ParallelCsvLoader(int parallelism) {
+        this(parallelism, CsvRecordReader.DEFAULT_DELIMITER);
+    }
+
+    ParallelCsvLoader(int parallelism, char delimiter) {
+        this(parallelism, StreamingCsvLoader.DEFAULT_SAMPLE_SIZE, 1024 * 1024, delimiter);
+    }
+
+    ParallelCsvLoader(int parallelism, TypeInference.Factory typeInference, char delimiter) {
+        this(parallelism, typeInference, 1024 * 1024, delimiter);
+    }
+
+    ParallelCsvLoader(int parallelism, int sampleSize, long minChunkBytes) {
+        this(parallelism, sampleSize, minChunkBytes, CsvRecordReader.DEFAULT_DELIMITER);
+    }
+
+    ParallelCsvLoader(int parallelism, int sampleSize, long minChunkBytes, char delimiter) {
+        this(parallelism, SampledTypeInference.factory(sampleSize, 0), minChunkBytes, delimiter);
+    }
+
+    ParallelCsvLoader(int parallelism, TypeInference.Factory typeInference, long minChunkBytes, char delimiter) {
+        this.parallelism = parallelism;
+        this.typeInference = typeInference;
+        this.minChunkBytes = minChunkBytes;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads a DataSet from a UTF-8 CSV file whose first record is the header.
+     * @param file the file to read
+     * @return the DataSet, or null if the file is empty
+     * @throws IOException if reading fails
+     */
+    DataSet load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize == 0) {
+                return null;
+            }
+
+            final long headerEnd = nextRecordStart(channel, 0, false);
+            final List<String> headers;
+            final TypeInference inference;
+            try (Reader reader = new InputStreamReader(
+                    new ByteBufferInputStream(map(channel, 0, Math.min(fileSize, MAX_CHUNK_BYTES))),
+                    StandardCharsets.UTF_8)) {
+                final CsvRecordReader records = new CsvRecordReader(reader, delimiter);
+                records.next();
+                headers = Arrays.asList(records.copyCells());
+                inference = typeInference.create(headers.size());
+                while (inference.needsSample() && records.next()) {
+                    inference.sample(records.getCells(), records.getCellCount());
+                }
+            }
+
+            final ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                final List<long[]> ranges = splitRanges(pool, channel, headerEnd, fileSize);
+                for (int i = 1; i < ranges.size(); i++) {
+                    sampleRange(channel, ranges.get(i)[0], ranges.get(i)[1], inference);
+                }
+                final List<DataType> sampleTypes = new ArrayList<>(inference.getSampleTypes());
+                final List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(ranges.size());
+                for (long[] range : ranges) {
+                    final TypeInference partition = inference.newPartition();
+                    tasks.add(pool.submit(() -> parseChunk(channel, range[0], range[1], headers, partition)));
+                }
+
+                final List<Chunk> chunks = new ArrayList<>(tasks.size());
+                int rowCount = 0;
+                for (ForkJoinTask<Chunk> task : tasks) {
+                    final Chunk chunk = await(task);
+                    chunks.add(chunk);
+                    rowCount += chunk.builder.getRowCount();
+                    inference.merge(chunk.inference);
+                }
+
+                final ColumnarDataSetBuilder builder =
+                        new ColumnarDataSetBuilder(headers, sampleTypes, Math.max(rowCount, 16));
+                for (int i = 0; i < chunks.size(); i++) {
+                    builder.appendAll(chunks.get(i).builder);
+                    // let the chunk's vectors be collected as soon as they are merged
+                    chunks.set(i, null);
+                }
+                StreamingCsvLoader.retype(builder, sampleTypes, inference.getConfirmedTypes());
+                return builder.build();
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static <T> T await(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Load interrupted", ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Splits [start, end) into ranges that each begin at the start of a record.
+     */
+    private List<long[]> splitRanges(ForkJoinPool pool, FileChannel channel, long start, long end)
+            throws IOException {
+        final long length = end - start;
+        long chunkCount = Math.max(1, (long) parallelism * CHUNKS_PER_THREAD);
+        chunkCount = Math.max(chunkCount, (length + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long chunkBytes = Math.max(minChunkBytes, (length + chunkCount - 1) / chunkCount);
+        chunkBytes = Math.min(chunkBytes, MAX_CHUNK_BYTES / 2);
+
+        // Count the quotes of each nominal range in parallel
+        final List<Long> nominalStarts = new ArrayList<>();
+        for (long offset = start; offset < end; offset += chunkBytes) {
+            nominalStarts.add(offset);
+        }
+        final List<ForkJoinTask<Long>> quoteCounts = new ArrayList<>(nominalStarts.size());
+        for (long offset : nominalStarts) {
+            final long rangeEnd = Math.min(end, offset + chunkBytes);
+            quoteCounts.add(pool.submit(() -> countQuotes(channel, offset, rangeEnd)));
+        }
+
+        final List<long[]> ranges = new ArrayList<>();
+        long rangeStart = start;
+        boolean inQuotes = false;
+        for (int i = 1; i < nominalStarts.size(); i++) {
+            // an odd number of quotes so far means the split point is inside a quoted field
+            inQuotes ^= (await(quoteCounts.get(i - 1)) & 1) == 1;
+            final long nominal = nominalStarts.get(i);
+            if (nominal < rangeStart) {
+                // the previous record ran past this split point
+                continue;
+            }
+            final long rangeEnd = nextRecordStart(channel, nominal, inQuotes);
+            if (rangeEnd >= end) {
+                break;
+            }
+            ranges.add(new long[] {rangeStart, rangeEnd});
+            rangeStart = rangeEnd;
+        }
+        ranges.add(new long[] {rangeStart, end});
+        return ranges;
+    }
+
+    private void sampleRange(FileChannel channel, long start, long end, TypeInference inference)
+            throws IOException {
+        try (Reader reader = new InputStreamReader(
+                new ByteBufferInputStream(map(channel, start, end - start)), StandardCharsets.UTF_8)) {
+            final CsvRecordReader records = new CsvRecordReader(reader, delimiter);
+            for (int i = 0; i < RANGE_SAMPLE_ROWS && records.next(); i++) {
+                inference.sample(records.getCells(), records.getCellCount());
+            }
+        }
+    }
+
+    private Chunk parseChunk(FileChannel channel, long start, long end,
+                             List<String> headers, TypeInference inference) throws IOException {
+        final ColumnarDataSetBuilder builder =
+                new ColumnarDataSetBuilder(headers, inference.getSampleTypes(), 1024);
+        try (Reader reader = new InputStreamReader(
+                new ByteBufferInputStream(map(channel, start, end - start)), StandardCharsets.UTF_8)) {
+            final CsvRecordReader records = new CsvRecordReader(reader, delimiter);
+            while (records.next()) {
+                inference.confirm(records.getCells(), records.getCellCount());
+                builder.addRow(records.getCells(), records.getCellCount());
+            }
+        }
+        return new Chunk(builder, inference);
+    }
+
+    /**
+     * Returns the offset just after the first newline outside quotes at or after the given
+     * position, or the file size if there is none.
+     */
+    private static long nextRecordStart(FileChannel channel, long position, boolean inQuotes)
+            throws IOException {
+        final long size = channel.size();
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        boolean quoted = inQuotes;
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            final int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                final byte b = buffer.get(i);
+                if (b == QUOTE) {
+                    // an escaped quote toggles twice, leaving the state unchanged
+                    quoted = !quoted;
+                }
+                else if (b == NEWLINE && !quoted) {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static long countQuotes(FileChannel channel, long start, long end) throws IOException {
+        final MappedByteBuffer buffer = map(channel, start, end - start);
+        final int limit = buffer.limit();
+        long count = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == QUOTE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+
+    /**
+     * Rows and type confirmations parsed from one byte range.
+     */
+    private static final class Chunk {
+        private final ColumnarDataSetBuilder builder;
+        private final TypeInference inference;
+
+        Chunk(ColumnarDataSetBuilder builder, TypeInference inference) {
+            this.builder = builder;
+            this.inference = inference;
+        }
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
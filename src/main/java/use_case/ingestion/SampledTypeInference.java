@@ -0,0 +1,232 @@
+package use_case.ingestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import entity.DataType;
+
+/**
+ * Type inference that votes over the first N records plus a uniform random reservoir of
+ * the records offered after them.
+ * Confirmation is lazy: each cell is first checked only against its column's sample type,
+ * and only cells that do not fit are classified in full. Ties keep the original precedence
+ * NUMERIC, BOOLEAN, DATE, CATEGORICAL; blank cells do not vote.
+ */
+public class SampledTypeInference implements TypeInference {
+    public static final int DEFAULT_HEAD_ROWS = 1000;
+    public static final int DEFAULT_RESERVOIR_ROWS = 1000;
+    private static final long DEFAULT_SEED = 42L;
+
+    private final int columnCount;
+    private final int headRows;
+    private final int reservoirRows;
+    private final Random random;
+
+    private final TypeVotes[] sampleVotes;
+    private int headSeen;
+    private final List<String[]> reservoir = new ArrayList<>();
+    private long reservoirSeen;
+    private List<DataType> sampleTypes;
+    // the sample types confirm() checks against, refreshed by getSampleTypes() rather than by every sample
+    private List<DataType> expectedTypes;
+
+    private final TypeVotes[] confirmVotes;
+
+    public SampledTypeInference(int columnCount) {
+        this(columnCount, DEFAULT_HEAD_ROWS, DEFAULT_RESERVOIR_ROWS, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates the stage.
+     * @param columnCount number of columns
+     * @param headRows number of leading records that always vote
+     * @param reservoirRows number of later records sampled at random
+     * @param seed seed for the reservoir, so that loads are repeatable
+     */
+    public SampledTypeInference(int columnCount, int headRows, int reservoirRows, long seed) {
+        this.columnCount = columnCount;
+        this.headRows = headRows;
+        this.reservoirRows = reservoirRows;
+        this.random = new Random(seed);
+        this.sampleVotes = newVotes(columnCount);
+        this.confirmVotes = newVotes(columnCount);
+    }
+
+    private SampledTypeInference(SampledTypeInference parent) {
+        this(parent.columnCount, parent.headRows, parent.reservoirRows, 0L);
+        this.sampleTypes = parent.getSampleTypes();
+    }
+
+    /**
+     * Returns a factory for stages with the given sample sizes.
+     * @param headRows number of leading records that always vote
+     * @param reservoirRows number of later records sampled at random
+     * @return the factory
+     */
+    public static TypeInference.Factory factory(int headRows, int reservoirRows) {
+        return columnCount -> new SampledTypeInference(columnCount, headRows, reservoirRows, DEFAULT_SEED);
+    }
+
+    @Override
+    public void sample(String[] cells, int count) {
+        if (headSeen < headRows) {
+            headSeen++;
+            for (int i = 0; i < columnCount && i < count; i++) {
+                sampleVotes[i].add(cells[i]);
+            }
+            sampleTypes = null;
+        }
+        else if (reservoirRows > 0) {
+            // Algorithm R: the n-th later record replaces a random slot with probability k/n
+            reservoirSeen++;
+            if (reservoir.size() < reservoirRows) {
+                reservoir.add(Arrays.copyOf(cells, count));
+                sampleTypes = null;
+            }
+            else {
+                final long slot = (long) (random.nextDouble() * reservoirSeen);
+                if (slot < reservoirRows) {
+                    reservoir.set((int) slot, Arrays.copyOf(cells, count));
+                    sampleTypes = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean needsSample() {
+        return headSeen < headRows;
+    }
+
+    @Override
+    public List<DataType> getSampleTypes() {
+        if (sampleTypes == null) {
+            final TypeVotes[] votes = newVotes(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                votes[i].addAll(sampleVotes[i]);
+            }
+            for (String[] cells : reservoir) {
+                for (int i = 0; i < columnCount && i < cells.length; i++) {
+                    votes[i].add(cells[i]);
+                }
+            }
+            sampleTypes = types(votes);
+            expectedTypes = sampleTypes;
+        }
+        return sampleTypes;
+    }
+
+    @Override
+    public void confirm(String[] cells, int count) {
+        if (expectedTypes == null) {
+            expectedTypes = getSampleTypes();
+        }
+        final List<DataType> expected = expectedTypes;
+        for (int i = 0; i < columnCount && i < count; i++) {
+            confirmVotes[i].add(cells[i], expected.get(i));
+        }
+    }
+
+    @Override
+    public List<DataType> getConfirmedTypes() {
+        return types(confirmVotes);
+    }
+
+    @Override
+    public TypeInference newPartition() {
+        return new SampledTypeInference(this);
+    }
+
+    @Override
+    public void merge(TypeInference partition) {
+        final SampledTypeInference other = (SampledTypeInference) partition;
+        for (int i = 0; i < columnCount; i++) {
+            confirmVotes[i].addAll(other.confirmVotes[i]);
+        }
+    }
+
+    private static TypeVotes[] newVotes(int columnCount) {
+        final TypeVotes[] votes = new TypeVotes[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            votes[i] = new TypeVotes();
+        }
+        return votes;
+    }
+
+    private static List<DataType> types(TypeVotes[] votes) {
+        final List<DataType> types = new ArrayList<>(votes.length);
+        for (TypeVotes columnVotes : votes) {
+            types.add(columnVotes.getType());
+        }
+        return types;
+    }
+
+    /**
+     * Running count of how many cells of a column look like each data type.
+     */
+    private static final class TypeVotes {
+        private int numNumeric;
+        private int numBoolean;
+        private int numDate;
+        private int numCategorical;
+
+        void add(String cell) {
+            final DataType type = CellScanner.classify(cell);
+            if (type != null) {
+                count(type);
+            }
+        }
+
+        // counts the cell for the expected type without a full classification when it fits
+        void add(String cell, DataType expected) {
+            if (cell != null && fits(cell, expected)) {
+                count(expected);
+            }
+            else {
+                add(cell);
+            }
+        }
+
+        private static boolean fits(String cell, DataType expected) {
+            final int start = CellScanner.start(cell);
+            final int end = CellScanner.end(cell, start);
+            return switch (expected) {
+                case NUMERIC -> CellScanner.isNumeric(cell, start, end);
+                case BOOLEAN -> CellScanner.isBoolean(cell, start, end);
+                case DATE -> CellScanner.isDate(cell, start, end);
+                case CATEGORICAL -> false;
+            };
+        }
+
+        private void count(DataType type) {
+            switch (type) {
+                case NUMERIC -> numNumeric++;
+                case BOOLEAN -> numBoolean++;
+                case DATE -> numDate++;
+                case CATEGORICAL -> numCategorical++;
+            }
+        }
+
+        void addAll(TypeVotes other) {
+            numNumeric += other.numNumeric;
+            numBoolean += other.numBoolean;
+            numDate += other.numDate;
+            numCategorical += other.numCategorical;
+        }
+
+        DataType getType() {
+            if (numNumeric >= numBoolean && numNumeric >= numDate && numNumeric >= numCategorical) {
+                return DataType.NUMERIC;
+            }
+            if (numBoolean >= numDate && numBoolean >= numCategorical) {
+                return DataType.BOOLEAN;
+            }
+            if (numDate >= numCategorical) {
+                return DataType.DATE;
+            }
+            return DataType.CATEGORICAL;
+        }
+    }
+}
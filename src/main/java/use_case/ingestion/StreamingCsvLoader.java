@@ -0,0 +1,107 @@
+package use_case.ingestion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import entity.ColumnarDataSetBuilder;
+import entity.DataSet;
+import entity.DataType;
+
+/**
+ * Single-pass CSV ingestion: records are tokenized once and appended straight into typed
+ * column vectors, so the raw text is never held in memory.
+ * Column types are chosen by a {@link TypeInference} stage from a leading sample of records.
+ * Every later record is offered to the stage's sample too, and the columns are re-encoded early
+ * if the sample types change; the checks happen at doubling row counts, so the re-encoding costs
+ * at most as much as building the columns once. Every built record is confirmed while streaming;
+ * a column whose confirmed type disagrees with its built type is re-encoded at the end, so the
+ * result matches a type guess over the whole file.
+ */
+class StreamingCsvLoader {
+    static final int DEFAULT_SAMPLE_SIZE = SampledTypeInference.DEFAULT_HEAD_ROWS;
+
+    private final TypeInference.Factory typeInference;
+    private final char delimiter;
+
+    StreamingCsvLoader() {
+        this(DEFAULT_SAMPLE_SIZE);
+    }
+
+    StreamingCsvLoader(int sampleSize) {
+        this(SampledTypeInference.factory(sampleSize, 0), CsvRecordReader.DEFAULT_DELIMITER);
+    }
+
+    StreamingCsvLoader(int sampleSize, char delimiter) {
+        this(SampledTypeInference.factory(sampleSize, 0), delimiter);
+    }
+
+    StreamingCsvLoader(TypeInference.Factory typeInference, char delimiter) {
+        this.typeInference = typeInference;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads a DataSet from a CSV stream whose first record is the header.
+     * @param reader the character stream; not closed by this method
+     * @return the DataSet, or null if the stream is empty
+     * @throws IOException if reading fails
+     */
+    DataSet load(Reader reader) throws IOException {
+        final CsvRecordReader records = new CsvRecordReader(reader, delimiter);
+        if (!records.next()) {
+            return null;
+        }
+        final List<String> headers = Arrays.asList(records.copyCells());
+        final TypeInference inference = typeInference.create(headers.size());
+
+        // Buffer only the sample needed to pick the initial column types
+        final List<String[]> sample = new ArrayList<>();
+        boolean more = true;
+        while (inference.needsSample() && (more = records.next())) {
+            final String[] cells = records.copyCells();
+            inference.sample(cells, cells.length);
+            sample.add(cells);
+        }
+
+        final List<DataType> builtTypes = new ArrayList<>(inference.getSampleTypes());
+        final ColumnarDataSetBuilder builder =
+                new ColumnarDataSetBuilder(headers, builtTypes, Math.max(sample.size(), 16));
+        for (String[] cells : sample) {
+            inference.confirm(cells, cells.length);
+            builder.addRow(cells, cells.length);
+        }
+        sample.clear();
+
+        // Stream the remaining records directly into the column vectors
+        int nextCheck = Math.max(builder.getRowCount(), 1) * 2;
+        while (more && records.next()) {
+            inference.sample(records.getCells(), records.getCellCount());
+            inference.confirm(records.getCells(), records.getCellCount());
+            builder.addRow(records.getCells(), records.getCellCount());
+            if (builder.getRowCount() == nextCheck) {
+                retype(builder, builtTypes, inference.getSampleTypes());
+                nextCheck = nextCheck > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : nextCheck * 2;
+            }
+        }
+
+        retype(builder, builtTypes, inference.getConfirmedTypes());
+        return builder.build();
+    }
+
+    /**
+     * Re-encodes the columns whose type differs from the type they were built with.
+     * @param builtTypes the types the columns are built with; updated to the new types
+     */
+    static void retype(ColumnarDataSetBuilder builder, List<DataType> builtTypes, List<DataType> types) {
+        for (int i = 0; i < types.size(); i++) {
+            final DataType type = types.get(i);
+            if (type != builtTypes.get(i)) {
+                builder.retype(i, type);
+                builtTypes.set(i, type);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package use_case.ingestion;
+
+import java.util.List;
+
+import entity.DataType;
+
+/**
+ * Pluggable stage that chooses column types while records are ingested.
+ * A loader first offers the leading records and encodes the columns with the sample types,
+ * then passes every record it builds to {@link #confirm(String[], int)}. It keeps offering
+ * later records to {@link #sample(String[], int)} as well, so that a stage can sample the whole
+ * input; a loader may re-encode columns early when the sample types change. Columns whose
+ * confirmed type differs from the type they were built with are re-encoded at the end.
+ */
+public interface TypeInference {
+
+    /**
+     * Offers a record to the sample.
+     * @param cells the record's cells; the array may be reused by the caller
+     * @param count number of valid cells
+     */
+    void sample(String[] cells, int count);
+
+    /**
+     * Returns true while the leading part of the sample still wants records.
+     * Loaders stop buffering records once this returns false, but keep offering them.
+     * @return whether more leading records are wanted
+     */
+    boolean needsSample();
+
+    /**
+     * Returns the column types chosen from the sample so far; records confirmed afterwards are
+     * checked against these types.
+     * @return one type per column
+     */
+    List<DataType> getSampleTypes();
+
+    /**
+     * Checks a record that is being added to the columns against the sample types.
+     * @param cells the record's cells
+     * @param count number of valid cells
+     */
+    void confirm(String[] cells, int count);
+
+    /**
+     * Returns the column types that every confirmed record supports.
+     * @return one type per column
+     */
+    List<DataType> getConfirmedTypes();
+
+    /**
+     * Creates a stage for confirming one partition of the records in parallel; it shares
+     * this stage's sample types.
+     * @return the partition stage
+     */
+    TypeInference newPartition();
+
+    /**
+     * Adds the confirmations of a partition created by {@link #newPartition()}.
+     * @param partition the partition stage
+     */
+    void merge(TypeInference partition);
+
+    /**
+     * Creates a type-inference stage for a known number of columns.
+     */
+    interface Factory {
+        TypeInference create(int columnCount);
+    }
+}
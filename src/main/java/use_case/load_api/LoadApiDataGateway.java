@@ -1,10 +1,34 @@
 package use_case.load_api;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 public interface LoadApiDataGateway {
+    String DATASET_NOT_FOUND = "Dataset not found.";
+    String NO_CSV_RESOURCE = "Dataset found, but no CSV resource available.";
+    String ERROR_PREFIX = "Error: ";
+
     /**
      * Gets the CSV from the CKAN API as a full string.
      * @param datasetName name of the dataset
      * @return full csv
      */
     String getCsv(String datasetName);
+
+    /**
+     * Opens the CSV from the CKAN API as a UTF-8 byte stream, so it can be parsed while it downloads.
+     * The default implementation buffers {@link #getCsv(String)}.
+     * @param datasetName name of the dataset
+     * @return the csv stream; the caller closes it
+     * @throws IOException with a message to show the user if the csv cannot be found or opened
+     */
+    default InputStream openCsv(String datasetName) throws IOException {
+        final String csv = getCsv(datasetName);
+        if (DATASET_NOT_FOUND.equals(csv) || NO_CSV_RESOURCE.equals(csv) || csv.startsWith(ERROR_PREFIX)) {
+            throw new IOException(csv);
+        }
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
 }
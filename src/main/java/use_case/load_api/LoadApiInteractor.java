@@ -1,137 +1,62 @@
 package use_case.load_api;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 
-import entity.Column;
-import entity.DataRow;
 import entity.DataSet;
-import entity.DataType;
 import use_case.dataset.CurrentTableGateway;
+import use_case.ingestion.CsvIngestion;
+import use_case.ingestion.IngestionOptions;
 
 public class LoadApiInteractor implements LoadApiInputBoundary {
     private final LoadApiOutputBoundary loadApiPresenter;
     private final LoadApiDataGateway loadApiDataGateway;
     private final CurrentTableGateway tableGateway;
+    private final CsvIngestion ingestion;
 
     public LoadApiInteractor(LoadApiOutputBoundary loadApiPresenter,
                              LoadApiDataGateway loadApiDataGateway,
                              CurrentTableGateway tableGateway) {
+        this(loadApiPresenter, loadApiDataGateway, tableGateway, new IngestionOptions());
+    }
+
+    public LoadApiInteractor(LoadApiOutputBoundary loadApiPresenter,
+                             LoadApiDataGateway loadApiDataGateway,
+                             CurrentTableGateway tableGateway,
+                             IngestionOptions options) {
         this.loadApiPresenter = loadApiPresenter;
         this.loadApiDataGateway = loadApiDataGateway;
         this.tableGateway = tableGateway;
+        this.ingestion = new CsvIngestion(options);
     }
 
     @Override
     public void execute(LoadApiInputData loadApiInputData) {
-        final String csv = loadApiDataGateway.getCsv(loadApiInputData.getDatasetName());
-        if ("Dataset not found.".equals(csv)
-                || "Dataset found, but no CSV resource available.".equals(csv)
-                || csv.startsWith("Error: ")) {
-            loadApiPresenter.prepareFail(csv);
+        final InputStream csv;
+        try {
+            csv = loadApiDataGateway.openCsv(loadApiInputData.getDatasetName());
         }
-        else {
-            final List<String> lines = new ArrayList<>(List.of(csv.split("\n", -1)));
-            final List<Column> columns = getColumns(lines);
-            final List<DataRow> rows = getRows(lines);
-            final DataSet table = new DataSet(rows, columns);
-
-            tableGateway.save(table);
-            loadApiPresenter.prepareSuccess();
-        }
-    }
-
-    private static List<Column> getColumns(List<String> lines) {
-        final String delimiter = ",";
-        int columnCount = 0;
-        for (String line : lines) {
-            final String[] cells = line.split(delimiter, -1);
-            if (cells.length > columnCount) {
-                columnCount = cells.length;
-            }
-        }
-
-        final List<List<String>> columnCells = new ArrayList<>();
-        for (int i = 0; i < columnCount; i++) {
-            columnCells.add(new ArrayList<>());
-        }
-
-        final String[] headers = lines.get(0).split(delimiter, -1);
-        lines.remove(0);
-
-        for (String line : lines) {
-            final String[] cells = line.split(delimiter, -1);
-            for (int i = 0; i < columnCount; i++) {
-                if (i < cells.length) {
-                    columnCells.get(i).add(cells[i]);
-                }
-                else {
-                    columnCells.get(i).add("");
-                }
-            }
+        catch (IOException ex) {
+            loadApiPresenter.prepareFail(ex.getMessage());
+            return;
         }
 
-        // Create Column objects with guessed datatype
-        final List<Column> columns = new ArrayList<>();
-        for (int i = 0; i < headers.length; i++) {
-            final DataType type = guessDataType(columnCells.get(i));
-            columns.add(new Column(columnCells.get(i), type, headers[i]));
+        // The download is parsed as it arrives, so the raw text is never held in memory
+        final DataSet table;
+        try (csv) {
+            table = ingestion.read(csv);
         }
-        return columns;
-    }
-
-    private static DataType guessDataType(List<String> cells) {
-        int numNumeric = 0;
-        int numBoolean = 0;
-        int numDate = 0;
-        int numCategorical = 0;
-
-        final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-        for (String cell : cells) {
-            final String value = cell.trim();
-
-            if (value.matches("-?\\d+(\\.\\d+)?")) {
-                numNumeric += 1;
-            }
-
-            else if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
-                numBoolean += 1;
-            }
-
-            else if (!value.isEmpty()) {
-                try {
-                    LocalDate.parse(value, dateFormatter);
-                    numDate += 1;
-                }
-                catch (DateTimeParseException ignored) {
-                    numCategorical += 1;
-                }
-            }
+        catch (IOException ex) {
+            loadApiPresenter.prepareFail(LoadApiDataGateway.ERROR_PREFIX + ex.getMessage());
+            return;
         }
 
-        if (numNumeric >= numBoolean && numNumeric >= numDate && numNumeric >= numCategorical) {
-            return DataType.NUMERIC;
+        if (table == null) {
+            loadApiPresenter.prepareFail("Dataset is empty.");
         }
-        if (numBoolean >= numDate && numBoolean >= numCategorical) {
-            return DataType.BOOLEAN;
-        }
-        if (numDate >= numCategorical) {
-            return DataType.DATE;
-        }
-        return DataType.CATEGORICAL;
-    }
-
-    private static List<DataRow> getRows(List<String> lines) {
-        final List<DataRow> rows = new ArrayList<>();
-        for (String line : lines) {
-            final List<String> cells = Arrays.asList(line.split(",", -1));
-            rows.add(new DataRow(cells));
+        else {
+            tableGateway.save(table);
+            loadApiPresenter.prepareSuccess();
         }
-        return rows;
     }
 }
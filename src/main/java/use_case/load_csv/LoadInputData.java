@@ -1,22 +1,61 @@
 package use_case.load_csv;
 
+import java.io.Reader;
+import java.nio.file.Path;
 import java.util.List;
 
 public class LoadInputData {
     private final List<String> lines;
+    private final Reader reader;
+    private final Path file;
     private final boolean failed;
     private final String errorMessage;
 
     public LoadInputData(List<String> lines, boolean failed, String errorMessage) {
         this.lines = lines;
+        this.reader = null;
+        this.file = null;
         this.failed = failed;
         this.errorMessage = errorMessage;
     }
 
+    /**
+     * Creates input data that streams the CSV from a reader.
+     * The interactor reads it to the end; the caller remains responsible for closing it.
+     * @param reader the CSV character stream
+     */
+    public LoadInputData(Reader reader) {
+        this.lines = null;
+        this.reader = reader;
+        this.file = null;
+        this.failed = false;
+        this.errorMessage = "";
+    }
+
+    /**
+     * Creates input data that reads a UTF-8 CSV file. Large files may be parsed in parallel.
+     * @param file the CSV file
+     */
+    public LoadInputData(Path file) {
+        this.lines = null;
+        this.reader = null;
+        this.file = file;
+        this.failed = false;
+        this.errorMessage = "";
+    }
+
     List<String> getLines() {
         return lines;
     }
 
+    Reader getReader() {
+        return reader;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
     boolean isFailed() {
         return failed;
     }
@@ -1,25 +1,43 @@
 package use_case.load_csv;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 
-import entity.Column;
-import entity.DataRow;
 import entity.DataSet;
-import entity.DataType;
 import use_case.dataset.CurrentTableGateway;
+import use_case.dataset.DataSetEditJournal;
+import use_case.ingestion.CsvIngestion;
+import use_case.ingestion.IngestionOptions;
 
 public class LoadInteractor implements LoadInputBoundary {
     private final LoadOutputBoundary loadPresenter;
     private final CurrentTableGateway tableGateway;
+    private final CsvIngestion ingestion;
+    private final DataSetEditJournal editJournal;
 
     public LoadInteractor(LoadOutputBoundary loadPresenter, CurrentTableGateway tableGateway) {
+        this(loadPresenter, tableGateway, new IngestionOptions());
+    }
+
+    public LoadInteractor(LoadOutputBoundary loadPresenter, CurrentTableGateway tableGateway,
+                          IngestionOptions options) {
+        this(loadPresenter, tableGateway, options, null);
+    }
+
+    /**
+     * Creates the interactor.
+     * @param loadPresenter receives the result
+     * @param tableGateway holds the loaded table
+     * @param options how files are parsed
+     * @param editJournal restores journaled edits of a loaded file and journals new ones; may be null
+     */
+    public LoadInteractor(LoadOutputBoundary loadPresenter, CurrentTableGateway tableGateway,
+                          IngestionOptions options, DataSetEditJournal editJournal) {
         this.loadPresenter = loadPresenter;
         this.tableGateway = tableGateway;
+        this.ingestion = new CsvIngestion(options);
+        this.editJournal = editJournal;
     }
 
     @Override
@@ -28,103 +46,46 @@ public class LoadInteractor implements LoadInputBoundary {
             loadPresenter.prepareFail(loadInputData.getErrorMessage());
         }
         else {
-            final List<String> lines = loadInputData.getLines();
-            final List<Column> columns = getColumns(lines);
-            final List<DataRow> rows = getRows(lines);
-            final DataSet table = new DataSet(rows, columns);
-
-            tableGateway.save(table);
-            loadPresenter.prepareSuccess();
-        }
-    }
-
-    private static List<Column> getColumns(List<String> lines) {
-        int columnCount = 0;
-        final String delimiter = ",";
-        for (String line : lines) {
-            final String[] cells = line.split(delimiter, -1);
-            if (cells.length > columnCount) {
-                columnCount = cells.length;
+            final DataSet table;
+            try {
+                table = readTable(loadInputData);
             }
-        }
-
-        final List<List<String>> columnCells = new ArrayList<>();
-        for (int i = 0; i < columnCount; i++) {
-            columnCells.add(new ArrayList<>());
-        }
-
-        final String[] headers = lines.get(0).split(delimiter, -1);
-        lines.remove(0);
-
-        for (String line : lines) {
-            final String[] cells = line.split(delimiter, -1);
-            for (int i = 0; i < columnCount; i++) {
-                if (i < cells.length) {
-                    columnCells.get(i).add(cells[i]);
-                }
-                else {
-                    columnCells.get(i).add("");
-                }
+            catch (IOException ex) {
+                loadPresenter.prepareFail(ex.getMessage());
+                return;
             }
-        }
-
-        // Create Column objects with guessed datatype
-        final List<Column> columns = new ArrayList<>();
-        for (int i = 0; i < columnCells.size(); i++) {
-            final DataType type = guessDataType(columnCells.get(i));
-            columns.add(new Column(columnCells.get(i), type, headers[i]));
-        }
-        return columns;
-    }
-
-    private static DataType guessDataType(List<String> cells) {
-        int numNumeric = 0;
-        int numBoolean = 0;
-        int numDate = 0;
-        int numCategorical = 0;
-
-        final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-        for (String cell : cells) {
-            final String value = cell.trim();
 
-            if (value.matches("-?\\d+(\\.\\d+)?")) {
-                numNumeric += 1;
+            if (table == null) {
+                loadPresenter.prepareFail("File is empty");
             }
-
-            else if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
-                numBoolean += 1;
-            }
-
-            else if (!value.isEmpty()) {
-                try {
-                    LocalDate.parse(value, dateFormatter);
-                    numDate += 1;
-                }
-                catch (DateTimeParseException ignored) {
-                    numCategorical += 1;
+            else {
+                tableGateway.save(table);
+                if (editJournal != null && loadInputData.getFile() != null) {
+                    try {
+                        // the gateway may hold a copy, which is the one that gets edited
+                        editJournal.opened(loadInputData.getFile(), tableGateway.load());
+                    }
+                    catch (IOException ex) {
+                        loadPresenter.prepareFail(ex.getMessage());
+                        return;
+                    }
                 }
+                loadPresenter.prepareSuccess();
             }
         }
+    }
 
-        if (numNumeric >= numBoolean && numNumeric >= numDate && numNumeric >= numCategorical) {
-            return DataType.NUMERIC;
-        }
-        if (numBoolean >= numDate && numBoolean >= numCategorical) {
-            return DataType.BOOLEAN;
-        }
-        if (numDate >= numCategorical) {
-            return DataType.DATE;
+    private DataSet readTable(LoadInputData loadInputData) throws IOException {
+        if (loadInputData.getFile() != null) {
+            return ingestion.read(loadInputData.getFile());
         }
-        return DataType.CATEGORICAL;
+        return ingestion.read(getReader(loadInputData));
     }
 
-    private static List<DataRow> getRows(List<String> lines) {
-        final List<DataRow> rows = new ArrayList<>();
-        for (String line : lines) {
-            final List<String> cells = Arrays.asList(line.split(",", -1));
-            rows.add(new DataRow(cells));
+    private static Reader getReader(LoadInputData loadInputData) {
+        if (loadInputData.getReader() != null) {
+            return loadInputData.getReader();
         }
-        return rows;
+        return new StringReader(String.join("\n", loadInputData.getLines()));
     }
 }
@@ -6,10 +6,38 @@ import entity.DataSet;
  * Data access boundary for persisting datasets.
  */
 public interface SaveDataSetDataAccessInterface {
+    /**
+     * Prepares a save of the dataset that will run on another thread while the dataset is still edited,
+     * for example by copying it. Called on the thread that edits the dataset, right before the save.
+     * @param id          target identifier or path for the dataset
+     * @param dataSet     the dataset that will be saved
+     * @param incremental whether {@link #saveEdits} will be tried first
+     */
+    void prepareSave(String id, DataSet dataSet, boolean incremental);
+
     /**
      * Persists the provided dataset with the given identifier.
      * @param id      target identifier or path for the dataset
      * @param dataSet dataset contents to persist
      */
     void save(String id, DataSet dataSet) throws java.io.IOException;
+
+    /**
+     * Persists the provided dataset, reporting progress while it is written.
+     * Either the complete dataset ends up under the identifier or the previous contents stay in place.
+     * @param id       target identifier or path for the dataset
+     * @param dataSet  dataset contents to persist
+     * @param listener receives progress and is asked whether to cancel
+     * @throws java.io.InterruptedIOException if the listener cancelled the save
+     */
+    void save(String id, DataSet dataSet, SaveDataSetProgressListener listener) throws java.io.IOException;
+
+    /**
+     * Saves the edits made since the dataset was last saved under the identifier, or opened from it,
+     * without encoding the whole dataset again.
+     * @param id      target identifier or path for the dataset
+     * @param dataSet dataset whose edits to persist
+     * @return false if its edits were not collected for the identifier, in which case it has to be saved in full
+     */
+    boolean saveEdits(String id, DataSet dataSet) throws java.io.IOException;
 }
@@ -9,4 +9,18 @@ public interface SaveDataSetInputBoundary {
      * @param inputData input model containing the dataset identifier
      */
     void execute(SaveDataSetInputData inputData) throws java.io.IOException;
+
+    /**
+     * Prepares the save that the next {@link #execute} call will run on another thread, so that edits
+     * made to the dataset meanwhile neither reach the file half-way nor disturb the save.
+     * Called on the thread that edits the dataset.
+     * @param inputData input model of the save that follows
+     */
+    void prepare(SaveDataSetInputData inputData);
+
+    /**
+     * Asks the save that was prepared or is running on another thread to stop, even if it has not started
+     * yet; the existing file is left untouched.
+     */
+    void cancel();
 }
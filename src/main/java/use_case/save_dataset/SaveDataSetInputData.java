@@ -10,12 +10,27 @@ public final class SaveDataSetInputData {
      */
     private final String datasetId;
 
+    /**
+     * Whether only the edits since the last save should be written, when that is possible.
+     */
+    private final boolean incremental;
+
     /**
      * Creates input data for saving a dataset.
      * @param datasetId identifier to associate with the saved dataset
      */
     public SaveDataSetInputData(final String datasetId) {
+        this(datasetId, false);
+    }
+
+    /**
+     * Creates input data for saving a dataset.
+     * @param datasetId   identifier to associate with the saved dataset
+     * @param incremental whether to save only the edits since the dataset was last saved there
+     */
+    public SaveDataSetInputData(final String datasetId, final boolean incremental) {
         this.datasetId = datasetId;
+        this.incremental = incremental;
     }
 
     /**
@@ -25,4 +40,12 @@ public final class SaveDataSetInputData {
     public String getDatasetId() {
         return datasetId;
     }
+
+    /**
+     * Returns whether only the edits since the last save should be written.
+     * @return true for an incremental save
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
 }
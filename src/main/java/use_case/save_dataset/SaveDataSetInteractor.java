@@ -3,8 +3,16 @@ package use_case.save_dataset;
 import entity.DataSet;
 import use_case.dataset.CurrentTableGateway;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Interactor that saves the currently loaded dataset through a data access layer.
+ * The save runs on the calling thread and reports progress to the presenter as it goes;
+ * callers that must stay responsive {@link #prepare} it on the thread that edits the dataset, then run
+ * it on a background thread and may {@link #cancel()} it.
+ * An incremental save only writes the edits made since the last save, falling back to a full save
+ * when the data access layer has not collected them.
  */
 public final class SaveDataSetInteractor implements SaveDataSetInputBoundary {
 
@@ -20,6 +28,12 @@ public final class SaveDataSetInteractor implements SaveDataSetInputBoundary {
      * Gateway providing the currently loaded dataset.
      */
     private final CurrentTableGateway currentTableGateway;
+    /**
+     * Cancellation flag of the save that was prepared last or is running. {@link #prepare} gives every save
+     * a flag of its own, so a cancel pressed before the save starts is not lost, and the flag is replaced
+     * once that save ends, so it does not carry over to the next one.
+     */
+    private final AtomicReference<AtomicBoolean> cancellation = new AtomicReference<>(new AtomicBoolean());
 
     /**
      * Creates a new save dataset interactor.
@@ -42,6 +56,17 @@ public final class SaveDataSetInteractor implements SaveDataSetInputBoundary {
      */
     @Override
     public void execute(final SaveDataSetInputData inputData) throws java.io.IOException {
+        final AtomicBoolean cancelled = cancellation.get();
+        try {
+            save(inputData, cancelled);
+        }
+        finally {
+            cancellation.compareAndSet(cancelled, new AtomicBoolean());
+        }
+    }
+
+    private void save(final SaveDataSetInputData inputData, final AtomicBoolean cancelled)
+            throws java.io.IOException {
         final String id = inputData.getDatasetId();
 
         if (id == null) {
@@ -59,10 +84,66 @@ public final class SaveDataSetInteractor implements SaveDataSetInputBoundary {
             return;
         }
 
-        dataAccess.save(id, dataSet);
+        if (cancelled.get()) {
+            outputBoundary.present(new SaveDataSetOutputData(
+                    id, false, "Save cancelled."
+            ));
+            return;
+        }
+
+        if (inputData.isIncremental() && dataAccess.saveEdits(id, dataSet)) {
+            outputBoundary.present(new SaveDataSetOutputData(
+                    id, true, "Edits saved successfully."
+            ));
+            return;
+        }
+
+        final long totalRows = dataSet.getRows().size();
+        try {
+            dataAccess.save(id, dataSet, new SaveDataSetProgressListener() {
+                @Override
+                public void progress(final long bytesWritten, final long rowsWritten) {
+                    outputBoundary.presentProgress(new SaveDataSetProgressData(
+                            id, bytesWritten, rowsWritten, totalRows
+                    ));
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelled.get();
+                }
+            });
+        }
+        catch (final java.io.InterruptedIOException ex) {
+            outputBoundary.present(new SaveDataSetOutputData(
+                    id, false, "Save cancelled."
+            ));
+            return;
+        }
 
         outputBoundary.present(new SaveDataSetOutputData(
                 id, true, "Dataset saved successfully."
         ));
     }
+
+    /**
+     * Lets the data access layer copy what the save needs before it leaves this thread.
+     * @param inputData input model of the save that follows
+     */
+    @Override
+    public void prepare(final SaveDataSetInputData inputData) {
+        cancellation.set(new AtomicBoolean());
+        final DataSet dataSet = currentTableGateway.load();
+        if (inputData.getDatasetId() != null && dataSet != null) {
+            dataAccess.prepareSave(inputData.getDatasetId(), dataSet, inputData.isIncremental());
+        }
+    }
+
+    /**
+     * Cancels the save that is running or has been prepared, if any.
+     */
+    @Override
+    public void cancel() {
+        cancellation.get().set(true);
+    }
 }
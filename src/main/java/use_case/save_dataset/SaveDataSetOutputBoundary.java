@@ -9,4 +9,10 @@ public interface SaveDataSetOutputBoundary {
      * @param outputData output model describing success/failure
      */
     void present(SaveDataSetOutputData outputData);
+
+    /**
+     * Presents the progress of a running save. Called on the thread that performs the save.
+     * @param progressData bytes and rows written so far
+     */
+    void presentProgress(SaveDataSetProgressData progressData);
 }
@@ -0,0 +1,71 @@
+package use_case.save_dataset;
+
+/**
+ * Progress of a running save, sent from the Save Dataset interactor to the presenter.
+ */
+public final class SaveDataSetProgressData {
+
+    /**
+     * The identifier the dataset is being saved under.
+     */
+    private final String datasetId;
+    /**
+     * Bytes written so far.
+     */
+    private final long bytesWritten;
+    /**
+     * Rows written so far.
+     */
+    private final long rowsWritten;
+    /**
+     * Number of rows in the dataset being saved.
+     */
+    private final long totalRows;
+
+    /**
+     * Constructs a progress model for the save dataset use case.
+     * @param datasetId    the identifier the dataset is being saved under
+     * @param bytesWritten bytes written so far
+     * @param rowsWritten  rows written so far
+     * @param totalRows    number of rows in the dataset
+     */
+    public SaveDataSetProgressData(final String datasetId, final long bytesWritten, final long rowsWritten,
+                                   final long totalRows) {
+        this.datasetId = datasetId;
+        this.bytesWritten = bytesWritten;
+        this.rowsWritten = rowsWritten;
+        this.totalRows = totalRows;
+    }
+
+    /**
+     * Returns the dataset identifier being saved.
+     * @return dataset identifier
+     */
+    public String getDatasetId() {
+        return datasetId;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     * @return bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of rows written so far.
+     * @return rows written
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Returns the number of rows in the dataset being saved.
+     * @return total rows
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+}
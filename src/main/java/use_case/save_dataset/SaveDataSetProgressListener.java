@@ -0,0 +1,20 @@
+package use_case.save_dataset;
+
+/**
+ * Receives progress from a running save and decides whether it should go on.
+ */
+public interface SaveDataSetProgressListener {
+    /**
+     * Reports how much of the dataset has been written so far.
+     * @param bytesWritten bytes written to the target
+     * @param rowsWritten  rows written to the target
+     */
+    void progress(long bytesWritten, long rowsWritten);
+
+    /**
+     * Returns whether the save should stop; the data access layer then abandons the
+     * partial output and throws {@link java.io.InterruptedIOException}.
+     * @return true once the save has been cancelled
+     */
+    boolean isCancelled();
+}
@@ -20,6 +20,10 @@ public class SearchInputData {
         return searchTerm;
     }
 
+    /**
+     * Returns the cells to search, or null to search the current dataset.
+     * @return table cells or null
+     */
     public String[][] getTableData() {
         return tableData;
     }
@@ -1,13 +1,32 @@
 package use_case.search;
 
+import java.util.List;
+
+import entity.CategoricalColumnVector;
+import entity.Column;
+import entity.DataSet;
+import use_case.dataset.CurrentTableGateway;
+
 /**
  * The Search Interactor.
  */
 public class SearchInteractor implements SearchInputBoundary {
     private final SearchOutputBoundary searchPresenter;
+    private final CurrentTableGateway tableGateway;
 
     public SearchInteractor(SearchOutputBoundary searchPresenter) {
+        this(searchPresenter, null);
+    }
+
+    /**
+     * Creates a search interactor that can search the current DataSet directly
+     * when the input carries no table data.
+     * @param searchPresenter the output boundary
+     * @param tableGateway gateway to the current DataSet
+     */
+    public SearchInteractor(SearchOutputBoundary searchPresenter, CurrentTableGateway tableGateway) {
         this.searchPresenter = searchPresenter;
+        this.tableGateway = tableGateway;
     }
 
     @Override
@@ -19,16 +38,28 @@ public class SearchInteractor implements SearchInputBoundary {
             return;
         }
 
-        final String[][] tableData = searchInputData.getTableData();
+        final String lowerTerm = searchTerm.toLowerCase();
+        final CellMatcher matcher;
+        if (searchInputData.getTableData() != null) {
+            matcher = new TableDataMatcher(searchInputData.getTableData(), lowerTerm);
+        }
+        else {
+            final DataSet dataSet = tableGateway == null ? null : tableGateway.load();
+            if (dataSet == null) {
+                searchPresenter.prepareFailView("No dataset to search");
+                return;
+            }
+            matcher = new DataSetMatcher(dataSet, lowerTerm);
+        }
+
         final int startRow = searchInputData.getStartRow();
         final int startCol = searchInputData.getStartColumn();
 
         // Search through all cells starting from the specified position
-        for (int row = startRow; row < tableData.length; row++) {
+        for (int row = startRow; row < matcher.rowCount(); row++) {
             int colStart = (row == startRow) ? startCol + 1 : 0;
-            for (int col = colStart; col < tableData[row].length; col++) {
-                String value = tableData[row][col];
-                if (value != null && value.toLowerCase().contains(searchTerm.toLowerCase())) {
+            for (int col = colStart; col < matcher.columnCount(row); col++) {
+                if (matcher.matches(row, col)) {
                     // Found match
                     SearchOutputData outputData = new SearchOutputData(row, col, true);
                     searchPresenter.prepareSuccessView(outputData);
@@ -39,10 +70,9 @@ public class SearchInteractor implements SearchInputBoundary {
 
         // If not found from start position, wrap around and search from beginning
         for (int row = 0; row <= startRow; row++) {
-            int colEnd = (row == startRow) ? startCol : tableData[row].length;
+            int colEnd = (row == startRow) ? startCol : matcher.columnCount(row);
             for (int col = 0; col < colEnd; col++) {
-                String value = tableData[row][col];
-                if (value != null && value.toLowerCase().contains(searchTerm.toLowerCase())) {
+                if (matcher.matches(row, col)) {
                     SearchOutputData outputData = new SearchOutputData(row, col, true);
                     searchPresenter.prepareSuccessView(outputData);
                     return;
@@ -53,4 +83,94 @@ public class SearchInteractor implements SearchInputBoundary {
         // Not found
         searchPresenter.prepareFailView("Search term not found: " + searchTerm);
     }
+
+    /**
+     * Case-insensitive "contains" test over a grid of cells.
+     */
+    private interface CellMatcher {
+        int rowCount();
+
+        int columnCount(int row);
+
+        boolean matches(int row, int col);
+    }
+
+    private static final class TableDataMatcher implements CellMatcher {
+        private final String[][] tableData;
+        private final String lowerTerm;
+
+        TableDataMatcher(String[][] tableData, String lowerTerm) {
+            this.tableData = tableData;
+            this.lowerTerm = lowerTerm;
+        }
+
+        @Override
+        public int rowCount() {
+            return tableData.length;
+        }
+
+        @Override
+        public int columnCount(int row) {
+            return tableData[row].length;
+        }
+
+        @Override
+        public boolean matches(int row, int col) {
+            final String value = tableData[row][col];
+            return value != null && value.toLowerCase().contains(lowerTerm);
+        }
+    }
+
+    /**
+     * Searches the DataSet columns. Dictionary-encoded columns test each distinct value once
+     * and then match rows by comparing codes.
+     */
+    private static final class DataSetMatcher implements CellMatcher {
+        private final List<Column> columns;
+        private final int rowCount;
+        private final String lowerTerm;
+        // per column: whether each dictionary code matches, computed on first use
+        private final boolean[][] codeMatches;
+
+        DataSetMatcher(DataSet dataSet, String lowerTerm) {
+            this.columns = dataSet.getColumns();
+            this.rowCount = dataSet.getRows().size();
+            this.lowerTerm = lowerTerm;
+            this.codeMatches = new boolean[columns.size()][];
+        }
+
+        @Override
+        public int rowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int columnCount(int row) {
+            return columns.size();
+        }
+
+        @Override
+        public boolean matches(int row, int col) {
+            final Column column = columns.get(col);
+            if (column.getVector() instanceof CategoricalColumnVector) {
+                final CategoricalColumnVector vector = (CategoricalColumnVector) column.getVector();
+                final int code = vector.getCode(row);
+                return code != CategoricalColumnVector.NULL_CODE && codeMatchesFor(col, vector)[code];
+            }
+            final String value = column.getCells().get(row);
+            return value != null && value.toLowerCase().contains(lowerTerm);
+        }
+
+        private boolean[] codeMatchesFor(int col, CategoricalColumnVector vector) {
+            if (codeMatches[col] == null || codeMatches[col].length != vector.getDictionarySize()) {
+                final List<String> dictionary = vector.getDictionary();
+                final boolean[] matches = new boolean[dictionary.size()];
+                for (int code = 0; code < matches.length; code++) {
+                    matches[code] = dictionary.get(code).toLowerCase().contains(lowerTerm);
+                }
+                codeMatches[col] = matches;
+            }
+            return codeMatches[col];
+        }
+    }
 }
@@ -1,7 +1,12 @@
 package use_case.statistics;
 
+import use_case.visualization.data.NumericValues;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -13,6 +18,8 @@ import java.util.stream.Collectors;
  * - Easy to test in isolation
  */
 public class StatisticsCalculator {
+    private static final long NULL_BITS = 0x7FF8000000000001L;
+
     /**
      * Calculate the arithmetic mean (average) of a list of values.
      * Null values are excluded from the calculation.
@@ -53,24 +60,179 @@ public class StatisticsCalculator {
             return 0.0;
         }
 
-        // Filter out null values and sort
-        List<Double> sorted = values.stream()
-                .filter(v -> v != null)
-                .sorted()
-                .collect(Collectors.toList());
+        final double[] primitive = new double[values.size()];
+        final BitSet nulls = new BitSet(primitive.length);
+        for (int i = 0; i < primitive.length; i++) {
+            final Double value = values.get(i);
+            if (value == null) {
+                nulls.set(i);
+            }
+            else {
+                primitive[i] = value;
+            }
+        }
+        return calculateQuantiles(primitive, nulls, 0.5)[0];
+    }
 
-        if (sorted.isEmpty()) {
-            return 0.0;
+    /**
+     * Calculate exact quantiles, e.g. 0.5 for the median, 0.25 and 0.75 for the quartiles or 0.99 for the
+     * 99th percentile. A quantile between two values is interpolated linearly, so the median of an even
+     * number of values is the average of the two middle values. NaN values rank above all numbers.
+     *
+     * <p>The non-null values are copied into a scratch buffer that is partially ordered by introselect:
+     * each partitioning step splits the requested ranks between its sides and only continues into sides
+     * that still contain one, so all quantiles come from the same partitioning and no full sort is made.
+     *
+     * @param values the values; entries at null positions are ignored and the array is not modified
+     * @param nulls positions of null values (may be null when there are none)
+     * @param probabilities the quantiles to calculate, each between 0 and 1
+     * @return the quantiles in the order requested, 0.0 for each if there are no values
+     * @throws IllegalArgumentException if a probability is outside [0, 1]
+     */
+    public static double[] calculateQuantiles(final double[] values, final BitSet nulls,
+                                              final double... probabilities) {
+        for (final double probability : probabilities) {
+            if (!(probability >= 0.0 && probability <= 1.0)) {
+                throw new IllegalArgumentException("Quantile probability must be between 0 and 1: " + probability);
+            }
+        }
+        final double[] quantiles = new double[probabilities.length];
+
+        final int count = values.length - (nulls == null ? 0 : nulls.get(0, values.length).cardinality());
+        final double[] scratch = new double[count];
+        int numbers = 0;
+        // copy the runs between nulls; NaNs sort after every number, so they are only counted: one is
+        // written but then overwritten, as only numbers advance the end of the scratch buffer
+        int start = nulls == null ? 0 : nulls.nextClearBit(0);
+        while (start < values.length) {
+            final int nextNull = nulls == null ? -1 : nulls.nextSetBit(start);
+            final int end = nextNull < 0 || nextNull > values.length ? values.length : nextNull;
+            for (int i = start; i < end; i++) {
+                final double value = values[i];
+                scratch[numbers] = value;
+                numbers += Double.isNaN(value) ? 0 : 1;
+            }
+            start = nulls == null ? values.length : nulls.nextClearBit(end);
+        }
+        if (count == 0) {
+            return quantiles;
+        }
+
+        // the ranks needed, ascending and distinct
+        final int[] needed = new int[probabilities.length * 2];
+        int ranks = 0;
+        for (final double probability : probabilities) {
+            final double position = (count - 1) * probability;
+            final int below = (int) Math.floor(position);
+            needed[ranks++] = below;
+            needed[ranks++] = Math.min(below + 1, count - 1);
+        }
+        Arrays.sort(needed, 0, ranks);
+        int distinct = 0;
+        for (int i = 0; i < ranks; i++) {
+            if (needed[i] < numbers && (distinct == 0 || needed[i] != needed[distinct - 1])) {
+                needed[distinct++] = needed[i];
+            }
+        }
+        final int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(numbers, 1)));
+        select(scratch, 0, numbers, needed, 0, distinct, depthLimit);
+
+        for (int q = 0; q < probabilities.length; q++) {
+            final double position = (count - 1) * probabilities[q];
+            final int below = (int) Math.floor(position);
+            final double fraction = position - below;
+            final double low = below < numbers ? scratch[below] : Double.NaN;
+            if (fraction == 0.0) {
+                quantiles[q] = low;
+                continue;
+            }
+            final double high = below + 1 < numbers ? scratch[below + 1] : Double.NaN;
+            quantiles[q] = low == high ? low : low * (1 - fraction) + high * fraction;
+        }
+        return quantiles;
+    }
+
+    /**
+     * Moves the values of the given ranks within [from, to) to their sorted positions.
+     * Past the depth limit the remaining range is sorted, which bounds the worst case at O(n log n).
+     */
+    private static void select(final double[] values, int from, int to, final int[] ranks, int firstRank,
+                               int endRank, int depth) {
+        while (firstRank < endRank) {
+            if (to - from <= 16 || depth == 0) {
+                Arrays.sort(values, from, to);
+                return;
+            }
+            depth--;
+            final double pivot = pivot(values, from, to);
+            // [from, less) < pivot, then [less, atMost) == pivot, then [atMost, to) > pivot
+            final int less = partition(values, from, to, pivot, false);
+            final int upperRanks = firstRankAtLeast(ranks, firstRank, endRank, less);
+            if (upperRanks == endRank) {
+                to = less;
+                continue;
+            }
+            // the values equal to the pivot are only split off when a rank lies above them
+            final int atMost = partition(values, less, to, pivot, true);
+            final int greaterRanks = firstRankAtLeast(ranks, upperRanks, endRank, atMost);
+            select(values, from, less, ranks, firstRank, upperRanks, depth);
+            from = atMost;
+            firstRank = greaterRanks;
         }
+    }
+
+    /**
+     * Moves the values below the pivot, or with orEqual the values at most the pivot, to the front of
+     * [from, to). Every value is swapped and the boundary advanced by the outcome of the comparison, as
+     * jumps on comparisons of unordered data would mostly be mispredicted.
+     * @return the end of the values moved to the front
+     */
+    private static int partition(final double[] values, final int from, final int to, final double pivot,
+                                 final boolean orEqual) {
+        int boundary = from;
+        if (orEqual) {
+            for (int i = from; i < to; i++) {
+                final double value = values[i];
+                values[i] = values[boundary];
+                values[boundary] = value;
+                boundary += value <= pivot ? 1 : 0;
+            }
+        }
+        else {
+            for (int i = from; i < to; i++) {
+                final double value = values[i];
+                values[i] = values[boundary];
+                values[boundary] = value;
+                boundary += value < pivot ? 1 : 0;
+            }
+        }
+        return boundary;
+    }
+
+    private static int firstRankAtLeast(final int[] ranks, int from, final int to, final int rank) {
+        while (from < to && ranks[from] < rank) {
+            from++;
+        }
+        return from;
+    }
 
-        int size = sorted.size();
-        if (size % 2 == 0) {
-            // Even count: average of two middle values
-            return (sorted.get(size / 2 - 1) + sorted.get(size / 2)) / 2.0;
-        } else {
-            // Odd count: middle value
-            return sorted.get(size / 2);
+    /**
+     * Median of three samples, or for large ranges the median of three such medians (Tukey's ninther).
+     */
+    private static double pivot(final double[] values, final int from, final int to) {
+        final int last = to - 1;
+        final int middle = (from + last) >>> 1;
+        if (to - from < 1024) {
+            return median(values[from], values[middle], values[last]);
         }
+        final int step = (to - from) / 8;
+        return median(median(values[from], values[from + step], values[from + 2 * step]),
+                median(values[middle - step], values[middle], values[middle + step]),
+                median(values[last - 2 * step], values[last - step], values[last]));
+    }
+
+    private static double median(final double a, final double b, final double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
     }
 
     /**
@@ -174,6 +336,52 @@ public class StatisticsCalculator {
                 .count();
     }
 
+    /**
+     * Calculate count, null count, mean, variance, min, max, sum and sum of squares in one pass.
+     * The mean and variance are updated with Welford's method, which stays accurate when the values
+     * are large compared to their spread. Null values are skipped a run at a time using the mask.
+     *
+     * @param values the values; entries at null positions are ignored
+     * @param nulls positions of null values (may be null when there are none)
+     * @return the statistics; mean, min and max are 0.0 and the variance is 0.0 if there are too few values
+     */
+    public static ColumnStatistics summarize(final double[] values, final BitSet nulls) {
+        final int size = values.length;
+        long count = 0;
+        double mean = 0.0;
+        double squaredDifferences = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0.0;
+        double sumOfSquares = 0.0;
+
+        int start = nulls == null ? 0 : nulls.nextClearBit(0);
+        while (start < size) {
+            int end = nulls == null ? -1 : nulls.nextSetBit(start);
+            if (end < 0 || end > size) {
+                end = size;
+            }
+            for (int i = start; i < end; i++) {
+                final double value = values[i];
+                count++;
+                final double delta = value - mean;
+                mean += delta / count;
+                squaredDifferences += delta * (value - mean);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                sum += value;
+                sumOfSquares += value * value;
+            }
+            start = end < size ? nulls.nextClearBit(end) : size;
+        }
+
+        if (count == 0) {
+            return new ColumnStatistics(0, size, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+        final double variance = count > 1 ? squaredDifferences / (count - 1) : 0.0;
+        return new ColumnStatistics(count, size - count, mean, variance, min, max, sum, sumOfSquares);
+    }
+
     /**
      * Calculate the z-score for a value.
      * Z-score indicates how many standard deviations a value is from the mean.
@@ -264,6 +472,62 @@ public class StatisticsCalculator {
         return numerator / denominator;
     }
 
+    /**
+     * Calculate the Pearson correlation coefficient of two columns held in primitive arrays, with
+     * pairwise deletion: only positions where neither value is null are included. The arrays are
+     * read in place, two passes over the positions that are valid in both.
+     *
+     * @param x first variable values; entries at null positions are ignored
+     * @param xNulls positions of null values in x (may be null when there are none)
+     * @param y second variable values; entries at null positions are ignored
+     * @param yNulls positions of null values in y (may be null when there are none)
+     * @return Correlation coefficient, or 0.0 if calculation not possible
+     */
+    public static double calculatePearsonCorrelation(final double[] x, final BitSet xNulls,
+                                                     final double[] y, final BitSet yNulls) {
+        if (x == null || y == null || x.length != y.length || x.length == 0) {
+            return 0.0;
+        }
+        final BitSet valid = new BitSet(x.length);
+        valid.set(0, x.length);
+        if (xNulls != null) {
+            valid.andNot(xNulls);
+        }
+        if (yNulls != null) {
+            valid.andNot(yNulls);
+        }
+        final int n = valid.cardinality();
+        if (n == 0) {
+            return 0.0;
+        }
+
+        double sumX = 0.0;
+        double sumY = 0.0;
+        for (int i = valid.nextSetBit(0); i >= 0; i = valid.nextSetBit(i + 1)) {
+            sumX += x[i];
+            sumY += y[i];
+        }
+        final double meanX = sumX / n;
+        final double meanY = sumY / n;
+
+        double numerator = 0.0;
+        double sumSquaredDiffX = 0.0;
+        double sumSquaredDiffY = 0.0;
+        for (int i = valid.nextSetBit(0); i >= 0; i = valid.nextSetBit(i + 1)) {
+            final double diffX = x[i] - meanX;
+            final double diffY = y[i] - meanY;
+            numerator += diffX * diffY;
+            sumSquaredDiffX += diffX * diffX;
+            sumSquaredDiffY += diffY * diffY;
+        }
+
+        final double denominator = Math.sqrt(sumSquaredDiffX * sumSquaredDiffY);
+        if (denominator == 0) {
+            return 0.0;
+        }
+        return numerator / denominator;
+    }
+
     /**
      * Identify outliers in a dataset using z-score method.
      * Null values are excluded from outlier detection.
@@ -304,6 +568,109 @@ public class StatisticsCalculator {
         return outliers;
     }
 
+    /**
+     * Identify outliers using statistics already calculated by {@link #summarize(double[], BitSet)},
+     * so the values are read only once more.
+     * @param values the values; entries at null positions are ignored
+     * @param nulls positions of null values (may be null when there are none)
+     * @param statistics the statistics of the values
+     * @param threshold Z-score threshold for outlier detection (typically 3.0)
+     * @return List of OutlierInfo objects containing index, value, and z-score
+     */
+    public static List<OutlierInfo> detectOutliers(final double[] values, final BitSet nulls,
+                                                   final ColumnStatistics statistics, final double threshold) {
+        final List<OutlierInfo> outliers = new ArrayList<>();
+        final double mean = statistics.getMean();
+        final double stdDev = statistics.getStandardDeviation();
+        if (stdDev == 0) {
+            // No variation in data, no outliers
+            return outliers;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (nulls != null && nulls.get(i)) {
+                continue;
+            }
+            final double zScore = calculateZScore(values[i], mean, stdDev);
+            if (isOutlier(zScore, threshold)) {
+                outliers.add(new OutlierInfo(i, values[i], zScore));
+            }
+        }
+        return outliers;
+    }
+
+    /**
+     * Compute a 64-bit fingerprint of the data a report is computed from: the column names in order,
+     * every value (null distinct from any number) and the row indices. Equal data gives an equal
+     * fingerprint, so a stored report whose fingerprint differs was computed from other data.
+     *
+     * @param numericColumns values by column name, in iteration order
+     * @param rowIndices dataset rows the values come from (may be null)
+     * @return the fingerprint
+     */
+    public static long fingerprint(final Map<String, NumericValues> numericColumns, final List<Integer> rowIndices) {
+        long hash = 0x6A09E667F3BCC909L;
+        for (Map.Entry<String, NumericValues> column : numericColumns.entrySet()) {
+            hash = mix(hash, column.getKey().hashCode());
+            final NumericValues values = column.getValue();
+            hash = mix(hash, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                // doubleToLongBits never returns this non-canonical NaN, so null differs from every number
+                hash = mix(hash, values.isNull(i) ? NULL_BITS : Double.doubleToLongBits(values.getDouble(i)));
+            }
+        }
+        hash = mix(hash, rowIndices == null ? -1 : rowIndices.size());
+        if (rowIndices != null) {
+            for (final Integer row : rowIndices) {
+                hash = mix(hash, row);
+            }
+        }
+        return hash;
+    }
+
+    static long mix(final long hash, final long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Result of {@link #summarize(double[], BitSet)}.
+     */
+    public static class ColumnStatistics {
+        private final long count;
+        private final long nullCount;
+        private final double mean;
+        private final double variance;
+        private final double min;
+        private final double max;
+        private final double sum;
+        private final double sumOfSquares;
+
+        public ColumnStatistics(final long count, final long nullCount, final double mean, final double variance,
+                                final double min, final double max, final double sum, final double sumOfSquares) {
+            this.count = count;
+            this.nullCount = nullCount;
+            this.mean = mean;
+            this.variance = variance;
+            this.min = min;
+            this.max = max;
+            this.sum = sum;
+            this.sumOfSquares = sumOfSquares;
+        }
+
+        /** @return number of non-null values */
+        public long getCount() { return count; }
+        public long getNullCount() { return nullCount; }
+        public double getMean() { return mean; }
+        /** @return sample variance, with n - 1 in the denominator */
+        public double getVariance() { return variance; }
+        public double getStandardDeviation() { return Math.sqrt(variance); }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+        public double getSum() { return sum; }
+        public double getSumOfSquares() { return sumOfSquares; }
+    }
+
     /**
      *
      * Simple data class to hold outlier information.
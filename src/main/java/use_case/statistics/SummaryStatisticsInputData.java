@@ -2,7 +2,10 @@ package use_case.statistics;
 
 import java.util.List;
 
+import entity.ColumnFilter;
 import entity.DataSubsetSpec;
+import entity.RowPredicate;
+import entity.RowSelection;
 
 /**
  * Input data for the Summary Statistics Use Case.
@@ -28,8 +31,79 @@ public class SummaryStatisticsInputData {
             final String datasetId,
             final List<String> columnNames,
             final List<Integer> rowIndices) {
+        this(dataSubsetId, reportName, datasetId, columnNames, rowIndices, List.of());
+    }
+
+    /**
+     * Constructor for statistics over the rows that match every filter.
+     *
+     * @param dataSubsetId unique identifier for this data subset
+     * @param reportName name of the report to be generated
+     * @param datasetId dataset identifier (primitive)
+     * @param columnNames columns to analyze (primitive)
+     * @param rowIndices candidate rows (primitive)
+     * @param filters conditions a row must satisfy to be included
+     * @throws IllegalArgumentException if any required parameter is null or invalid
+     */
+    public SummaryStatisticsInputData(
+            final int dataSubsetId,
+            final String reportName,
+            final String datasetId,
+            final List<String> columnNames,
+            final List<Integer> rowIndices,
+            final List<ColumnFilter> filters) {
+        validate(reportName, datasetId, columnNames, rowIndices);
+        this.dataSubsetId = dataSubsetId;
+        this.reportName = reportName;
+        // Create entity internally - Controller doesn't need to know about entities
+        this.dataSubsetSpec = new DataSubsetSpec(datasetId, columnNames, rowIndices, filters);
+    }
 
-        // Validation
+    /**
+     * Constructor for statistics over a row selection, such as every row of the dataset.
+     *
+     * @param dataSubsetId unique identifier for this data subset
+     * @param reportName name of the report to be generated
+     * @param datasetId dataset identifier (primitive)
+     * @param columnNames columns to analyze (primitive)
+     * @param rowSelection rows to include
+     * @throws IllegalArgumentException if any required parameter is null or invalid
+     */
+    public SummaryStatisticsInputData(
+            final int dataSubsetId,
+            final String reportName,
+            final String datasetId,
+            final List<String> columnNames,
+            final RowSelection rowSelection) {
+        this(dataSubsetId, reportName, datasetId, columnNames, rowSelection, null);
+    }
+
+    /**
+     * Constructor for statistics over the rows of a selection that match a predicate.
+     *
+     * @param dataSubsetId unique identifier for this data subset
+     * @param reportName name of the report to be generated
+     * @param datasetId dataset identifier (primitive)
+     * @param columnNames columns to analyze (primitive)
+     * @param rowSelection candidate rows
+     * @param predicate condition a row must satisfy to be included, or null for every candidate row
+     * @throws IllegalArgumentException if any required parameter is null or invalid
+     */
+    public SummaryStatisticsInputData(
+            final int dataSubsetId,
+            final String reportName,
+            final String datasetId,
+            final List<String> columnNames,
+            final RowSelection rowSelection,
+            final RowPredicate predicate) {
+        validate(reportName, datasetId, columnNames, rowSelection == null ? null : rowSelection.asList());
+        this.dataSubsetId = dataSubsetId;
+        this.reportName = reportName;
+        this.dataSubsetSpec = DataSubsetSpec.of(datasetId, columnNames, rowSelection).where(predicate);
+    }
+
+    private static void validate(final String reportName, final String datasetId, final List<String> columnNames,
+                                 final List<Integer> rowIndices) {
         if (reportName == null || reportName.trim().isEmpty()) {
             throw new IllegalArgumentException(
                     "Report name cannot be null or empty");
@@ -46,11 +120,6 @@ public class SummaryStatisticsInputData {
             throw new IllegalArgumentException(
                     "Row indices cannot be empty");
         }
-
-        this.dataSubsetId = dataSubsetId;
-        this.reportName = reportName;
-        // Create entity internally - Controller doesn't need to know about entities
-        this.dataSubsetSpec = new DataSubsetSpec(datasetId, columnNames, rowIndices);
     }
 
     public int getDataSubsetId() {
@@ -1,13 +1,21 @@
 package use_case.statistics;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import entity.*;
+import use_case.dataset.CurrentTableGateway;
 import use_case.visualization.gateway.DataSubsetGateway;
 import use_case.visualization.gateway.SummaryReportGateway;
 import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.data.NumericValues;
 
 /**
  * The Summary Statistics Interactor
@@ -19,14 +27,34 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
     private final DataSubsetGateway dataSubsetGateway;
     private final SummaryReportGateway summaryReportGateway;
     private final SummaryStatisticsOutputBoundary summaryStatisticsPresenter;
+    private final CurrentTableGateway currentTableGateway;
+    // versions of each dataset whose stored report this interactor saved or checked against the values
+    private final Map<DataSet, Set<Long>> checkedVersions = new WeakHashMap<>();
     private final static double OUTLIER_Z_SCORE_THRESHOLD = 3.0;
+    private final static List<MetricType> COLUMN_METRICS = List.of(MetricType.MEAN, MetricType.MEDIAN,
+            MetricType.STANDARD_DEVIATION, MetricType.MIN, MetricType.MAX, MetricType.COUNT,
+            MetricType.P90, MetricType.P99);
 
     public SummaryStatisticsInteractor(DataSubsetGateway dataSubsetGateway,
                                        SummaryReportGateway summaryReportGateway,
                                        SummaryStatisticsOutputBoundary presenter) {
+        this(dataSubsetGateway, summaryReportGateway, presenter, null);
+    }
+
+    /**
+     * Creates the interactor.
+     * @param currentTableGateway holder of the dataset the subsets are read from, whose version keys the
+     *                            stored reports; null if the subsets come from elsewhere, so that no stored
+     *                            report is reused
+     */
+    public SummaryStatisticsInteractor(DataSubsetGateway dataSubsetGateway,
+                                       SummaryReportGateway summaryReportGateway,
+                                       SummaryStatisticsOutputBoundary presenter,
+                                       CurrentTableGateway currentTableGateway) {
         this.dataSubsetGateway = dataSubsetGateway;
         this.summaryReportGateway = summaryReportGateway;
         this.summaryStatisticsPresenter = presenter;
+        this.currentTableGateway = currentTableGateway;
     }
 
     @Override
@@ -36,6 +64,9 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
             validateInput(input);
 
             final DataSubsetSpec subset = input.getDataSubsetSpec();
+            // read before the subset, so that an edit made meanwhile leaves the key older than the values
+            final DataSet dataSet = currentTableGateway == null ? null : currentTableGateway.load();
+            final long dataVersion = dataSet == null ? 0 : dataVersion(dataSet, subset);
 
             // Step 2: Load the data subset
             final DataSubsetData subsetData;
@@ -50,13 +81,32 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
             }
 
             // Step 3: Verify we have numeric data
-            if (subsetData.getNumericColumns().isEmpty()) {
+            if (subsetData.getNumericValues().isEmpty()) {
                 summaryStatisticsPresenter.prepareFailView("No numeric columns found for statistical analysis");
                 return;
             }
 
-            // Step 4: Calculate all summary metrics
-            final List<SummaryMetric> metrics = calculateAllMetrics(subset, subsetData);
+            // Step 4: Reuse the metrics of a report stored for this version of the data, or calculate them
+            List<SummaryMetric> metrics = null;
+            Long fingerprint = null;
+            if (dataSet != null) {
+                final SummaryReport storedReport = summaryReportGateway.getByDataVersion(dataVersion);
+                final Long storedFingerprint = summaryReportGateway.getFingerprint(dataVersion);
+                if (storedReport != null && storedFingerprint != null
+                        && subset.equals(storedReport.getSelectedSubset())) {
+                    // edit counts only name the same values within one dataset; a report saved for another
+                    // dataset or in an earlier run is checked against the values once
+                    fingerprint = isChecked(dataSet, dataVersion)
+                            ? storedFingerprint
+                            : Long.valueOf(fingerprint(subset, subsetData));
+                    if (fingerprint.equals(storedFingerprint)) {
+                        metrics = reuseMetrics(storedReport.getSummaryMetrics(), subset);
+                    }
+                }
+            }
+            if (metrics == null) {
+                metrics = calculateAllMetrics(subset, subsetData);
+            }
 
             // Step 5: Create SummaryReport entity
             final SummaryReport report = new SummaryReport(
@@ -67,7 +117,15 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
             );
 
             // Step 6: Save the report
-            summaryReportGateway.save(report);
+            if (dataSet != null) {
+                if (fingerprint == null) {
+                    fingerprint = fingerprint(subset, subsetData);
+                }
+                summaryReportGateway.save(report, dataVersion, fingerprint);
+                markChecked(dataSet, dataVersion);
+            } else {
+                summaryReportGateway.save(report);
+            }
 
             // Step 7: Create and send output data
             final SummaryStatisticsOutputData outputData = new SummaryStatisticsOutputData(report);
@@ -111,16 +169,34 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
     private List<SummaryMetric> calculateAllMetrics(DataSubsetSpec subset, DataSubsetData subsetData) {
         final List<SummaryMetric> metrics = new ArrayList<>();
 
-        final Map<String, List<Double>> numericColumns = subsetData.getNumericColumns();
-        final List<String> columnNames = new ArrayList<>(numericColumns.keySet());
+        final Map<String, NumericValues> numericValues = subsetData.getNumericValues();
+        final List<String> columnNames = new ArrayList<>(numericValues.keySet());
+        final List<Integer> rowIndices = subsetData.getRowIndices(subset.getRowIndices());
 
-        // Calculate metrics for each numeric column
-        for (String columnName : columnNames) {
-            metrics.addAll(calculateColumnMetrics(subset, columnName, numericColumns.get(columnName)));
+        // Each column is copied to a primitive array once; its statistics take a single pass, and the
+        // correlation matrix reads the same arrays
+        final double[][] columnValues = new double[columnNames.size()][];
+        final BitSet[] columnNulls = new BitSet[columnNames.size()];
+        final List<OutlierPoint> outliers = new ArrayList<>();
+        for (int colIdx = 0; colIdx < columnNames.size(); colIdx++) {
+            final String columnName = columnNames.get(colIdx);
+            final NumericValues column = numericValues.get(columnName);
+            if (column == null || column.size() == 0) {
+                columnValues[colIdx] = new double[0];
+                columnNulls[colIdx] = new BitSet();
+                continue;
+            }
+            final double[] values = column.toArray();
+            final BitSet nulls = column.getNullMask();
+            columnValues[colIdx] = values;
+            columnNulls[colIdx] = nulls;
+            final StatisticsCalculator.ColumnStatistics statistics = StatisticsCalculator.summarize(values, nulls);
+
+            metrics.addAll(calculateColumnMetrics(subset, columnName, values, nulls, statistics));
+            outliers.addAll(detectOutliers(rowIndices, colIdx, columnName, values, nulls, statistics));
         }
 
-        // Calculate outliers across all numeric columns
-        final List<OutlierPoint> outliers = detectOutliers(subset, numericColumns);
+        // Outliers across all numeric columns
         if (!outliers.isEmpty()) {
             metrics.add(new OutlierSummaryMetric(
                     MetricType.OUTLIERS,
@@ -132,7 +208,7 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
 
         // Calculate correlation matrix if multiple numeric columns exist
         if (columnNames.size() > 1) {
-            final double[][] correlationMatrix = calculateCorrelationMatrix(numericColumns, columnNames);
+            final double[][] correlationMatrix = calculateCorrelationMatrix(columnValues, columnNulls);
             metrics.add(new CorrelationMatrixMetric(
                     MetricType.CORRELATION_MATRIX,
                     subset,
@@ -144,17 +220,73 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
         return metrics;
     }
 
-    private List<SummaryMetric> calculateColumnMetrics(DataSubsetSpec subset, String columnName, List<Double> values) {
+    /**
+     * Keys the stored reports by the edit count of the dataset and the subset, so that finding the report of
+     * unchanged data does not read the values.
+     */
+    private static long dataVersion(DataSet dataSet, DataSubsetSpec subset) {
+        return StatisticsCalculator.mix(StatisticsCalculator.mix(0x6A09E667F3BCC909L, dataSet.getVersion()),
+                subset.hashCode());
+    }
+
+    private synchronized boolean isChecked(DataSet dataSet, long dataVersion) {
+        final Set<Long> versions = checkedVersions.get(dataSet);
+        return versions != null && versions.contains(dataVersion);
+    }
+
+    private synchronized void markChecked(DataSet dataSet, long dataVersion) {
+        checkedVersions.computeIfAbsent(dataSet, key -> new HashSet<>()).add(dataVersion);
+    }
+
+    private static long fingerprint(DataSubsetSpec subset, DataSubsetData subsetData) {
+        return StatisticsCalculator.fingerprint(subsetData.getNumericValues(),
+                subsetData.getRowIndices(subset.getRowIndices()));
+    }
+
+    /**
+     * Rebuilds the metrics of a report stored for the same data against the current subset, so that they
+     * never carry a spec decoded from the store.
+     * @return the metrics, or null if the stored report lacks a metric calculateAllMetrics would add
+     */
+    private List<SummaryMetric> reuseMetrics(List<SummaryMetric> storedMetrics, DataSubsetSpec subset) {
+        final Map<String, EnumSet<MetricType>> columnMetrics = new HashMap<>();
+        final List<SummaryMetric> metrics = new ArrayList<>(storedMetrics.size());
+        for (SummaryMetric metric : storedMetrics) {
+            if (metric instanceof ScalarSummaryMetrics) {
+                final String columnName = metric.getSelectedSubset().getColumnNames().get(0);
+                columnMetrics.computeIfAbsent(columnName, name -> EnumSet.noneOf(MetricType.class))
+                        .add(metric.getMetricType());
+                metrics.add(new ScalarSummaryMetrics(metric.getMetricType(),
+                        createColumnSubset(subset, columnName),
+                        ((ScalarSummaryMetrics) metric).getMetricValue()));
+            } else if (metric instanceof OutlierSummaryMetric) {
+                final OutlierSummaryMetric outliers = (OutlierSummaryMetric) metric;
+                metrics.add(new OutlierSummaryMetric(outliers.getMetricType(), subset,
+                        outliers.getOutlier_z_score_threshold(), outliers.getOutlier_points()));
+            } else if (metric instanceof CorrelationMatrixMetric) {
+                final CorrelationMatrixMetric correlation = (CorrelationMatrixMetric) metric;
+                metrics.add(new CorrelationMatrixMetric(correlation.getMetricType(), subset,
+                        correlation.getCorrelationMatrix(), correlation.getVariableNames()));
+            } else {
+                return null;
+            }
+        }
+        for (EnumSet<MetricType> types : columnMetrics.values()) {
+            if (!types.containsAll(COLUMN_METRICS)) {
+                return null;
+            }
+        }
+        return metrics;
+    }
+
+    private List<SummaryMetric> calculateColumnMetrics(DataSubsetSpec subset, String columnName, double[] values,
+                                                       BitSet nulls, StatisticsCalculator.ColumnStatistics statistics) {
         final List<SummaryMetric> metrics = new ArrayList<>();
         final DataSubsetSpec columnSubset = createColumnSubset(subset, columnName);
 
         try {
-            if (values == null || values.isEmpty()) {
-                return metrics;
-            }
-
             // Check if there are any non-null values
-            final long nonNullCount = StatisticsCalculator.countNonNull(values);
+            final long nonNullCount = statistics.getCount();
             if (nonNullCount == 0) {
                 // All values are null - skip this column or report as no data
                 System.err.println("Warning: Column '" + columnName + "' has no valid numeric values");
@@ -162,19 +294,19 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
             }
 
             // DELEGATE ALL CALCULATIONS TO StatisticsCalculator
-            final double mean = StatisticsCalculator.calculateMean(values);
-            final double median = StatisticsCalculator.calculateMedian(values);
-            final double stdDev = StatisticsCalculator.calculateStandardDeviation(values, mean);
-            final double min = StatisticsCalculator.calculateMin(values);
-            final double max = StatisticsCalculator.calculateMax(values);
+            // one selection over a scratch copy gives all quantiles; values is left as is for the outliers
+            final double[] quantiles = StatisticsCalculator.calculateQuantiles(values, nulls, 0.5, 0.9, 0.99);
 
             // Create metric entities (interactor's job)
-            metrics.add(new ScalarSummaryMetrics(MetricType.MEAN, columnSubset, mean));
-            metrics.add(new ScalarSummaryMetrics(MetricType.MEDIAN, columnSubset, median));
-            metrics.add(new ScalarSummaryMetrics(MetricType.STANDARD_DEVIATION, columnSubset, stdDev));
-            metrics.add(new ScalarSummaryMetrics(MetricType.MIN, columnSubset, min));
-            metrics.add(new ScalarSummaryMetrics(MetricType.MAX, columnSubset, max));
+            metrics.add(new ScalarSummaryMetrics(MetricType.MEAN, columnSubset, statistics.getMean()));
+            metrics.add(new ScalarSummaryMetrics(MetricType.MEDIAN, columnSubset, quantiles[0]));
+            metrics.add(new ScalarSummaryMetrics(MetricType.STANDARD_DEVIATION, columnSubset,
+                    statistics.getStandardDeviation()));
+            metrics.add(new ScalarSummaryMetrics(MetricType.MIN, columnSubset, statistics.getMin()));
+            metrics.add(new ScalarSummaryMetrics(MetricType.MAX, columnSubset, statistics.getMax()));
             metrics.add(new ScalarSummaryMetrics(MetricType.COUNT, columnSubset, nonNullCount));
+            metrics.add(new ScalarSummaryMetrics(MetricType.P90, columnSubset, quantiles[1]));
+            metrics.add(new ScalarSummaryMetrics(MetricType.P99, columnSubset, quantiles[2]));
 
         } catch (Exception e) {
             System.err.println("Error calculating metrics for column " + columnName + ": " + e.getMessage());
@@ -187,44 +319,35 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
         return new DataSubsetSpec(
                 originalSubset.getSubsetId(),
                 List.of(columnName),
-                originalSubset.getRowIndices()
-        );
+                originalSubset.getRowIndices(),
+                originalSubset.getFilters()
+        ).where(originalSubset.getPredicate());
     }
 
     // =================
     // OUTLIER DETECTION
     // =================
 
-    private List<OutlierPoint> detectOutliers(DataSubsetSpec subset, Map<String, List<Double>> numericColumns) {
+    private List<OutlierPoint> detectOutliers(List<Integer> rowIndices, int colIdx, String columnName,
+                                              double[] values, BitSet nulls,
+                                              StatisticsCalculator.ColumnStatistics statistics) {
         final List<OutlierPoint> outliers = new ArrayList<>();
-        final List<String> columnNames = new ArrayList<>(numericColumns.keySet());
-
-        for (int colIdx = 0; colIdx < columnNames.size(); colIdx++) {
-            final String columnName = columnNames.get(colIdx);
-            final List<Double> values = numericColumns.get(columnName);
-
-            try {
-                if (values == null || values.isEmpty()) {
-                    continue;
-                }
-
-                // DELEGATE calculation to StatisticsCalculator
-                final List<StatisticsCalculator.OutlierInfo> outlierInfos =
-                        StatisticsCalculator.detectOutliers(values, OUTLIER_Z_SCORE_THRESHOLD);
+        try {
+            // DELEGATE calculation to StatisticsCalculator
+            final List<StatisticsCalculator.OutlierInfo> outlierInfos =
+                    StatisticsCalculator.detectOutliers(values, nulls, statistics, OUTLIER_Z_SCORE_THRESHOLD);
 
-                // Convert to entity format with colIndex
-                final List<Integer> rowIndices = subset.getRowIndices();
-                for (StatisticsCalculator.OutlierInfo info : outlierInfos) {
-                    final int actualRowIndex = (rowIndices != null && info.getIndex() < rowIndices.size())
-                            ? rowIndices.get(info.getIndex())
-                            : info.getIndex();
+            // Convert to entity format with colIndex
+            for (StatisticsCalculator.OutlierInfo info : outlierInfos) {
+                final int actualRowIndex = (rowIndices != null && info.getIndex() < rowIndices.size())
+                        ? rowIndices.get(info.getIndex())
+                        : info.getIndex();
 
-                    outliers.add(new OutlierPoint(actualRowIndex, colIdx, info.getZScore()));
-                }
-
-            } catch (Exception e) {
-                System.err.println("Error detecting outliers in column " + columnName + ": " + e.getMessage());
+                outliers.add(new OutlierPoint(actualRowIndex, colIdx, info.getZScore()));
             }
+
+        } catch (Exception e) {
+            System.err.println("Error detecting outliers in column " + columnName + ": " + e.getMessage());
         }
 
         return outliers;
@@ -234,8 +357,8 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
     // CORRELATION MATRIX
     // ==================
 
-    private double[][] calculateCorrelationMatrix(Map<String, List<Double>> numericColumns, List<String> columnNames) {
-        final int n = columnNames.size();
+    private double[][] calculateCorrelationMatrix(double[][] columnValues, BitSet[] columnNulls) {
+        final int n = columnValues.length;
         final double[][] matrix = new double[n][n];
 
         // Calculate correlation for each pair
@@ -244,11 +367,9 @@ public class SummaryStatisticsInteractor implements SummaryStatisticsInputBounda
                 if (i == j) {
                     matrix[i][j] = 1.0;
                 } else if (i < j) {
-                    // DELEGATE calculation to StatisticsCalculator
-                    final List<Double> valuesI = numericColumns.get(columnNames.get(i));
-                    final List<Double> valuesJ = numericColumns.get(columnNames.get(j));
-
-                    final double correlation = StatisticsCalculator.calculatePearsonCorrelation(valuesI, valuesJ);
+                    // DELEGATE calculation to StatisticsCalculator, with pairwise deletion of nulls
+                    final double correlation = StatisticsCalculator.calculatePearsonCorrelation(
+                            columnValues[i], columnNulls[i], columnValues[j], columnNulls[j]);
                     matrix[i][j] = correlation;
                     matrix[j][i] = correlation;
                 }
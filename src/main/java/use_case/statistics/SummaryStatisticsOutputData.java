@@ -107,6 +107,8 @@ public class SummaryStatisticsOutputData {
         private double min;
         private double max;
         private long count;
+        private double p90;
+        private double p99;
 
         public ColumnMetricsData(String columnName) {
             this.columnName = columnName;
@@ -132,6 +134,12 @@ public class SummaryStatisticsOutputData {
                 case COUNT:
                     this.count = (long) value;
                     break;
+                case P90:
+                    this.p90 = value;
+                    break;
+                case P99:
+                    this.p99 = value;
+                    break;
             }
         }
 
@@ -157,5 +165,11 @@ public class SummaryStatisticsOutputData {
         public long getCount() {
             return count;
         }
+        public double getP90() {
+            return p90;
+        }
+        public double getP99() {
+            return p99;
+        }
     }
 }
@@ -40,13 +40,8 @@ public class DisplayTableInteractor implements DisplayTableInputBoundary {
             headers[i] = columns.get(i).getHeader();
         }
 
-        String[][] rowData = new String[rows.size()][];
-        for (int i = 0; i < rows.size(); i++) {
-            List<String> cells = rows.get(i).getCells();
-            rowData[i] = cells.toArray(new String[0]);
-        }
-
-        final DisplayTableOutputData outputData = new DisplayTableOutputData(headers, rowData);
+        // the cells are read as the view shows them, so a table larger than the heap is never copied
+        final DisplayTableOutputData outputData = new DisplayTableOutputData(headers, dataSet);
         presenter.prepareSuccessView(outputData);
     }
 }
\ No newline at end of file
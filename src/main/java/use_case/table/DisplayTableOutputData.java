@@ -1,18 +1,40 @@
 package use_case.table;
 
+import entity.DataSet;
+
+import java.util.List;
+
+/**
+ * The table to display: its headers and the dataset whose cells are read as they are shown,
+ * so that displaying a table does not copy it.
+ */
 public class DisplayTableOutputData {
     private final String[] headers;
-    private final String[][] rowData;
+    private final DataSet dataSet;
 
-    public DisplayTableOutputData(String[] headers, String[][] rowData) {
+    public DisplayTableOutputData(String[] headers, DataSet dataSet) {
         this.headers = headers;
-        this.rowData = rowData;
+        this.dataSet = dataSet;
     }
 
     public String[] getHeaders() {
         return headers;
     }
+
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    /**
+     * Copies every row into an array of cells, which only suits small tables.
+     * @return the cells by row
+     */
     public String[][] getRowData() {
+        final String[][] rowData = new String[dataSet.getRows().size()][];
+        for (int i = 0; i < rowData.length; i++) {
+            final List<String> cells = dataSet.getRows().get(i).getCells();
+            rowData[i] = cells.toArray(new String[0]);
+        }
         return rowData;
     }
 }
@@ -0,0 +1,93 @@
+package use_case.visualization.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary-encoded values of one categorical column in a subset.
+ * Equal values share a code, so grouping and comparisons work on ints instead of strings.
+ */
+public class CategoricalCodes {
+    /**
+     * Code used for null values.
+     */
+    public static final int NULL_CODE = -1;
+
+    private final int[] codes;
+    private final List<String> dictionary;
+
+    public CategoricalCodes(int[] codes, List<String> dictionary) {
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Dictionary-encodes a list of values, assigning codes in order of first appearance.
+     * @param values the values to encode, may contain nulls
+     * @return the encoded values
+     */
+    public static CategoricalCodes encode(List<String> values) {
+        final int[] codes = new int[values.size()];
+        final List<String> dictionary = new ArrayList<>();
+        final Map<String, Integer> codesByValue = new HashMap<>();
+        for (int i = 0; i < codes.length; i++) {
+            final String value = values.get(i);
+            if (value == null) {
+                codes[i] = NULL_CODE;
+            }
+            else {
+                Integer code = codesByValue.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(value);
+                    codesByValue.put(value, code);
+                }
+                codes[i] = code;
+            }
+        }
+        return new CategoricalCodes(codes, dictionary);
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public int getCode(int index) {
+        return codes[index];
+    }
+
+    /**
+     * Returns the value for a code.
+     * @param code a dictionary code or {@link #NULL_CODE}
+     * @return the value, or null for {@link #NULL_CODE}
+     */
+    public String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        return dictionary.get(code);
+    }
+
+    public String getValue(int index) {
+        return decode(codes[index]);
+    }
+
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the codes at the given positions, sharing this dictionary.
+     * @param indices positions to keep, in order
+     * @return the selected codes
+     */
+    public CategoricalCodes select(List<Integer> indices) {
+        final int[] selected = new int[indices.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = codes[indices.get(i)];
+        }
+        return new CategoricalCodes(selected, dictionary);
+    }
+}
@@ -1,14 +1,21 @@
     package use_case.visualization.data;
 
 
+    import java.util.LinkedHashMap;
     import java.util.List;
     import java.util.Map;
 
     public class DataSubsetData {
-        // column name -> list of numeric values
-        private final Map<String, List<Double>> numericColumns;
+        // column name -> list of numeric values; built from the typed values on first use
+        private Map<String, List<Double>> numericColumns;
+        // column name -> primitive numeric values; built from the lists on first use
+        private Map<String, NumericValues> numericValues;
         // column name -> list of categorical values (as strings)
         private final Map<String, List<String>> categoricalColumns;
+        // column name -> dictionary codes of the categorical values, when the gateway provides them
+        private final Map<String, CategoricalCodes> categoricalCodes;
+        // dataset row index of each value, when filters selected rows other than the requested ones
+        private final List<Integer> rowIndices;
 
         public DataSubsetData(Map<String, List<Double>> numericColumns) {
             this(numericColumns, Map.of());
@@ -16,15 +23,129 @@
         
         public DataSubsetData(Map<String, List<Double>> numericColumns,
                              Map<String, List<String>> categoricalColumns) {
+            this(numericColumns, categoricalColumns, Map.of());
+        }
+
+        public DataSubsetData(Map<String, List<Double>> numericColumns,
+                             Map<String, List<String>> categoricalColumns,
+                             Map<String, CategoricalCodes> categoricalCodes) {
+            this(numericColumns, categoricalColumns, categoricalCodes, null);
+        }
+
+        /**
+         * Creates subset data whose values belong to the given dataset rows.
+         * @param numericColumns numeric values by column name
+         * @param categoricalColumns categorical values by column name
+         * @param categoricalCodes dictionary codes by column name
+         * @param rowIndices dataset row index of each value, or null if the values follow the requested rows
+         */
+        public DataSubsetData(Map<String, List<Double>> numericColumns,
+                             Map<String, List<String>> categoricalColumns,
+                             Map<String, CategoricalCodes> categoricalCodes,
+                             List<Integer> rowIndices) {
+            this(numericColumns, null, categoricalColumns, categoricalCodes, rowIndices);
+        }
+
+        private DataSubsetData(Map<String, List<Double>> numericColumns,
+                               Map<String, NumericValues> numericValues,
+                               Map<String, List<String>> categoricalColumns,
+                               Map<String, CategoricalCodes> categoricalCodes,
+                               List<Integer> rowIndices) {
             this.numericColumns = numericColumns;
+            this.numericValues = numericValues;
             this.categoricalColumns = categoricalColumns;
+            this.categoricalCodes = categoricalCodes;
+            this.rowIndices = rowIndices;
+        }
+
+        /**
+         * Creates subset data whose numeric columns are primitive views, so that they are
+         * neither parsed nor boxed unless a caller asks for them as lists.
+         * @param numericValues numeric values by column name
+         * @param categoricalColumns categorical values by column name
+         * @param categoricalCodes dictionary codes by column name
+         * @param rowIndices dataset row index of each value, or null if the values follow the requested rows
+         * @return the subset data
+         */
+        public static DataSubsetData ofNumericValues(Map<String, NumericValues> numericValues,
+                                                     Map<String, List<String>> categoricalColumns,
+                                                     Map<String, CategoricalCodes> categoricalCodes,
+                                                     List<Integer> rowIndices) {
+            return new DataSubsetData(null, numericValues, categoricalColumns, categoricalCodes, rowIndices);
         }
 
+        /**
+         * Returns the numeric columns as lists; for typed subsets these are read-only views
+         * that box each value when it is read.
+         * @return values by column name, null for null cells
+         */
         public Map<String, List<Double>> getNumericColumns() {
+            if (numericColumns == null) {
+                final Map<String, List<Double>> lists = new LinkedHashMap<>();
+                numericValues.forEach((name, values) -> lists.put(name, values.asList()));
+                numericColumns = lists;
+            }
             return numericColumns;
         }
+
+        /**
+         * Returns the numeric columns as primitive views, copying the lists once when the
+         * gateway did not provide typed values.
+         * @return values by column name
+         */
+        public Map<String, NumericValues> getNumericValues() {
+            if (numericValues == null) {
+                final Map<String, NumericValues> views = new LinkedHashMap<>();
+                numericColumns.forEach((name, values) -> views.put(name, NumericValues.copyOf(values)));
+                numericValues = views;
+            }
+            return numericValues;
+        }
+
+        /**
+         * Returns the primitive values of a numeric column.
+         * @param columnName name of a numeric column
+         * @return the values, or null if the column is not numeric
+         */
+        public NumericValues getValuesFor(String columnName) {
+            return getNumericValues().get(columnName);
+        }
         
         public Map<String, List<String>> getCategoricalColumns() {
             return categoricalColumns;
         }
-    }
\ No newline at end of file
+
+        public Map<String, CategoricalCodes> getCategoricalCodes() {
+            return categoricalCodes;
+        }
+
+        /**
+         * Returns the dataset row index of each value.
+         * @param requestedRows the row indices of the subset specification
+         * @return the rows the gateway selected, or the requested rows if it did not filter them
+         */
+        public List<Integer> getRowIndices(List<Integer> requestedRows) {
+            if (rowIndices == null) {
+                return requestedRows;
+            }
+            return rowIndices;
+        }
+
+        /**
+         * Returns the dictionary codes of a categorical column, encoding the string values
+         * when the gateway did not provide codes.
+         * @param columnName name of a categorical column
+         * @return the codes, or null if the column is not categorical
+         */
+        public CategoricalCodes getCodesFor(String columnName) {
+            final CategoricalCodes codes = categoricalCodes.get(columnName);
+            if (codes != null) {
+                return codes;
+            }
+            final List<String> values = categoricalColumns.get(columnName);
+            if (values == null) {
+                return null;
+            }
+            return CategoricalCodes.encode(values);
+        }
+    }
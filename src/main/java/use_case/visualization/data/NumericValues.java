@@ -0,0 +1,190 @@
+package use_case.visualization.data;
+
+import entity.NumericColumnVector;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Read-only primitive view of the values of one numeric column in a subset.
+ * The view reads straight from the column's typed vector through the selected row indices, so loading
+ * a subset neither parses nor boxes its values. Null and unparseable cells are reported by
+ * {@link #isNull(int)} instead of by exceptions; their {@link #getDouble(int)} is NaN.
+ */
+public final class NumericValues {
+    private final NumericColumnVector vector;
+    private final double[] values;
+    private final BitSet nulls;
+    // position in the backing storage of each value, or null when value i is at position i
+    private final int[] rows;
+    private final int size;
+
+    private NumericValues(NumericColumnVector vector, double[] values, BitSet nulls, int[] rows, int size) {
+        this.vector = vector;
+        this.values = values;
+        this.nulls = nulls;
+        this.rows = rows;
+        this.size = size;
+    }
+
+    /**
+     * Creates a view over rows of a column vector; the vector is read, not copied.
+     * @param vector the column's typed values
+     * @param rows the rows of the subset in order, or null for every row of the vector
+     * @return the view
+     */
+    public static NumericValues of(NumericColumnVector vector, int[] rows) {
+        return new NumericValues(vector, null, null, rows, rows == null ? vector.size() : rows.length);
+    }
+
+    /**
+     * Creates a view over values held in an array.
+     * @param values the values, used directly, not copied
+     * @param nulls positions of null values, used directly, not copied
+     * @return the view
+     */
+    public static NumericValues of(double[] values, BitSet nulls) {
+        return new NumericValues(null, values, nulls, null, values.length);
+    }
+
+    /**
+     * Copies boxed values into a primitive view.
+     * @param values the values, may contain nulls
+     * @return the view
+     */
+    public static NumericValues copyOf(List<Double> values) {
+        final double[] copy = new double[values.size()];
+        final BitSet nulls = new BitSet(copy.length);
+        for (int i = 0; i < copy.length; i++) {
+            final Double value = values.get(i);
+            if (value == null) {
+                copy[i] = Double.NaN;
+                nulls.set(i);
+            }
+            else {
+                copy[i] = value;
+            }
+        }
+        return of(copy, nulls);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int index) {
+        final int row = row(index);
+        return vector != null ? vector.isMissing(row) : nulls.get(row);
+    }
+
+    /**
+     * Returns a value.
+     * @param index position in the subset
+     * @return the value, or NaN if it is null
+     */
+    public double getDouble(int index) {
+        final int row = row(index);
+        if (vector != null) {
+            return vector.isMissing(row) ? Double.NaN : vector.getDouble(row);
+        }
+        return nulls.get(row) ? Double.NaN : values[row];
+    }
+
+    public int countNulls() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (isNull(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the positions of the null values.
+     * @return a new bitmap with a bit set for every null value
+     */
+    public BitSet getNullMask() {
+        final BitSet mask = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (isNull(i)) {
+                mask.set(i);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the values at the given positions as a view over the same storage.
+     * @param indices positions to keep, in order
+     * @return the selected values
+     */
+    public NumericValues select(List<Integer> indices) {
+        final int[] selected = new int[indices.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = indices.get(i);
+        }
+        return select(selected);
+    }
+
+    /**
+     * Returns the values at the given positions as a view over the same storage.
+     * @param indices positions to keep, in order; the array is used directly when this view has no row map
+     * @return the selected values
+     */
+    public NumericValues select(int[] indices) {
+        int[] selected = indices;
+        if (rows != null) {
+            selected = new int[indices.length];
+            for (int i = 0; i < selected.length; i++) {
+                selected[i] = rows[indices[i]];
+            }
+        }
+        return new NumericValues(vector, values, nulls, selected, selected.length);
+    }
+
+    /**
+     * Copies the values into a new array, for calculations that make several passes over them.
+     * @return the values in order, NaN for null values
+     */
+    public double[] toArray() {
+        final double[] copy = new double[size];
+        if (vector == null && rows == null) {
+            System.arraycopy(values, 0, copy, 0, size);
+            for (int i = nulls.nextSetBit(0); i >= 0 && i < size; i = nulls.nextSetBit(i + 1)) {
+                copy[i] = Double.NaN;
+            }
+            return copy;
+        }
+        for (int i = 0; i < size; i++) {
+            copy[i] = getDouble(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the values as a read-only list; a value is boxed only when it is read.
+     * @return list view with null for null values
+     */
+    public List<Double> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Double get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+                }
+                return isNull(index) ? null : getDouble(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int row(int index) {
+        return rows == null ? index : rows[index];
+    }
+}
@@ -22,4 +22,31 @@ public interface SummaryReportGateway {
      * @param report the report to save
      */
     void save(SummaryReport report);
+
+    /**
+     * Save or update a SummaryReport together with the version of the data it was computed from,
+     * so that it can be reused while that data does not change, and a fingerprint of that data, so that
+     * a reader that cannot tell whether a version still names the same data can check it.
+     *
+     * @param report the report to save
+     * @param dataVersion key of the version of the data the report was computed from
+     * @param fingerprint hash of the values the report was computed from
+     */
+    void save(SummaryReport report, long dataVersion, long fingerprint);
+
+    /**
+     * Retrieve the most recently saved report that was computed from the given version of the data.
+     *
+     * @param dataVersion fingerprint of the data
+     * @return the SummaryReport, or null if not found
+     */
+    SummaryReport getByDataVersion(long dataVersion);
+
+    /**
+     * Retrieve the fingerprint saved with the report that {@link #getByDataVersion} returns.
+     *
+     * @param dataVersion key of the version of the data
+     * @return the fingerprint, or null if no report was saved with that version
+     */
+    Long getFingerprint(long dataVersion);
 }
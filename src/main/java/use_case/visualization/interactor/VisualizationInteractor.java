@@ -3,7 +3,9 @@ package use_case.visualization.interactor;
 
 import entity.*;
 
+import use_case.visualization.data.CategoricalCodes;
 import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.data.NumericValues;
 import use_case.visualization.gateway.*;
 import use_case.visualization.io.*;
 import use_case.visualization.model.*;
@@ -91,41 +93,42 @@ public class VisualizationInteractor implements VisualizationInputBoundary {
      * where all selected columns have non-null values.
      * 
      * @param data the original DataSubsetData
-     * @return a new DataSubsetData with null values filtered out
+     * @return a new DataSubsetData with null values filtered out, or the data itself if it has none
      */
     private DataSubsetData filterNullValues(DataSubsetData data) {
-        Map<String, List<Double>> numericColumns = data.getNumericColumns();
+        Map<String, NumericValues> numericValues = data.getNumericValues();
         Map<String, List<String>> categoricalColumns = data.getCategoricalColumns();
         
-        // Collect all column names and their value lists
-        Map<String, List<?>> allColumns = new LinkedHashMap<>();
-        for (Map.Entry<String, List<Double>> entry : numericColumns.entrySet()) {
-            allColumns.put(entry.getKey(), entry.getValue());
-        }
-        for (Map.Entry<String, List<String>> entry : categoricalColumns.entrySet()) {
-            allColumns.put(entry.getKey(), entry.getValue());
-        }
-        
-        if (allColumns.isEmpty()) {
+        if (numericValues.isEmpty() && categoricalColumns.isEmpty()) {
             return data; // No data to filter
         }
         
         // Find the maximum length to determine number of rows
-        int maxLength = allColumns.values().stream()
-                .mapToInt(List::size)
-                .max()
-                .orElse(0);
+        int maxLength = 0;
+        for (NumericValues values : numericValues.values()) {
+            maxLength = Math.max(maxLength, values.size());
+        }
+        for (List<String> values : categoricalColumns.values()) {
+            maxLength = Math.max(maxLength, values.size());
+        }
         
         if (maxLength == 0) {
             return data; // No rows to process
         }
         
-        // Find valid row indices (where all columns have non-null values)
+        // Find valid row indices (where all columns have non-null values);
+        // numeric nulls are read from the null masks without boxing
         List<Integer> validIndices = new ArrayList<>();
         for (int i = 0; i < maxLength; i++) {
             boolean isValid = true;
-            for (List<?> columnValues : allColumns.values()) {
-                if (i >= columnValues.size() || columnValues.get(i) == null) {
+            for (NumericValues values : numericValues.values()) {
+                if (i >= values.size() || values.isNull(i)) {
+                    isValid = false;
+                    break;
+                }
+            }
+            for (List<String> columnValues : categoricalColumns.values()) {
+                if (!isValid || i >= columnValues.size() || columnValues.get(i) == null) {
                     isValid = false;
                     break;
                 }
@@ -135,13 +138,14 @@ public class VisualizationInteractor implements VisualizationInputBoundary {
             }
         }
         
-        // Create filtered numeric columns
-        Map<String, List<Double>> filteredNumericColumns = new LinkedHashMap<>();
-        for (Map.Entry<String, List<Double>> entry : numericColumns.entrySet()) {
-            List<Double> filteredValues = validIndices.stream()
-                    .map(entry.getValue()::get)
-                    .collect(Collectors.toList());
-            filteredNumericColumns.put(entry.getKey(), filteredValues);
+        if (validIndices.size() == maxLength) {
+            return data; // Every column is complete
+        }
+        
+        // Create filtered numeric columns as views over the same values
+        Map<String, NumericValues> filteredNumericValues = new LinkedHashMap<>();
+        for (Map.Entry<String, NumericValues> entry : numericValues.entrySet()) {
+            filteredNumericValues.put(entry.getKey(), entry.getValue().select(validIndices));
         }
         
         // Create filtered categorical columns
@@ -153,6 +157,13 @@ public class VisualizationInteractor implements VisualizationInputBoundary {
             filteredCategoricalColumns.put(entry.getKey(), filteredValues);
         }
         
-        return new DataSubsetData(filteredNumericColumns, filteredCategoricalColumns);
+        // Keep dictionary codes aligned with the filtered rows
+        Map<String, CategoricalCodes> filteredCategoricalCodes = new LinkedHashMap<>();
+        for (Map.Entry<String, CategoricalCodes> entry : data.getCategoricalCodes().entrySet()) {
+            filteredCategoricalCodes.put(entry.getKey(), entry.getValue().select(validIndices));
+        }
+        
+        return DataSubsetData.ofNumericValues(filteredNumericValues, filteredCategoricalColumns,
+                filteredCategoricalCodes, null);
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package use_case.visualization.model;
 
 import entity.*;
+import use_case.visualization.data.CategoricalCodes;
 import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.data.NumericValues;
 import use_case.visualization.io.*;
 
 
@@ -25,38 +27,43 @@ public class PointPlotVisualizationFactory implements VisualizationModelFactory
             yCols = List.of(chooseYColumn(input, subsetData, xCol));
         }
 
-        Map<String, List<Double>> numericColumns = subsetData.getNumericColumns();
         Map<String, List<String>> categoricalColumns = subsetData.getCategoricalColumns();
         
         // Handle X-axis: can be numeric or categorical
-        List<Double> xVals;
+        double[] xVals;
         List<String> xCategoricalVals = null;
         boolean xIsCategorical = categoricalColumns.containsKey(xCol);
         
         if (xIsCategorical) {
             xCategoricalVals = categoricalColumns.get(xCol);
-            // Convert categorical to numeric positions for plotting
-            Map<String, Double> categoryToNumeric = new LinkedHashMap<>();
+            // Convert categorical to numeric positions (in order of first appearance) by code
+            CategoricalCodes xCodes = subsetData.getCodesFor(xCol);
+            double[] positionByCode = new double[xCodes.getDictionary().size() + 1];
+            Arrays.fill(positionByCode, -1.0);
             double position = 0.0;
-            for (String category : xCategoricalVals) {
-                if (!categoryToNumeric.containsKey(category)) {
-                    categoryToNumeric.put(category, position++);
+            xVals = new double[xCodes.size()];
+            for (int i = 0; i < xCodes.size(); i++) {
+                int slot = xCodes.getCode(i) + 1; // slot 0 holds null values
+                if (positionByCode[slot] < 0) {
+                    positionByCode[slot] = position++;
                 }
+                xVals[i] = positionByCode[slot];
             }
-            xVals = xCategoricalVals.stream()
-                    .map(categoryToNumeric::get)
-                    .collect(java.util.stream.Collectors.toList());
         } else {
-            xVals = numericColumns.get(xCol);
-            if (xVals == null) {
+            NumericValues xValues = subsetData.getValuesFor(xCol);
+            if (xValues == null) {
                 throw new IllegalArgumentException("X column not found: " + xCol);
             }
+            xVals = new double[xValues.size()];
+            for (int i = 0; i < xVals.length; i++) {
+                xVals[i] = xValues.getDouble(i);
+            }
         }
 
-        // Get color grouping values if specified
-        List<String> colorByVals = null;
+        // Get color grouping codes if specified
+        CategoricalCodes colorByCodes = null;
         if (colorByCol != null && categoricalColumns.containsKey(colorByCol)) {
-            colorByVals = categoricalColumns.get(colorByCol);
+            colorByCodes = subsetData.getCodesFor(colorByCol);
         }
         
         // Create data points for each y-column, grouped by color if specified
@@ -64,34 +71,43 @@ public class PointPlotVisualizationFactory implements VisualizationModelFactory
         List<DataPoint> firstYColumnPoints = null;
         
         for (String yCol : yCols) {
-            List<Double> yVals = numericColumns.get(yCol);
+            NumericValues yVals = subsetData.getValuesFor(yCol);
             if (yVals == null) {
                 throw new IllegalArgumentException("Y column not found: " + yCol);
             }
             
-            int n = Math.min(xVals.size(), yVals.size());
+            int n = Math.min(xVals.length, yVals.size());
             
             // If color grouping, create separate series for each group
-            if (colorByVals != null && colorByVals.size() == n) {
-                // Group by color category
-                Map<String, List<DataPoint>> groupedPoints = new LinkedHashMap<>();
+            if (colorByCodes != null && colorByCodes.size() == n) {
+                // Group by color category code, keeping groups in order of first appearance
+                List<List<DataPoint>> pointsBySlot = new ArrayList<>(
+                        Collections.nCopies(colorByCodes.getDictionary().size() + 1, null));
+                List<Integer> slotOrder = new ArrayList<>();
                 
                 for (int i = 0; i < n; i++) {
-                    String group = colorByVals.get(i);
-                    groupedPoints.computeIfAbsent(group, k -> new ArrayList<>())
-                            .add(new DataPoint(
-                                    xVals.get(i),
-                                    yVals.get(i),
-                                    Map.of("rowIndex", i, "yColumn", yCol, "group", group)
-                            ));
+                    int code = colorByCodes.getCode(i);
+                    int slot = code + 1; // slot 0 holds null values
+                    List<DataPoint> groupPoints = pointsBySlot.get(slot);
+                    if (groupPoints == null) {
+                        groupPoints = new ArrayList<>();
+                        pointsBySlot.set(slot, groupPoints);
+                        slotOrder.add(slot);
+                    }
+                    groupPoints.add(new DataPoint(
+                            xVals[i],
+                            yVals.getDouble(i),
+                            Map.of("rowIndex", i, "yColumn", yCol,
+                                    "group", String.valueOf(colorByCodes.decode(code)))
+                    ));
                 }
                 
                 // Create series name: "YColumn (Group)"
-                for (Map.Entry<String, List<DataPoint>> entry : groupedPoints.entrySet()) {
-                    String seriesName = yCol + " (" + entry.getKey() + ")";
-                    yColumnDataPoints.put(seriesName, entry.getValue());
+                for (int slot : slotOrder) {
+                    String seriesName = yCol + " (" + colorByCodes.decode(slot - 1) + ")";
+                    yColumnDataPoints.put(seriesName, pointsBySlot.get(slot));
                     if (firstYColumnPoints == null) {
-                        firstYColumnPoints = entry.getValue();
+                        firstYColumnPoints = pointsBySlot.get(slot);
                     }
                 }
             } else {
@@ -104,7 +120,7 @@ public class PointPlotVisualizationFactory implements VisualizationModelFactory
                     if (xCategoricalVals != null && i < xCategoricalVals.size()) {
                         metadata.put("xCategory", xCategoricalVals.get(i));
                     }
-                    dataPoints.add(new DataPoint(xVals.get(i), yVals.get(i), metadata));
+                    dataPoints.add(new DataPoint(xVals[i], yVals.getDouble(i), metadata));
                 }
                 
                 yColumnDataPoints.put(yCol, dataPoints);
@@ -116,7 +132,7 @@ public class PointPlotVisualizationFactory implements VisualizationModelFactory
         
         // Use first y-column for backward compatibility
         String firstYCol = yCols.get(0);
-        List<Double> firstYVals = numericColumns.get(firstYCol);
+        NumericValues firstYVals = subsetData.getValuesFor(firstYCol);
 
         // Build outlier points from OutlierSummaryMetric if present (using first y-column)
         List<DataPoint> outlierPoints = buildOutlierPoints(report, xVals, firstYVals);
@@ -164,9 +180,9 @@ public class PointPlotVisualizationFactory implements VisualizationModelFactory
     }
 
     private List<DataPoint> buildOutlierPoints(SummaryReport report,
-                                               List<Double> xVals,
-                                               List<Double> yVals) {
-        int n = Math.min(xVals.size(), yVals.size());
+                                               double[] xVals,
+                                               NumericValues yVals) {
+        int n = Math.min(xVals.length, yVals.size());
         List<DataPoint> outlierPoints = new ArrayList<>();
 
         OutlierSummaryMetric outlierMetric = findOutlierMetric(report);
@@ -178,8 +194,8 @@ public class PointPlotVisualizationFactory implements VisualizationModelFactory
             int rowIndex = p.getRowIndex();
             if (rowIndex >= 0 && rowIndex < n) {
                 outlierPoints.add(new DataPoint(
-                        xVals.get(rowIndex),
-                        yVals.get(rowIndex),
+                        xVals[rowIndex],
+                        yVals.getDouble(rowIndex),
                         Map.of(
                                 "rowIndex", rowIndex,
                                 "zScore", p.getZScore()
@@ -0,0 +1,93 @@
+package view;
+
+import entity.DataSet;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model that reads the cells of a dataset as the table paints them, rather than copying
+ * every row, so that only the visible rows of a large or memory-mapped dataset are touched.
+ * A value typed into a cell is shown until the edit has been cleaned into the dataset and
+ * {@link #refreshCell} is called; the dataset itself is only changed through the cleaning use case.
+ */
+final class DataSetTableModel extends AbstractTableModel {
+    private String[] headers = new String[0];
+    private DataSet dataSet;
+    // values typed into cells whose edit has not reached the dataset yet, by row and column
+    private final Map<Long, Object> typed = new HashMap<>();
+
+    /**
+     * Shows another dataset, or none.
+     * @param headers the column names
+     * @param dataSet the dataset to read cells from, or null for an empty table
+     */
+    void setDataSet(String[] headers, DataSet dataSet) {
+        this.headers = headers == null ? new String[0] : headers.clone();
+        this.dataSet = dataSet;
+        typed.clear();
+        fireTableStructureChanged();
+    }
+
+    /**
+     * Renames a column without rebuilding the table, whose header the caller repaints.
+     * @param column index of the column
+     * @param header the new name
+     */
+    void setHeader(int column, String header) {
+        headers[column] = header;
+    }
+
+    /**
+     * Shows the value of a cell as the dataset now holds it, dropping the value typed into it.
+     * @param row row index of the cell
+     * @param column column index of the cell
+     */
+    void refreshCell(int row, int column) {
+        typed.remove(key(row, column));
+        fireTableCellUpdated(row, column);
+    }
+
+    @Override
+    public int getRowCount() {
+        return dataSet == null ? 0 : dataSet.getRows().size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return headers[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return true; // Allow editing on double-click
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        final Object value = typed.get(key(row, column));
+        if (value != null) {
+            return value;
+        }
+        final List<String> cells = dataSet.getRows().get(row).getCells();
+        // short rows leave their last cells empty
+        return column < cells.size() ? cells.get(column) : null;
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        typed.put(key(row, column), value == null ? "" : value);
+        fireTableCellUpdated(row, column);
+    }
+
+    private static long key(int row, int column) {
+        return (long) row << 32 | column;
+    }
+}
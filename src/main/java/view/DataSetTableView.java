@@ -1,5 +1,6 @@
 package view;
 
+import entity.DataSet;
 import interface_adapter.cleaner.DataCleaningController;
 import interface_adapter.cleaner.DataCleaningState;
 import interface_adapter.cleaner.DataCleaningViewModel;
@@ -74,7 +75,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
     private final String viewName = "dataset table";
 
     private JTable dataTable;
-    private DefaultTableModel tableModel;
+    private DataSetTableModel tableModel;
     private JScrollPane tableScrollPane;
 
     private JMenuBar menuBar;
@@ -82,6 +83,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
     private JMenuItem loadCSVItem;
     private JMenuItem CkanItem;
     private JMenu saveMenu;
+    private JMenuItem saveItem;
     private JMenuItem saveAsItem;
     private JPanel statsPanel;
     private JTextArea statsTextArea;
@@ -115,6 +117,10 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
     private final LoadApiViewModel loadAPIViewModel;
     private final SaveDataSetViewModel saveViewModel;
     private SaveDataSetController saveController;
+    // progress bar of the save that is running, null when no save is running
+    private JProgressBar saveProgressBar;
+    // file the current dataset was loaded from or last saved to; Save writes only the edits made since
+    private String currentFilePath;
 
     // data cleaner
     private DataCleaningController dataCleaningController;
@@ -194,12 +200,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
     }
 
     private void initializeComponents() {
-        tableModel = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return true; // Allow editing on double-click
-            }
-        };
+        tableModel = new DataSetTableModel();
 
         dataTable = new JTable(tableModel);
         dataTable.setFont(new Font(FONT_NAME, Font.PLAIN, currentFontSize));
@@ -286,8 +287,13 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
 
         saveMenu = new JMenu("Save");
         saveMenu.setFont(new Font(FONT_NAME, Font.BOLD, 11));
+        saveItem = new JMenuItem("Save");
+        saveItem.setFont(new Font(FONT_NAME, Font.PLAIN, 11));
+        saveItem.setAccelerator(KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_S,
+                Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
         saveAsItem = new JMenuItem("Save Dataset...");
         saveAsItem.setFont(new Font(FONT_NAME, Font.PLAIN, 11));
+        saveMenu.add(saveItem);
         saveMenu.add(saveAsItem);
 
 
@@ -691,6 +697,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
                 colorByComboBox.addActionListener(e -> updateVisualizeButtonState());
         
 
+        saveItem.addActionListener(e -> saveEdits());
         saveAsItem.addActionListener(e -> promptSaveDialog());
 
         loadCSVItem.addActionListener(e -> {
@@ -699,6 +706,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
 
             if (result == JFileChooser.APPROVE_OPTION) {
                 File file = fileChooser.getSelectedFile();
+                currentFilePath = file.getAbsolutePath();
                 loadController.execute(file);
             }
         });
@@ -722,6 +730,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
                 @Override
                 public void actionPerformed(ActionEvent e) {
                     popup.dispose();
+                    currentFilePath = null;
                     loadAPIController.execute(nameField.getText());
                 }
             });
@@ -764,28 +773,42 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
             }
         });
 
-        saveViewModel.addPropertyChangeListener(evt -> {
-            if (!"success".equals(evt.getPropertyName())) {
-                return;
-            }
-            int messageType;
-            if (saveViewModel.isSuccess()) {
-                messageType = JOptionPane.INFORMATION_MESSAGE;
-            } else {
-                messageType = JOptionPane.ERROR_MESSAGE;
-            }
-            JOptionPane.showMessageDialog(
-                    this,
-                    saveViewModel.getMessage(),
-                    "Save Dataset",
-                    messageType
-            );
-        });
+        saveViewModel.addPropertyChangeListener(this::handleSaveEvent);
 
         // Statistics calculate button handler
         calculateStatsButton.addActionListener(e -> performCalculateStatistics());
     }
 
+    /**
+     * Handle save progress and results. Saves run on a background thread, so the view model
+     * notifies from there and the event is handed over to the EDT.
+     */
+    private void handleSaveEvent(PropertyChangeEvent evt) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> handleSaveEvent(evt));
+            return;
+        }
+        if ("progress".equals(evt.getPropertyName())) {
+            updateSaveProgress();
+            return;
+        }
+        if (!"success".equals(evt.getPropertyName())) {
+            return;
+        }
+        int messageType;
+        if (saveViewModel.isSuccess()) {
+            messageType = JOptionPane.INFORMATION_MESSAGE;
+        } else {
+            messageType = JOptionPane.ERROR_MESSAGE;
+        }
+        JOptionPane.showMessageDialog(
+                this,
+                saveViewModel.getMessage(),
+                "Save Dataset",
+                messageType
+        );
+    }
+
     /**
      * Handle when a cell edit is completed.
      */
@@ -844,7 +867,10 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
 
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save Dataset");
-        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files", "csv"));
+        FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV Files", "csv");
+        FileNameExtensionFilter compressedFilter = new FileNameExtensionFilter("Compressed CSV Files (.csv.gz)", "gz");
+        fileChooser.addChoosableFileFilter(compressedFilter);
+        fileChooser.setFileFilter(csvFilter);
 
         int userSelection = fileChooser.showSaveDialog(this);
         if (userSelection != JFileChooser.APPROVE_OPTION) {
@@ -856,8 +882,10 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
             return;
         }
 
-        if (!selectedFile.getName().toLowerCase().endsWith(".csv")) {
-            selectedFile = new File(selectedFile.getParentFile(), selectedFile.getName() + ".csv");
+        String selectedName = selectedFile.getName().toLowerCase();
+        if (!selectedName.endsWith(".csv") && !selectedName.endsWith(".csv.gz")) {
+            String suffix = fileChooser.getFileFilter() == compressedFilter ? ".csv.gz" : ".csv";
+            selectedFile = new File(selectedFile.getParentFile(), selectedFile.getName() + suffix);
         }
 
         if (selectedFile.exists()) {
@@ -873,31 +901,101 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
             }
         }
 
-        try {
-            saveController.execute(selectedFile.getAbsolutePath());
-        } catch (java.io.IOException e) {
-            JOptionPane.showMessageDialog(
-                    this,
-                    "Failed to save dataset: " + e.getMessage(),
-                    "Save Dataset",
-                    JOptionPane.ERROR_MESSAGE
-            );
+        startBackgroundSave(selectedFile.getAbsolutePath(), false);
+    }
+
+    /**
+     * Saves the edits made since the dataset was loaded or last saved to the same file,
+     * asking for a file first if there is none yet.
+     */
+    private void saveEdits() {
+        if (saveController == null || currentFilePath == null) {
+            promptSaveDialog();
+            return;
         }
+        startBackgroundSave(currentFilePath, true);
     }
 
-    private void performSearch() {
-        String searchTerm = searchField.getText().trim();
+    /**
+     * Runs the save on a worker thread so the table stays interactive, with a progress dialog
+     * that can cancel it.
+     */
+    private void startBackgroundSave(String path, boolean incremental) {
+        currentFilePath = path;
+        saveProgressBar = new JProgressBar(0, 1000);
+        saveProgressBar.setStringPainted(true);
+        saveProgressBar.setString("Starting...");
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> {
+            cancelButton.setEnabled(false);
+            saveProgressBar.setString("Cancelling...");
+            saveController.cancel();
+        });
 
-        int rowCount = dataTable.getRowCount();
-        int colCount = dataTable.getColumnCount();
-        String[][] tableData = new String[rowCount][colCount];
+        JDialog progressDialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Saving Dataset",
+                Dialog.ModalityType.MODELESS);
+        progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        JPanel content = new JPanel(new BorderLayout(10, 10));
+        content.setBorder(new EmptyBorder(12, 12, 12, 12));
+        content.add(new JLabel("Saving to " + new File(path).getName()), BorderLayout.NORTH);
+        content.add(saveProgressBar, BorderLayout.CENTER);
+        content.add(cancelButton, BorderLayout.SOUTH);
+        progressDialog.setContentPane(content);
+        progressDialog.setSize(360, 140);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setVisible(true);
+        saveItem.setEnabled(false);
+        saveAsItem.setEnabled(false);
+        // the table stays editable while the worker writes, so the save must not read it directly
+        saveController.prepare(path, incremental);
+
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                if (incremental) {
+                    saveController.saveEdits(path);
+                }
+                else {
+                    saveController.execute(path);
+                }
+                return null;
+            }
 
-        for (int i = 0; i < rowCount; i++) {
-            for (int j = 0; j < colCount; j++) {
-                Object value = dataTable.getValueAt(i, j);
-                tableData[i][j] = value != null ? value.toString() : "";
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                saveProgressBar = null;
+                saveItem.setEnabled(true);
+                saveAsItem.setEnabled(true);
+                try {
+                    get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    JOptionPane.showMessageDialog(
+                            DataSetTableView.this,
+                            "Failed to save dataset: " + e.getCause().getMessage(),
+                            "Save Dataset",
+                            JOptionPane.ERROR_MESSAGE
+                    );
+                }
             }
+        }.execute();
+    }
+
+    private void updateSaveProgress() {
+        if (saveProgressBar == null || !saveProgressBar.isEnabled()) {
+            return;
         }
+        long total = saveViewModel.getTotalRows();
+        long rows = saveViewModel.getRowsWritten();
+        saveProgressBar.setValue(total == 0 ? 1000 : (int) (rows * 1000 / total));
+        saveProgressBar.setString(String.format("%,d of %,d rows (%.1f MB)",
+                rows, total, saveViewModel.getBytesWritten() / (1024.0 * 1024.0)));
+    }
+
+    private void performSearch() {
+        String searchTerm = searchField.getText().trim();
 
         int startRow = dataTable.getSelectedRow();
         int startCol = dataTable.getSelectedColumn();
@@ -905,7 +1003,8 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
         if (startRow == -1) startRow = 0;
         if (startCol == -1) startCol = -1;
 
-        searchController.execute(searchTerm, tableData, startRow, startCol);
+        // Search the current dataset directly instead of copying the table cells
+        searchController.execute(searchTerm, startRow, startCol);
     }
 
     private void updateTableZoom() {
@@ -925,17 +1024,9 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
         dataTable.repaint();
     }
 
-    private void displayTableData(String[] headers, String[][] rowData) {
-        tableModel.setRowCount(0);
-        tableModel.setColumnCount(0);
-
-        for (String header : headers) {
-            tableModel.addColumn(header);
-        }
-
-        for (String[] row : rowData) {
-            tableModel.addRow(row);
-        }
+    private void displayTableData(String[] headers, DataSet dataSet) {
+        // cells are read from the dataset as they are painted
+        tableModel.setDataSet(headers, dataSet);
 
         int scaledWidth = (int) (DEFAULT_COLUMN_WIDTH * (currentFontSize / (double) DEFAULT_FONT_SIZE));
         for (int i = 0; i < dataTable.getColumnCount(); i++) {
@@ -1089,6 +1180,8 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
             statsTableModel.addRow(new Object[]{"  Std Dev", stats.getStandardDeviation()});
             statsTableModel.addRow(new Object[]{"  Min", stats.getMin()});
             statsTableModel.addRow(new Object[]{"  Max", stats.getMax()});
+            statsTableModel.addRow(new Object[]{"  P90", stats.getP90()});
+            statsTableModel.addRow(new Object[]{"  P99", stats.getP99()});
             statsTableModel.addRow(new Object[]{"  Count", stats.getCount()});
 
             // Add separator row
@@ -1322,8 +1415,8 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
         // Get selected column indices
         List<Integer> selectedColumnIndices = new ArrayList<>(selectedColumns);
         
-        // Get all row indices (null means all rows)
-        List<Integer> rowIndices = getAllRowIndices();
+        // All rows; the controller selects them without listing every index
+        List<Integer> rowIndices = null;
         
         // Call controller with primitive data - it will construct DataSubsetSpec and VisualizationInputData
         visualizationController.visualizeWithPrimitiveData(
@@ -1759,7 +1852,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
                             "Error",
                             JOptionPane.ERROR_MESSAGE);
                 } else {
-                    displayTableData(state.getColumnHeaders(), state.getRowData());
+                    displayTableData(state.getColumnHeaders(), state.getDataSet());
                 }
             }
             // >>> visualization: Handle VisualizationState
@@ -1821,8 +1914,8 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
                     int col = state.getLastEditedColIndex();
                     String cleanedValue = state.getLastCleanedValue();
 
-                    // Update the table with cleaned value
-                    tableModel.setValueAt(cleanedValue != null ? cleanedValue : "", row, col);
+                    // Show the cleaned value, which the dataset now holds
+                    tableModel.refreshCell(row, col);
 
                     // Show visual feedback if value was changed to null (invalid)
                     if (cleanedValue == null) {
@@ -1846,7 +1939,7 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
                         dataTable.getTableHeader().repaint();
 
                         // Update table column header
-                        tableModel.setColumnIdentifiers(getUpdatedHeaders());
+                        tableModel.setHeader(colIndex, newHeader);
                         dataTable.getTableHeader().repaint();
 
                         // Reload table to ensure changes persist
@@ -1874,24 +1967,6 @@ public class DataSetTableView extends JPanel implements PropertyChangeListener {
         }
     }
 
-    private Object[] getUpdatedHeaders() {
-        int columnCount = dataTable.getColumnCount();
-        Object[] headers = new Object[columnCount];
-        for (int i = 0; i < columnCount; i++) {
-            headers[i] = dataTable.getColumnModel().getColumn(i).getHeaderValue();
-        }
-        return headers;
-    }
-    
-    private List<Integer> getAllRowIndices() {
-        int rowCount = dataTable.getRowCount();
-        List<Integer> rowIndices = new ArrayList<>(rowCount);
-        for (int i = 0; i < rowCount; i++) {
-            rowIndices.add(i);
-        }
-        return rowIndices;
-    }
-
     public String getViewName() {
         return viewName;
     }
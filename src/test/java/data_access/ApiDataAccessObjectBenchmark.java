@@ -0,0 +1,155 @@
+package data_access;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import entity.DataSet;
+import use_case.ingestion.CsvIngestion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Measures end-to-end API load latency (search, package lookup, download and parse) against a
+ * local stub CKAN server that adds a fixed delay to every response.
+ * Compares the asynchronous gateway with the same requests made one after another over
+ * HttpURLConnection, the way the gateway used to work.
+ * Run with: java -cp target/classes:target/test-classes:json.jar data_access.ApiDataAccessObjectBenchmark
+ */
+public class ApiDataAccessObjectBenchmark {
+    private static final int LATENCY_MILLIS = 40;
+    private static final int PARTS = 4;
+    private static final int ROWS_PER_PART = 50_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final HttpServer server = startServer(executor);
+        final String root = "http://127.0.0.1:" + server.getAddress().getPort();
+        final String baseUrl = root + "/api/3/action/";
+        try {
+            final ApiDataAccessObject gateway = new ApiDataAccessObject(baseUrl);
+            final CsvIngestion ingestion = new CsvIngestion();
+
+            // warm up both paths
+            loadSequential(baseUrl, ingestion);
+            loadAsync(gateway, ingestion);
+
+            long sequential = 0;
+            long async = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                final int sequentialRows = loadSequential(baseUrl, ingestion);
+                sequential += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                final int asyncRows = loadAsync(gateway, ingestion);
+                async += System.nanoTime() - start;
+
+                if (sequentialRows != asyncRows) {
+                    throw new IllegalStateException(sequentialRows + " != " + asyncRows);
+                }
+            }
+            System.out.printf("sequential HttpURLConnection %8.1f ms%n", sequential / 1e6 / ROUNDS);
+            System.out.printf("async HttpClient             %8.1f ms%n", async / 1e6 / ROUNDS);
+        }
+        finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private static int loadAsync(ApiDataAccessObject gateway, CsvIngestion ingestion) throws IOException {
+        try (InputStream csv = gateway.openCsv("permits")) {
+            return ingestion.read(csv).getRows().size();
+        }
+    }
+
+    // the former strategy: one blocking request at a time, whole body buffered before parsing
+    private static int loadSequential(String baseUrl, CsvIngestion ingestion) throws IOException {
+        final JSONArray results = new JSONObject(fetch(baseUrl + "package_search?rows=1&q=permits"))
+                .getJSONObject("result").getJSONArray("results");
+        final List<String> urls = new ArrayList<>();
+        final JSONArray resources = new JSONObject(fetch(baseUrl + "package_show?id="
+                + results.getJSONObject(0).getString("id"))).getJSONObject("result").getJSONArray("resources");
+        for (int r = 0; r < resources.length(); r++) {
+            if ("csv".equalsIgnoreCase(resources.getJSONObject(r).optString("format"))) {
+                urls.add(resources.getJSONObject(r).getString("url"));
+            }
+        }
+        final StringBuilder csv = new StringBuilder(fetch(urls.get(0)));
+        for (int i = 1; i < urls.size(); i++) {
+            final String part = fetch(urls.get(i));
+            csv.append(part, part.indexOf('\n') + 1, part.length());
+        }
+        final DataSet table = ingestion.read(new StringReader(csv.toString()));
+        return table.getRows().size();
+    }
+
+    private static String fetch(String urlString) throws IOException {
+        final HttpURLConnection conn = (HttpURLConnection) new URL(urlString).openConnection();
+        final StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static HttpServer startServer(ExecutorService executor) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        final String root = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        final String search = "{\"result\":{\"results\":[{\"id\":\"permits\"}]}}";
+        final StringBuilder parts = new StringBuilder();
+        for (int i = 0; i < PARTS; i++) {
+            parts.append(i == 0 ? "" : ",").append("{\"format\":\"CSV\",\"name\":\"Permits part ").append(i + 1)
+                    .append("\",\"url\":\"").append(root).append("/part").append(i).append(".csv\"}");
+        }
+        final String withCsv = "{\"result\":{\"resources\":[" + parts + "]}}";
+        final StringBuilder part = new StringBuilder("ward,permit,issued,value\n");
+        for (int i = 0; i < ROWS_PER_PART; i++) {
+            part.append(i % 25).append(",P-").append(i).append(",2023-04-0").append(1 + i % 9)
+                    .append(',').append(i * 13 % 100_000).append('\n');
+        }
+        final String csv = part.toString();
+
+        server.createContext("/api/3/action/package_search", exchange -> respond(exchange, search));
+        server.createContext("/api/3/action/package_show", exchange -> respond(exchange, withCsv));
+        server.createContext("/", exchange -> respond(exchange, csv));
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        try {
+            Thread.sleep(LATENCY_MILLIS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package data_access;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ApiDataAccessObject} against a local stub CKAN server.
+ */
+class ApiDataAccessObjectTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Map<String, String> responses = new HashMap<>();
+    private boolean gzip;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            String body = responses.get(query == null ? path : path + "?" + query);
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                boolean compress = gzip && accepted != null && accepted.contains("gzip");
+                if (compress) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                // chunked, so the client cannot rely on a content length
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = compress
+                        ? new GZIPOutputStream(exchange.getResponseBody())
+                        : exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/3/action/";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void stubDataset(String resourceFormat) {
+        responses.put("/api/3/action/package_search?rows=1&q=bike+share",
+                "{\"result\":{\"results\":[{\"id\":\"pkg-1\"}]}}");
+        responses.put("/api/3/action/package_show?id=pkg-1",
+                "{\"result\":{\"resources\":[{\"format\":\"JSON\",\"url\":\"" + baseUrl + "data.json\"},"
+                        + "{\"format\":\"" + resourceFormat + "\",\"url\":\"http://127.0.0.1:"
+                        + server.getAddress().getPort() + "/data.csv\"}]}}");
+    }
+
+    @Test
+    void openCsv_streamsResourceBody() throws IOException {
+        stubDataset("CSV");
+        responses.put("/data.csv", "station,trips\n\"Bay St, Queen\",12\n");
+        ApiDataAccessObject gateway = new ApiDataAccessObject(baseUrl);
+
+        try (InputStream csv = gateway.openCsv("bike share")) {
+            assertEquals("station,trips\n\"Bay St, Queen\",12\n",
+                    new String(csv.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("station,trips\n\"Bay St, Queen\",12\n", gateway.getCsv("bike share"));
+    }
+
+    @Test
+    void openCsv_reportsMissingDatasetAndResource() {
+        responses.put("/api/3/action/package_search?rows=1&q=nothing", "{\"result\":{\"results\":[]}}");
+        ApiDataAccessObject gateway = new ApiDataAccessObject(baseUrl);
+
+        IOException notFound = assertThrows(IOException.class, () -> gateway.openCsv("nothing"));
+        assertEquals("Dataset not found.", notFound.getMessage());
+
+        stubDataset("XLSX");
+        IOException noCsv = assertThrows(IOException.class, () -> gateway.openCsv("bike share"));
+        assertEquals("Dataset found, but no CSV resource available.", noCsv.getMessage());
+        assertEquals("Dataset found, but no CSV resource available.", gateway.getCsv("bike share"));
+    }
+
+    @Test
+    void openCsv_prefixesTransportErrors() {
+        stubDataset("CSV");
+        ApiDataAccessObject gateway = new ApiDataAccessObject(baseUrl);
+
+        IOException error = assertThrows(IOException.class, () -> gateway.openCsv("bike share"));
+        assertTrue(error.getMessage().startsWith("Error: "));
+        assertTrue(gateway.getCsv("bike share").startsWith("Error: "));
+    }
+
+    @Test
+    void openCsv_decodesGzipResponses() {
+        gzip = true;
+        stubDataset("CSV");
+        responses.put("/data.csv", "a,b\n1,2\n");
+
+        assertEquals("a,b\n1,2\n", new ApiDataAccessObject(baseUrl).getCsv("bike share"));
+    }
+
+    @Test
+    void openCsv_usesTheTopSearchResult() {
+        responses.put("/api/3/action/package_search?rows=1&q=permits",
+                "{\"result\":{\"results\":[{\"id\":\"docs\"},{\"id\":\"data\"}]}}");
+        responses.put("/api/3/action/package_show?id=docs",
+                "{\"result\":{\"resources\":[{\"format\":\"PDF\",\"url\":\"" + baseUrl + "x.pdf\"}]}}");
+        responses.put("/api/3/action/package_show?id=data", packageWith("/data.csv"));
+        responses.put("/data.csv", "id\n1\n");
+
+        assertEquals("Dataset found, but no CSV resource available.", new ApiDataAccessObject(baseUrl).getCsv("permits"));
+    }
+
+    @Test
+    void openCsv_joinsNumberedPartsWithTheSameHeader() {
+        responses.put("/api/3/action/package_search?rows=1&q=permits",
+                "{\"result\":{\"results\":[{\"id\":\"data\"}]}}");
+        responses.put("/api/3/action/package_show?id=data", packageWithNamed(
+                "Permits part 2", "/2023.csv", "Permits part 1", "/2022.csv", "Permits 2952", "/2952.csv",
+                "permits - part 3", "/readme.csv", "Permits Part 4 of 4", "/2024.csv"));
+        responses.put("/2022.csv", "year,count\n2022,1\n");
+        // no trailing newline and a CRLF header in the later parts
+        responses.put("/2023.csv", "year,count\r\n2023,2");
+        responses.put("/2952.csv", "year,count\n2022,1\n");
+        responses.put("/readme.csv", "field,description\nyear,calendar year\n");
+        responses.put("/2024.csv", "year,count\n2024,3\n");
+
+        assertEquals("year,count\n2022,1\n2023,2\n2024,3\n", new ApiDataAccessObject(baseUrl).getCsv("permits"));
+    }
+
+    @Test
+    void openCsv_loadsOneOfSeveralVariantsOfATable() {
+        responses.put("/api/3/action/package_search?rows=1&q=wards",
+                "{\"result\":{\"results\":[{\"id\":\"wards\"}]}}");
+        // the same table published in two projections
+        responses.put("/api/3/action/package_show?id=wards",
+                packageWithNamed("City Wards - 4326", "/wards-4326.csv", "City Wards - 2952", "/wards-2952.csv"));
+        responses.put("/wards-4326.csv", "ward,x,y\n1,-79.38,43.65\n");
+        responses.put("/wards-2952.csv", "ward,x,y\n1,313512.1,4834121.9\n");
+
+        assertEquals("ward,x,y\n1,-79.38,43.65\n", new ApiDataAccessObject(baseUrl).getCsv("wards"));
+    }
+
+    @Test
+    void openCsv_failsWhenTheServerExceedsTheRequestTimeout() {
+        stubDataset("CSV");
+        server.createContext("/data.csv", exchange -> {
+            try {
+                Thread.sleep(2000);
+            }
+            catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        ApiDataAccessObject gateway = new ApiDataAccessObject(
+                baseUrl, Duration.ofSeconds(1), Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        String result = gateway.getCsv("bike share");
+
+        assertTrue(result.startsWith("Error: "), result);
+        assertTrue(System.nanoTime() - start < 1_500_000_000L);
+    }
+
+    private String packageWith(String path) {
+        return "{\"result\":{\"resources\":[{\"format\":\"CSV\",\"url\":\"http://127.0.0.1:"
+                + server.getAddress().getPort() + path + "\"}]}}";
+    }
+
+    private String packageWithNamed(String... namesAndPaths) {
+        StringBuilder resources = new StringBuilder();
+        for (int i = 0; i < namesAndPaths.length; i += 2) {
+            if (resources.length() > 0) {
+                resources.append(',');
+            }
+            resources.append("{\"format\":\"CSV\",\"name\":\"").append(namesAndPaths[i])
+                    .append("\",\"url\":\"http://127.0.0.1:").append(server.getAddress().getPort())
+                    .append(namesAndPaths[i + 1]).append("\"}");
+        }
+        return "{\"result\":{\"resources\":[" + resources + "]}}";
+    }
+}
@@ -0,0 +1,64 @@
+package data_access;
+
+import entity.DataSet;
+import use_case.ingestion.CsvIngestion;
+import use_case.ingestion.IngestionOptions;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares reopening a dataset from the binary columnar format with parsing the same data as CSV.
+ * Run with: java -cp target/classes:target/test-classes data_access.BinaryDataSetBenchmark [rows]
+ */
+public class BinaryDataSetBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        final Path dir = Files.createTempDirectory("binary-benchmark");
+        final Path csv = dir.resolve("data.csv");
+        final Random random = new Random(42);
+        try (Writer writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("id,ward,amount,issued,active,note\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(i + ",Ward " + random.nextInt(25) + "," + random.nextInt(100_000) / 100.0
+                        + ",2023-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + ","
+                        + random.nextBoolean() + ",Note " + random.nextInt(1000) + "\n");
+            }
+        }
+
+        final CsvIngestion ingestion = new CsvIngestion(new IngestionOptions(Runtime.getRuntime().availableProcessors()));
+        final BinaryDataSetDataAccessObject store = new BinaryDataSetDataAccessObject(dir.toString());
+        store.saveDataSet("data", ingestion.read(csv));
+        System.out.printf("csv %,d bytes, binary %,d bytes%n", Files.size(csv),
+                Files.size(dir.resolve("data" + BinaryDataSetDataAccessObject.EXTENSION)));
+
+        long parse = 0;
+        long load = 0;
+        for (int i = 0; i <= ROUNDS; i++) {
+            long start = System.nanoTime();
+            final DataSet parsed = ingestion.read(csv);
+            final long parseTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            final DataSet loaded = store.loadDataSet("data");
+            final long loadTime = System.nanoTime() - start;
+
+            if (parsed.getRows().size() != loaded.getRows().size()) {
+                throw new IllegalStateException(parsed.getRows().size() + " != " + loaded.getRows().size());
+            }
+            // the first round is warm-up
+            if (i > 0) {
+                parse += parseTime;
+                load += loadTime;
+            }
+        }
+        System.out.printf("parallel csv parse %8.1f ms%n", parse / 1e6 / ROUNDS);
+        System.out.printf("binary load        %8.1f ms%n", load / 1e6 / ROUNDS);
+    }
+}
@@ -0,0 +1,146 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnarDataSetBuilder;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataType;
+import entity.NumericColumnVector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BinaryDataSetDataAccessObject}.
+ */
+class BinaryDataSetDataAccessObjectTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DataSet createColumnarDataSet() {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(
+                List.of("Name", "Age", "Joined", "Active"),
+                List.of(DataType.CATEGORICAL, DataType.NUMERIC, DataType.DATE, DataType.BOOLEAN));
+        builder.addRow(new String[] {"Alice", "25", "2020-01-31", "true"}, 4);
+        builder.addRow(new String[] {"Bob", "1.50", "not a date", "FALSE"}, 4);
+        builder.addRow(new String[] {"Alice", "", "2021-12-01", null}, 4);
+        builder.addRow(new String[] {null, "-7", "", "", "extra", "cells"}, 6);
+        builder.addRow(new String[] {"Émile, \"Jr\"", "3.25"}, 2);
+        return builder.build();
+    }
+
+    private static void assertSameCells(DataSet expected, DataSet actual) {
+        assertEquals(expected.getColumns().size(), actual.getColumns().size());
+        for (int i = 0; i < expected.getColumns().size(); i++) {
+            Column expectedColumn = expected.getColumns().get(i);
+            Column actualColumn = actual.getColumns().get(i);
+            assertEquals(expectedColumn.getHeader(), actualColumn.getHeader());
+            assertEquals(expectedColumn.getDataType(), actualColumn.getDataType());
+            assertEquals(expectedColumn.getCells(), actualColumn.getCells());
+        }
+        assertEquals(expected.getRows().size(), actual.getRows().size());
+        for (int row = 0; row < expected.getRows().size(); row++) {
+            assertEquals(expected.getRows().get(row).getCells(), actual.getRows().get(row).getCells());
+        }
+    }
+
+    @Test
+    void saveAndLoad_roundTripsTypedColumnsNullsAndIrregularRows() {
+        DataSet dataSet = createColumnarDataSet();
+        BinaryDataSetDataAccessObject dao = new BinaryDataSetDataAccessObject(tempDir.resolve("store").toString(), 2);
+
+        dao.saveDataSet("people", dataSet);
+        DataSet loaded = dao.loadDataSet("people");
+
+        assertTrue(loaded.isColumnar());
+        assertSameCells(dataSet, loaded);
+        assertNull(loaded.getRows().get(2).getCells().get(3));
+        assertEquals("", loaded.getRows().get(2).getCells().get(1));
+        assertEquals(Arrays.asList(null, "-7", "", "", "extra", "cells"), loaded.getRows().get(3).getCells());
+        assertEquals(2, loaded.getRows().get(4).getCells().size());
+
+        NumericColumnVector ages = (NumericColumnVector) loaded.getColumns().get(1).getVector();
+        assertEquals(1.5, ages.getDouble(1));
+        assertTrue(ages.isMissing(2));
+        assertFalse(ages.isMissing(4));
+        assertTrue(loaded.getColumns().get(2).getVector().isMissing(1));
+    }
+
+    @Test
+    void loadedDataSet_acceptsEditsAndNewDictionaryValues() {
+        BinaryDataSetDataAccessObject dao = new BinaryDataSetDataAccessObject(tempDir.toString());
+        dao.saveDataSet("people", createColumnarDataSet());
+        DataSet loaded = dao.loadDataSet("people");
+
+        loaded.setCell("Carol", 1, 0);
+        loaded.setCell("42", 2, 1);
+
+        assertEquals("Carol", loaded.getRows().get(1).getCells().get(0));
+        assertEquals("Alice", loaded.getColumns().get(0).getCells().get(2));
+        assertEquals(42.0, ((NumericColumnVector) loaded.getColumns().get(1).getVector()).getDouble(2));
+        assertEquals("42", loaded.getRows().get(2).getCells().get(1));
+    }
+
+    @Test
+    void saveAndLoad_convertsRowBackedDataSet() {
+        DataRow row1 = new DataRow(Arrays.asList("Alice", "25"));
+        DataRow row2 = new DataRow(Arrays.asList("Bob", "30", "overflow"));
+        Column col1 = new Column(Arrays.asList("Alice", "Bob"), DataType.CATEGORICAL, "Name");
+        Column col2 = new Column(Arrays.asList("25", "30"), DataType.NUMERIC, "Age");
+        DataSet dataSet = new DataSet(Arrays.asList(row1, row2), Arrays.asList(col1, col2));
+        BinaryDataSetDataAccessObject dao = new BinaryDataSetDataAccessObject(tempDir.toString());
+
+        dao.saveDataSet("legacy", dataSet);
+        DataSet loaded = dao.loadDataSet("legacy");
+
+        assertSameCells(dataSet, loaded);
+        assertEquals(30.0, ((NumericColumnVector) loaded.getColumns().get(1).getVector()).getDouble(1));
+    }
+
+    @Test
+    void saveAndLoad_handlesEmptyDataSet() {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("A", "B"),
+                List.of(DataType.NUMERIC, DataType.CATEGORICAL));
+        BinaryDataSetDataAccessObject dao = new BinaryDataSetDataAccessObject(tempDir.toString());
+
+        dao.saveDataSet("empty", builder.build());
+        DataSet loaded = dao.loadDataSet("empty");
+
+        assertEquals(0, loaded.getRows().size());
+        assertEquals("B", loaded.getColumns().get(1).getHeader());
+        loaded.getColumns().get(1).getVector().append("new");
+        assertEquals("new", loaded.getColumns().get(1).getVector().getString(0));
+    }
+
+    @Test
+    void exists_reflectsSavedDatasets() {
+        BinaryDataSetDataAccessObject dao = new BinaryDataSetDataAccessObject(tempDir.toString());
+        assertFalse(dao.exists("people"));
+
+        dao.saveDataSet("people", createColumnarDataSet());
+
+        assertTrue(dao.exists("people"));
+        assertTrue(dao.exists("people" + BinaryDataSetDataAccessObject.EXTENSION));
+        assertTrue(Files.exists(tempDir.resolve("people" + BinaryDataSetDataAccessObject.EXTENSION)));
+    }
+
+    @Test
+    void load_failsForMissingOrForeignFiles() throws Exception {
+        BinaryDataSetDataAccessObject dao = new BinaryDataSetDataAccessObject(tempDir.toString());
+        assertThrows(UncheckedIOException.class, () -> dao.loadDataSet("missing"));
+
+        Files.write(tempDir.resolve("text" + BinaryDataSetDataAccessObject.EXTENSION),
+                "Name,Age\nAlice,25\n".getBytes(StandardCharsets.UTF_8));
+        UncheckedIOException ex = assertThrows(UncheckedIOException.class, () -> dao.loadDataSet("text"));
+        assertTrue(ex.getMessage().contains("not a binary dataset file"));
+    }
+}
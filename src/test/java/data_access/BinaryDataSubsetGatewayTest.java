@@ -0,0 +1,249 @@
+package data_access;
+
+import entity.ColumnFilter;
+import entity.ColumnarDataSetBuilder;
+import entity.DataSet;
+import entity.DataSubsetSpec;
+import entity.DataType;
+import entity.RowPredicate;
+import entity.RowSelection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import use_case.statistics.SummaryStatisticsInputData;
+import use_case.statistics.SummaryStatisticsInteractor;
+import use_case.statistics.SummaryStatisticsOutputBoundary;
+import use_case.statistics.SummaryStatisticsOutputData;
+import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.data.NumericValues;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BinaryDataSubsetGateway}.
+ */
+class BinaryDataSubsetGatewayTest {
+    private static final int ROWS = 10_000;
+    private static final int ROW_GROUP_SIZE = 500;
+    private static final List<String> CITIES = List.of("Boston", "Chicago", "Denver", "Miami");
+
+    @TempDir
+    Path tempDir;
+
+    private DataSet dataSet;
+    private BinaryDataSetDataAccessObject store;
+    private BinaryDataSubsetGateway gateway;
+    private InMemoryDataSubsetGateway reference;
+    private List<Integer> allRows;
+
+    @BeforeEach
+    void setUp() {
+        // salaries grow with the row index and cities come in runs, like data sorted by load time
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Id", "Salary", "Location"),
+                List.of(DataType.NUMERIC, DataType.NUMERIC, DataType.CATEGORICAL));
+        for (int i = 0; i < ROWS; i++) {
+            String salary = i % 97 == 0 ? "" : Integer.toString(20_000 + i * 10);
+            builder.addRow(new String[] {Integer.toString(i), salary, CITIES.get(i * CITIES.size() / ROWS)}, 3);
+        }
+        dataSet = builder.build();
+        store = new BinaryDataSetDataAccessObject(tempDir.toString(), ROW_GROUP_SIZE);
+        store.saveDataSet("payroll", dataSet);
+        gateway = new BinaryDataSubsetGateway(store);
+        InMemoryTableGateway table = new InMemoryTableGateway();
+        table.save(dataSet);
+        reference = new InMemoryDataSubsetGateway(table);
+        allRows = IntStream.range(0, ROWS).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void selectiveFilterReadsOnlyMatchingRowGroups() throws Exception {
+        DataSubsetSpec spec = new DataSubsetSpec("payroll", List.of("Id", "Salary"), allRows,
+                List.of(ColumnFilter.greaterThan("Salary", 110_000)));
+
+        DataSubsetData data = gateway.loadSubset(spec);
+
+        List<Integer> expectedRows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            if (i % 97 != 0 && 20_000 + i * 10 > 110_000) {
+                expectedRows.add(i);
+            }
+        }
+        assertEquals(expectedRows, data.getRowIndices(allRows));
+        assertEquals(expectedRows.size(), data.getNumericColumns().get("Salary").size());
+        assertEquals(9001.0, data.getNumericColumns().get("Id").get(0));
+        assertTrue(gateway.getLastBytesRead() < Files.size(tempDir.resolve("payroll.dsb")) / 5,
+                "read " + gateway.getLastBytesRead() + " bytes");
+    }
+
+    @Test
+    void equalityFilterSkipsGroupsOutsideTheDictionaryRange() {
+        DataSubsetSpec spec = new DataSubsetSpec("payroll", List.of("Id", "Location"), allRows,
+                List.of(ColumnFilter.equalTo("Location", "Chicago")));
+
+        DataSubsetData data = gateway.loadSubset(spec);
+        DataSubsetData expected = reference.loadSubset(spec);
+
+        assertEquals(2500, data.getRowIndices(allRows).size());
+        assertEquals(expected.getRowIndices(allRows), data.getRowIndices(allRows));
+        assertEquals(expected.getCategoricalColumns().get("Location"), data.getCategoricalColumns().get("Location"));
+        assertTrue(data.getCategoricalColumns().get("Location").stream().allMatch("Chicago"::equals));
+    }
+
+    @Test
+    void combinedFiltersMatchInMemoryGateway() {
+        List<Integer> evenRows = IntStream.range(0, ROWS).filter(i -> i % 2 == 0).boxed().collect(Collectors.toList());
+        DataSubsetSpec spec = new DataSubsetSpec("payroll", List.of("Id", "Location"), evenRows,
+                List.of(ColumnFilter.greaterOrEqual("Salary", 50_000), ColumnFilter.lessThan("Salary", 60_000),
+                        ColumnFilter.equalTo("Location", "Chicago")));
+
+        DataSubsetData data = gateway.loadSubset(spec);
+        DataSubsetData expected = reference.loadSubset(spec);
+
+        assertFalse(data.getRowIndices(evenRows).isEmpty());
+        assertEquals(expected.getRowIndices(evenRows), data.getRowIndices(evenRows));
+        assertEquals(expected.getNumericColumns().get("Id"), data.getNumericColumns().get("Id"));
+        assertEquals(expected.getCategoricalColumns().get("Location"), data.getCategoricalColumns().get("Location"));
+    }
+
+    @Test
+    void rowSelectionsMatchTheEquivalentRowLists() {
+        RowSelection selection = RowSelection.range(1_000, 3_000).or(RowSelection.of(5, 7_777, 9_998));
+        List<ColumnFilter> filters = List.of(ColumnFilter.equalTo("Location", "Boston"));
+
+        DataSubsetData data = gateway.loadSubset(DataSubsetSpec.of("payroll", List.of("Salary"), selection, filters));
+        DataSubsetData expected = reference.loadSubset(
+                new DataSubsetSpec("payroll", List.of("Salary"), new ArrayList<>(selection.asList()), filters));
+
+        List<Integer> matching = data.getRowIndices(selection.asList());
+        assertEquals(expected.getRowIndices(null), matching);
+        assertEquals(RowSelection.range(1_000, 2_500).or(RowSelection.of(5)), RowSelection.unwrap(matching));
+        assertEquals(expected.getValuesFor("Salary").asList(), data.getValuesFor("Salary").asList());
+
+        DataSubsetData all = gateway.loadSubset(DataSubsetSpec.of("payroll", List.of("Id"), RowSelection.all(ROWS)));
+        assertEquals(ROWS, all.getValuesFor("Id").size());
+        assertEquals(4_321.0, all.getValuesFor("Id").getDouble(4_321));
+        assertThrows(IndexOutOfBoundsException.class, () -> gateway.loadSubset(
+                DataSubsetSpec.of("payroll", List.of("Id"), RowSelection.all(ROWS + 1))));
+    }
+
+    @Test
+    void predicatesPruneRowGroupsAndMatchInMemoryGateway() throws Exception {
+        RowPredicate predicate = RowPredicate.or(ColumnFilter.between("Salary", 30_000, 35_000),
+                RowPredicate.and(ColumnFilter.in("Location", List.of("Miami", "Portland")),
+                        RowPredicate.not(ColumnFilter.isNull("Salary")), ColumnFilter.lessThan("Id", 8_000)));
+        DataSubsetSpec spec = DataSubsetSpec.of("payroll", List.of("Id", "Location"), RowSelection.all(ROWS))
+                .where(predicate);
+
+        DataSubsetData data = gateway.loadSubset(spec);
+        DataSubsetData expected = reference.loadSubset(spec);
+
+        List<Integer> matching = data.getRowIndices(null);
+        assertEquals(501 + 500 - 10, matching.size());
+        assertEquals(expected.getRowIndices(null), matching);
+        assertEquals(expected.getValuesFor("Id").asList(), data.getValuesFor("Id").asList());
+        assertEquals(expected.getCategoricalColumns().get("Location"), data.getCategoricalColumns().get("Location"));
+        // only the two salary groups and the one Miami group with Ids below 8000 are read
+        assertTrue(gateway.getLastBytesRead() < Files.size(tempDir.resolve("payroll.dsb")) / 2,
+                "read " + gateway.getLastBytesRead() + " bytes");
+
+        List<Integer> someRows = List.of(9_999, 1_200, 7_600, 3);
+        DataSubsetSpec listSpec = new DataSubsetSpec("payroll", List.of("Id"), someRows).where(predicate);
+        assertEquals(List.of(1_200, 7_600), gateway.loadSubset(listSpec).getRowIndices(someRows));
+    }
+
+    @Test
+    void statisticsRunOverRowsMatchingAPredicate() {
+        List<SummaryStatisticsOutputData> results = new ArrayList<>();
+        SummaryStatisticsInteractor interactor = new SummaryStatisticsInteractor(gateway,
+                new InMemorySummaryReportGateway(), new SummaryStatisticsOutputBoundary() {
+                    @Override
+                    public void prepareSuccessView(SummaryStatisticsOutputData outputData) {
+                        results.add(outputData);
+                    }
+
+                    @Override
+                    public void prepareFailView(String errorMessage) {
+                        fail(errorMessage);
+                    }
+                });
+
+        interactor.execute(new SummaryStatisticsInputData(2, "Middle", "payroll", List.of("Salary"),
+                RowSelection.all(ROWS), ColumnFilter.between("Salary", 50_000, 60_000)));
+
+        long expectedCount = IntStream.rangeClosed(3_000, 4_000).filter(i -> i % 97 != 0).count();
+        SummaryStatisticsOutputData.ColumnMetricsData salary = results.get(0).getColumnMetrics().get("Salary");
+        assertEquals(50_000.0, salary.getMin());
+        assertEquals(60_000.0, salary.getMax());
+        assertEquals(expectedCount, salary.getCount());
+    }
+
+    @Test
+    void subsetWithoutFiltersReturnsRequestedRowsAndNullsForMissingCells() {
+        List<Integer> rows = List.of(9999, 0, 4321);
+        DataSubsetData data = gateway.loadSubset(new DataSubsetSpec("payroll", List.of("Salary", "Nope"), rows));
+
+        assertEquals(rows, data.getRowIndices(rows));
+        assertEquals(Arrays.asList(20_000 + 99_990.0, null, 20_000 + 43_210.0),
+                data.getNumericColumns().get("Salary"));
+        assertFalse(data.getNumericColumns().containsKey("Nope"));
+    }
+
+    @Test
+    void numericValuesReportMissingCellsThroughTheMask() {
+        List<Integer> rows = List.of(0, 5, 97, 9999);
+        DataSubsetSpec spec = new DataSubsetSpec("payroll", List.of("Salary"), rows);
+
+        NumericValues values = gateway.loadSubset(spec).getValuesFor("Salary");
+        NumericValues expected = reference.loadSubset(spec).getValuesFor("Salary");
+
+        assertEquals(4, values.size());
+        assertTrue(values.isNull(0));
+        assertTrue(Double.isNaN(values.getDouble(0)));
+        assertEquals(20_050.0, values.getDouble(1));
+        assertEquals(expected.getNullMask(), values.getNullMask());
+        assertEquals(2, values.countNulls());
+        assertEquals(expected.asList(), values.asList());
+    }
+
+    @Test
+    void failsForUnknownDatasetOrFilterColumn() {
+        assertThrows(IllegalStateException.class,
+                () -> gateway.loadSubset(new DataSubsetSpec("other", List.of("Salary"), allRows)));
+        assertThrows(IllegalArgumentException.class,
+                () -> gateway.loadSubset(new DataSubsetSpec("payroll", List.of("Salary"), allRows,
+                        List.of(ColumnFilter.greaterThan("Bonus", 1)))));
+    }
+
+    @Test
+    void statisticsRunOverFilteredRows() {
+        List<SummaryStatisticsOutputData> results = new ArrayList<>();
+        SummaryStatisticsInteractor interactor = new SummaryStatisticsInteractor(gateway,
+                new InMemorySummaryReportGateway(), new SummaryStatisticsOutputBoundary() {
+                    @Override
+                    public void prepareSuccessView(SummaryStatisticsOutputData outputData) {
+                        results.add(outputData);
+                    }
+
+                    @Override
+                    public void prepareFailView(String errorMessage) {
+                        fail(errorMessage);
+                    }
+                });
+
+        interactor.execute(new SummaryStatisticsInputData(1, "Top earners", "payroll", List.of("Salary"), allRows,
+                List.of(ColumnFilter.greaterThan("Salary", 110_000))));
+
+        long expectedCount = IntStream.range(9001, ROWS).filter(i -> i % 97 != 0).count();
+        SummaryStatisticsOutputData.ColumnMetricsData salary = results.get(0).getColumnMetrics().get("Salary");
+        assertEquals(110_010.0, salary.getMin());
+        assertEquals(expectedCount, salary.getCount());
+    }
+}
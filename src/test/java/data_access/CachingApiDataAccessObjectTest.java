@@ -0,0 +1,245 @@
+package data_access;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CachingApiDataAccessObject} against a local stub CKAN server.
+ */
+class CachingApiDataAccessObjectTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private String root;
+    private final Map<String, String> bodies = new HashMap<>();
+    private final Map<String, String> lastModified = new HashMap<>();
+    private final Map<String, List<String>> parts = new HashMap<>();
+    private final Map<String, String> packageModified = new HashMap<>();
+    private final AtomicInteger searches = new AtomicInteger();
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        root = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/api/3/action/package_search", exchange -> {
+            searches.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            String name = query.substring(query.indexOf("q=") + "q=".length());
+            respond(exchange, 200, "{\"result\":{\"results\":[{\"id\":\"" + name + "\"}]}}", null);
+        });
+        server.createContext("/api/3/action/package_show", exchange -> {
+            String id = exchange.getRequestURI().getQuery().substring("id=".length());
+            List<String> files = parts.getOrDefault(id, List.of(id));
+            StringJoiner resources = new StringJoiner(",");
+            for (int i = 0; i < files.size(); i++) {
+                String name = files.size() == 1 ? id : id + " part " + (i + 1);
+                resources.add("{\"format\":\"CSV\",\"name\":\"" + name + "\",\"url\":\"" + root + "/files/"
+                        + files.get(i) + ".csv\",\"last_modified\":\"" + lastModified.get(files.get(i)) + "\"}");
+            }
+            String modified = packageModified.getOrDefault(id, "2024-05-01T00:00:00");
+            respond(exchange, 200, "{\"result\":{\"id\":\"" + id + "\",\"metadata_modified\":\"" + modified
+                    + "\",\"resources\":[" + resources + "]}}", null);
+        });
+        server.createContext("/files/", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/files/".length()).replace(".csv", "");
+            String body = bodies.get(id);
+            String etag = "\"" + body.hashCode() + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            downloads.incrementAndGet();
+            respond(exchange, 200, body, etag);
+        });
+        server.start();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body, String etag) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private CachingApiDataAccessObject newCache(long maxBytes) {
+        return new CachingApiDataAccessObject(
+                new ApiDataAccessObject(root + "/api/3/action/"), cacheDir, maxBytes);
+    }
+
+    private static String read(InputStream csv) throws IOException {
+        try (csv) {
+            return new String(csv.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void repeatLoadIsServedFromDiskWhileLastModifiedIsUnchanged() throws IOException {
+        bodies.put("trees", "species,count\nmaple,3\n");
+        lastModified.put("trees", "2024-05-01T00:00:00");
+        CachingApiDataAccessObject cache = newCache(CachingApiDataAccessObject.DEFAULT_MAX_BYTES);
+
+        assertEquals("species,count\nmaple,3\n", read(cache.openCsv("trees")));
+        assertEquals("species,count\nmaple,3\n", read(cache.openCsv("trees")));
+        // a new instance over the same directory sees the cached entry
+        assertEquals("species,count\nmaple,3\n", newCache(CachingApiDataAccessObject.DEFAULT_MAX_BYTES).getCsv("trees"));
+
+        assertEquals(1, downloads.get());
+        assertEquals(0, notModified.get());
+        assertEquals(1, searches.get());
+    }
+
+    @Test
+    void changedResourceIsRevalidatedWithConditionalGet() throws IOException {
+        bodies.put("trees", "species,count\nmaple,3\n");
+        lastModified.put("trees", "2024-05-01T00:00:00");
+        CachingApiDataAccessObject cache = newCache(CachingApiDataAccessObject.DEFAULT_MAX_BYTES);
+        read(cache.openCsv("trees"));
+
+        // metadata changed but the body did not
+        lastModified.put("trees", "2024-06-01T00:00:00");
+        assertEquals("species,count\nmaple,3\n", read(cache.openCsv("trees")));
+        assertEquals(1, notModified.get());
+        assertEquals(1, downloads.get());
+
+        // the body changed as well
+        lastModified.put("trees", "2024-07-01T00:00:00");
+        bodies.put("trees", "species,count\noak,5\n");
+        assertEquals("species,count\noak,5\n", read(cache.openCsv("trees")));
+        assertEquals(2, downloads.get());
+    }
+
+    @Test
+    void partiallyReadDownloadIsNotCached() throws IOException {
+        bodies.put("trees", "species,count\n" + "maple,3\n".repeat(10_000));
+        lastModified.put("trees", "2024-05-01T00:00:00");
+        CachingApiDataAccessObject cache = newCache(CachingApiDataAccessObject.DEFAULT_MAX_BYTES);
+
+        try (InputStream csv = cache.openCsv("trees")) {
+            csv.read(new byte[10]);
+        }
+        read(cache.openCsv("trees"));
+
+        assertEquals(2, downloads.get());
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".part")));
+        }
+    }
+
+    @Test
+    void skippedPartIsCachedLikeTheOthers() throws IOException, InterruptedException {
+        bodies.put("permits1", "id,kind\n1,a\n");
+        bodies.put("notes", "note\n" + "see the permits\n".repeat(10_000));
+        bodies.put("permits2", "id,kind\n2,b\n");
+        for (String id : bodies.keySet()) {
+            lastModified.put(id, "2024-05-01T00:00:00");
+        }
+        parts.put("permits", List.of("permits1", "notes", "permits2"));
+        CachingApiDataAccessObject cache = newCache(CachingApiDataAccessObject.DEFAULT_MAX_BYTES);
+
+        assertEquals("id,kind\n1,a\n2,b\n", read(cache.openCsv("permits")));
+        // the skipped part finishes in the background
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cachedBodies() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("id,kind\n1,a\n2,b\n", read(cache.openCsv("permits")));
+
+        assertEquals(3, downloads.get());
+    }
+
+    private long cachedBodies() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            // the metadata is written once the body is in place
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".properties") && !name.equals("datasets.properties"))
+                    .count();
+        }
+    }
+
+    @Test
+    void changedPackageIsSearchedAgain() throws IOException {
+        bodies.put("trees", "species,count\nmaple,3\n");
+        lastModified.put("trees", "2024-05-01T00:00:00");
+        CachingApiDataAccessObject cache = newCache(CachingApiDataAccessObject.DEFAULT_MAX_BYTES);
+
+        read(cache.openCsv("trees"));
+        read(cache.openCsv("trees"));
+        assertEquals(1, searches.get());
+
+        packageModified.put("trees", "2024-06-01T00:00:00");
+        read(cache.openCsv("trees"));
+        read(cache.openCsv("trees"));
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void leastRecentlyUsedBodiesAreEvicted() throws IOException, InterruptedException {
+        String body = "id\n" + "1\n".repeat(500);
+        for (String id : new String[] {"a", "b", "c"}) {
+            bodies.put(id, body);
+            lastModified.put(id, "2024-05-01T00:00:00");
+        }
+        // room for two bodies
+        CachingApiDataAccessObject cache = newCache(body.length() * 2L + 10);
+
+        read(cache.openCsv("a"));
+        Thread.sleep(20);
+        read(cache.openCsv("b"));
+        Thread.sleep(20);
+        read(cache.openCsv("a"));
+        Thread.sleep(20);
+        read(cache.openCsv("c"));
+        assertEquals(3, downloads.get());
+
+        // "b" was least recently used
+        read(cache.openCsv("a"));
+        read(cache.openCsv("c"));
+        assertEquals(3, downloads.get());
+        read(cache.openCsv("b"));
+        assertEquals(4, downloads.get());
+    }
+
+    @Test
+    void errorsKeepTheUserFacingMessages() {
+        CachingApiDataAccessObject cache = new CachingApiDataAccessObject(
+                new ApiDataAccessObject("http://127.0.0.1:1/api/3/action/"), cacheDir, 1024);
+
+        assertTrue(cache.getCsv("trees").startsWith("Error: "));
+    }
+}
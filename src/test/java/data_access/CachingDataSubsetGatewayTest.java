@@ -0,0 +1,158 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnFilter;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataSubsetSpec;
+import entity.DataType;
+import entity.RowSelection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.gateway.DataSubsetGateway;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CachingDataSubsetGateway}.
+ */
+class CachingDataSubsetGatewayTest {
+    private InMemoryTableGateway table;
+    private DataSet dataSet;
+    private CountingGateway delegate;
+    private CachingDataSubsetGateway gateway;
+
+    @BeforeEach
+    void setUp() {
+        dataSet = people();
+        table = new InMemoryTableGateway();
+        table.save(dataSet);
+        delegate = new CountingGateway(new InMemoryDataSubsetGateway(table));
+        gateway = new CachingDataSubsetGateway(delegate, table, 3);
+    }
+
+    @Test
+    void equalSpecsOfAnUnchangedDataSetAreLoadedOnce() {
+        DataSubsetData first = gateway.loadSubset(new DataSubsetSpec("current", List.of("Age"),
+                new ArrayList<>(List.of(0, 1, 2))));
+        DataSubsetData second = gateway.loadSubset(new DataSubsetSpec("current", List.of("Age"), List.of(0, 1, 2)));
+        // a selection of the same rows is the same subset
+        DataSubsetData all = gateway.loadSubset(DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(3)));
+        DataSubsetData reordered = gateway.loadSubset(new DataSubsetSpec("current", List.of("Age"), List.of(2, 1, 0)));
+
+        assertSame(first, second);
+        assertSame(first, all);
+        assertEquals(Arrays.asList(25.0, null, 40.0), first.getNumericColumns().get("Age"));
+        assertEquals(Arrays.asList(40.0, null, 25.0), reordered.getNumericColumns().get("Age"));
+        assertEquals(2, delegate.loads);
+    }
+
+    @Test
+    void ascendingRowListsAreKeyedAsSelections() {
+        DataSubsetSpec listed = new DataSubsetSpec("current", List.of("Age"), new ArrayList<>(List.of(1, 2)));
+        DataSubsetData first = gateway.loadSubset(listed);
+
+        assertSame(first, gateway.loadSubset(DataSubsetSpec.of("current", List.of("Age"), RowSelection.range(1, 3))));
+        assertSame(first, gateway.loadSubset(listed));
+        assertEquals(listed.hashCode(), DataSubsetSpec.of("current", List.of("Age"), RowSelection.of(1, 2)).hashCode());
+        assertEquals(1, delegate.loads);
+    }
+
+    @Test
+    void setCellInvalidatesOnlySubsetsThatReadTheColumn() {
+        DataSubsetSpec ages = DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(3));
+        DataSubsetSpec boston = DataSubsetSpec.of("current", List.of("Name"), RowSelection.all(3),
+                List.of(ColumnFilter.equalTo("City", "Boston")));
+        DataSubsetSpec names = DataSubsetSpec.of("current", List.of("Name"), RowSelection.all(3));
+        gateway.loadSubset(ages);
+        gateway.loadSubset(boston);
+        DataSubsetData cachedNames = gateway.loadSubset(names);
+
+        dataSet.setCell("31", 1, 1);
+        dataSet.setCell("Boston", 2, 2);
+
+        assertEquals(Arrays.asList(25.0, 31.0, 40.0), gateway.loadSubset(ages).getNumericColumns().get("Age"));
+        assertEquals(List.of("Alice", "Carol"), gateway.loadSubset(boston).getCategoricalColumns().get("Name"));
+        assertSame(cachedNames, gateway.loadSubset(names));
+        assertEquals(5, delegate.loads);
+    }
+
+    @Test
+    void headerEditsInvalidateSubsetsThatNameTheColumn() {
+        DataSubsetSpec ages = DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(3));
+        DataSubsetSpec years = DataSubsetSpec.of("current", List.of("Years"), RowSelection.all(3));
+        DataSubsetSpec names = DataSubsetSpec.of("current", List.of("Name"), RowSelection.all(3));
+        gateway.loadSubset(ages);
+        assertTrue(gateway.loadSubset(years).getNumericColumns().isEmpty());
+        DataSubsetData cachedNames = gateway.loadSubset(names);
+
+        dataSet.getColumns().get(1).setHeader("Years");
+
+        assertTrue(gateway.loadSubset(ages).getNumericColumns().isEmpty());
+        assertEquals(Arrays.asList(25.0, null, 40.0), gateway.loadSubset(years).getNumericColumns().get("Years"));
+        assertSame(cachedNames, gateway.loadSubset(names));
+    }
+
+    @Test
+    void anotherCurrentDataSetOrEvictionReloads() {
+        DataSubsetSpec ages = DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(3));
+        gateway.loadSubset(ages);
+        table.save(people());
+        gateway.loadSubset(ages);
+        assertEquals(2, delegate.loads);
+
+        for (int row = 0; row < 3; row++) {
+            gateway.loadSubset(DataSubsetSpec.of("current", List.of("Age"), RowSelection.of(row)));
+        }
+        gateway.loadSubset(ages);
+        assertEquals(6, delegate.loads);
+    }
+
+    @Test
+    void inMemoryGatewayParsesTextCellsOncePerColumnVersion() {
+        InMemoryDataSubsetGateway inMemory = new InMemoryDataSubsetGateway(table);
+
+        inMemory.loadSubset(DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(3)));
+        DataSubsetData some = inMemory.loadSubset(new DataSubsetSpec("current", List.of("Age"), List.of(2, 0)));
+        assertEquals(List.of(40.0, 25.0), some.getNumericColumns().get("Age"));
+        assertEquals(1, inMemory.getParseCount());
+
+        dataSet.setCell("7", 0, 1);
+        DataSubsetData edited = inMemory.loadSubset(new DataSubsetSpec("current", List.of("Age"), List.of(0)));
+        assertEquals(List.of(7.0), edited.getNumericColumns().get("Age"));
+        assertEquals(2, inMemory.getParseCount());
+    }
+
+    /**
+     * Row-based dataset, so numeric cells are text that has to be parsed.
+     */
+    private static DataSet people() {
+        return new DataSet(
+                Arrays.asList(new DataRow(Arrays.asList("Alice", "25", "Boston")),
+                        new DataRow(Arrays.asList("Bob", "", "Denver")),
+                        new DataRow(Arrays.asList("Carol", "40", "Miami"))),
+                Arrays.asList(new Column(Arrays.asList("Alice", "Bob", "Carol"), DataType.CATEGORICAL, "Name"),
+                        new Column(Arrays.asList("25", "", "40"), DataType.NUMERIC, "Age"),
+                        new Column(Arrays.asList("Boston", "Denver", "Miami"), DataType.CATEGORICAL, "City")));
+    }
+
+    private static final class CountingGateway implements DataSubsetGateway {
+        private final DataSubsetGateway delegate;
+        private int loads;
+
+        CountingGateway(DataSubsetGateway delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public DataSubsetData loadSubset(DataSubsetSpec spec) {
+            loads++;
+            return delegate.loadSubset(spec);
+        }
+    }
+}
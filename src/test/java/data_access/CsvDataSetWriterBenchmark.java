@@ -0,0 +1,114 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnarDataSetBuilder;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reports CSV export throughput in rows/s for a tall and a wide dataset, comparing
+ * {@link CsvDataSetWriter} with joining every row into a String and writing it through a BufferedWriter.
+ * Run with: java -cp target/classes:target/test-classes data_access.CsvDataSetWriterBenchmark [tallRows]
+ */
+public class CsvDataSetWriterBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        final int tallRows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        final Path dir = Files.createTempDirectory("csv-writer-benchmark");
+        final Path file = dir.resolve("out.csv");
+        try {
+            run("tall", build(tallRows, 6), file);
+            run("wide", build(Math.max(tallRows / 100, 1), 600), file);
+        }
+        finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static DataSet build(int rows, int columns) {
+        final List<String> headers = new ArrayList<>();
+        final List<DataType> types = new ArrayList<>();
+        final DataType[] cycle = {DataType.NUMERIC, DataType.CATEGORICAL, DataType.NUMERIC, DataType.DATE,
+                DataType.BOOLEAN, DataType.CATEGORICAL};
+        for (int c = 0; c < columns; c++) {
+            headers.add("col" + c);
+            types.add(cycle[c % cycle.length]);
+        }
+        final ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(headers, types);
+        final Random random = new Random(42);
+        final String[] cells = new String[columns];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                cells[c] = switch (types.get(c)) {
+                    case NUMERIC -> c % 4 == 0 ? Integer.toString(random.nextInt(1_000_000))
+                            : Double.toString(random.nextInt(100_000) / 100.0);
+                    case DATE -> "2023-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10);
+                    case BOOLEAN -> Boolean.toString(random.nextBoolean());
+                    case CATEGORICAL -> random.nextInt(50) == 0 ? "Ward " + random.nextInt(9) + ", north"
+                            : "Ward " + random.nextInt(25);
+                };
+            }
+            builder.addRow(cells, columns);
+        }
+        return builder.build();
+    }
+
+    private static void run(String name, DataSet dataSet, Path file) throws IOException {
+        final int rows = dataSet.getRows().size();
+        final CsvDataSetWriter writer = new CsvDataSetWriter();
+        long encoded = 0;
+        long joined = 0;
+        long bytes = 0;
+        for (int i = 0; i <= ROUNDS; i++) {
+            long start = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                bytes = writer.write(dataSet, channel);
+            }
+            final long encodedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            writeJoined(dataSet, file);
+            final long joinedTime = System.nanoTime() - start;
+
+            // the first round is warm-up
+            if (i > 0) {
+                encoded += encodedTime;
+                joined += joinedTime;
+            }
+        }
+        System.out.printf("%s: %,d rows x %d columns, %,d bytes%n", name, rows, dataSet.getColumns().size(), bytes);
+        System.out.printf("  CsvDataSetWriter  %,12.0f rows/s  %8.1f MB/s%n",
+                rows * 1e9 * ROUNDS / encoded, bytes * 1e3 * ROUNDS / encoded);
+        System.out.printf("  String.join       %,12.0f rows/s%n", rows * 1e9 * ROUNDS / joined);
+    }
+
+    private static void writeJoined(DataSet dataSet, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            final List<String> headers = new ArrayList<>();
+            for (final Column col : dataSet.getColumns()) {
+                headers.add(col.getHeader());
+            }
+            writer.write(String.join(",", headers));
+            writer.newLine();
+            for (final DataRow row : dataSet.getRows()) {
+                writer.write(String.join(",", row.getCells()));
+                writer.newLine();
+            }
+        }
+    }
+}
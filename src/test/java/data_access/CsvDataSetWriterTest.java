@@ -0,0 +1,145 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnarDataSetBuilder;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataType;
+import org.junit.jupiter.api.Test;
+import use_case.ingestion.CsvIngestion;
+import use_case.ingestion.IngestionOptions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CsvDataSetWriter}.
+ */
+class CsvDataSetWriterTest {
+
+    private static String write(CsvDataSetWriter writer, DataSet dataSet) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long bytes = writer.write(dataSet, Channels.newChannel(out));
+        assertEquals(out.size(), bytes);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static DataSet typedDataSet() {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(
+                List.of("Name", "Amount", "Issued", "Active"),
+                List.of(DataType.CATEGORICAL, DataType.NUMERIC, DataType.DATE, DataType.BOOLEAN));
+        builder.addRow(new String[] {"Smith, Jo", "-1234567", "1999-12-31", "true"}, 4);
+        builder.addRow(new String[] {"say \"hi\"", "1.50", "0001-01-01", "false"}, 4);
+        builder.addRow(new String[] {"line\nbreak", "", "n/a", null}, 4);
+        builder.addRow(new String[] {null, "0.125", "2024-02-29", "", "extra, cell"}, 5);
+        builder.addRow(new String[] {"Zoë 日本 😀", "999999999999999", "1970-01-01", "true"}, 4);
+        return builder.build();
+    }
+
+    @Test
+    void write_quotesCellsAsRfc4180() throws IOException {
+        String csv = write(new CsvDataSetWriter(), typedDataSet());
+
+        assertEquals("Name,Amount,Issued,Active\n"
+                + "\"Smith, Jo\",-1234567,1999-12-31,true\n"
+                + "\"say \"\"hi\"\"\",1.50,0001-01-01,false\n"
+                + "\"line\nbreak\",,n/a,\n"
+                + ",0.125,2024-02-29,,\"extra, cell\"\n"
+                + "Zoë 日本 😀,999999999999999,1970-01-01,true\n", csv);
+    }
+
+    @Test
+    void write_roundTripsThroughIngestion() throws IOException {
+        DataSet original = typedDataSet();
+        String csv = write(new CsvDataSetWriter(), original);
+
+        DataSet reloaded = new CsvIngestion().read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(original.getRows().size(), reloaded.getRows().size());
+        for (int row = 0; row < original.getRows().size(); row++) {
+            List<String> expected = original.getRows().get(row).getCells().stream()
+                    .map(cell -> cell == null ? "" : cell).toList();
+            assertEquals(expected, reloaded.getRows().get(row).getCells());
+        }
+    }
+
+    @Test
+    void write_usesConfiguredDelimiter() throws IOException {
+        DataSet original = typedDataSet();
+        String csv = write(new CsvDataSetWriter(';'), original);
+
+        assertTrue(csv.startsWith("Name;Amount;Issued;Active\nSmith, Jo;-1234567;1999-12-31;true\n"), csv);
+        DataSet reloaded = new CsvIngestion(new IngestionOptions(1, Long.MAX_VALUE, ';'))
+                .read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("say \"hi\"", reloaded.getRows().get(1).getCells().get(0));
+        assertEquals("extra, cell", reloaded.getRows().get(3).getCells().get(4));
+    }
+
+    @Test
+    void write_quotesNumbersAndDatesWhenTheDelimiterCanOccurInThem() throws IOException {
+        String csv = write(new CsvDataSetWriter('-'), typedDataSet());
+
+        assertTrue(csv.contains("\nSmith, Jo-\"-1234567\"-\"1999-12-31\"-true\n"), csv);
+    }
+
+    @Test
+    void write_formatsNumbersLikeTheColumnVector() throws IOException {
+        Random random = new Random(7);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            double value = switch (i % 5) {
+                case 0 -> random.nextInt(10_000_000) / 100.0;
+                case 1 -> -random.nextInt(1_000_000) / 1000.0;
+                case 2 -> random.nextInt(100_000) / 10.0 + 0.001;
+                case 3 -> random.nextDouble() * Math.pow(10, random.nextInt(24) - 8);
+                default -> random.nextLong() / 1e3;
+            };
+            values.add(Double.toString(value));
+        }
+        values.addAll(List.of("0.001", "0.0015", "9999999.999", "1.0E7", "-0.5", "1.0E-4", "123.456"));
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Value"), List.of(DataType.NUMERIC));
+        for (String value : values) {
+            builder.addRow(new String[] {value}, 1);
+        }
+        DataSet dataSet = builder.build();
+
+        String[] lines = write(new CsvDataSetWriter(), dataSet).split("\n");
+
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(dataSet.getColumns().get(0).getCells().get(i), lines[i + 1]);
+        }
+    }
+
+    @Test
+    void write_handlesRowBackedDataSetAndSmallBuffer() throws IOException {
+        DataRow row1 = new DataRow(Arrays.asList("Alice", "25"));
+        DataRow row2 = new DataRow(Arrays.asList("Bob \"B\"", null));
+        Column col1 = new Column(Arrays.asList("Alice", "Bob \"B\""), DataType.CATEGORICAL, "Name");
+        Column col2 = new Column(Arrays.asList("25", null), DataType.NUMERIC, "Age");
+        DataSet dataSet = new DataSet(Arrays.asList(row1, row2), Arrays.asList(col1, col2));
+        String longCell = "x".repeat(500);
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Long"), List.of(DataType.CATEGORICAL));
+        builder.addRow(new String[] {longCell}, 1);
+
+        CsvDataSetWriter writer = new CsvDataSetWriter(',', 64);
+
+        assertEquals("Name,Age\nAlice,25\n\"Bob \"\"B\"\"\",\n", write(writer, dataSet));
+        assertEquals("Long\n" + longCell + "\n", write(writer, builder.build()));
+    }
+
+    @Test
+    void constructor_rejectsDelimitersThatCannotBeQuoted() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvDataSetWriter('"'));
+        assertThrows(IllegalArgumentException.class, () -> new CsvDataSetWriter('\n'));
+        assertThrows(IllegalArgumentException.class, () -> new CsvDataSetWriter('§'));
+    }
+}
@@ -1,17 +1,26 @@
 package data_access;
 
 import entity.Column;
+import entity.ColumnarDataSetBuilder;
 import entity.DataRow;
 import entity.DataSet;
 import entity.DataType;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import use_case.ingestion.CsvIngestion;
+import use_case.save_dataset.SaveDataSetProgressListener;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -90,4 +99,368 @@ class FileSaveDataSetDataAccessObjectTest {
         Path expectedFile = rootDir.resolve("already.csv");
         assertTrue(Files.exists(expectedFile), "File should retain single .csv extension");
     }
+
+    @Test
+    void save_replacesExistingFileAndReportsProgress() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        Files.createDirectories(rootDir);
+        Files.writeString(rootDir.resolve("my_dataset.csv"), "old contents\n");
+        List<long[]> progress = new ArrayList<>();
+
+        dao.save("my_dataset", createSampleDataSet(), new SaveDataSetProgressListener() {
+            @Override
+            public void progress(long bytesWritten, long rowsWritten) {
+                progress.add(new long[] {bytesWritten, rowsWritten});
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        });
+
+        assertEquals(List.of("Name,Age", "Alice,25", "Bob,30"), Files.readAllLines(rootDir.resolve("my_dataset.csv")));
+        assertArrayEquals(new long[] {Files.size(rootDir.resolve("my_dataset.csv")), 2},
+                progress.get(progress.size() - 1));
+        try (Stream<Path> files = Files.list(rootDir)) {
+            assertEquals(1, files.count(), "No temporary file should be left behind");
+        }
+    }
+
+    @Test
+    void save_cancelledKeepsExistingFileUntouched() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString(),
+                new CsvDataSetWriter(',', 64));
+        Files.createDirectories(rootDir);
+        Files.writeString(rootDir.resolve("big.csv"), "old contents\n");
+        List<String> cells = new ArrayList<>();
+        List<DataRow> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            cells.add("value " + i);
+            rows.add(new DataRow(List.of("value " + i)));
+        }
+        DataSet dataSet = new DataSet(rows, List.of(new Column(cells, DataType.CATEGORICAL, "Value")));
+
+        assertThrows(InterruptedIOException.class, () -> dao.save("big", dataSet, new SaveDataSetProgressListener() {
+            @Override
+            public void progress(long bytesWritten, long rowsWritten) {
+                assertTrue(rowsWritten < 1000);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        }));
+
+        assertEquals("old contents\n", Files.readString(rootDir.resolve("big.csv")));
+        try (Stream<Path> files = Files.list(rootDir)) {
+            assertEquals(1, files.count(), "The partial file should be deleted");
+        }
+    }
+
+    @Test
+    void save_writesThePreparedCopyWhileTheDataSetIsEdited() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString(),
+                new CsvDataSetWriter(',', 64));
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Code"), List.of(DataType.NUMERIC));
+        List<String> expected = new ArrayList<>(List.of("Code"));
+        for (int i = 0; i < 1000; i++) {
+            // leading zeros are kept as verbatim text
+            String code = "00" + i;
+            builder.addRow(new String[] {code}, 1);
+            expected.add(code);
+        }
+        DataSet dataSet = builder.build();
+
+        dao.prepareSave("codes", dataSet, false);
+        dao.save("codes", dataSet, new SaveDataSetProgressListener() {
+            private int edited;
+
+            @Override
+            public void progress(long bytesWritten, long rowsWritten) {
+                // the table is edited while the save is writing it
+                for (; edited < 1000 && edited < rowsWritten + 200; edited++) {
+                    dataSet.setCell(Integer.toString(edited), edited, 0);
+                    dao.cellEdited(dataSet, edited, 0, Integer.toString(edited));
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        });
+
+        Path saved = rootDir.resolve("codes.csv");
+        assertEquals(expected, Files.readAllLines(saved));
+        // the edits made meanwhile are kept for the next save
+        assertTrue(dao.saveEdits("codes", dataSet));
+        dao.awaitCompaction();
+        assertEquals("999", Files.readAllLines(saved).get(1000));
+    }
+
+    @Test
+    void save_compressesGzTargetsAndCompressedDefault() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject plain = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        FileSaveDataSetDataAccessObject compressed = new FileSaveDataSetDataAccessObject(rootDir.toString(),
+                new CsvDataSetWriter(), true);
+
+        plain.save("explicit.csv.gz", createSampleDataSet());
+        compressed.save("by_default", createSampleDataSet());
+        compressed.save("kept.csv", createSampleDataSet());
+
+        for (String name : List.of("explicit.csv.gz", "by_default.csv.gz")) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(rootDir.resolve(name)))) {
+                assertEquals("Name,Age\nAlice,25\nBob,30\n", new String(in.readAllBytes()));
+            }
+        }
+        assertEquals(List.of("Name,Age", "Alice,25", "Bob,30"), Files.readAllLines(rootDir.resolve("kept.csv")));
+    }
+
+    @Test
+    void save_compressedFileSpanningSeveralBlocksReloads() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        int rowCount = 200_000;
+        List<String> names = new ArrayList<>();
+        List<String> ages = new ArrayList<>();
+        List<DataRow> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            names.add("Name " + i);
+            ages.add(Integer.toString(i * 7));
+            rows.add(new DataRow(List.of(names.get(i), ages.get(i))));
+        }
+        DataSet dataSet = new DataSet(rows, List.of(new Column(names, DataType.CATEGORICAL, "Name"),
+                new Column(ages, DataType.NUMERIC, "Age")));
+
+        dao.save("big.csv.gz", dataSet);
+
+        // well over one block of uncompressed CSV, so the file holds several gzip members
+        assertTrue(Files.size(rootDir.resolve("big.csv.gz")) < ParallelGzipChannel.BLOCK_SIZE * 2);
+        DataSet reloaded = new CsvIngestion().read(rootDir.resolve("big.csv.gz"));
+        assertEquals(rowCount, reloaded.getRows().size());
+        assertEquals(List.of("Name 0", "0"), reloaded.getRows().get(0).getCells());
+        assertEquals(List.of("Name 199999", "1399993"), reloaded.getRows().get(rowCount - 1).getCells());
+    }
+
+    private static List<List<String>> cells(DataSet dataSet) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> headers = new ArrayList<>();
+        for (Column column : dataSet.getColumns()) {
+            headers.add(column.getHeader());
+        }
+        rows.add(headers);
+        for (DataRow row : dataSet.getRows()) {
+            rows.add(row.getCells());
+        }
+        return rows;
+    }
+
+    private static DataSet reopen(Path file) throws IOException {
+        DataSet dataSet = new CsvIngestion().read(file);
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(file.getParent().toString());
+        dao.opened(file, dataSet);
+        dao.awaitCompaction();
+        return dataSet;
+    }
+
+    private long journals(Path rootDir) throws IOException {
+        try (Stream<Path> files = Files.list(rootDir)) {
+            return files.filter(file -> file.getFileName().toString().contains(".journal")).count();
+        }
+    }
+
+    @Test
+    void saveEdits_forcesTheJournalAndCompactsItInTheBackground() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        DataSet dataSet = createSampleDataSet();
+        dao.save("people", dataSet);
+        Path base = rootDir.resolve("people.csv");
+        assertEquals(0, journals(rootDir));
+
+        dataSet.setCell("26", 0, 1);
+        dao.cellEdited(dataSet, 0, 1, "26");
+        dataSet.getColumns().get(0).setHeader("Full, Name");
+        dao.headerEdited(dataSet, 0, "Full, Name");
+        dao.cellEdited(createSampleDataSet(), 1, 1, "99");
+        // edits are journaled as they are made
+        assertEquals(1, journals(rootDir));
+
+        assertTrue(dao.saveEdits("people", dataSet));
+        assertFalse(dao.saveEdits("other", dataSet));
+        assertFalse(dao.saveEdits("people", createSampleDataSet()));
+        dao.awaitCompaction();
+        assertEquals("\"Full, Name\",Age\nAlice,26\nBob,30\n", Files.readString(base));
+        assertEquals(0, journals(rootDir));
+
+        // later edits are compacted into the file that the previous compaction wrote
+        dataSet.setCell("Bobby", 1, 0);
+        dao.cellEdited(dataSet, 1, 0, "Bobby");
+        assertTrue(dao.saveEdits("people", dataSet));
+        dao.awaitCompaction();
+        assertEquals("\"Full, Name\",Age\nAlice,26\nBobby,30\n", Files.readString(base));
+    }
+
+    @Test
+    void saveEdits_patchesCompressedFiles() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString(),
+                new CsvDataSetWriter(), true);
+        DataSet dataSet = createSampleDataSet();
+        dao.save("people", dataSet);
+        Path base = rootDir.resolve("people.csv.gz");
+
+        dataSet.setCell("Al \"A\"", 0, 0);
+        dao.cellEdited(dataSet, 0, 0, "Al \"A\"");
+        dataSet.setCell(null, 1, 1);
+        dao.cellEdited(dataSet, 1, 1, null);
+        assertTrue(dao.saveEdits("people", dataSet));
+        dao.awaitCompaction();
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(base))) {
+            assertEquals("Name,Age\n\"Al \"\"A\"\"\",25\nBob,\n", new String(in.readAllBytes()));
+        }
+        assertEquals(0, journals(rootDir));
+    }
+
+    @Test
+    void opened_appliesSavedEditsThatWereNotCompactedYet() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        new FileSaveDataSetDataAccessObject(rootDir.toString()).save("people", createSampleDataSet());
+        Path base = rootDir.resolve("people.csv");
+        Path journal = rootDir.resolve("people.csv.journal");
+        try (EditJournalFile saved = EditJournalFile.create(journal, EditJournalFile.Stamp.of(base))) {
+            saved.appendCell(1, 0, "Bobby");
+            saved.appendHeader(1, "Years");
+            saved.appendSave();
+            saved.appendCell(0, 0, "Al");
+            saved.appendDiscard();
+        }
+        // a record cut short by the crash
+        Files.write(journal, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        DataSet reopened = reopen(base);
+
+        assertEquals(List.of(List.of("Name", "Years"), List.of("Alice", "25"), List.of("Bobby", "30")),
+                cells(reopened));
+        assertEquals("Name,Years\nAlice,25\nBobby,30\n", Files.readString(base));
+        assertEquals(0, journals(rootDir));
+    }
+
+    @Test
+    void opened_finishesACompactionInterruptedBeforeTheFileWasReplaced() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        new FileSaveDataSetDataAccessObject(rootDir.toString()).save("people", createSampleDataSet());
+        Path base = rootDir.resolve("people.csv");
+        EditJournalFile.Stamp stamp = EditJournalFile.Stamp.of(base);
+        try (EditJournalFile compacting = EditJournalFile.create(rootDir.resolve("people.csv.journal.compacting"),
+                stamp)) {
+            compacting.appendCell(0, 1, "26");
+            compacting.appendSave();
+        }
+        // edits saved while the compaction was running; the rebase names a file that never made it
+        try (EditJournalFile fresh = EditJournalFile.create(rootDir.resolve("people.csv.journal"), stamp)) {
+            fresh.appendCell(0, 1, "27");
+            fresh.appendSave();
+            fresh.appendRebase(new EditJournalFile.Stamp(1, 2));
+        }
+
+        assertEquals(List.of(List.of("Name", "Age"), List.of("Alice", "27"), List.of("Bob", "30")),
+                cells(reopen(base)));
+        // the interrupted compaction is finished first, then the fresh journal is compacted after it
+        assertEquals("Name,Age\nAlice,27\nBob,30\n", Files.readString(base));
+        assertEquals(0, journals(rootDir));
+    }
+
+    @Test
+    void unsavedEditsAreRestoredAfterACrashAndDroppedWhenDiscarded() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        DataSet dataSet = createSampleDataSet();
+        dao.save("people", dataSet);
+        Path base = rootDir.resolve("people.csv");
+        dataSet.setCell("26", 0, 1);
+        dao.cellEdited(dataSet, 0, 1, "26");
+
+        // the first data access object is never closed, as if the application had crashed
+        DataSet restored = new CsvIngestion().read(base);
+        FileSaveDataSetDataAccessObject restarted = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        restarted.opened(base, restored);
+        assertEquals(List.of(List.of("Name", "Age"), List.of("Alice", "26"), List.of("Bob", "30")), cells(restored));
+        assertEquals("Name,Age\nAlice,25\nBob,30\n", Files.readString(base));
+
+        restored.setCell("Bobby", 1, 0);
+        restarted.cellEdited(restored, 1, 0, "Bobby");
+        restarted.discardUnsavedEdits();
+
+        assertEquals(List.of(List.of("Name", "Age"), List.of("Alice", "25"), List.of("Bob", "30")),
+                cells(reopen(base)));
+        assertEquals(0, journals(rootDir));
+    }
+
+    @Test
+    void openingAnotherFileDiscardsTheUnsavedEditsButKeepsTheSavedOnes() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        DataSet dataSet = createSampleDataSet();
+        dao.save("people", dataSet);
+        dao.save("others", createSampleDataSet());
+        dao.save("people", dataSet);
+        Path base = rootDir.resolve("people.csv");
+
+        dataSet.setCell("26", 0, 1);
+        dao.cellEdited(dataSet, 0, 1, "26");
+        assertTrue(dao.saveEdits("people", dataSet));
+        dataSet.setCell("Bobby", 1, 0);
+        dao.cellEdited(dataSet, 1, 0, "Bobby");
+        Path others = rootDir.resolve("others.csv");
+        dao.opened(others, new CsvIngestion().read(others));
+        dao.awaitCompaction();
+
+        assertEquals(List.of(List.of("Name", "Age"), List.of("Alice", "26"), List.of("Bob", "30")),
+                cells(reopen(base)));
+        assertEquals("Name,Age\nAlice,26\nBob,30\n", Files.readString(base));
+    }
+
+    @Test
+    void opened_ignoresTheJournalOfAReplacedFile() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        new FileSaveDataSetDataAccessObject(rootDir.toString()).save("people", createSampleDataSet());
+        Path base = rootDir.resolve("people.csv");
+        try (EditJournalFile stale = EditJournalFile.create(rootDir.resolve("people.csv.journal"),
+                EditJournalFile.Stamp.of(base))) {
+            stale.appendCell(0, 1, "26");
+            stale.appendSave();
+        }
+
+        // a file replaced behind the journal's back no longer matches it
+        Files.writeString(base, "Name,Age\nCarol,40\n");
+
+        assertEquals(List.of(List.of("Name", "Age"), List.of("Carol", "40")), cells(reopen(base)));
+        assertEquals(0, journals(rootDir));
+    }
+
+    @Test
+    void saveEdits_needsFullSaveAfterDataSetRewritten() throws IOException {
+        Path rootDir = tempDir.resolve("datasets");
+        FileSaveDataSetDataAccessObject dao = new FileSaveDataSetDataAccessObject(rootDir.toString());
+        DataSet dataSet = createSampleDataSet();
+        dao.save("people", dataSet);
+        dataSet.setCell("26", 0, 1);
+        dao.cellEdited(dataSet, 0, 1, "26");
+
+        dao.dataSetRewritten(dataSet);
+
+        assertFalse(dao.saveEdits("people", dataSet));
+        dao.save("people", dataSet);
+        assertTrue(dao.saveEdits("people", dataSet));
+        assertEquals(List.of(List.of("Name", "Age"), List.of("Alice", "26"), List.of("Bob", "30")),
+                cells(reopen(rootDir.resolve("people.csv"))));
+    }
 }
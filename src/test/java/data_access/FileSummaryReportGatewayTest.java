@@ -0,0 +1,284 @@
+package data_access;
+
+import entity.ColumnFilter;
+import entity.CorrelationMatrixMetric;
+import entity.DataSubsetSpec;
+import entity.HeatmapSummaryMetric;
+import entity.MetricType;
+import entity.OutlierPoint;
+import entity.OutlierSummaryMetric;
+import entity.RowPredicate;
+import entity.RowSelection;
+import entity.ScalarSummaryMetrics;
+import entity.SummaryMetric;
+import entity.SummaryReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link FileSummaryReportGateway}.
+ */
+class FileSummaryReportGatewayTest {
+    private static final long FINGERPRINT = 0x5EEDL;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void save_reportsSurviveReopeningWithEveryMetricKind() {
+        new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE).save(report(7), 42L, FINGERPRINT);
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+        SummaryReport loaded = reopened.getById(7);
+
+        assertNotNull(loaded);
+        assertEquals("Report 7", loaded.getReportName());
+        DataSubsetSpec spec = loaded.getSelectedSubset();
+        assertEquals("subset-7", spec.getSubsetId());
+        assertEquals(List.of("Age", "Salary"), spec.getColumnNames());
+        assertEquals(List.of(0, 5, 3, 100_000), spec.getRowIndices());
+        assertEquals(2, spec.getFilters().size());
+        assertEquals(ColumnFilter.Operator.GREATER_OR_EQUAL, spec.getFilters().get(0).getOperator());
+        assertEquals(18.0, spec.getFilters().get(0).getNumber());
+        assertEquals("Boston", spec.getFilters().get(1).getText());
+
+        List<SummaryMetric> metrics = loaded.getSummaryMetrics();
+        assertEquals(4, metrics.size());
+        ScalarSummaryMetrics mean = (ScalarSummaryMetrics) metrics.get(0);
+        assertEquals(MetricType.MEAN, mean.getMetricType());
+        assertEquals(37.5, mean.getMetricValue());
+        assertEquals(List.of("Age"), mean.getSelectedSubset().getColumnNames());
+        // metrics computed on the same rows still share one row list
+        assertSame(spec.getRowIndices(), mean.getSelectedSubset().getRowIndices());
+
+        OutlierSummaryMetric outliers = (OutlierSummaryMetric) metrics.get(1);
+        assertEquals(3.0, outliers.getOutlier_z_score_threshold());
+        assertEquals(1, outliers.getOutlier_points().size());
+        OutlierPoint point = outliers.getOutlier_points().get(0);
+        assertEquals(100_000, point.getRowIndex());
+        assertEquals(1, point.getColIndex());
+        assertEquals(4.25, point.getZScore());
+
+        CorrelationMatrixMetric correlation = (CorrelationMatrixMetric) metrics.get(2);
+        assertEquals(List.of("Age", "Salary"), correlation.getVariableNames());
+        assertArrayEquals(new double[] {1.0, -0.5}, correlation.getCorrelationMatrix()[0]);
+        assertArrayEquals(new double[] {-0.5, 1.0}, correlation.getCorrelationMatrix()[1]);
+
+        HeatmapSummaryMetric heatmap = (HeatmapSummaryMetric) metrics.get(3);
+        assertEquals(List.of("r1"), heatmap.getRowLabels());
+        assertEquals(List.of("c1", "c2"), heatmap.getColLabels());
+        assertTrue(Double.isNaN(heatmap.getHeatmapValues()[0][1]));
+        assertSame(spec, heatmap.getSelectedSubset());
+    }
+
+    @Test
+    void save_rowSelectionsAreStoredAsTheirCountOrRuns() throws IOException {
+        RowSelection sparse = RowSelection.range(500, 600_000).or(RowSelection.of(3, 700_001));
+        DataSubsetSpec all = DataSubsetSpec.of("all", List.of("Age"), RowSelection.all(2_000_000));
+        DataSubsetSpec some = DataSubsetSpec.of("some", List.of("Age"), sparse);
+        new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE).save(new SummaryReport(3, "Selections", all,
+                List.of(new ScalarSummaryMetrics(MetricType.MEAN, some, 1.0))));
+
+        SummaryReport loaded = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE).getById(3);
+
+        assertEquals(RowSelection.all(2_000_000), loaded.getSelectedSubset().getRowSelection());
+        assertTrue(loaded.getSelectedSubset().getRowSelection().isAll());
+        assertEquals(sparse, loaded.getSummaryMetrics().get(0).getSelectedSubset().getRowSelection());
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.allMatch(file -> file.toFile().length() < 200));
+        }
+    }
+
+    @Test
+    void save_predicatesAndEveryFilterOperatorRoundTrip() throws IOException {
+        RowPredicate predicate = RowPredicate.or(
+                RowPredicate.and(ColumnFilter.between("Age", 30, 40), ColumnFilter.in("City", List.of("Boston", ""))),
+                RowPredicate.not(ColumnFilter.isNotNull("Bonus")));
+        DataSubsetSpec spec = DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(1_000),
+                List.of(ColumnFilter.isNull("Name"), ColumnFilter.lessOrEqual("Age", 65))).where(predicate);
+        new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE).save(new SummaryReport(4, "Predicates", spec,
+                List.of(new ScalarSummaryMetrics(MetricType.MEAN, spec, 35.0))));
+
+        SummaryReport loaded = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE).getById(4);
+
+        assertEquals(spec, loaded.getSelectedSubset());
+        assertEquals(predicate, loaded.getSelectedSubset().getPredicate());
+        assertEquals(spec.getCondition(), loaded.getSummaryMetrics().get(0).getSelectedSubset().getCondition());
+    }
+
+    @Test
+    void getByDataVersion_findsReportsSavedWithThatVersion() {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+        gateway.save(report(1), 100L, FINGERPRINT);
+        gateway.save(report(2));
+
+        assertEquals(1, gateway.getByDataVersion(100L).getSummaryId());
+        assertNull(gateway.getByDataVersion(200L));
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+        assertEquals(1, reopened.getByDataVersion(100L).getSummaryId());
+        assertEquals(FINGERPRINT, reopened.getFingerprint(100L));
+        assertNull(reopened.getFingerprint(200L));
+        assertNotNull(reopened.getById(2));
+        assertNull(reopened.getById(3));
+    }
+
+    @Test
+    void save_reusedIdKeepsTheReportsOfEarlierDataVersions() {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+        gateway.save(report(1, "first"), 100L, FINGERPRINT);
+        gateway.save(report(1, "second"), 200L, FINGERPRINT);
+
+        assertEquals("first", gateway.getByDataVersion(100L).getReportName());
+        assertEquals("second", gateway.getByDataVersion(200L).getReportName());
+        assertEquals("second", gateway.getById(1).getReportName());
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+        assertEquals("first", reopened.getByDataVersion(100L).getReportName());
+        assertEquals("second", reopened.getByDataVersion(200L).getReportName());
+    }
+
+    @Test
+    void save_sameDataVersionReplacesTheReport() throws IOException {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+        gateway.save(report(1), 100L, FINGERPRINT);
+        gateway.save(report(2), 100L, FINGERPRINT);
+
+        assertEquals(2, gateway.getByDataVersion(100L).getSummaryId());
+        assertNull(gateway.getById(1));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void save_evictsLeastRecentlyUsedReportsBeyondTheCount() {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 2, Long.MAX_VALUE);
+        gateway.save(report(1));
+        gateway.save(report(2));
+        assertNotNull(gateway.getById(1));
+        gateway.save(report(3));
+
+        assertNotNull(gateway.getById(1));
+        assertNull(gateway.getById(2));
+        assertNotNull(gateway.getById(3));
+        assertFalse(Files.exists(tempDir.resolve("2.report")));
+    }
+
+    @Test
+    void open_evictsByLastUseRecordedInTheFiles() throws IOException {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 3, Long.MAX_VALUE);
+        gateway.save(report(1));
+        gateway.save(report(2));
+        gateway.save(report(3));
+        Files.setLastModifiedTime(tempDir.resolve("1.report"), FileTime.fromMillis(3_000));
+        Files.setLastModifiedTime(tempDir.resolve("2.report"), FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(tempDir.resolve("3.report"), FileTime.fromMillis(2_000));
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 2, Long.MAX_VALUE);
+
+        assertNull(reopened.getById(2));
+        assertNotNull(reopened.getById(1));
+        assertNotNull(reopened.getById(3));
+    }
+
+    @Test
+    void save_evictsBeyondTheByteLimitButKeepsTheNewestReport() throws IOException {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 10, 1);
+        gateway.save(report(1));
+        gateway.save(report(2));
+
+        assertNull(gateway.getById(1));
+        assertNotNull(gateway.getById(2));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void open_skipsFilesThatAreNotReportsWithoutDeletingThem() throws IOException {
+        new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE).save(report(1));
+        Files.write(tempDir.resolve("2.report"), new byte[] {1, 2, 3});
+        Path copy = tempDir.resolve("3.report");
+        Files.write(copy, Files.readAllBytes(tempDir.resolve("1.report")));
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+
+        assertNotNull(reopened.getById(1));
+        assertNull(reopened.getById(2));
+        assertNull(reopened.getById(3));
+        assertTrue(Files.exists(tempDir.resolve("2.report")));
+        assertTrue(Files.exists(copy));
+    }
+
+    @Test
+    void open_keepsReportsOfAnotherCodecVersion() throws IOException {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 1, Long.MAX_VALUE);
+        gateway.save(report(1), 100L, FINGERPRINT);
+        Path file = tempDir.resolve("v64.report");
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, SummaryReportCodec.VERSION + 1);
+        Files.write(file, bytes);
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 1, Long.MAX_VALUE);
+        reopened.save(report(2));
+
+        assertNull(reopened.getByDataVersion(100L));
+        assertArrayEquals(bytes, Files.readAllBytes(file));
+    }
+
+    @Test
+    void open_movesReportsStoredUnderTheirIdToTheirDataVersion() throws IOException {
+        new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE).save(report(1), 100L, FINGERPRINT);
+        Files.move(tempDir.resolve("v64.report"), tempDir.resolve("1.report"));
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+
+        assertEquals(1, reopened.getByDataVersion(100L).getSummaryId());
+        assertTrue(Files.exists(tempDir.resolve("v64.report")));
+        assertFalse(Files.exists(tempDir.resolve("1.report")));
+    }
+
+    @Test
+    void getById_returnsNullWhenTheFileWasDamaged() throws IOException {
+        FileSummaryReportGateway gateway = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+        gateway.save(report(1), 100L, FINGERPRINT);
+        byte[] bytes = Files.readAllBytes(tempDir.resolve("v64.report"));
+        Files.write(tempDir.resolve("v64.report"), Arrays.copyOf(bytes, bytes.length / 2));
+
+        FileSummaryReportGateway reopened = new FileSummaryReportGateway(tempDir, 10, Long.MAX_VALUE);
+
+        assertNull(reopened.getById(1));
+        assertNull(reopened.getByDataVersion(100L));
+    }
+
+    private static SummaryReport report(int id) {
+        return report(id, "Report " + id);
+    }
+
+    private static SummaryReport report(int id, String name) {
+        List<Integer> rows = List.of(0, 5, 3, 100_000);
+        DataSubsetSpec spec = new DataSubsetSpec("subset-" + id, List.of("Age", "Salary"), rows,
+                List.of(ColumnFilter.greaterOrEqual("Age", 18), ColumnFilter.equalTo("City", "Boston")));
+        DataSubsetSpec age = new DataSubsetSpec("subset-" + id + "-Age", List.of("Age"), rows);
+        List<SummaryMetric> metrics = List.of(
+                new ScalarSummaryMetrics(MetricType.MEAN, age, 37.5),
+                new OutlierSummaryMetric(MetricType.OUTLIERS, spec, 3.0,
+                        List.of(new OutlierPoint(100_000, 1, 4.25))),
+                new CorrelationMatrixMetric(MetricType.CORRELATION_MATRIX, spec,
+                        new double[][] {{1.0, -0.5}, {-0.5, 1.0}}, List.of("Age", "Salary")),
+                new HeatmapSummaryMetric(MetricType.HEATMAP, spec, new double[][] {{0.25, Double.NaN}},
+                        List.of("r1"), List.of("c1", "c2")));
+        return new SummaryReport(id, name, spec, metrics);
+    }
+}
@@ -0,0 +1,182 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnFilter;
+import entity.ColumnarDataSetBuilder;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataSubsetSpec;
+import entity.DataType;
+import entity.RowPredicate;
+import entity.RowSelection;
+import org.junit.jupiter.api.Test;
+import use_case.visualization.data.DataSubsetData;
+import use_case.visualization.data.NumericValues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link InMemoryDataSubsetGateway}.
+ */
+class InMemoryDataSubsetGatewayTest {
+    private static final List<String> CITIES = List.of("Boston", "Chicago", "Denver", "Miami");
+
+    @Test
+    void rowBasedNumericColumnsReportBlankAndInvalidCellsAsNulls() {
+        DataSet dataSet = new DataSet(
+                Arrays.asList(new DataRow(Arrays.asList("Alice", "25")), new DataRow(Arrays.asList("Bob", "")),
+                        new DataRow(Arrays.asList("Carol", "n/a")), new DataRow(Arrays.asList("Dan", "-1.5"))),
+                Arrays.asList(new Column(Arrays.asList("Alice", "Bob", "Carol", "Dan"), DataType.CATEGORICAL, "Name"),
+                        new Column(Arrays.asList("25", "", "n/a", "-1.5"), DataType.NUMERIC, "Age")));
+
+        DataSubsetData data = gatewayFor(dataSet).loadSubset(
+                new DataSubsetSpec("current", List.of("Age", "Name"), List.of(3, 2, 1, 0)));
+
+        NumericValues ages = data.getValuesFor("Age");
+        BitSet expectedNulls = new BitSet();
+        expectedNulls.set(1, 3);
+        assertEquals(expectedNulls, ages.getNullMask());
+        assertEquals(-1.5, ages.getDouble(0));
+        assertEquals(25.0, ages.getDouble(3));
+        assertEquals(Arrays.asList(-1.5, null, null, 25.0), data.getNumericColumns().get("Age"));
+        assertEquals(List.of("Dan", "Carol", "Bob", "Alice"), data.getCategoricalColumns().get("Name"));
+    }
+
+    @Test
+    void columnarNumericColumnsAreViewsOverTheVector() {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Salary"), List.of(DataType.NUMERIC));
+        for (String salary : new String[] {"50000", "", "61000.5", "abc"}) {
+            builder.addRow(new String[] {salary}, 1);
+        }
+        DataSet dataSet = builder.build();
+
+        NumericValues salaries = gatewayFor(dataSet)
+                .loadSubset(new DataSubsetSpec("current", List.of("Salary"), List.of(0, 1, 2, 3)))
+                .getValuesFor("Salary");
+
+        assertEquals(4, salaries.size());
+        assertEquals(50_000.0, salaries.getDouble(0));
+        assertTrue(salaries.isNull(1));
+        assertEquals(61_000.5, salaries.getDouble(2));
+        assertTrue(salaries.isNull(3));
+
+        NumericValues present = salaries.select(List.of(2, 0));
+        assertEquals(List.of(61_000.5, 50_000.0), present.asList());
+        assertEquals(0, present.countNulls());
+    }
+
+    @Test
+    void filteredRowSelectionsStaySelections() {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Score"), List.of(DataType.NUMERIC));
+        for (int i = 0; i < 1_000; i++) {
+            builder.addRow(new String[] {Integer.toString(i % 10)}, 1);
+        }
+        InMemoryDataSubsetGateway gateway = gatewayFor(builder.build());
+
+        DataSubsetData data = gateway.loadSubset(DataSubsetSpec.of("current", List.of("Score"),
+                RowSelection.range(100, 1_000), List.of(ColumnFilter.greaterThan("Score", 8))));
+
+        RowSelection matching = RowSelection.unwrap(data.getRowIndices(null));
+        assertNotNull(matching);
+        assertEquals(90, matching.cardinality());
+        assertEquals(109, matching.select(0));
+        assertEquals(9.0, data.getValuesFor("Score").getDouble(89));
+
+        NumericValues all = gateway.loadSubset(DataSubsetSpec.of("current", List.of("Score"), RowSelection.all(1_000)))
+                .getValuesFor("Score");
+        assertEquals(1_000, all.size());
+        assertEquals(7.0, all.getDouble(997));
+    }
+
+    @Test
+    void predicatesMatchARowByRowReferenceOnTypedAndTextColumns() {
+        // more rows than one scan block, so blocks are evaluated in parallel
+        int rows = 150_000;
+        Random random = new Random(5);
+        String[] scores = new String[rows];
+        String[] cities = new String[rows];
+        List<DataRow> dataRows = new ArrayList<>();
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Score", "City"),
+                List.of(DataType.NUMERIC, DataType.CATEGORICAL));
+        for (int i = 0; i < rows; i++) {
+            scores[i] = random.nextInt(20) == 0 ? "" : Integer.toString(random.nextInt(100));
+            cities[i] = CITIES.get(random.nextInt(CITIES.size()));
+            builder.addRow(new String[] {scores[i], cities[i]}, 2);
+            dataRows.add(new DataRow(Arrays.asList(scores[i], cities[i])));
+        }
+        DataSet columnar = builder.build();
+        DataSet rowBased = new DataSet(dataRows,
+                Arrays.asList(new Column(Arrays.asList(scores), DataType.NUMERIC, "Score"),
+                        new Column(Arrays.asList(cities), DataType.CATEGORICAL, "City")));
+        RowPredicate predicate = RowPredicate.or(
+                RowPredicate.and(ColumnFilter.between("Score", 20, 60), ColumnFilter.in("City", List.of("Boston", "Miami"))),
+                RowPredicate.not(ColumnFilter.isNotNull("Score")),
+                RowPredicate.and(ColumnFilter.equalTo("City", "Denver"), RowPredicate.not(ColumnFilter.lessThan("Score", 90))));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            if (reference(predicate, Map.of("Score", scores[i], "City", cities[i]))) {
+                expected.add(i);
+            }
+        }
+
+        RowSelection few = RowSelection.of(7, 70_000, 149_999);
+        List<Integer> reversed = new ArrayList<>(expected.subList(0, 100));
+        Collections.reverse(reversed);
+        for (DataSet dataSet : List.of(columnar, rowBased)) {
+            InMemoryDataSubsetGateway gateway = gatewayFor(dataSet);
+            DataSubsetData all = gateway.loadSubset(DataSubsetSpec.of("current", List.of("Score"),
+                    RowSelection.all(rows)).where(predicate));
+            assertEquals(expected, all.getRowIndices(null));
+            assertNotNull(RowSelection.unwrap(all.getRowIndices(null)));
+            assertEquals(expected.size(), all.getValuesFor("Score").size());
+
+            List<Integer> fewExpected = new ArrayList<>(few.asList());
+            fewExpected.retainAll(expected);
+            assertEquals(fewExpected, gateway.loadSubset(DataSubsetSpec.of("current", List.of("City"), few)
+                    .where(predicate)).getRowIndices(null));
+            assertEquals(reversed, gateway.loadSubset(new DataSubsetSpec("current", List.of("City"), reversed)
+                    .where(predicate)).getRowIndices(null));
+        }
+        assertThrows(IllegalArgumentException.class, () -> gatewayFor(columnar).loadSubset(DataSubsetSpec.of(
+                "current", List.of("City"), few).where(ColumnFilter.isNull("Bonus"))));
+    }
+
+    @Test
+    void listBasedSubsetDataIsCopiedIntoPrimitiveValuesOnce() {
+        DataSubsetData data = new DataSubsetData(Map.of("Score", Arrays.asList(1.0, null, 3.0)));
+
+        NumericValues scores = data.getValuesFor("Score");
+
+        assertSame(scores, data.getValuesFor("Score"));
+        assertTrue(scores.isNull(1));
+        assertEquals(3.0, scores.getDouble(2));
+        assertNull(data.getValuesFor("Missing"));
+    }
+
+    private static boolean reference(RowPredicate predicate, Map<String, String> row) {
+        switch (predicate.getKind()) {
+            case COLUMN:
+                return ((ColumnFilter) predicate).matches(row.get(((ColumnFilter) predicate).getColumnName()));
+            case AND:
+                return predicate.getOperands().stream().allMatch(operand -> reference(operand, row));
+            case OR:
+                return predicate.getOperands().stream().anyMatch(operand -> reference(operand, row));
+            default:
+                return !reference(predicate.getOperands().get(0), row);
+        }
+    }
+
+    private static InMemoryDataSubsetGateway gatewayFor(DataSet dataSet) {
+        InMemoryTableGateway table = new InMemoryTableGateway();
+        table.save(dataSet);
+        return new InMemoryDataSubsetGateway(table);
+    }
+}
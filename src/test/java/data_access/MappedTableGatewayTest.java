@@ -0,0 +1,256 @@
+package data_access;
+
+import entity.CategoricalColumnVector;
+import entity.Column;
+import entity.ColumnVector;
+import entity.ColumnarDataSetBuilder;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataSubsetSpec;
+import entity.DataType;
+import entity.NumericColumnVector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import use_case.table.DisplayTableInteractor;
+import use_case.table.DisplayTableOutputBoundary;
+import use_case.table.DisplayTableOutputData;
+import use_case.visualization.data.DataSubsetData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MappedTableGateway}.
+ */
+class MappedTableGatewayTest {
+    // 64-byte segments, so that even small tables span several mappings
+    private static final int SMALL_SEGMENTS = 6;
+
+    @TempDir
+    Path tempDir;
+
+    private MappedTableGateway gateway;
+
+    @AfterEach
+    void tearDown() {
+        if (gateway != null) {
+            gateway.close();
+        }
+    }
+
+    private DataSet createColumnarDataSet(int rows) {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(
+                List.of("Name", "Age", "Joined", "Active"),
+                List.of(DataType.CATEGORICAL, DataType.NUMERIC, DataType.DATE, DataType.BOOLEAN));
+        builder.addRow(new String[] {"Alice", "1.50", "not a date", "true"}, 4);
+        builder.addRow(new String[] {null, "", "2021-12-01", null, "extra"}, 5);
+        for (int i = 2; i < rows; i++) {
+            builder.addRow(new String[] {"Name " + i % 7, Integer.toString(i), "2020-01-" + (10 + i % 20),
+                    Boolean.toString(i % 3 == 0)}, 4);
+        }
+        return builder.build();
+    }
+
+    private static void assertSameCells(DataSet expected, DataSet actual) {
+        assertEquals(expected.getColumns().size(), actual.getColumns().size());
+        for (int i = 0; i < expected.getColumns().size(); i++) {
+            assertEquals(expected.getColumns().get(i).getHeader(), actual.getColumns().get(i).getHeader());
+            assertEquals(expected.getColumns().get(i).getDataType(), actual.getColumns().get(i).getDataType());
+            assertEquals(expected.getColumns().get(i).getCells(), actual.getColumns().get(i).getCells());
+        }
+        assertEquals(expected.getRows().size(), actual.getRows().size());
+        for (int row = 0; row < expected.getRows().size(); row++) {
+            assertEquals(expected.getRows().get(row).getCells(), actual.getRows().get(row).getCells());
+        }
+    }
+
+    private long columnFiles() throws IOException {
+        if (!Files.exists(tempDir.resolve("workspace"))) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(tempDir.resolve("workspace"))) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void save_mapsTypedColumnsIntoWorkspaceFiles() throws IOException {
+        DataSet dataSet = createColumnarDataSet(500);
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+
+        gateway.save(dataSet);
+        DataSet loaded = gateway.load();
+
+        assertNotSame(dataSet, loaded);
+        assertSameCells(dataSet, loaded);
+        assertEquals(Arrays.asList(null, "", "2021-12-01", null, "extra"), loaded.getRows().get(1).getCells());
+        assertInstanceOf(MappedCategoricalColumnVector.class, loaded.getColumns().get(0).getVector());
+        assertInstanceOf(MappedNumericColumnVector.class, loaded.getColumns().get(1).getVector());
+        assertInstanceOf(MappedDateColumnVector.class, loaded.getColumns().get(2).getVector());
+        // boolean columns stay on the heap
+        assertEquals(3, columnFiles());
+        assertEquals(1.5, ((NumericColumnVector) loaded.getColumns().get(1).getVector()).getDouble(0));
+        assertEquals(499.0, ((NumericColumnVector) loaded.getColumns().get(1).getVector()).getDouble(499));
+    }
+
+    @Test
+    void setCell_writesThroughToTheMappedTable() {
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+        gateway.save(createColumnarDataSet(100));
+        DataSet loaded = gateway.load();
+
+        loaded.setCell("Zoe", 99, 0);
+        loaded.setCell("12.5", 98, 1);
+        loaded.setCell("2.0", 97, 1);
+        loaded.setCell("", 96, 2);
+        gateway.save(loaded);
+
+        DataSet reloaded = gateway.load();
+        assertSame(loaded, reloaded);
+        assertEquals("Zoe", reloaded.getRows().get(99).getCells().get(0));
+        NumericColumnVector ages = (NumericColumnVector) reloaded.getColumns().get(1).getVector();
+        assertEquals(12.5, ages.getDouble(98));
+        assertEquals(2.0, ages.getDouble(97));
+        assertEquals("2.0", ages.getString(97));
+        assertTrue(reloaded.getColumns().get(2).getVector().isMissing(96));
+        assertEquals("Zoe", ((CategoricalColumnVector) reloaded.getColumns().get(0).getVector()).getDictionary()
+                .get(((CategoricalColumnVector) reloaded.getColumns().get(0).getVector()).getCode(99)));
+    }
+
+    @Test
+    void mappedColumnsGrowAcrossSegments() {
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+        gateway.save(createColumnarDataSet(3));
+        ColumnVector ages = gateway.load().getColumns().get(1).getVector();
+
+        for (int i = 0; i < 1000; i++) {
+            ages.append(Integer.toString(i * 3));
+        }
+
+        assertEquals(1003, ages.size());
+        assertEquals("2", ages.getString(2));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 3.0, ((NumericColumnVector) ages).getDouble(3 + i));
+        }
+    }
+
+    @Test
+    void save_convertsRowBackedDataSet() {
+        DataRow row1 = new DataRow(Arrays.asList("Alice", "25"));
+        DataRow row2 = new DataRow(Arrays.asList("Bob", "30", "overflow"));
+        Column col1 = new Column(Arrays.asList("Alice", "Bob"), DataType.CATEGORICAL, "Name");
+        Column col2 = new Column(Arrays.asList("25", "30"), DataType.NUMERIC, "Age");
+        DataSet dataSet = new DataSet(Arrays.asList(row1, row2), Arrays.asList(col1, col2));
+        gateway = new MappedTableGateway(tempDir.resolve("workspace").toString());
+
+        gateway.save(dataSet);
+
+        assertTrue(gateway.load().isColumnar());
+        assertSameCells(dataSet, gateway.load());
+    }
+
+    @Test
+    void replacingOrClosingTheTableDeletesItsColumnFiles() throws IOException {
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+        gateway.save(createColumnarDataSet(50));
+        DataSet first = gateway.load();
+
+        gateway.save(createColumnarDataSet(20));
+        assertEquals(3, columnFiles());
+        assertEquals(20, gateway.load().getRows().size());
+        assertNotSame(first, gateway.load());
+
+        gateway.save(null);
+        assertNull(gateway.load());
+        assertEquals(0, columnFiles());
+
+        gateway.save(createColumnarDataSet(20));
+        gateway.close();
+        assertNull(gateway.load());
+        assertEquals(0, columnFiles());
+    }
+
+    @Test
+    void openSaved_copiesBinaryDatasetGroupByGroup() {
+        DataSet dataSet = createColumnarDataSet(1000);
+        BinaryDataSetDataAccessObject store = new BinaryDataSetDataAccessObject(tempDir.resolve("store").toString(), 64);
+        store.saveDataSet("people", dataSet);
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+
+        gateway.openSaved(store, "people");
+
+        assertSameCells(dataSet, gateway.load());
+        assertInstanceOf(MappedNumericColumnVector.class, gateway.load().getColumns().get(1).getVector());
+    }
+
+    @Test
+    void save_mapsColumnsPutIntoTheCurrentTable() {
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+        gateway.save(createColumnarDataSet(100));
+        DataSet loaded = gateway.load();
+        ColumnVector doubled = ColumnVector.create(DataType.NUMERIC, 100);
+        for (int i = 0; i < 100; i++) {
+            doubled.append(Integer.toString(i * 2));
+        }
+
+        loaded.getColumns().set(1, new Column(doubled, "Doubled"));
+        gateway.save(loaded);
+
+        assertSame(loaded, gateway.load());
+        assertInstanceOf(MappedNumericColumnVector.class, loaded.getColumns().get(1).getVector());
+        assertEquals("Doubled", loaded.getColumns().get(1).getHeader());
+        assertEquals("198", loaded.getRows().get(99).getCells().get(1));
+    }
+
+    @Test
+    void openSaved_releasesTheCurrentTableFirst() throws IOException {
+        BinaryDataSetDataAccessObject store = new BinaryDataSetDataAccessObject(tempDir.resolve("store").toString(), 64);
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+        gateway.save(createColumnarDataSet(50));
+
+        assertThrows(UncheckedIOException.class, () -> gateway.openSaved(store, "missing"));
+
+        assertNull(gateway.load());
+        assertEquals(0, columnFiles());
+    }
+
+    @Test
+    void subsetsAndTableDisplayWorkOnTheMappedTable() {
+        DataSet dataSet = createColumnarDataSet(200);
+        gateway = new MappedTableGateway(tempDir.resolve("workspace"), SMALL_SEGMENTS);
+        gateway.save(dataSet);
+        List<Integer> rows = IntStream.range(2, 200).boxed().collect(Collectors.toList());
+
+        DataSubsetData subset = new InMemoryDataSubsetGateway(gateway)
+                .loadSubset(new DataSubsetSpec("all", List.of("Age", "Name"), rows));
+        assertEquals(198, subset.getNumericColumns().get("Age").size());
+        assertEquals(199.0, subset.getNumericColumns().get("Age").get(197));
+        assertEquals("Name 2", subset.getCategoricalColumns().get("Name").get(0));
+
+        List<DisplayTableOutputData> displayed = new ArrayList<>();
+        new DisplayTableInteractor(gateway, new DisplayTableOutputBoundary() {
+            @Override
+            public void prepareSuccessView(DisplayTableOutputData outputData) {
+                displayed.add(outputData);
+            }
+
+            @Override
+            public void prepareFailureView(String errorMessage) {
+                fail(errorMessage);
+            }
+        }).execute();
+        assertArrayEquals(new String[] {"Name", "Age", "Joined", "Active"}, displayed.get(0).getHeaders());
+        assertArrayEquals(new String[] {"Name 3", "3", "2020-01-13", "true"}, displayed.get(0).getRowData()[3]);
+    }
+}
@@ -0,0 +1,178 @@
+package data_access;
+
+import entity.Column;
+import entity.ColumnarDataSetBuilder;
+import entity.DataRow;
+import entity.DataSet;
+import entity.DataType;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PartitionedCsvExporter}.
+ */
+class PartitionedCsvExporterTest {
+    private static final int ROWS = 10_000;
+    private static final List<String> INDUSTRIES = List.of("Finance", "Retail", "Energy");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void exportByRowRanges_partsConcatenateToTheWholeDataSet() throws IOException {
+        DataSet dataSet = payroll();
+        PartitionedCsvExporter exporter = new PartitionedCsvExporter(tempDir.toString(), ',', false, 4);
+
+        Path manifestFile = exporter.exportByRowRanges("payroll", dataSet, 7);
+
+        JSONObject manifest = new JSONObject(Files.readString(manifestFile));
+        assertEquals("rows", manifest.getJSONObject("partitionedBy").getString("type"));
+        assertEquals(ROWS, manifest.getInt("rows"));
+        JSONArray parts = manifest.getJSONArray("partitions");
+        assertEquals(7, parts.length());
+
+        List<String> whole = lines(dataSet);
+        List<String> joined = new ArrayList<>();
+        joined.add(whole.get(0));
+        int firstRow = 0;
+        for (int p = 0; p < parts.length(); p++) {
+            JSONObject part = parts.getJSONObject(p);
+            assertEquals(String.format("part-%05d.csv", p), part.getString("file"));
+            assertEquals(firstRow, part.getInt("firstRow"));
+            Path file = manifestFile.resolveSibling(part.getString("file"));
+            assertEquals(Files.size(file), part.getLong("bytes"));
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(whole.get(0), lines.get(0));
+            assertEquals(part.getInt("rows"), lines.size() - 1);
+            joined.addAll(lines.subList(1, lines.size()));
+            firstRow += part.getInt("rows");
+        }
+        assertEquals(whole, joined);
+    }
+
+    @Test
+    void exportByColumn_writesOneFilePerValueInFirstOccurrenceOrder() throws IOException {
+        DataSet dataSet = payroll();
+        PartitionedCsvExporter exporter = new PartitionedCsvExporter(tempDir.toString(), ',', false, 2);
+
+        Path manifestFile = exporter.exportByColumn("payroll", dataSet, "Industry");
+
+        JSONObject manifest = new JSONObject(Files.readString(manifestFile));
+        assertEquals("Industry", manifest.getJSONObject("partitionedBy").getString("column"));
+        JSONArray schema = manifest.getJSONArray("schema");
+        assertEquals("Salary", schema.getJSONObject(1).getString("name"));
+        assertEquals("NUMERIC", schema.getJSONObject(1).getString("type"));
+        assertEquals("CATEGORICAL", schema.getJSONObject(2).getString("type"));
+
+        JSONArray parts = manifest.getJSONArray("partitions");
+        assertEquals(INDUSTRIES.size() + 1, parts.length());
+        for (int p = 0; p < INDUSTRIES.size(); p++) {
+            assertEquals(INDUSTRIES.get(p), parts.getJSONObject(p).getString("value"));
+        }
+        assertTrue(parts.getJSONObject(INDUSTRIES.size()).isNull("value"));
+
+        List<String> whole = lines(dataSet);
+        int total = 0;
+        for (int p = 0; p < parts.length(); p++) {
+            JSONObject part = parts.getJSONObject(p);
+            List<String> lines = Files.readAllLines(manifestFile.resolveSibling(part.getString("file")));
+            String suffix = "," + (part.isNull("value") ? "" : part.getString("value"));
+            List<String> expected = new ArrayList<>();
+            for (String line : whole.subList(1, whole.size())) {
+                if (line.substring(line.lastIndexOf(',')).equals(suffix)) {
+                    expected.add(line);
+                }
+            }
+            assertEquals(expected, lines.subList(1, lines.size()));
+            assertEquals(expected.size(), part.getInt("rows"));
+            total += expected.size();
+        }
+        assertEquals(ROWS, total);
+    }
+
+    @Test
+    void exportByColumn_groupsRowBasedDataSetsByCellText() throws IOException {
+        DataSet dataSet = new DataSet(
+                Arrays.asList(new DataRow(Arrays.asList("Alice", "Tech")), new DataRow(Arrays.asList("Bob", "Law")),
+                        new DataRow(Arrays.asList("Carol", "Tech"))),
+                Arrays.asList(new Column(Arrays.asList("Alice", "Bob", "Carol"), DataType.CATEGORICAL, "Name"),
+                        new Column(Arrays.asList("Tech", "Law", "Tech"), DataType.CATEGORICAL, "Industry")));
+        PartitionedCsvExporter exporter = new PartitionedCsvExporter(tempDir.toString(), ';', true, 2);
+
+        Path manifestFile = exporter.exportByColumn("people", dataSet, "Industry");
+
+        JSONObject manifest = new JSONObject(Files.readString(manifestFile));
+        assertEquals("csv.gz", manifest.getString("format"));
+        assertEquals(";", manifest.getString("delimiter"));
+        JSONArray parts = manifest.getJSONArray("partitions");
+        assertEquals(2, parts.length());
+        assertEquals("part-00000.csv.gz", parts.getJSONObject(0).getString("file"));
+        assertEquals("Name;Industry\nAlice;Tech\nCarol;Tech\n", gunzip(manifestFile.resolveSibling("part-00000.csv.gz")));
+        assertEquals("Name;Industry\nBob;Law\n", gunzip(manifestFile.resolveSibling("part-00001.csv.gz")));
+    }
+
+    @Test
+    void export_replacesTheFilesOfAnEarlierExport() throws IOException {
+        DataSet dataSet = payroll();
+        PartitionedCsvExporter exporter = new PartitionedCsvExporter(tempDir.toString());
+
+        exporter.exportByRowRanges("payroll", dataSet, 8);
+        Path manifestFile = exporter.exportByRowRanges("payroll", dataSet, 3);
+
+        try (var files = Files.list(manifestFile.getParent())) {
+            assertEquals(List.of("manifest.json", "part-00000.csv", "part-00001.csv", "part-00002.csv"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    @Test
+    void export_rejectsUnknownColumnsAndPartitionCounts() {
+        PartitionedCsvExporter exporter = new PartitionedCsvExporter(tempDir.toString());
+        DataSet dataSet = payroll();
+
+        assertThrows(IllegalArgumentException.class, () -> exporter.exportByColumn("payroll", dataSet, "Missing"));
+        assertThrows(IllegalArgumentException.class, () -> exporter.exportByRowRanges("payroll", dataSet, 0));
+        assertFalse(Files.exists(tempDir.resolve("payroll").resolve(PartitionedCsvExporter.MANIFEST_FILE)));
+    }
+
+    /**
+     * Columnar dataset whose industries come in an interleaved order, with an empty cell every 101 rows.
+     */
+    private static DataSet payroll() {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Id", "Salary", "Industry"),
+                List.of(DataType.NUMERIC, DataType.NUMERIC, DataType.CATEGORICAL));
+        for (int i = 0; i < ROWS; i++) {
+            String industry = i % 101 == 100 ? "" : INDUSTRIES.get(i * 7 % INDUSTRIES.size());
+            builder.addRow(new String[] {Integer.toString(i), Integer.toString(30_000 + i * 3), industry}, 3);
+        }
+        return builder.build();
+    }
+
+    private static List<String> lines(DataSet dataSet) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CsvDataSetWriter().write(dataSet, Channels.newChannel(out));
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package data_access;
+
+import entity.ColumnFilter;
+import entity.ColumnarDataSetBuilder;
+import entity.DataSet;
+import entity.DataSubsetSpec;
+import entity.DataType;
+import entity.RowPredicate;
+import entity.RowSelection;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Times evaluating a predicate subset over a columnar dataset, alone and as part of loading the subset.
+ * Run with: java -cp target/classes:target/test-classes data_access.PredicateScanBenchmark [rows]
+ */
+public class PredicateScanBenchmark {
+    private static final int ROUNDS = 10;
+    private static final List<String> INDUSTRIES = List.of("Finance", "Retail", "Technology", "Energy", "Health");
+
+    public static void main(String[] args) {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        final String[] numbers = new String[1_000];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = Integer.toString(i);
+        }
+        final ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Age", "Salary", "Industry"),
+                List.of(DataType.NUMERIC, DataType.NUMERIC, DataType.CATEGORICAL), rows);
+        final Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            builder.addRow(new String[] {random.nextInt(50) == 0 ? "" : numbers[18 + random.nextInt(60)],
+                    numbers[random.nextInt(1_000)], INDUSTRIES.get(random.nextInt(INDUSTRIES.size()))}, 3);
+        }
+        final DataSet dataSet = builder.build();
+        final InMemoryTableGateway table = new InMemoryTableGateway();
+        table.save(dataSet);
+        final InMemoryDataSubsetGateway gateway = new InMemoryDataSubsetGateway(table);
+
+        final RowPredicate predicate = RowPredicate.or(
+                RowPredicate.and(ColumnFilter.between("Age", 30, 40),
+                        ColumnFilter.in("Industry", List.of("Finance", "Technology"))),
+                RowPredicate.and(ColumnFilter.greaterThan("Salary", 990), RowPredicate.not(ColumnFilter.isNull("Age"))));
+        final Map<String, PredicateScan.Source> sources = new HashMap<>();
+        dataSet.getColumns().forEach(column -> sources.put(column.getHeader(), PredicateScan.Source.of(column.getVector())));
+        final DataSubsetSpec spec = DataSubsetSpec.of("current", List.of("Salary"), RowSelection.all(rows))
+                .where(predicate);
+
+        long scan = 0;
+        long load = 0;
+        int matched = 0;
+        for (int i = 0; i <= ROUNDS; i++) {
+            long start = System.nanoTime();
+            final long[] bits = PredicateScan.compile(predicate, sources::get).scan(rows);
+            final long scanTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            matched = gateway.loadSubset(spec).getValuesFor("Salary").size();
+            final long loadTime = System.nanoTime() - start;
+
+            final int scanned = BitSet.valueOf(bits).cardinality();
+            if (scanned != matched) {
+                throw new IllegalStateException(scanned + " != " + matched);
+            }
+            // the first round is warm-up
+            if (i > 0) {
+                scan += scanTime;
+                load += loadTime;
+            }
+        }
+        System.out.printf("%,d rows, %,d match %s%n", rows, matched, predicate);
+        System.out.printf("predicate scan  %8.1f ms%n", scan / 1e6 / ROUNDS);
+        System.out.printf("subset load     %8.1f ms%n", load / 1e6 / ROUNDS);
+    }
+}
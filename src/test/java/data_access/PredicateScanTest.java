@@ -0,0 +1,97 @@
+package data_access;
+
+import entity.ColumnFilter;
+import entity.ColumnVector;
+import entity.DataType;
+import entity.RowPredicate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PredicateScan}.
+ */
+class PredicateScanTest {
+    private static final double[] EDGES = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.5, -Double.MIN_VALUE,
+            -0.0, 0.0, Double.MIN_VALUE, Double.MIN_NORMAL, 1.5, Double.MAX_VALUE, Double.POSITIVE_INFINITY,
+            Double.NaN};
+
+    @Test
+    void numericKernelsAgreeWithTheFilterAtEdgeValues() {
+        List<String> cells = new ArrayList<>();
+        for (double edge : EDGES) {
+            cells.add(Double.toString(edge));
+        }
+        cells.add("");
+        cells.add("n/a");
+        ColumnVector vector = ColumnVector.of(DataType.NUMERIC, cells);
+
+        List<ColumnFilter> filters = new ArrayList<>();
+        for (double edge : EDGES) {
+            filters.add(ColumnFilter.lessThan("x", edge));
+            filters.add(ColumnFilter.lessOrEqual("x", edge));
+            filters.add(ColumnFilter.greaterThan("x", edge));
+            filters.add(ColumnFilter.greaterOrEqual("x", edge));
+            for (double upper : EDGES) {
+                if (edge <= upper) {
+                    filters.add(ColumnFilter.between("x", edge, upper));
+                }
+            }
+        }
+        for (ColumnFilter filter : filters) {
+            BitSet expected = new BitSet();
+            for (int row = 0; row < cells.size(); row++) {
+                if (filter.matches(vector, row)) {
+                    expected.set(row);
+                }
+            }
+            PredicateScan scan = PredicateScan.compile(filter, name -> PredicateScan.Source.of(vector));
+            assertEquals(expected, BitSet.valueOf(scan.scan(cells.size())), filter.toString());
+            for (int row = 0; row < cells.size(); row++) {
+                assertEquals(expected.get(row), scan.test(row), filter + " row " + row);
+            }
+        }
+    }
+
+    @Test
+    void combinationsOverSeveralBlocksMatchRowByRowTests() {
+        // not a multiple of 64, so NOT has to clear the bits past the last row
+        int rows = 140_001;
+        Random random = new Random(3);
+        List<String> amounts = new ArrayList<>(rows);
+        List<String> kinds = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            amounts.add(random.nextInt(10) == 0 ? "" : Integer.toString(random.nextInt(1_000) - 500));
+            kinds.add(random.nextInt(10) == 0 ? "" : "K" + random.nextInt(7));
+        }
+        Map<String, ColumnVector> vectors = Map.of("Amount", ColumnVector.of(DataType.NUMERIC, amounts),
+                "Kind", ColumnVector.of(DataType.CATEGORICAL, kinds));
+        Map<String, PredicateScan.Source> text = Map.of("Amount", PredicateScan.Source.of(amounts, null),
+                "Kind", PredicateScan.Source.of(kinds, null));
+        RowPredicate predicate = RowPredicate.or(
+                RowPredicate.not(RowPredicate.or(ColumnFilter.isNull("Kind"), ColumnFilter.lessOrEqual("Amount", 0))),
+                RowPredicate.and(ColumnFilter.in("Kind", List.of("K1", "K4")), ColumnFilter.isNull("Amount")),
+                RowPredicate.and(ColumnFilter.equalTo("Kind", "K9"), ColumnFilter.greaterThan("Amount", 0)));
+
+        PredicateScan typed = PredicateScan.compile(predicate, name -> PredicateScan.Source.of(vectors.get(name)));
+        PredicateScan cells = PredicateScan.compile(predicate, text::get);
+        BitSet expected = new BitSet();
+        for (int row = 0; row < rows; row++) {
+            if (cells.test(row)) {
+                expected.set(row);
+            }
+        }
+
+        assertTrue(expected.cardinality() > rows / 3);
+        assertEquals(expected, BitSet.valueOf(typed.scan(rows)));
+        assertEquals(expected, BitSet.valueOf(cells.scan(rows)));
+        assertThrows(IllegalArgumentException.class,
+                () -> PredicateScan.compile(ColumnFilter.isNull("Missing"), text::get));
+    }
+}
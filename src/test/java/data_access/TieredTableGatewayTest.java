@@ -0,0 +1,102 @@
+package data_access;
+
+import entity.ColumnarDataSetBuilder;
+import entity.DataSet;
+import entity.DataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link TieredTableGateway}.
+ */
+class TieredTableGatewayTest {
+    @TempDir
+    Path tempDir;
+
+    private TieredTableGateway gateway;
+
+    @BeforeEach
+    void setUp() {
+        // tables of more than 100 cells are mapped
+        gateway = new TieredTableGateway(new MappedTableGateway(tempDir.resolve("workspace").toString()),
+                100 * Double.BYTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gateway.close();
+    }
+
+    private static DataSet createDataSet(int rows) {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(List.of("Name", "Age"),
+                List.of(DataType.CATEGORICAL, DataType.NUMERIC));
+        for (int i = 0; i < rows; i++) {
+            builder.addRow(new String[] {"Name " + i, Integer.toString(i)}, 2);
+        }
+        return builder.build();
+    }
+
+    private long columnFiles() throws IOException {
+        if (!Files.exists(tempDir.resolve("workspace"))) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(tempDir.resolve("workspace"))) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void smallTablesStayOnTheHeap() throws IOException {
+        DataSet small = createDataSet(50);
+
+        gateway.save(small);
+
+        assertSame(small, gateway.load());
+        assertFalse(gateway.isMapped());
+        assertEquals(0, columnFiles());
+    }
+
+    @Test
+    void largeTablesAreMappedAndEditedThroughTheLoadedCopy() throws IOException {
+        DataSet large = createDataSet(51);
+
+        gateway.save(large);
+        DataSet loaded = gateway.load();
+        loaded.setCell("7", 50, 1);
+        gateway.save(loaded);
+
+        assertNotSame(large, loaded);
+        assertSame(loaded, gateway.load());
+        assertTrue(gateway.isMapped());
+        assertEquals(2, columnFiles());
+        assertEquals(List.of("Name 50", "7"), gateway.load().getRows().get(50).getCells());
+    }
+
+    @Test
+    void switchingTiersReleasesTheOtherTable() throws IOException {
+        gateway.save(createDataSet(200));
+        assertEquals(2, columnFiles());
+
+        DataSet small = createDataSet(3);
+        gateway.save(small);
+
+        assertSame(small, gateway.load());
+        assertFalse(gateway.isMapped());
+        assertEquals(0, columnFiles());
+
+        gateway.save(createDataSet(200));
+        gateway.save(null);
+        assertNull(gateway.load());
+        assertEquals(0, columnFiles());
+    }
+}
@@ -0,0 +1,99 @@
+package entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the typed columnar storage behind {@link DataSet}.
+ */
+class ColumnarDataSetTest {
+
+    private DataSet createDataSet() {
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(
+                List.of("num", "date", "bool", "cat"),
+                List.of(DataType.NUMERIC, DataType.DATE, DataType.BOOLEAN, DataType.CATEGORICAL));
+        builder.addRow(List.of("1", "2024-01-01", "true", "Boston"));
+        builder.addRow(List.of("2.50", "01/02/2024", "FALSE", "Boston"));
+        builder.addRow(List.of("", "", "", ""));
+        builder.addRow(List.of("abc", "2024-03-01"));
+        return builder.build();
+    }
+
+    @Test
+    void getCells_returnsOriginalTextForEveryType() {
+        DataSet dataSet = createDataSet();
+
+        assertTrue(dataSet.isColumnar());
+        assertEquals(4, dataSet.getRows().size());
+        assertEquals(List.of("1", "2024-01-01", "true", "Boston"), dataSet.getRows().get(0).getCells());
+        assertEquals(List.of("2.50", "01/02/2024", "FALSE", "Boston"), dataSet.getRows().get(1).getCells());
+        assertEquals(List.of("", "", "", ""), dataSet.getRows().get(2).getCells());
+        assertEquals(List.of("abc", "2024-03-01"), dataSet.getRows().get(3).getCells());
+        assertEquals(Arrays.asList("1", "2.50", "", "abc"), dataSet.getColumns().get(0).getCells());
+    }
+
+    @Test
+    void vectors_exposeTypedValuesAndMissingMask() {
+        DataSet dataSet = createDataSet();
+
+        NumericColumnVector num = (NumericColumnVector) dataSet.getColumns().get(0).getVector();
+        assertEquals(1.0, num.getDouble(0));
+        assertEquals(2.5, num.getDouble(1));
+        assertTrue(num.isMissing(2));
+        assertTrue(num.isMissing(3));
+
+        DateColumnVector date = (DateColumnVector) dataSet.getColumns().get(1).getVector();
+        assertEquals("2024-01-01", date.getDate(0).toString());
+        assertTrue(date.isMissing(1));
+
+        BooleanColumnVector bool = (BooleanColumnVector) dataSet.getColumns().get(2).getVector();
+        assertTrue(bool.getBoolean(0));
+        assertFalse(bool.getBoolean(1));
+
+        CategoricalColumnVector cat = (CategoricalColumnVector) dataSet.getColumns().get(3).getVector();
+        assertEquals(cat.getCode(0), cat.getCode(1));
+        assertEquals("Boston", cat.getDictionary().get(cat.getCode(0)));
+    }
+
+    @Test
+    void setCell_updatesRowAndColumnViews() {
+        DataSet dataSet = createDataSet();
+
+        dataSet.setCell("42", 2, 0);
+        dataSet.setCell(null, 0, 3);
+
+        assertEquals("42", dataSet.getRows().get(2).getCells().get(0));
+        assertEquals("42", dataSet.getColumns().get(0).getCells().get(2));
+        assertFalse(dataSet.getColumns().get(0).getVector().isMissing(2));
+        assertNull(dataSet.getRows().get(0).getCells().get(3));
+        assertEquals(CategoricalColumnVector.NULL_CODE,
+                ((CategoricalColumnVector) dataSet.getColumns().get(3).getVector()).getCode(0));
+    }
+
+    @Test
+    void numericVector_keepsDecimalPlacesWithoutVerbatimText() {
+        List<String> cells = Arrays.asList("12.50", "1.0", "-0.50", "0.05", "-0.00", "3.14159", "12.5", "7",
+                "007.5", "1.5e3", "1E2", "0.1234567890123456", null, "", "n/a");
+        NumericColumnVector vector = (NumericColumnVector) ColumnVector.of(DataType.NUMERIC, cells);
+
+        assertEquals(cells, vector.asStringList());
+        assertEquals(12.5, vector.getDouble(0));
+        // only text that no number formatting reproduces is kept verbatim
+        assertEquals(List.of(8, 9, 10, 14), vector.getVerbatimCells().keySet().stream().sorted().toList());
+
+        vector.setString(0, "4");
+        vector.setString(6, "2.000");
+        assertEquals("4", vector.getString(0));
+        assertEquals("2.000", vector.getString(6));
+
+        NumericColumnVector appended = (NumericColumnVector) ColumnVector.of(DataType.NUMERIC, List.of("9.90"));
+        appended.appendAll(vector);
+        assertEquals("9.90", appended.getString(0));
+        assertEquals("2.000", appended.getString(7));
+        assertEquals("-0.00", appended.getString(5));
+    }
+}
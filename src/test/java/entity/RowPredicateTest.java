@@ -0,0 +1,77 @@
+package entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RowPredicate} and the operators of {@link ColumnFilter}.
+ */
+class RowPredicateTest {
+
+    @Test
+    void combinationsAreFlattenedAndListTheirColumnsOnce() {
+        ColumnFilter adult = ColumnFilter.greaterOrEqual("Age", 18);
+        ColumnFilter boston = ColumnFilter.equalTo("City", "Boston");
+        ColumnFilter senior = ColumnFilter.greaterThan("Age", 65);
+
+        RowPredicate predicate = RowPredicate.and(adult, RowPredicate.and(boston, RowPredicate.not(senior)));
+
+        assertEquals(RowPredicate.Kind.AND, predicate.getKind());
+        assertEquals(3, predicate.getOperands().size());
+        assertEquals(List.of("Age", "City"), predicate.getColumnNames());
+        assertSame(adult, RowPredicate.or(adult));
+        assertEquals(predicate, RowPredicate.and(RowPredicate.and(adult, boston), RowPredicate.not(senior)));
+        assertNotEquals(predicate, RowPredicate.or(adult, boston, RowPredicate.not(senior)));
+        assertEquals("Age >= 18.0 AND City = \"Boston\" AND (NOT Age > 65.0)", predicate.toString());
+        assertThrows(IllegalArgumentException.class, () -> RowPredicate.and(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> RowPredicate.not(null));
+    }
+
+    @Test
+    void newOperatorsMatchTextCellsAndTypedVectors() {
+        ColumnFilter range = ColumnFilter.between("Age", 30, 40);
+        ColumnFilter cities = ColumnFilter.in("City", List.of("Boston", "Miami"));
+        ColumnFilter missing = ColumnFilter.isNull("Age");
+        ColumnFilter present = ColumnFilter.isNotNull("Age");
+
+        assertTrue(range.matches("30"));
+        assertTrue(range.matches("40.0"));
+        assertFalse(range.matches("40.5"));
+        assertFalse(range.matches("n/a"));
+        assertTrue(cities.matches("Miami"));
+        assertFalse(cities.matches("miami"));
+        assertTrue(missing.matches(""));
+        assertTrue(missing.matches(null));
+        assertFalse(present.matches(" "));
+        assertThrows(IllegalArgumentException.class, () -> ColumnFilter.between("Age", 40, 30));
+        assertThrows(IllegalArgumentException.class, () -> ColumnFilter.in("City", List.of()));
+
+        ColumnVector ages = ColumnVector.of(DataType.NUMERIC, List.of("35", "", "n/a", "41"));
+        assertTrue(range.matches(ages, 0));
+        assertFalse(range.matches(ages, 3));
+        assertTrue(missing.matches(ages, 1));
+        assertTrue(missing.matches(ages, 2));
+        assertTrue(present.matches(ages, 3));
+    }
+
+    @Test
+    void whereAddsToTheFiltersOfASpec() {
+        DataSubsetSpec spec = DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(10),
+                List.of(ColumnFilter.isNotNull("Age")));
+        RowPredicate either = RowPredicate.or(ColumnFilter.lessThan("Age", 20), ColumnFilter.greaterThan("Age", 60));
+
+        DataSubsetSpec filtered = spec.where(either);
+
+        assertNull(spec.getPredicate());
+        assertSame(spec, spec.where(null));
+        assertEquals(either, filtered.getPredicate());
+        assertEquals(RowPredicate.and(ColumnFilter.isNotNull("Age"), either), filtered.getCondition());
+        assertEquals(spec.getRowSelection(), filtered.getRowSelection());
+        assertNotEquals(spec, filtered);
+        assertEquals(filtered, spec.where(either));
+        assertNull(DataSubsetSpec.of("current", List.of("Age"), RowSelection.all(10)).getCondition());
+    }
+}
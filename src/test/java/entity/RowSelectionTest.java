@@ -0,0 +1,185 @@
+package entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RowSelection}.
+ */
+class RowSelectionTest {
+
+    @Test
+    void all_selectsEveryRowWithoutStoringThem() {
+        RowSelection all = RowSelection.all(5);
+
+        assertTrue(all.isAll());
+        assertEquals(5, all.cardinality());
+        assertEquals(List.of(0, 1, 2, 3, 4), all.asList());
+        assertTrue(all.contains(4));
+        assertFalse(all.contains(5));
+        assertFalse(all.contains(-1));
+        assertEquals(3, all.select(3));
+        assertEquals(4, all.last());
+        assertThrows(IndexOutOfBoundsException.class, () -> all.select(5));
+        assertTrue(RowSelection.all(0).isEmpty());
+    }
+
+    @Test
+    void of_sortsAndDedupesRowsAndRecognisesAllRows() {
+        RowSelection rows = RowSelection.of(9, 2, 2, 70_000, 3);
+
+        assertEquals(List.of(2, 3, 9, 70_000), rows.asList());
+        assertArrayEquals(new int[] {2, 3, 9, 70_000}, rows.toArray());
+        assertEquals(70_000, rows.last());
+        assertSame(rows, RowSelection.of(rows.asList()));
+        assertSame(rows, RowSelection.unwrap(rows.asList()));
+        assertNull(RowSelection.unwrap(List.of(1, 2)));
+
+        RowSelection prefix = RowSelection.of(List.of(3, 1, 0, 2));
+        assertTrue(prefix.isAll());
+        assertEquals(RowSelection.all(4), prefix);
+        assertEquals(RowSelection.all(4).hashCode(), prefix.hashCode());
+        assertThrows(IllegalArgumentException.class, () -> RowSelection.of(-1, 4));
+    }
+
+    @Test
+    void sparseAndDenseSelectionsMatchAReferenceSet() {
+        Random random = new Random(42);
+        BitSet expected = new BitSet();
+        // sparse chunks become arrays, a dense one becomes a bitmap
+        for (int i = 0; i < 3_000; i++) {
+            expected.set(random.nextInt(400_000));
+        }
+        for (int i = 0; i < 30_000; i++) {
+            expected.set(131_072 + random.nextInt(65_536));
+        }
+        RowSelection selection = RowSelection.of(expected.stream().toArray());
+
+        assertEquals(expected.cardinality(), selection.cardinality());
+        assertSelects(expected, selection);
+        for (int row = 0; row < 400_000; row += 7) {
+            assertEquals(expected.get(row), selection.contains(row), "row " + row);
+        }
+    }
+
+    @Test
+    void ofRuns_keepsLongRangesAsRunsAndShortOnesAsBitmaps() {
+        RowSelection ranges = RowSelection.ofRuns(new int[] {10, 100_000}, new int[] {20, 1_100_000});
+        BitSet expected = new BitSet();
+        expected.set(10, 20);
+        expected.set(100_000, 1_100_000);
+        assertSelects(expected, ranges);
+        assertTrue(ranges.toString().contains("2 runs"));
+
+        int[] starts = new int[1_000];
+        int[] ends = new int[1_000];
+        for (int r = 0; r < starts.length; r++) {
+            starts[r] = r * 3;
+            ends[r] = r * 3 + 1;
+        }
+        RowSelection singles = RowSelection.ofRuns(starts, ends);
+        assertEquals(1_000, singles.cardinality());
+        assertFalse(singles.toString().contains("runs"));
+        assertEquals(2_997, singles.last());
+
+        assertThrows(IllegalArgumentException.class, () -> RowSelection.ofRuns(new int[] {0, 5}, new int[] {5, 9}));
+        assertThrows(IllegalArgumentException.class, () -> RowSelection.range(5, 4));
+    }
+
+    @Test
+    void andOr_matchSetOperationsAcrossRepresentations() {
+        Random random = new Random(7);
+        List<BitSet> sets = new ArrayList<>();
+        List<RowSelection> selections = new ArrayList<>();
+        BitSet prefix = new BitSet();
+        prefix.set(0, 150_000);
+        sets.add(prefix);
+        selections.add(RowSelection.all(150_000));
+        BitSet range = new BitSet();
+        range.set(60_000, 200_000);
+        sets.add(range);
+        selections.add(RowSelection.range(60_000, 200_000));
+        for (int density : new int[] {3, 200}) {
+            BitSet set = new BitSet();
+            for (int row = random.nextInt(density); row < 250_000; row += 1 + random.nextInt(density)) {
+                set.set(row);
+            }
+            sets.add(set);
+            selections.add(RowSelection.of(set.stream().toArray()));
+        }
+
+        for (int i = 0; i < sets.size(); i++) {
+            for (int j = 0; j < sets.size(); j++) {
+                BitSet and = (BitSet) sets.get(i).clone();
+                and.and(sets.get(j));
+                assertSelects(and, selections.get(i).and(selections.get(j)));
+                BitSet or = (BitSet) sets.get(i).clone();
+                or.or(sets.get(j));
+                assertSelects(or, selections.get(i).or(selections.get(j)));
+            }
+        }
+        assertTrue(RowSelection.all(10).or(RowSelection.range(3, 10)).isAll());
+        assertTrue(RowSelection.range(5, 10).and(RowSelection.range(10, 20)).isEmpty());
+    }
+
+    @Test
+    void of_bitSetChoosesRunsOrBitmapsLikeTheRowArray() {
+        Random random = new Random(11);
+        BitSet dense = new BitSet();
+        dense.set(0, 300_000);
+        BitSet scattered = new BitSet();
+        for (int i = 0; i < 50_000; i++) {
+            scattered.set(random.nextInt(400_000));
+        }
+        BitSet runs = new BitSet();
+        runs.set(70_000, 140_000);
+        runs.set(200_000, 200_064);
+
+        for (BitSet bits : List.of(dense, scattered, runs, new BitSet())) {
+            assertSelects(bits, RowSelection.of(bits));
+        }
+        assertTrue(RowSelection.of(dense).isAll());
+        assertTrue(RowSelection.of(runs).toString().endsWith("in 2 runs]"));
+    }
+
+    @Test
+    void ofAscending_keepsAscendingRowsAndRejectsOtherOrders() {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 1_000; row < 50_000; row++) {
+            rows.add(row);
+        }
+        RowSelection selection = RowSelection.ofAscending(rows);
+
+        assertEquals(rows, selection.asList());
+        assertEquals(rows.hashCode(), selection.hashCode());
+        assertEquals(RowSelection.range(1_000, 50_000), selection);
+        assertSame(selection, RowSelection.ofAscending(selection.asList()));
+        assertNull(RowSelection.ofAscending(List.of(2, 1, 0)));
+        assertNull(RowSelection.ofAscending(List.of(0, 1, 1)));
+        assertTrue(RowSelection.ofAscending(List.of()).isEmpty());
+    }
+
+    private static void assertSelects(BitSet expected, RowSelection selection) {
+        assertEquals(expected.cardinality(), selection.cardinality());
+        assertArrayEquals(expected.stream().toArray(), selection.toArray());
+        PrimitiveIterator.OfInt rows = selection.iterator();
+        int rank = 0;
+        for (int row = expected.nextSetBit(0); row >= 0; row = expected.nextSetBit(row + 1), rank++) {
+            assertEquals(row, rows.nextInt());
+            if (rank % 101 == 0) {
+                assertEquals(row, selection.select(rank));
+                assertTrue(selection.contains(row));
+            }
+        }
+        assertFalse(rows.hasNext());
+        assertEquals(expected.length() - 1, selection.last());
+        assertEquals(RowSelection.of(expected.stream().toArray()), selection);
+    }
+}
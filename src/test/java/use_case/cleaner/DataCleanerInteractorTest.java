@@ -9,7 +9,9 @@ import entity.MissingCell;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import use_case.dataset.CurrentTableGateway;
+import use_case.dataset.DataSetEditJournal;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -641,6 +643,28 @@ class DataCleanerInteractorTest {
     }
 
 
+    @Test
+    void testEditsAreReportedToTheJournal() {
+        // Arrange
+        DataSet dataSet = createTestDataSet();
+        fakeGateway.setDataSet(dataSet);
+        TempEditJournal journal = new TempEditJournal();
+        interactor = new DataCleanerInteractor(fakeGateway, fakePresenter, journal);
+
+
+        // Act
+        interactor.cleanEditedCell(new DataCleaningInputData.EditedCellInputData(1, 1, " 41 "));
+        interactor.cleanEditedCell(new DataCleaningInputData.EditedCellInputData(0, 1, "not a number"));
+        interactor.editHeader(new DataCleaningInputData.HeaderEditInputData(0, "Age"));
+        interactor.editHeader(new DataCleaningInputData.HeaderEditInputData(2, "Town"));
+        interactor.cleanEntireDataSet();
+
+
+        // Assert: cleaned values are journaled, rejected header edits are not
+        assertEquals(List.of("cell 1,1=41", "cell 0,1=null", "header 2=Town", "rewritten"), journal.entries);
+    }
+
+
     // HELPER METHODS
     /**
      * Creates a test dataset with valid data:
@@ -1086,6 +1110,38 @@ class DataCleanerInteractorTest {
     }
 
 
+    /**
+     * Temp implementation of DataSetEditJournal that records what it was told.
+     */
+    private static class TempEditJournal implements DataSetEditJournal {
+        final List<String> entries = new ArrayList<>();
+
+
+        @Override
+        public void cellEdited(DataSet dataSet, int row, int column, String value) {
+            entries.add("cell " + row + "," + column + "=" + value);
+        }
+
+
+        @Override
+        public void headerEdited(DataSet dataSet, int column, String header) {
+            entries.add("header " + column + "=" + header);
+        }
+
+
+        @Override
+        public void dataSetRewritten(DataSet dataSet) {
+            entries.add("rewritten");
+        }
+
+
+        @Override
+        public void opened(Path file, DataSet dataSet) {
+            entries.add("opened " + file);
+        }
+    }
+
+
     /**
      * Temp implementation of DataCleaningOutputBoundary for testing.
      */
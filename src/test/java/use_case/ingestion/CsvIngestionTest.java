@@ -0,0 +1,190 @@
+package use_case.ingestion;
+
+import entity.DataSet;
+import entity.DataType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvIngestionTest {
+
+    @Test
+    void testStreamingLoaderRetypesColumnWhenSampleIsMisleading() throws IOException {
+        // the first two rows look numeric, the full column is categorical
+        String csv = "col\n1\n2\nred\ngreen\nblue\n";
+
+        DataSet table = new StreamingCsvLoader(2).load(new StringReader(csv));
+
+        assertEquals(DataType.CATEGORICAL, table.getColumns().get(0).getDataType());
+        assertEquals(List.of("1", "2", "red", "green", "blue"), table.getColumns().get(0).getCells());
+    }
+
+    @Test
+    void testParallelLoaderMatchesStreamingLoader(@TempDir Path tempDir) throws IOException {
+        StringBuilder csv = new StringBuilder("id,city,score,flag\n");
+        for (int i = 0; i < 5000; i++) {
+            String city = (i % 3 == 0) ? "Toronto" : "Boston";
+            // the score column turns categorical after the sample
+            String score = i < 2000 ? String.valueOf(i * 0.5) : "n/a" + i;
+            if (i % 97 == 0) {
+                csv.append(i).append(',').append(city).append('\n');
+            }
+            else {
+                csv.append(i).append(',').append(city).append(',').append(score).append(",true\n");
+            }
+        }
+        Path file = tempDir.resolve("big.csv");
+        Files.writeString(file, csv);
+
+        DataSet expected = new StreamingCsvLoader(100).load(new StringReader(csv.toString()));
+        DataSet actual = new ParallelCsvLoader(4, 100, 256).load(file);
+
+        assertEquals(expected.getRows().size(), actual.getRows().size());
+        for (int c = 0; c < expected.getColumns().size(); c++) {
+            assertEquals(expected.getColumns().get(c).getDataType(), actual.getColumns().get(c).getDataType());
+            assertEquals(expected.getColumns().get(c).getCells(), actual.getColumns().get(c).getCells());
+        }
+        for (int r = 0; r < expected.getRows().size(); r++) {
+            assertEquals(expected.getRows().get(r).getCells(), actual.getRows().get(r).getCells());
+        }
+        assertEquals(DataType.CATEGORICAL, actual.getColumns().get(2).getDataType());
+    }
+
+    @Test
+    void testParallelLoaderSplitsOutsideQuotedNewlines(@TempDir Path tempDir) throws IOException {
+        StringBuilder csv = new StringBuilder("id;note\n");
+        for (int i = 0; i < 3000; i++) {
+            // long quoted notes with embedded newlines, delimiters and escaped quotes
+            csv.append(i).append(";\"line one\nline; \"\"two\"\"\n").append("x".repeat(i % 50)).append("\"\n");
+        }
+        Path file = tempDir.resolve("quoted.csv");
+        Files.writeString(file, csv);
+
+        DataSet expected = new StreamingCsvLoader(100, ';').load(new StringReader(csv.toString()));
+        DataSet actual = new ParallelCsvLoader(4, 100, 256, ';').load(file);
+
+        assertEquals(3000, actual.getRows().size());
+        for (int r = 0; r < expected.getRows().size(); r++) {
+            assertEquals(expected.getRows().get(r).getCells(), actual.getRows().get(r).getCells());
+        }
+        assertEquals("line one\nline; \"two\"\nxxx", actual.getRows().get(3).getCells().get(1));
+    }
+
+    @Test
+    void testReadsFromInputStreamAndFileAlike(@TempDir Path tempDir) throws IOException {
+        String csv = "id,name\n1,\"Smith, J\"\n2,\"multi\nline\"\n";
+        Path file = tempDir.resolve("data.csv");
+        Files.writeString(file, csv);
+        CsvIngestion ingestion = new CsvIngestion(new IngestionOptions(2, 0));
+
+        DataSet fromStream = ingestion.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        DataSet fromFile = ingestion.read(file);
+
+        assertEquals(List.of("2", "multi\nline"), fromStream.getRows().get(1).getCells());
+        for (int r = 0; r < fromStream.getRows().size(); r++) {
+            assertEquals(fromStream.getRows().get(r).getCells(), fromFile.getRows().get(r).getCells());
+        }
+        assertNull(ingestion.read(new StringReader("")));
+    }
+
+    @Test
+    void testLoadersSampleRecordsAfterTheHead(@TempDir Path tempDir) throws IOException {
+        // the ward column is numeric in the 50 head rows and text everywhere after them
+        StringBuilder csv = new StringBuilder("id,ward\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(i).append(',').append(i < 50 ? String.valueOf(i) : "Ward " + i % 25).append('\n');
+        }
+        Path file = tempDir.resolve("wards.csv");
+        Files.writeString(file, csv);
+
+        List<RecordingInference> streamingStages = new ArrayList<>();
+        DataSet streamed = new StreamingCsvLoader(recording(streamingStages), ',')
+                .load(new StringReader(csv.toString()));
+        List<RecordingInference> parallelStages = new ArrayList<>();
+        DataSet parallel = new ParallelCsvLoader(4, recording(parallelStages), 4096, ',').load(file);
+
+        RecordingInference streaming = streamingStages.get(0);
+        assertEquals(20_000, streaming.sampled);
+        assertEquals(DataType.CATEGORICAL, streaming.lastSampleTypes.get(1));
+        // the ranges are built with the type seen in their sample, not the head's
+        RecordingInference ranges = parallelStages.get(0);
+        assertTrue(ranges.sampled > 50);
+        assertEquals(DataType.CATEGORICAL, ranges.partitionTypes.get(1));
+        for (DataSet table : List.of(streamed, parallel)) {
+            assertEquals(DataType.CATEGORICAL, table.getColumns().get(1).getDataType());
+            assertEquals("49", table.getColumns().get(1).getCells().get(49));
+            assertEquals("Ward 0", table.getColumns().get(1).getCells().get(19_975));
+        }
+    }
+
+    private static TypeInference.Factory recording(List<RecordingInference> stages) {
+        TypeInference.Factory sampled = SampledTypeInference.factory(50, 200);
+        return columnCount -> {
+            RecordingInference stage = new RecordingInference(sampled.create(columnCount));
+            stages.add(stage);
+            return stage;
+        };
+    }
+
+    /**
+     * Counts the records offered to a stage and keeps the sample types it reported.
+     */
+    private static final class RecordingInference implements TypeInference {
+        private final TypeInference delegate;
+        private int sampled;
+        private List<DataType> lastSampleTypes;
+        private List<DataType> partitionTypes;
+
+        RecordingInference(TypeInference delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void sample(String[] cells, int count) {
+            sampled++;
+            delegate.sample(cells, count);
+        }
+
+        @Override
+        public boolean needsSample() {
+            return delegate.needsSample();
+        }
+
+        @Override
+        public List<DataType> getSampleTypes() {
+            lastSampleTypes = delegate.getSampleTypes();
+            return lastSampleTypes;
+        }
+
+        @Override
+        public void confirm(String[] cells, int count) {
+            delegate.confirm(cells, count);
+        }
+
+        @Override
+        public List<DataType> getConfirmedTypes() {
+            return delegate.getConfirmedTypes();
+        }
+
+        @Override
+        public TypeInference newPartition() {
+            partitionTypes = delegate.getSampleTypes();
+            return delegate.newPartition();
+        }
+
+        @Override
+        public void merge(TypeInference partition) {
+            delegate.merge(partition);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package use_case.ingestion;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+/**
+ * Measures tokenizer throughput in MB/s against the former String.split approach.
+ * Run with: java -cp target/classes:target/test-classes use_case.ingestion.CsvRecordReaderBenchmark [rows]
+ */
+public class CsvRecordReaderBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final String plain = generate(rows, false);
+        final String quoted = generate(rows, true);
+
+        report("split(\",\") plain", plain, CsvRecordReaderBenchmark::split);
+        report("CsvRecordReader plain", plain, CsvRecordReaderBenchmark::tokenize);
+        report("CsvRecordReader quoted", quoted, CsvRecordReaderBenchmark::tokenize);
+    }
+
+    private static String generate(int rows, boolean quoted) {
+        final Random random = new Random(42);
+        final StringBuilder csv = new StringBuilder("id,name,amount,date,active,note\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(',')
+                    .append("Ward ").append(random.nextInt(25)).append(',')
+                    .append(random.nextInt(100_000) / 100.0).append(',')
+                    .append("2023-0").append(1 + random.nextInt(9)).append("-1").append(random.nextInt(10)).append(',')
+                    .append(random.nextBoolean()).append(',');
+            if (quoted) {
+                csv.append("\"Main St, Unit ").append(i).append("\nsaid \"\"ok\"\"\"");
+            }
+            else {
+                csv.append("Main St Unit ").append(i);
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static long split(String csv) {
+        long cells = 0;
+        for (String line : csv.split("\n", -1)) {
+            cells += line.split(",", -1).length;
+        }
+        return cells;
+    }
+
+    private static long tokenize(String csv) throws IOException {
+        final CsvRecordReader records = new CsvRecordReader(new StringReader(csv));
+        long cells = 0;
+        while (records.next()) {
+            cells += records.getCellCount();
+        }
+        return cells;
+    }
+
+    private static void report(String name, String csv, Parser parser) throws IOException {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            checksum += parser.parse(csv);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            checksum += parser.parse(csv);
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        final double megabytes = (double) csv.length() * MEASURED_ROUNDS / (1024 * 1024);
+        System.out.printf("%-24s %8.1f MB/s  (checksum %d)%n", name, megabytes / seconds, checksum);
+    }
+
+    @FunctionalInterface
+    private interface Parser {
+        long parse(String csv) throws IOException;
+    }
+}
@@ -0,0 +1,103 @@
+package use_case.ingestion;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    private static List<List<String>> readAll(String csv, char delimiter) throws IOException {
+        return readAll(new StringReader(csv), delimiter);
+    }
+
+    private static List<List<String>> readAll(Reader reader, char delimiter) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader, delimiter);
+        List<List<String>> result = new ArrayList<>();
+        while (records.next()) {
+            result.add(List.of(records.copyCells()));
+        }
+        return result;
+    }
+
+    @Test
+    void testPlainRecords() throws IOException {
+        List<List<String>> records = readAll("a,b,c\n1,,3\r\n\nx", ',');
+
+        assertEquals(List.of(
+                List.of("a", "b", "c"),
+                List.of("1", "", "3"),
+                List.of(""),
+                List.of("x")), records);
+    }
+
+    @Test
+    void testCarriageReturnAtEndOfStreamEndsTheRecord() throws IOException {
+        assertEquals(List.of(List.of("1", "", "3")), readAll("1,,3\r", ','));
+        assertEquals(List.of(List.of("a", "b"), List.of("1", "")), readAll("a,b\r\n1,\r", ','));
+        assertEquals(List.of(List.of("q", "quoted")), readAll("q,\"quoted\"\r", ','));
+        // only the last one is a terminator; one inside the record is data
+        assertEquals(List.of(List.of("a\rb")), readAll("a\rb", ','));
+    }
+
+    @Test
+    void testQuotedFields() throws IOException {
+        List<List<String>> records = readAll(
+                "name,comment\n\"Smith, J\",\"said \"\"hi\"\"\"\r\n\"\",\"multi\nline\r\ntext\"\r\n", ',');
+
+        assertEquals(List.of(
+                List.of("name", "comment"),
+                List.of("Smith, J", "said \"hi\""),
+                List.of("", "multi\nline\r\ntext")), records);
+    }
+
+    @Test
+    void testMalformedQuotesAreReadLeniently() throws IOException {
+        List<List<String>> records = readAll("\"ab\"cd,e\"f\n\"open,x\ny", ',');
+
+        assertEquals(List.of(
+                List.of("abcd", "e\"f"),
+                List.of("open,x\ny")), records);
+    }
+
+    @Test
+    void testConfigurableDelimiters() throws IOException {
+        assertEquals(List.of(List.of("a,b", "c")), readAll("a,b\tc", '\t'));
+        assertEquals(List.of(List.of("1,5", "x;y", "")), readAll("1,5;\"x;y\";", ';'));
+        assertEquals(List.of(List.of("a", "b|c")), readAll("a|\"b|c\"\n", '|'));
+        assertThrows(IllegalArgumentException.class, () -> new CsvRecordReader(new StringReader(""), '"'));
+    }
+
+    @Test
+    void testRecordsSpanningBufferRefills() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        String longValue = "v".repeat(100_000);
+        csv.append("\"").append(longValue).append("\n\"\",\"\"\"\"\",end\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(i).append(",\"q").append(i).append("\"\n");
+        }
+
+        // a reader that returns a few characters at a time
+        Reader slowReader = new StringReader(csv.toString()) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+        List<List<String>> records = readAll(slowReader, ',');
+
+        assertEquals(20_001, records.size());
+        assertEquals(List.of(longValue + "\n\",\"\"", "end"), records.get(0));
+        assertEquals(List.of("19999", "q19999"), records.get(20_000));
+    }
+
+    @Test
+    void testEmptyInputHasNoRecords() throws IOException {
+        assertTrue(readAll("", ',').isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package use_case.ingestion;
+
+import entity.DataType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypeInferenceTest {
+
+    // the regex and parser based classification the scanners replace
+    private static DataType classifyWithRegex(String cell) {
+        String value = cell.trim();
+        if (value.matches("-?\\d+(\\.\\d+)?")) {
+            return DataType.NUMERIC;
+        }
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return DataType.BOOLEAN;
+        }
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            LocalDate.parse(value, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            return DataType.DATE;
+        }
+        catch (DateTimeParseException ex) {
+            return DataType.CATEGORICAL;
+        }
+    }
+
+    @Test
+    void testScannerMatchesRegexClassification() {
+        List<String> cells = List.of("", "  ", "0", "-7", " 42 ", "3.25", "-0.5", "1.", ".5", "--1", "1e5",
+                "1,000", "NaN", "true", "FALSE", " True ", "yes", "2024-02-29", "2023-02-31", "2023-13-01",
+                "2023-00-10", "0000-01-01", "2023-1-01", "2023-01-01T00", "12345-01-01", "Toronto",
+                "-", "t", "2023/01/01", "\t2023-06-15\n");
+
+        for (String cell : cells) {
+            assertEquals(classifyWithRegex(cell), CellScanner.classify(cell), "cell: '" + cell + "'");
+        }
+        assertNull(CellScanner.classify(null));
+    }
+
+    @Test
+    void testSampleTypesComeFromHeadAndReservoir() {
+        SampledTypeInference inference = new SampledTypeInference(2, 10, 50, 7L);
+        for (int i = 0; i < 1000; i++) {
+            // the second column is numeric only in the leading rows
+            String second = i < 10 ? String.valueOf(i) : "ward " + i;
+            inference.sample(new String[] {String.valueOf(i), second}, 2);
+        }
+
+        assertFalse(inference.needsSample());
+        assertEquals(List.of(DataType.NUMERIC, DataType.CATEGORICAL), inference.getSampleTypes());
+    }
+
+    @Test
+    void testHeadOnlySampleIsCorrectedByConfirmation() {
+        TypeInference inference = SampledTypeInference.factory(3, 0).create(2);
+        String[][] records = {
+                {"1", "true"}, {"2", "false"}, {"3", "true"},
+                {"x", "2023-01-01"}, {"y", "2023-01-02"}, {"z", "2023-01-03"}, {"w", "2023-01-04"}
+        };
+        for (String[] record : records) {
+            if (inference.needsSample()) {
+                inference.sample(record, record.length);
+            }
+        }
+        for (String[] record : records) {
+            inference.confirm(record, record.length);
+        }
+
+        assertEquals(List.of(DataType.NUMERIC, DataType.BOOLEAN), inference.getSampleTypes());
+        assertEquals(List.of(DataType.CATEGORICAL, DataType.DATE), inference.getConfirmedTypes());
+    }
+
+    @Test
+    void testPartitionsMergeConfirmations() {
+        TypeInference inference = SampledTypeInference.factory(1, 0).create(1);
+        inference.sample(new String[] {"1"}, 1);
+        TypeInference first = inference.newPartition();
+        TypeInference second = inference.newPartition();
+        first.confirm(new String[] {"a"}, 1);
+        second.confirm(new String[] {"b"}, 1);
+        second.confirm(new String[] {"2"}, 1);
+
+        inference.merge(first);
+        inference.merge(second);
+
+        assertEquals(List.of(DataType.NUMERIC), second.getSampleTypes());
+        assertEquals(List.of(DataType.CATEGORICAL), inference.getConfirmedTypes());
+    }
+}
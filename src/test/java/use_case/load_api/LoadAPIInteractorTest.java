@@ -7,6 +7,10 @@ import entity.DataType;
 import org.junit.jupiter.api.Test;
 import use_case.dataset.CurrentTableGateway;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -215,4 +219,75 @@ class LoadAPIInteractorTest {
         // First row "x,y" → fill missing with ""
         assertEquals(List.of("x","y"), saved.getRows().get(0).getCells());
     }
+
+    @Test
+    void testQuotedFieldsAndEmptyResponse() {
+        String csv = "ward,address\n1,\"100 Queen St W, Toronto\"\n2,\"line one\nline two\"\n";
+
+        MockPresenter presenter = new MockPresenter();
+        MockGateway tableGateway = new MockGateway();
+        LoadApiInteractor interactor = new LoadApiInteractor(presenter, new MockAPIGateway(csv), tableGateway);
+
+        interactor.execute(new LoadApiInputData("dataset"));
+
+        assertTrue(presenter.successCalled);
+        assertEquals(2, tableGateway.saved.getRows().size());
+        assertEquals(List.of("1", "100 Queen St W, Toronto"), tableGateway.saved.getRows().get(0).getCells());
+        assertEquals(List.of("2", "line one\nline two"), tableGateway.saved.getRows().get(1).getCells());
+
+        MockPresenter emptyPresenter = new MockPresenter();
+        new LoadApiInteractor(emptyPresenter, new MockAPIGateway(""), new MockGateway())
+                .execute(new LoadApiInputData("dataset"));
+
+        assertTrue(emptyPresenter.failCalled);
+        assertEquals("Dataset is empty.", emptyPresenter.error);
+    }
+
+    @Test
+    void testStreamingGatewayIsParsedWithoutBuffering() {
+        LoadApiDataGateway streaming = new LoadApiDataGateway() {
+            @Override
+            public String getCsv(String datasetName) {
+                throw new AssertionError("the streaming load must not buffer the response");
+            }
+
+            @Override
+            public InputStream openCsv(String datasetName) {
+                return new ByteArrayInputStream("a,b\n1,x\n2,y\n".getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        MockPresenter presenter = new MockPresenter();
+        MockGateway tableGateway = new MockGateway();
+
+        new LoadApiInteractor(presenter, streaming, tableGateway).execute(new LoadApiInputData("dataset"));
+
+        assertTrue(presenter.successCalled);
+        assertEquals(List.of("2", "y"), tableGateway.saved.getRows().get(1).getCells());
+    }
+
+    @Test
+    void testStreamFailureMidDownload() {
+        LoadApiDataGateway failing = new LoadApiDataGateway() {
+            @Override
+            public String getCsv(String datasetName) {
+                return "";
+            }
+
+            @Override
+            public InputStream openCsv(String datasetName) {
+                return new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                };
+            }
+        };
+        MockPresenter presenter = new MockPresenter();
+
+        new LoadApiInteractor(presenter, failing, new MockGateway()).execute(new LoadApiInputData("dataset"));
+
+        assertTrue(presenter.failCalled);
+        assertEquals("Error: Connection reset", presenter.error);
+    }
 }
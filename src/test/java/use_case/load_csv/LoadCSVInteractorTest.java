@@ -5,10 +5,18 @@ import entity.DataRow;
 import entity.DataSet;
 import entity.DataType;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import use_case.dataset.CurrentTableGateway;
+import use_case.ingestion.IngestionOptions;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -144,4 +152,76 @@ class LoadCSVInteractorTest {
         // numeric wins because >= all others
         assertEquals(DataType.NUMERIC, col.getDataType());
     }
+
+    @Test
+    void testExecuteStreamsFromReader() {
+        MockPresenter presenter = new MockPresenter();
+        MockGateway gateway = new MockGateway();
+        LoadInteractor interactor = new LoadInteractor(presenter, gateway);
+
+        interactor.execute(new LoadInputData(new StringReader("a,b\r\n1,x\r\n2,y\r\n")));
+
+        assertTrue(presenter.successCalled);
+        assertEquals(2, gateway.saved.getRows().size());
+        assertEquals(List.of("2", "y"), gateway.saved.getRows().get(1).getCells());
+        assertEquals(DataType.NUMERIC, gateway.saved.getColumns().get(0).getDataType());
+    }
+
+    @Test
+    void testExecuteEmptyReaderFails() {
+        MockPresenter presenter = new MockPresenter();
+        MockGateway gateway = new MockGateway();
+        LoadInteractor interactor = new LoadInteractor(presenter, gateway);
+
+        interactor.execute(new LoadInputData(new StringReader("")));
+
+        assertTrue(presenter.failCalled);
+        assertEquals("File is empty", presenter.receivedError);
+        assertNull(gateway.saved);
+    }
+
+    @Test
+    void testExecuteLoadsFileInParallel(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("data.csv");
+        Files.writeString(file, "a,b\n1,x\n2,y\n3,z\n");
+        MockPresenter presenter = new MockPresenter();
+        MockGateway gateway = new MockGateway();
+        LoadInteractor interactor = new LoadInteractor(presenter, gateway, new IngestionOptions(2, 0));
+
+        interactor.execute(new LoadInputData(file));
+
+        assertTrue(presenter.successCalled);
+        assertEquals(3, gateway.saved.getRows().size());
+        assertEquals(List.of("3", "z"), gateway.saved.getRows().get(2).getCells());
+    }
+
+    @Test
+    void testExecuteDecompressesGzipFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("data.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write("a,b\n1,x\n2,y\n".getBytes());
+        }
+        MockPresenter presenter = new MockPresenter();
+        MockGateway gateway = new MockGateway();
+        LoadInteractor interactor = new LoadInteractor(presenter, gateway);
+
+        interactor.execute(new LoadInputData(file));
+
+        assertTrue(presenter.successCalled);
+        assertEquals("b", gateway.saved.getColumns().get(1).getHeader());
+        assertEquals(List.of("2", "y"), gateway.saved.getRows().get(1).getCells());
+    }
+
+    @Test
+    void testExecuteUsesConfiguredDelimiter() {
+        MockPresenter presenter = new MockPresenter();
+        MockGateway gateway = new MockGateway();
+        LoadInteractor interactor = new LoadInteractor(presenter, gateway, new IngestionOptions(1, 0, '\t'));
+
+        interactor.execute(new LoadInputData(new StringReader("a\tb\n1,5\t\"x\ty\"\n")));
+
+        assertTrue(presenter.successCalled);
+        assertEquals(List.of("a", "b"), gateway.saved.getColumns().stream().map(Column::getHeader).toList());
+        assertEquals(List.of("1,5", "x\ty"), gateway.saved.getRows().get(0).getCells());
+    }
 }
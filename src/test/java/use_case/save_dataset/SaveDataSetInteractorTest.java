@@ -7,7 +7,9 @@ import entity.DataType;
 import org.junit.jupiter.api.Test;
 import use_case.dataset.CurrentTableGateway;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -98,10 +100,130 @@ public class SaveDataSetInteractorTest {
         assertNull(fakePresenter.lastOutput, "Presenter should not be called when exception propagates");
     }
 
+    @Test
+    void execute_reportsProgressFromDataAccess() throws java.io.IOException {
+        CancellableDataAccess dataAccess = new CancellableDataAccess();
+        FakePresenter fakePresenter = new FakePresenter();
+        SaveDataSetInteractor interactor = new SaveDataSetInteractor(dataAccess, fakePresenter,
+                new FakeCurrentTableGateway(createSampleDataSet()));
+
+        interactor.execute(new SaveDataSetInputData("test_dataset"));
+
+        assertEquals(2, fakePresenter.progress.size());
+        SaveDataSetProgressData last = fakePresenter.progress.get(1);
+        assertEquals("test_dataset", last.getDatasetId());
+        assertEquals(20, last.getBytesWritten());
+        assertEquals(2, last.getRowsWritten());
+        assertEquals(2, last.getTotalRows());
+        assertTrue(fakePresenter.lastOutput.isSuccess());
+    }
+
+    @Test
+    void cancel_stopsRunningSaveAndReportsFailure() throws java.io.IOException {
+        CancellableDataAccess dataAccess = new CancellableDataAccess();
+        FakePresenter fakePresenter = new FakePresenter();
+        SaveDataSetInteractor interactor = new SaveDataSetInteractor(dataAccess, fakePresenter,
+                new FakeCurrentTableGateway(createSampleDataSet()));
+        dataAccess.afterFirstRow = interactor::cancel;
+
+        interactor.execute(new SaveDataSetInputData("test_dataset"));
+
+        assertEquals(1, fakePresenter.progress.size());
+        assertFalse(fakePresenter.lastOutput.isSuccess());
+        assertEquals("Save cancelled.", fakePresenter.lastOutput.getMessage());
+
+        // a cancellation does not carry over to the next save
+        dataAccess.afterFirstRow = () -> { };
+        interactor.execute(new SaveDataSetInputData("test_dataset"));
+        assertTrue(fakePresenter.lastOutput.isSuccess());
+    }
+
+    @Test
+    void cancel_betweenPrepareAndExecuteCancelsThatSave() throws java.io.IOException {
+        FakeDataAccess fakeDataAccess = new FakeDataAccess();
+        fakeDataAccess.editsJournaled = true;
+        FakePresenter fakePresenter = new FakePresenter();
+        SaveDataSetInteractor interactor = new SaveDataSetInteractor(fakeDataAccess, fakePresenter,
+                new FakeCurrentTableGateway(createSampleDataSet()));
+
+        interactor.prepare(new SaveDataSetInputData("test_dataset", true));
+        interactor.cancel();
+        interactor.execute(new SaveDataSetInputData("test_dataset", true));
+
+        assertFalse(fakeDataAccess.saveEditsCalled);
+        assertFalse(fakeDataAccess.saveCalled);
+        assertEquals("Save cancelled.", fakePresenter.lastOutput.getMessage());
+
+        // the next save starts with a flag of its own
+        interactor.prepare(new SaveDataSetInputData("test_dataset", true));
+        interactor.execute(new SaveDataSetInputData("test_dataset", true));
+        assertTrue(fakeDataAccess.saveEditsCalled);
+        assertTrue(fakePresenter.lastOutput.isSuccess());
+    }
+
+    @Test
+    void execute_incrementalWithJournaledEdits_skipsFullSave() throws java.io.IOException {
+        FakeDataAccess fakeDataAccess = new FakeDataAccess();
+        fakeDataAccess.editsJournaled = true;
+        FakePresenter fakePresenter = new FakePresenter();
+        SaveDataSetInteractor interactor = new SaveDataSetInteractor(fakeDataAccess, fakePresenter,
+                new FakeCurrentTableGateway(createSampleDataSet()));
+
+        interactor.execute(new SaveDataSetInputData("test_dataset", true));
+
+        assertTrue(fakeDataAccess.saveEditsCalled);
+        assertFalse(fakeDataAccess.saveCalled, "Journaled edits should not rewrite the dataset");
+        assertTrue(fakePresenter.lastOutput.isSuccess());
+        assertEquals("Edits saved successfully.", fakePresenter.lastOutput.getMessage());
+        assertTrue(fakePresenter.progress.isEmpty());
+    }
+
+    @Test
+    void execute_incrementalWithoutJournal_fallsBackToFullSave() throws java.io.IOException {
+        FakeDataAccess fakeDataAccess = new FakeDataAccess();
+        FakePresenter fakePresenter = new FakePresenter();
+        SaveDataSetInteractor interactor = new SaveDataSetInteractor(fakeDataAccess, fakePresenter,
+                new FakeCurrentTableGateway(createSampleDataSet()));
+
+        interactor.execute(new SaveDataSetInputData("test_dataset", true));
+
+        assertTrue(fakeDataAccess.saveEditsCalled);
+        assertTrue(fakeDataAccess.saveCalled);
+        assertEquals("Dataset saved successfully.", fakePresenter.lastOutput.getMessage());
+    }
+
+    @Test
+    void prepare_handsTheCurrentDataSetToTheDataAccess() {
+        DataSet sample = createSampleDataSet();
+        FakeDataAccess fakeDataAccess = new FakeDataAccess();
+        SaveDataSetInteractor interactor = new SaveDataSetInteractor(fakeDataAccess, new FakePresenter(),
+                new FakeCurrentTableGateway(sample));
+
+        interactor.prepare(new SaveDataSetInputData("test_dataset", true));
+
+        assertSame(sample, fakeDataAccess.preparedDataSet);
+        assertTrue(fakeDataAccess.preparedIncremental);
+
+        FakeDataAccess nothingLoaded = new FakeDataAccess();
+        new SaveDataSetInteractor(nothingLoaded, new FakePresenter(), new FakeCurrentTableGateway(null))
+                .prepare(new SaveDataSetInputData("test_dataset"));
+        assertNull(nothingLoaded.preparedDataSet);
+    }
+
     private static class FakeDataAccess implements SaveDataSetDataAccessInterface {
         boolean saveCalled = false;
         String lastId = null;
         DataSet lastDataSet = null;
+        boolean editsJournaled = false;
+        boolean saveEditsCalled = false;
+        DataSet preparedDataSet = null;
+        boolean preparedIncremental = false;
+
+        @Override
+        public void prepareSave(String id, DataSet dataSet, boolean incremental) {
+            preparedDataSet = dataSet;
+            preparedIncremental = incremental;
+        }
 
         @Override
         public void save(String id, DataSet dataSet) throws java.io.IOException {
@@ -109,25 +231,91 @@ public class SaveDataSetInteractorTest {
             lastId = id;
             lastDataSet = dataSet;
         }
+
+        @Override
+        public void save(String id, DataSet dataSet, SaveDataSetProgressListener listener) throws java.io.IOException {
+            save(id, dataSet);
+            listener.progress(42, dataSet.getRows().size());
+        }
+
+        @Override
+        public boolean saveEdits(String id, DataSet dataSet) {
+            saveEditsCalled = true;
+            return editsJournaled;
+        }
     }
 
     private static class ThrowingDataAccess implements SaveDataSetDataAccessInterface {
         boolean saveCalled = false;
 
+        @Override
+        public void prepareSave(String id, DataSet dataSet, boolean incremental) {
+            // nothing to copy
+        }
+
         @Override
         public void save(String id, DataSet dataSet) throws java.io.IOException {
             saveCalled = true;
             throw new java.io.IOException("disk full");
         }
+
+        @Override
+        public void save(String id, DataSet dataSet, SaveDataSetProgressListener listener) throws java.io.IOException {
+            save(id, dataSet);
+        }
+
+        @Override
+        public boolean saveEdits(String id, DataSet dataSet) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes one row at a time and gives up once the listener reports a cancellation.
+     */
+    private static class CancellableDataAccess implements SaveDataSetDataAccessInterface {
+        Runnable afterFirstRow = () -> { };
+
+        @Override
+        public void prepareSave(String id, DataSet dataSet, boolean incremental) {
+            // nothing to copy
+        }
+
+        @Override
+        public void save(String id, DataSet dataSet) {
+            // not needed for these tests
+        }
+
+        @Override
+        public void save(String id, DataSet dataSet, SaveDataSetProgressListener listener) throws java.io.IOException {
+            for (int row = 1; row <= dataSet.getRows().size(); row++) {
+                listener.progress(row * 10L, row);
+                afterFirstRow.run();
+                if (listener.isCancelled()) {
+                    throw new java.io.InterruptedIOException("Save cancelled");
+                }
+            }
+        }
+
+        @Override
+        public boolean saveEdits(String id, DataSet dataSet) {
+            return false;
+        }
     }
 
     private static class FakePresenter implements SaveDataSetOutputBoundary {
         SaveDataSetOutputData lastOutput = null;
+        List<SaveDataSetProgressData> progress = new ArrayList<>();
 
         @Override
         public void present(SaveDataSetOutputData outputData) {
             this.lastOutput = outputData;
         }
+
+        @Override
+        public void presentProgress(SaveDataSetProgressData progressData) {
+            progress.add(progressData);
+        }
     }
 
     private static class FakeCurrentTableGateway implements CurrentTableGateway {
@@ -1,8 +1,13 @@
 package use_case.search;
 
+import entity.ColumnarDataSetBuilder;
+import entity.DataSet;
+import entity.DataType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -268,6 +273,35 @@ class SearchInteractorTest {
         assertTrue(fakePresenter.outputData.isFound());
     }
 
+    @Test
+    void testExecute_SearchesCurrentDataSetByDictionaryCode() {
+        // Arrange
+        ColumnarDataSetBuilder builder = new ColumnarDataSetBuilder(
+                List.of("Industry", "Salary"), List.of(DataType.CATEGORICAL, DataType.NUMERIC));
+        builder.addRow(List.of("Finance", "100"));
+        builder.addRow(List.of("Technology", "200"));
+        builder.addRow(List.of("Technology", "300"));
+        DataSet dataSet = builder.build();
+        SearchInteractor dataSetInteractor = new SearchInteractor(fakePresenter, new use_case.dataset.CurrentTableGateway() {
+            @Override
+            public void save(DataSet table) {
+            }
+
+            @Override
+            public DataSet load() {
+                return dataSet;
+            }
+        });
+
+        // Act
+        dataSetInteractor.execute(new SearchInputData("TECH", null, 1, 0));
+
+        // Assert
+        assertTrue(fakePresenter.successViewCalled);
+        assertEquals(2, fakePresenter.outputData.getRow());
+        assertEquals(0, fakePresenter.outputData.getColumn());
+    }
+
     /**
      * Fake implementation of SearchOutputBoundary for testing.
      * Records method calls and captures data.
@@ -0,0 +1,68 @@
+package use_case.statistics;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the selection-based quantiles with sorting a boxed list, as the median used to be calculated.
+ * Run with: java -Xmx2g -cp target/classes:target/test-classes use_case.statistics.QuantileBenchmark [rows]
+ */
+public class QuantileBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        final double[] values = new double[rows];
+        final BitSet nulls = new BitSet(rows);
+        final Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            if (random.nextInt(20) == 0) {
+                nulls.set(i);
+                values[i] = Double.NaN;
+            }
+            else {
+                values[i] = 50_000 + random.nextGaussian() * 12_000;
+            }
+        }
+
+        long median = 0;
+        long several = 0;
+        double[] quantiles = null;
+        for (int i = 0; i <= ROUNDS; i++) {
+            long start = System.nanoTime();
+            final double middle = StatisticsCalculator.calculateQuantiles(values, nulls, 0.5)[0];
+            final long medianTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            quantiles = StatisticsCalculator.calculateQuantiles(values, nulls, 0.25, 0.5, 0.75, 0.9, 0.99);
+            final long severalTime = System.nanoTime() - start;
+
+            if (middle != quantiles[1]) {
+                throw new IllegalStateException("results differ");
+            }
+            // the first round is warm-up
+            if (i > 0) {
+                median += medianTime;
+                several += severalTime;
+            }
+        }
+        System.out.printf("%,d values, 5%% null (quartiles %.1f %.1f %.1f, p90 %.1f, p99 %.1f)%n", rows,
+                quantiles[0], quantiles[1], quantiles[2], quantiles[3], quantiles[4]);
+        System.out.printf("median                 %8.1f ms%n", median / 1e6 / ROUNDS);
+        System.out.printf("quartiles, p90 and p99 %8.1f ms%n", several / 1e6 / ROUNDS);
+
+        // the boxed sort is far slower, so it is timed once on a tenth of the values
+        final List<Double> boxed = new ArrayList<>(rows / 10);
+        for (int i = 0; i < rows / 10; i++) {
+            if (!nulls.get(i)) {
+                boxed.add(values[i]);
+            }
+        }
+        final long start = System.nanoTime();
+        Collections.sort(boxed);
+        System.out.printf("boxed sort of %,d      %8.1f ms%n", boxed.size(), (System.nanoTime() - start) / 1e6);
+    }
+}
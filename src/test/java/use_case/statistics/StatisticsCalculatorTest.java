@@ -0,0 +1,172 @@
+package use_case.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link StatisticsCalculator}.
+ */
+class StatisticsCalculatorTest {
+
+    @Test
+    void summarizeAgreesWithTheSeparateCalculations() {
+        Random random = new Random(8);
+        double[] values = new double[10_001];
+        BitSet nulls = new BitSet();
+        List<Double> boxed = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            // runs of nulls of varying length, including at both ends
+            if (i < 3 || i == values.length - 1 || random.nextInt(8) == 0) {
+                nulls.set(i);
+                values[i] = Double.NaN;
+                boxed.add(null);
+            }
+            else {
+                values[i] = 1e9 + random.nextGaussian() * 250;
+                boxed.add(values[i]);
+            }
+        }
+
+        StatisticsCalculator.ColumnStatistics statistics = StatisticsCalculator.summarize(values, nulls);
+
+        double mean = StatisticsCalculator.calculateMean(boxed);
+        assertEquals(StatisticsCalculator.countNonNull(boxed), statistics.getCount());
+        assertEquals(StatisticsCalculator.countNull(boxed), statistics.getNullCount());
+        assertEquals(mean, statistics.getMean(), 1e-6);
+        assertEquals(StatisticsCalculator.calculateStandardDeviation(boxed, mean),
+                statistics.getStandardDeviation(), 1e-6);
+        assertEquals(StatisticsCalculator.calculateMin(boxed), statistics.getMin());
+        assertEquals(StatisticsCalculator.calculateMax(boxed), statistics.getMax());
+        assertEquals(mean * statistics.getCount(), statistics.getSum(), statistics.getSum() * 1e-12);
+        assertTrue(statistics.getSumOfSquares() > statistics.getSum() * 1e9 * 0.99);
+    }
+
+    @Test
+    void summarizeHandlesMissingMaskAndTooFewValues() {
+        StatisticsCalculator.ColumnStatistics noMask = StatisticsCalculator.summarize(new double[] {2, 4, 9}, null);
+        assertEquals(3, noMask.getCount());
+        assertEquals(5.0, noMask.getMean());
+        assertEquals(13.0, noMask.getVariance(), 1e-12);
+        assertEquals(101.0, noMask.getSumOfSquares());
+
+        BitSet allNull = new BitSet();
+        allNull.set(0, 2);
+        StatisticsCalculator.ColumnStatistics none = StatisticsCalculator.summarize(new double[2], allNull);
+        assertEquals(0, none.getCount());
+        assertEquals(2, none.getNullCount());
+        assertEquals(0.0, none.getMin());
+        assertEquals(0.0, none.getStandardDeviation());
+
+        StatisticsCalculator.ColumnStatistics one = StatisticsCalculator.summarize(new double[] {7}, new BitSet());
+        assertEquals(7.0, one.getMax());
+        assertEquals(0.0, one.getVariance());
+    }
+
+    @Test
+    void primitiveOutlierDetectionMatchesTheListVersion() {
+        double[] values = new double[40];
+        Arrays.fill(values, 10.0);
+        values[5] = 11.0;
+        values[17] = 95.0;
+        values[30] = Double.NaN;
+        BitSet nulls = new BitSet();
+        nulls.set(30);
+        List<Double> boxed = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            boxed.add(nulls.get(i) ? null : values[i]);
+        }
+
+        List<StatisticsCalculator.OutlierInfo> outliers = StatisticsCalculator.detectOutliers(values, nulls,
+                StatisticsCalculator.summarize(values, nulls), 3.0);
+        List<StatisticsCalculator.OutlierInfo> expected = StatisticsCalculator.detectOutliers(boxed, 3.0);
+
+        assertEquals(1, outliers.size());
+        assertEquals(expected.get(0).getIndex(), outliers.get(0).getIndex());
+        assertEquals(expected.get(0).getZScore(), outliers.get(0).getZScore(), 1e-9);
+    }
+
+    @Test
+    void primitiveCorrelationMatchesTheListVersionWithPairwiseDeletion() {
+        Random random = new Random(20);
+        double[] x = new double[200];
+        double[] y = new double[200];
+        BitSet xNulls = new BitSet();
+        BitSet yNulls = new BitSet();
+        List<Double> boxedX = new ArrayList<>();
+        List<Double> boxedY = new ArrayList<>();
+        for (int i = 0; i < x.length; i++) {
+            x[i] = random.nextGaussian() * 10;
+            y[i] = x[i] * 0.5 + random.nextGaussian();
+            if (i % 7 == 0) {
+                xNulls.set(i);
+                x[i] = Double.NaN;
+            }
+            if (i % 11 == 0) {
+                yNulls.set(i);
+                y[i] = Double.NaN;
+            }
+            boxedX.add(xNulls.get(i) ? null : x[i]);
+            boxedY.add(yNulls.get(i) ? null : y[i]);
+        }
+
+        assertEquals(StatisticsCalculator.calculatePearsonCorrelation(boxedX, boxedY),
+                StatisticsCalculator.calculatePearsonCorrelation(x, xNulls, y, yNulls), 1e-12);
+        assertEquals(0.0, StatisticsCalculator.calculatePearsonCorrelation(new double[0], null,
+                new double[0], null));
+        assertEquals(0.0, StatisticsCalculator.calculatePearsonCorrelation(new double[] {1, 2}, null,
+                new double[] {3, 3}, null));
+    }
+
+    @Test
+    void quantilesMatchASortedCopy() {
+        Random random = new Random(12);
+        double[] probabilities = {0.0, 0.01, 0.25, 0.5, 0.75, 0.9, 0.99, 1.0};
+        for (int size : new int[] {1, 2, 3, 17, 1_000, 40_001}) {
+            for (int shape = 0; shape < 3; shape++) {
+                double[] values = new double[size];
+                for (int i = 0; i < size; i++) {
+                    // random, few distinct values, ascending
+                    values[i] = shape == 0 ? random.nextGaussian() : shape == 1 ? random.nextInt(4) : i;
+                }
+                double[] sorted = values.clone();
+                Arrays.sort(sorted);
+
+                double[] quantiles = StatisticsCalculator.calculateQuantiles(values, null, probabilities);
+
+                for (int q = 0; q < probabilities.length; q++) {
+                    double position = (size - 1) * probabilities[q];
+                    int below = (int) Math.floor(position);
+                    double high = sorted[Math.min(below + 1, size - 1)];
+                    double expected = sorted[below] + (position - below) * (high - sorted[below]);
+                    assertEquals(expected, quantiles[q], 1e-9, size + " values, p = " + probabilities[q]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void quantilesSkipNullsAndRankNaNLast() {
+        double[] values = {9, Double.NaN, 1, 100, 4, 6};
+        BitSet nulls = new BitSet();
+        nulls.set(3);
+
+        double[] quantiles = StatisticsCalculator.calculateQuantiles(values, nulls, 0.5, 0.25, 1.0);
+
+        // 1, 4, 6, 9, NaN
+        assertEquals(6.0, quantiles[0]);
+        assertEquals(4.0, quantiles[1]);
+        assertTrue(Double.isNaN(quantiles[2]));
+        assertArrayEquals(values, new double[] {9, Double.NaN, 1, 100, 4, 6});
+        assertEquals(5.0, StatisticsCalculator.calculateMedian(Arrays.asList(6.0, null, 1.0, 4.0, 9.0)));
+        assertEquals(0.0, StatisticsCalculator.calculateQuantiles(new double[] {3}, BitSet.valueOf(new long[] {1}), 0.5)[0]);
+        assertThrows(IllegalArgumentException.class,
+                () -> StatisticsCalculator.calculateQuantiles(values, null, 1.5));
+    }
+}
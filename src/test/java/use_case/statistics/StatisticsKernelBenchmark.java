@@ -0,0 +1,66 @@
+package use_case.statistics;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the fused single-pass statistics kernel with the separate per-metric calculations it replaces
+ * (count, mean, standard deviation, min and max over a boxed list).
+ * Run with: java -cp target/classes:target/test-classes use_case.statistics.StatisticsKernelBenchmark [rows]
+ */
+public class StatisticsKernelBenchmark {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        final double[] values = new double[rows];
+        final BitSet nulls = new BitSet(rows);
+        // the boxed list the interactor used to read, built once outside the timings
+        final List<Double> withNulls = new ArrayList<>(rows);
+        final Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            if (random.nextInt(20) == 0) {
+                nulls.set(i);
+                values[i] = Double.NaN;
+                withNulls.add(null);
+            }
+            else {
+                values[i] = 50_000 + random.nextGaussian() * 12_000;
+                withNulls.add(values[i]);
+            }
+        }
+
+        long separate = 0;
+        long fused = 0;
+        double check = 0;
+        for (int i = 0; i <= ROUNDS; i++) {
+            long start = System.nanoTime();
+            final long count = StatisticsCalculator.countNonNull(withNulls);
+            final double mean = StatisticsCalculator.calculateMean(withNulls);
+            final double stdDev = StatisticsCalculator.calculateStandardDeviation(withNulls, mean);
+            final double min = StatisticsCalculator.calculateMin(withNulls);
+            final double max = StatisticsCalculator.calculateMax(withNulls);
+            final long separateTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            final StatisticsCalculator.ColumnStatistics statistics = StatisticsCalculator.summarize(values, nulls);
+            final long fusedTime = System.nanoTime() - start;
+
+            if (count != statistics.getCount() || min != statistics.getMin() || max != statistics.getMax()
+                    || Math.abs(stdDev - statistics.getStandardDeviation()) > 1e-6 * stdDev) {
+                throw new IllegalStateException("results differ");
+            }
+            check += statistics.getMean();
+            // the first round is warm-up
+            if (i > 0) {
+                separate += separateTime;
+                fused += fusedTime;
+            }
+        }
+        System.out.printf("%,d values, 5%% null (mean %.1f)%n", rows, check / (ROUNDS + 1));
+        System.out.printf("separate list passes %8.1f ms%n", separate / 1e6 / ROUNDS);
+        System.out.printf("fused kernel         %8.1f ms%n", fused / 1e6 / ROUNDS);
+    }
+}
@@ -3,6 +3,7 @@ package use_case.statistics;
 import entity.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import use_case.dataset.CurrentTableGateway;
 import use_case.visualization.data.DataSubsetData;
 import use_case.visualization.gateway.DataSubsetGateway;
 import use_case.visualization.gateway.SummaryReportGateway;
@@ -20,6 +21,7 @@ class SummaryStatisticsInteractorTest {
     private TestDataSubsetGateway testDataSubsetGateway;
     private TestSummaryReportGateway testSummaryReportGateway;
     private TestPresenter testPresenter;
+    private TestCurrentTableGateway testCurrentTableGateway;
     private SummaryStatisticsInteractor interactor;
 
     @BeforeEach
@@ -27,11 +29,14 @@ class SummaryStatisticsInteractorTest {
         testDataSubsetGateway = new TestDataSubsetGateway();
         testSummaryReportGateway = new TestSummaryReportGateway();
         testPresenter = new TestPresenter();
+        testCurrentTableGateway = new TestCurrentTableGateway();
+        testCurrentTableGateway.save(createDataSet());
 
         interactor = new SummaryStatisticsInteractor(
                 testDataSubsetGateway,
                 testSummaryReportGateway,
-                testPresenter
+                testPresenter,
+                testCurrentTableGateway
         );
     }
 
@@ -57,14 +62,64 @@ class SummaryStatisticsInteractorTest {
         }
     }
 
+    private static class TestCurrentTableGateway implements CurrentTableGateway {
+        private DataSet table;
+
+        @Override
+        public void save(DataSet table) {
+            this.table = table;
+        }
+
+        @Override
+        public DataSet load() {
+            return table;
+        }
+    }
+
     private static class TestSummaryReportGateway implements SummaryReportGateway {
         private final List<SummaryReport> savedReports = new ArrayList<>();
+        private final Map<Long, SummaryReport> reportsByDataVersion = new HashMap<>();
+        private final Map<Long, Long> fingerprintsByDataVersion = new HashMap<>();
 
         @Override
         public void save(SummaryReport report) {
             savedReports.add(report);
         }
 
+        @Override
+        public void save(SummaryReport report, long dataVersion, long fingerprint) {
+            savedReports.add(report);
+            reportsByDataVersion.put(dataVersion, report);
+            fingerprintsByDataVersion.put(dataVersion, fingerprint);
+        }
+
+        @Override
+        public SummaryReport getByDataVersion(long dataVersion) {
+            return reportsByDataVersion.get(dataVersion);
+        }
+
+        @Override
+        public Long getFingerprint(long dataVersion) {
+            return fingerprintsByDataVersion.get(dataVersion);
+        }
+
+        /**
+         * Replaces the value of one metric in every stored report, to tell a reused report from a new one.
+         */
+        void replaceStoredValue(MetricType type, double value) {
+            for (Map.Entry<Long, SummaryReport> entry : reportsByDataVersion.entrySet()) {
+                SummaryReport stored = entry.getValue();
+                List<SummaryMetric> metrics = new ArrayList<>();
+                for (SummaryMetric metric : stored.getSummaryMetrics()) {
+                    metrics.add(metric.getMetricType() == type
+                            ? new ScalarSummaryMetrics(type, metric.getSelectedSubset(), value)
+                            : metric);
+                }
+                entry.setValue(new SummaryReport(stored.getSummaryId(), stored.getReportName(),
+                        stored.getSelectedSubset(), metrics));
+            }
+        }
+
         @Override
         public SummaryReport getById(int reportId) {
             return savedReports.stream()
@@ -195,6 +250,157 @@ class SummaryStatisticsInteractorTest {
         assertTrue(testPresenter.wasSuccessCalled());
     }
 
+    @Test
+    void testExecute_sameDataTwice_reusesStoredMetrics() {
+        Map<String, List<Double>> numericData = new HashMap<>();
+        numericData.put("Age", Arrays.asList(25.0, 30.0, 35.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(numericData, new HashMap<>()));
+
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        SummaryReport first = testSummaryReportGateway.getLastSavedReport();
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        SummaryReport second = testSummaryReportGateway.getLastSavedReport();
+
+        assertNotSame(first, second);
+        assertEquals(first.getSummaryMetrics().size(), second.getSummaryMetrics().size());
+        for (int i = 0; i < first.getSummaryMetrics().size(); i++) {
+            ScalarSummaryMetrics stored = (ScalarSummaryMetrics) first.getSummaryMetrics().get(i);
+            ScalarSummaryMetrics reused = (ScalarSummaryMetrics) second.getSummaryMetrics().get(i);
+            assertEquals(stored.getMetricType(), reused.getMetricType());
+            assertEquals(stored.getMetricValue(), reused.getMetricValue());
+        }
+    }
+
+    @Test
+    void testExecute_reusedMetricsDescribeTheCurrentSubset() {
+        Map<String, List<Double>> numericData = new HashMap<>();
+        numericData.put("Age", Arrays.asList(25.0, 30.0, 35.0));
+        numericData.put("Salary", Arrays.asList(50000.0, 60000.0, 70000.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(numericData, new HashMap<>()));
+        interactor.execute(createValidInputData(List.of("Age", "Salary"), List.of(0, 1, 2)));
+
+        interactor.execute(new SummaryStatisticsInputData(1, "Test Report", "other-dataset",
+                List.of("Age", "Salary"), List.of(0, 1, 2), List.of(ColumnFilter.greaterOrEqual("Age", 0))));
+        SummaryReport second = testSummaryReportGateway.getLastSavedReport();
+
+        for (SummaryMetric metric : second.getSummaryMetrics()) {
+            DataSubsetSpec spec = metric.getSelectedSubset();
+            assertEquals("other-dataset", spec.getSubsetId());
+            assertEquals(second.getSelectedSubset().getFilters(), spec.getFilters());
+            if (metric instanceof ScalarSummaryMetrics) {
+                assertEquals(1, spec.getColumnNames().size());
+            }
+            else {
+                assertSame(second.getSelectedSubset(), spec);
+            }
+        }
+    }
+
+    @Test
+    void testExecute_storedReportWithoutEveryMetric_recalculatesMetrics() {
+        Map<String, List<Double>> numericData = new HashMap<>();
+        numericData.put("Age", Arrays.asList(25.0, 30.0, 35.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(numericData, new HashMap<>()));
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        SummaryReport first = testSummaryReportGateway.getLastSavedReport();
+
+        // as stored before P90 and P99 were added
+        List<SummaryMetric> older = new ArrayList<>();
+        for (SummaryMetric metric : first.getSummaryMetrics()) {
+            if (metric.getMetricType() != MetricType.P90 && metric.getMetricType() != MetricType.P99) {
+                older.add(metric);
+            }
+        }
+        for (Map.Entry<Long, SummaryReport> entry : testSummaryReportGateway.reportsByDataVersion.entrySet()) {
+            entry.setValue(new SummaryReport(first.getSummaryId(), first.getReportName(),
+                    first.getSelectedSubset(), older));
+        }
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        SummaryReport second = testSummaryReportGateway.getLastSavedReport();
+
+        assertTrue(second.getSummaryMetrics().stream().anyMatch(m -> m.getMetricType() == MetricType.P90));
+        assertTrue(second.getSummaryMetrics().stream().anyMatch(m -> m.getMetricType() == MetricType.P99));
+    }
+
+    @Test
+    void testExecute_unchangedDataSet_reusesStoredMetricsWithoutReadingTheValues() {
+        Map<String, List<Double>> numericData = new HashMap<>();
+        numericData.put("Age", Arrays.asList(25.0, 30.0, 35.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(numericData, new HashMap<>()));
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+
+        // the dataset was not edited, so the values are not looked at again
+        Map<String, List<Double>> otherData = new HashMap<>();
+        otherData.put("Age", Arrays.asList(1.0, 2.0, 3.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(otherData, new HashMap<>()));
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+
+        assertEquals(30.0, metricValue(testSummaryReportGateway.getLastSavedReport(), MetricType.MEAN));
+    }
+
+    @Test
+    void testExecute_changedData_recalculatesMetrics() {
+        Map<String, List<Double>> numericData = new HashMap<>();
+        numericData.put("Age", Arrays.asList(25.0, 30.0, 35.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(numericData, new HashMap<>()));
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        SummaryReport first = testSummaryReportGateway.getLastSavedReport();
+
+        Map<String, List<Double>> editedData = new HashMap<>();
+        editedData.put("Age", Arrays.asList(25.0, null, 35.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(editedData, new HashMap<>()));
+        testCurrentTableGateway.load().setCell("", 1, 0);
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        SummaryReport second = testSummaryReportGateway.getLastSavedReport();
+
+        assertNotSame(first.getSummaryMetrics(), second.getSummaryMetrics());
+        assertEquals(30.0, metricValue(second, MetricType.MEAN));
+        assertEquals(2.0, metricValue(second, MetricType.COUNT));
+    }
+
+    @Test
+    void testExecute_reportOfAnotherDataSet_isCheckedAgainstTheValues() {
+        Map<String, List<Double>> numericData = new HashMap<>();
+        numericData.put("Age", Arrays.asList(25.0, 30.0, 35.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(numericData, new HashMap<>()));
+        interactor.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+
+        // as after a restart: another dataset with the same edit count, but other values
+        TestCurrentTableGateway reloaded = new TestCurrentTableGateway();
+        reloaded.save(createDataSet());
+        SummaryStatisticsInteractor restarted = new SummaryStatisticsInteractor(testDataSubsetGateway,
+                testSummaryReportGateway, testPresenter, reloaded);
+        Map<String, List<Double>> otherData = new HashMap<>();
+        otherData.put("Age", Arrays.asList(1.0, 2.0, 3.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(otherData, new HashMap<>()));
+        restarted.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        assertEquals(2.0, metricValue(testSummaryReportGateway.getLastSavedReport(), MetricType.MEAN));
+
+        // the same values pass the check, so the stored report is used
+        testSummaryReportGateway.replaceStoredValue(MetricType.MEAN, 99.0);
+        reloaded.save(createDataSet());
+        restarted.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+        assertEquals(99.0, metricValue(testSummaryReportGateway.getLastSavedReport(), MetricType.MEAN));
+    }
+
+    @Test
+    void testExecute_withoutCurrentTable_neverReusesStoredMetrics() {
+        SummaryStatisticsInteractor detached = new SummaryStatisticsInteractor(testDataSubsetGateway,
+                testSummaryReportGateway, testPresenter);
+        Map<String, List<Double>> numericData = new HashMap<>();
+        numericData.put("Age", Arrays.asList(25.0, 30.0, 35.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(numericData, new HashMap<>()));
+        detached.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+
+        Map<String, List<Double>> otherData = new HashMap<>();
+        otherData.put("Age", Arrays.asList(1.0, 2.0, 3.0));
+        testDataSubsetGateway.setDataToReturn(new DataSubsetData(otherData, new HashMap<>()));
+        detached.execute(createValidInputData(List.of("Age"), List.of(0, 1, 2)));
+
+        assertEquals(2.0, metricValue(testSummaryReportGateway.getLastSavedReport(), MetricType.MEAN));
+        assertTrue(testSummaryReportGateway.fingerprintsByDataVersion.isEmpty());
+    }
+
     // Validation Tests
     @Test
     void testExecute_nullInput_failsValidation() {
@@ -476,6 +682,15 @@ class SummaryStatisticsInteractorTest {
         assertTrue(metricTypes.contains(MetricType.MEDIAN));
         assertTrue(metricTypes.contains(MetricType.MIN));
         assertTrue(metricTypes.contains(MetricType.MAX));
+        assertTrue(metricTypes.contains(MetricType.P99));
+
+        // rank 0.9 * 9 = 8.1 lies a tenth of the way from 90000 to 95000
+        for (SummaryMetric metric : report.getSummaryMetrics()) {
+            if (metric.getMetricType() == MetricType.P90
+                    && metric.getSelectedSubset().getColumnNames().equals(List.of("Salary"))) {
+                assertEquals(90500.0, ((ScalarSummaryMetrics) metric).getMetricValue(), 1e-9);
+            }
+        }
     }
 
     @Test
@@ -495,7 +710,25 @@ class SummaryStatisticsInteractorTest {
         assertEquals(3, outputData.getNumRows());
     }
 
-    // Helper method
+    // Helper methods
+    private static DataSet createDataSet() {
+        Column column = new Column(new ArrayList<>(List.of("25", "30", "35")), DataType.NUMERIC, "Age");
+        List<DataRow> rows = new ArrayList<>();
+        for (String value : column.getCells()) {
+            rows.add(new DataRow(new ArrayList<>(List.of(value))));
+        }
+        return new DataSet(rows, new ArrayList<>(List.of(column)));
+    }
+
+    private static double metricValue(SummaryReport report, MetricType type) {
+        for (SummaryMetric metric : report.getSummaryMetrics()) {
+            if (metric.getMetricType() == type) {
+                return ((ScalarSummaryMetrics) metric).getMetricValue();
+            }
+        }
+        throw new AssertionError("No " + type + " metric");
+    }
+
     private SummaryStatisticsInputData createValidInputData(List<String> columnNames, List<Integer> rowIndices) {
         return new SummaryStatisticsInputData(1, "Test Report", "test-dataset", columnNames, rowIndices);
     }
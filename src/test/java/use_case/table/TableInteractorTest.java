@@ -94,6 +94,8 @@ class DisplayTableInteractorTest {
         // Assert
         assertTrue(fakePresenter.successViewCalled);
         assertArrayEquals(new String[]{"Name", "Age", "City"}, fakePresenter.outputData.getHeaders());
+        // the view reads the cells of the dataset itself rather than a copy
+        assertSame(fakeGateway.dataSet, fakePresenter.outputData.getDataSet());
 
         String[][] rowData = fakePresenter.outputData.getRowData();
         assertEquals(3, rowData.length);
@@ -568,6 +568,21 @@ class VisualizationInteractorTest {
         public void save(SummaryReport report) {
             // Not used in tests
         }
+
+        @Override
+        public void save(SummaryReport report, long dataVersion, long fingerprint) {
+            // Not used in tests
+        }
+
+        @Override
+        public SummaryReport getByDataVersion(long dataVersion) {
+            return null;
+        }
+
+        @Override
+        public Long getFingerprint(long dataVersion) {
+            return null;
+        }
     }
 
     private static class FakePresenter implements VisualizationOutputBoundary {